@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.benchmarks.aggregator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.integration.aggregator.AggregatingMessageHandler;
+import org.springframework.integration.aggregator.DefaultAggregatingMessageGroupProcessor;
+import org.springframework.integration.aggregator.ResequencingMessageGroupProcessor;
+import org.springframework.integration.aggregator.ResequencingMessageHandler;
+import org.springframework.integration.channel.NullChannel;
+import org.springframework.integration.store.SimpleMessageStore;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+
+/**
+ * Throughput of complete correlation groups through an {@link AggregatingMessageHandler}
+ * and a {@link ResequencingMessageHandler} backed by the {@link SimpleMessageStore}.
+ * One operation is one full group: {@code groupSize} messages in, one release out.
+ *
+ * @since 5.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AggregatorBenchmarks {
+
+	@Param({ "10", "100", "1000" })
+	public int groupSize;
+
+	private final List<Message<?>> group = new ArrayList<>();
+
+	private final List<Message<?>> reversedGroup = new ArrayList<>();
+
+	private AggregatingMessageHandler aggregator;
+
+	private ResequencingMessageHandler resequencer;
+
+	@Setup
+	public void setup() {
+		for (int i = 1; i <= this.groupSize; i++) {
+			this.group.add(MessageBuilder.withPayload(i)
+					.pushSequenceDetails("group", i, this.groupSize)
+					.build());
+		}
+		for (int i = this.groupSize - 1; i >= 0; i--) {
+			this.reversedGroup.add(this.group.get(i));
+		}
+
+		this.aggregator = new AggregatingMessageHandler(new DefaultAggregatingMessageGroupProcessor(),
+				new SimpleMessageStore());
+		this.aggregator.setExpireGroupsUponCompletion(true);
+		this.aggregator.setOutputChannel(new NullChannel());
+		this.aggregator.afterPropertiesSet();
+
+		this.resequencer = new ResequencingMessageHandler(new ResequencingMessageGroupProcessor(),
+				new SimpleMessageStore());
+		this.resequencer.setOutputChannel(new NullChannel());
+		this.resequencer.afterPropertiesSet();
+	}
+
+	@Benchmark
+	public void aggregatorRelease() {
+		for (Message<?> message : this.group) {
+			this.aggregator.handleMessage(message);
+		}
+	}
+
+	@Benchmark
+	public void resequencerReleaseReversed() {
+		for (Message<?> message : this.reversedGroup) {
+			this.resequencer.handleMessage(message);
+		}
+	}
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.benchmarks.channel;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.channel.ExecutorChannel;
+import org.springframework.integration.channel.FluxMessageChannel;
+import org.springframework.integration.channel.PriorityChannel;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.util.CallerBlocksPolicy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.GenericMessage;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Send/receive throughput of the core channel implementations.
+ * <p>
+ * Run with the {@code gc} profiler (the default for this module) to see the
+ * {@code gc.alloc.rate.norm} - bytes allocated per message - next to the throughput.
+ *
+ * @since 5.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChannelBenchmarks {
+
+	private final Message<String> message = new GenericMessage<>("test");
+
+	private final Message<String> priorityMessage =
+			MessageBuilder.withPayload("test")
+					.setHeader(IntegrationMessageHeaderAccessor.PRIORITY, 5)
+					.build();
+
+	private final AtomicLong handled = new AtomicLong();
+
+	private DirectChannel directChannel;
+
+	private ExecutorChannel executorChannel;
+
+	private ThreadPoolExecutor executor;
+
+	private QueueChannel queueChannel;
+
+	private QueueChannel contendedQueueChannel;
+
+	private PriorityChannel priorityChannel;
+
+	private PriorityChannel bucketedPriorityChannel;
+
+	private FluxMessageChannel fluxMessageChannel;
+
+	@Setup
+	public void setup() throws Exception {
+		this.directChannel = new DirectChannel();
+		this.directChannel.subscribe(m -> this.handled.lazySet(1));
+		this.directChannel.afterPropertiesSet();
+
+		this.executor = new ThreadPoolExecutor(4, 4, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1024),
+				new CallerBlocksPolicy(Long.MAX_VALUE));
+		this.executorChannel = new ExecutorChannel(this.executor);
+		this.executorChannel.subscribe(m -> this.handled.lazySet(2));
+		this.executorChannel.afterPropertiesSet();
+
+		this.queueChannel = new QueueChannel();
+		this.queueChannel.afterPropertiesSet();
+
+		this.contendedQueueChannel = new QueueChannel(1024);
+		this.contendedQueueChannel.afterPropertiesSet();
+
+		this.priorityChannel = new PriorityChannel();
+		this.priorityChannel.afterPropertiesSet();
+
+		this.bucketedPriorityChannel = new PriorityChannel(0, 0, 9);
+		this.bucketedPriorityChannel.afterPropertiesSet();
+
+		this.fluxMessageChannel = new FluxMessageChannel();
+		this.fluxMessageChannel.afterPropertiesSet();
+		Flux.from(this.fluxMessageChannel)
+				.subscribe(m -> this.handled.lazySet(3));
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.executor.shutdownNow();
+	}
+
+	@Benchmark
+	public boolean directChannelSend() {
+		return this.directChannel.send(this.message);
+	}
+
+	@Benchmark
+	public boolean executorChannelSend() {
+		return this.executorChannel.send(this.message);
+	}
+
+	@Benchmark
+	public Message<?> queueChannelSendReceive() {
+		this.queueChannel.send(this.message);
+		return this.queueChannel.receive(0);
+	}
+
+	@Benchmark
+	public Message<?> priorityChannelSendReceive() {
+		this.priorityChannel.send(this.priorityMessage);
+		return this.priorityChannel.receive(0);
+	}
+
+	@Benchmark
+	public Message<?> bucketedPriorityChannelSendReceive() {
+		this.bucketedPriorityChannel.send(this.priorityMessage);
+		return this.bucketedPriorityChannel.receive(0);
+	}
+
+	@Benchmark
+	public boolean fluxMessageChannelSend() {
+		return this.fluxMessageChannel.send(this.message);
+	}
+
+	@Benchmark
+	@Group("contendedQueueChannel")
+	@GroupThreads(4)
+	public boolean contendedQueueChannelSend() {
+		return this.contendedQueueChannel.send(this.message, 10);
+	}
+
+	@Benchmark
+	@Group("contendedQueueChannel")
+	@GroupThreads(4)
+	public Message<?> contendedQueueChannelReceive() {
+		return this.contendedQueueChannel.receive(10);
+	}
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.benchmarks.channel;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.channel.NullChannel;
+import org.springframework.integration.channel.interceptor.WireTap;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.GenericMessage;
+
+/**
+ * The overhead of {@link ChannelInterceptor ChannelInterceptors} on the send path.
+ * With the {@code gc} profiler the {@code gc.alloc.rate.norm} of the intercepted
+ * benchmarks is expected to be the same as for {@link #noInterceptors()}:
+ * the channel must not allocate per message to track the applied interceptors.
+ *
+ * @since 5.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChannelInterceptorBenchmarks {
+
+	private final Message<String> message = new GenericMessage<>("test");
+
+	private DirectChannel plainChannel;
+
+	private DirectChannel interceptedChannel;
+
+	private DirectChannel wireTappedChannel;
+
+	@Setup
+	public void setup() throws Exception {
+		this.plainChannel = createChannel();
+
+		this.interceptedChannel = createChannel();
+		for (int i = 0; i < 3; i++) {
+			this.interceptedChannel.addInterceptor(new PassThroughInterceptor());
+		}
+
+		this.wireTappedChannel = createChannel();
+		this.wireTappedChannel.addInterceptor(new WireTap(new NullChannel()));
+	}
+
+	@Benchmark
+	public boolean noInterceptors() {
+		return this.plainChannel.send(this.message);
+	}
+
+	@Benchmark
+	public boolean threeInterceptors() {
+		return this.interceptedChannel.send(this.message);
+	}
+
+	@Benchmark
+	public boolean wireTap() {
+		return this.wireTappedChannel.send(this.message);
+	}
+
+	private static DirectChannel createChannel() throws Exception {
+		DirectChannel channel = new DirectChannel();
+		channel.subscribe(m -> { });
+		channel.afterPropertiesSet();
+		return channel;
+	}
+
+	private static final class PassThroughInterceptor implements ChannelInterceptor {
+
+		PassThroughInterceptor() {
+			super();
+		}
+
+		@Override
+		public Message<?> preSend(Message<?> message, MessageChannel channel) {
+			return message;
+		}
+
+		@Override
+		public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+			// no-op
+		}
+
+	}
+
+}
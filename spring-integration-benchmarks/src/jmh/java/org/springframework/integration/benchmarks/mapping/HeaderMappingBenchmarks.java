@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.benchmarks.mapping;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.integration.amqp.support.DefaultAmqpHeaderMapper;
+import org.springframework.integration.mapping.AbstractHeaderMapper;
+import org.springframework.messaging.MessageHeaders;
+
+/**
+ * Cost of mapping a typical set of standard and user headers through an
+ * {@link AbstractHeaderMapper} implementation in both directions.
+ *
+ * @since 5.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeaderMappingBenchmarks {
+
+	private final DefaultAmqpHeaderMapper inboundMapper = DefaultAmqpHeaderMapper.inboundMapper();
+
+	private final DefaultAmqpHeaderMapper outboundMapper = DefaultAmqpHeaderMapper.outboundMapper();
+
+	private MessageHeaders headers;
+
+	private MessageProperties messageProperties;
+
+	@Setup
+	public void setup() {
+		this.inboundMapper.setRequestHeaderNames(AbstractHeaderMapper.STANDARD_REQUEST_HEADER_NAME_PATTERN, "*");
+		this.outboundMapper.setRequestHeaderNames(AbstractHeaderMapper.STANDARD_REQUEST_HEADER_NAME_PATTERN, "*");
+
+		Map<String, Object> headers = new HashMap<>();
+		for (int i = 0; i < 10; i++) {
+			headers.put("header" + i, "value" + i);
+		}
+		headers.put(MessageHeaders.CONTENT_TYPE, "text/plain");
+		this.headers = new MessageHeaders(headers);
+
+		this.messageProperties = new MessageProperties();
+		this.outboundMapper.fromHeadersToRequest(this.headers, this.messageProperties);
+	}
+
+	@Benchmark
+	public MessageProperties fromHeaders() {
+		MessageProperties target = new MessageProperties();
+		this.outboundMapper.fromHeadersToRequest(this.headers, target);
+		return target;
+	}
+
+	@Benchmark
+	public Map<String, Object> toHeaders() {
+		return this.inboundMapper.toHeadersFromRequest(this.messageProperties);
+	}
+
+}
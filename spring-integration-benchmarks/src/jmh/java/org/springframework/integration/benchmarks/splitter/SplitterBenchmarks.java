@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.benchmarks.splitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.integration.channel.NullChannel;
+import org.springframework.integration.splitter.DefaultMessageSplitter;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.GenericMessage;
+
+/**
+ * Fan-out cost of the {@link DefaultMessageSplitter} for collection payloads:
+ * one operation splits a single message into {@code fanOut} messages with sequence details.
+ *
+ * @since 5.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SplitterBenchmarks {
+
+	@Param({ "10", "100", "1000" })
+	public int fanOut;
+
+	private Message<List<Integer>> message;
+
+	private DefaultMessageSplitter splitter;
+
+	@Setup
+	public void setup() {
+		List<Integer> payload = new ArrayList<>(this.fanOut);
+		for (int i = 0; i < this.fanOut; i++) {
+			payload.add(i);
+		}
+		this.message = new GenericMessage<>(payload);
+
+		this.splitter = new DefaultMessageSplitter();
+		this.splitter.setOutputChannel(new NullChannel());
+		this.splitter.afterPropertiesSet();
+	}
+
+	@Benchmark
+	public void split() {
+		this.splitter.handleMessage(this.message);
+	}
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.benchmarks.store;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.integration.codec.kryo.MessageCodec;
+import org.springframework.integration.jdbc.store.JdbcChannelMessageStore;
+import org.springframework.integration.jdbc.store.channel.H2ChannelMessageStoreQueryProvider;
+import org.springframework.integration.store.LogStructuredChannelMessageStore;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.GenericMessage;
+
+/**
+ * Add/poll round trips through the {@link LogStructuredChannelMessageStore} (with and
+ * without forcing each add to disk) and the {@link JdbcChannelMessageStore} on an
+ * embedded H2 database.
+ *
+ * @since 5.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChannelMessageStoreBenchmarks {
+
+	private final Message<String> message = new GenericMessage<>("test");
+
+	private File directory;
+
+	private LogStructuredChannelMessageStore logStore;
+
+	private LogStructuredChannelMessageStore forcingLogStore;
+
+	private EmbeddedDatabase database;
+
+	private JdbcChannelMessageStore jdbcStore;
+
+	@Setup
+	public void setup() throws Exception {
+		this.directory = Files.createTempDirectory("log-store").toFile();
+
+		this.logStore = new LogStructuredChannelMessageStore(new File(this.directory, "async"), new MessageCodec());
+		this.logStore.setForceOnAdd(false);
+		this.logStore.afterPropertiesSet();
+
+		this.forcingLogStore =
+				new LogStructuredChannelMessageStore(new File(this.directory, "forced"), new MessageCodec());
+		this.forcingLogStore.afterPropertiesSet();
+
+		this.database = new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.H2)
+				.addScript("classpath:org/springframework/integration/jdbc/schema-h2.sql")
+				.build();
+		this.jdbcStore = new JdbcChannelMessageStore(this.database);
+		this.jdbcStore.setChannelMessageStoreQueryProvider(new H2ChannelMessageStoreQueryProvider());
+		this.jdbcStore.afterPropertiesSet();
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.logStore.destroy();
+		this.forcingLogStore.destroy();
+		this.database.shutdown();
+		for (File subDirectory : this.directory.listFiles()) {
+			for (File segment : subDirectory.listFiles()) {
+				segment.delete();
+			}
+			subDirectory.delete();
+		}
+		this.directory.delete();
+	}
+
+	@Benchmark
+	public Message<?> logStoreAddPoll() {
+		this.logStore.addMessageToGroup("channel", this.message);
+		return this.logStore.pollMessageFromGroup("channel");
+	}
+
+	@Benchmark
+	public Message<?> forcingLogStoreAddPoll() {
+		this.forcingLogStore.addMessageToGroup("channel", this.message);
+		return this.forcingLogStore.pollMessageFromGroup("channel");
+	}
+
+	@Benchmark
+	public Message<?> jdbcStoreAddPoll() {
+		this.jdbcStore.addMessageToGroup("channel", this.message);
+		return this.jdbcStore.pollMessageFromGroup("channel");
+	}
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.benchmarks.support;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.GenericMessage;
+
+/**
+ * Cost of adding headers to a message with a typical set of 15 headers, once and
+ * along a 10 step flow where each step adds a header.
+ * <p>
+ * Run with the {@code gc} profiler to compare the bytes allocated per message.
+ *
+ * @since 5.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageBuilderBenchmarks {
+
+	private static final String[] STEP_HEADERS = new String[10];
+
+	static {
+		for (int i = 0; i < STEP_HEADERS.length; i++) {
+			STEP_HEADERS[i] = "step" + i;
+		}
+	}
+
+	private Message<String> message;
+
+	@Setup
+	public void setup() {
+		Map<String, Object> headers = new HashMap<>();
+		for (int i = 0; i < 12; i++) {
+			headers.put("header" + i, "value" + i);
+		}
+		headers.put(MessageHeaders.CONTENT_TYPE, "text/plain");
+		this.message = new GenericMessage<>("test", headers); // + id and timestamp
+	}
+
+	@Benchmark
+	public Message<String> addHeader() {
+		return MessageBuilder.fromMessage(this.message)
+				.setHeader("enriched", Boolean.TRUE)
+				.build();
+	}
+
+	@Benchmark
+	public Message<String> addHeaderPerStep() {
+		Message<String> message = this.message;
+		for (String header : STEP_HEADERS) {
+			message = MessageBuilder.fromMessage(message)
+					.setHeader(header, Boolean.TRUE)
+					.build();
+		}
+		return message;
+	}
+
+	@Benchmark
+	public Message<String> withPayloadCopyHeaders() {
+		return MessageBuilder.withPayload("test")
+				.copyHeaders(this.message.getHeaders())
+				.build();
+	}
+
+}
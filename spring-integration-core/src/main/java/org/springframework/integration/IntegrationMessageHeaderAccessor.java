@@ -207,4 +207,21 @@ public class IntegrationMessageHeaderAccessor extends MessageHeaderAccessor {
 		}
 	}
 
+	/**
+	 * Return a copy of the headers, without the {@link #setReadOnlyHeaders read-only} ones,
+	 * as {@link MessageHeaders} with a new id and timestamp. Unlike
+	 * {@code new MessageHeaders(toMap())}, the header values are only copied once.
+	 * @return the message headers.
+	 * @since 5.1
+	 */
+	@Override
+	public MessageHeaders toMessageHeaders() {
+		if (ObjectUtils.isEmpty(this.readOnlyHeaders)) {
+			return super.toMessageHeaders();
+		}
+		else {
+			return new MessageHeaders(toMap());
+		}
+	}
+
 }
@@ -104,9 +104,13 @@ public abstract class AbstractAggregatingMessageGroupProcessor implements Messag
 	 * @return The aggregated headers.
 	 */
 	protected Map<String, Object> aggregateHeaders(MessageGroup group) {
+		return aggregateHeaders(group.getGroupId(), group.getMessages());
+	}
+
+	Map<String, Object> aggregateHeaders(Object groupId, Iterable<Message<?>> messages) {
 		Map<String, Object> aggregatedHeaders = new HashMap<>();
 		Set<String> conflictKeys = new HashSet<>();
-		for (Message<?> message : group.getMessages()) {
+		for (Message<?> message : messages) {
 			for (Entry<String, Object> entry : message.getHeaders().entrySet()) {
 				String key = entry.getKey();
 				if (MessageHeaders.ID.equals(key) || MessageHeaders.TIMESTAMP.equals(key)
@@ -129,7 +133,7 @@ public abstract class AbstractAggregatingMessageGroupProcessor implements Messag
 		for (String keyToRemove : conflictKeys) {
 			if (this.logger.isDebugEnabled()) {
 				this.logger.debug("Excluding header '" + keyToRemove + "' upon aggregation due to conflict(s) "
-						+ "in MessageGroup with correlation key: " + group.getGroupId());
+						+ "in MessageGroup with correlation key: " + groupId);
 			}
 			aggregatedHeaders.remove(keyToRemove);
 		}
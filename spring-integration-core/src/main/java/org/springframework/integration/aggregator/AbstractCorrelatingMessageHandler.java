@@ -43,10 +43,12 @@ import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
 import org.springframework.integration.IntegrationMessageHeaderAccessor;
 import org.springframework.integration.channel.NullChannel;
+import org.springframework.integration.context.IntegrationContextUtils;
 import org.springframework.integration.expression.ExpressionUtils;
 import org.springframework.integration.handler.AbstractMessageProducingHandler;
 import org.springframework.integration.handler.DiscardingMessageHandler;
 import org.springframework.integration.store.MessageGroup;
+import org.springframework.integration.store.MessageGroupSequenceInfo;
 import org.springframework.integration.store.MessageGroupStore;
 import org.springframework.integration.store.MessageStore;
 import org.springframework.integration.store.SimpleMessageGroup;
@@ -126,6 +128,8 @@ public abstract class AbstractCorrelatingMessageHandler extends AbstractMessageP
 
 	private boolean lockRegistrySet = false;
 
+	private boolean taskSchedulerSet;
+
 	private long minimumTimeoutForEmptyGroups;
 
 	private boolean releasePartialSequences;
@@ -287,6 +291,7 @@ public abstract class AbstractCorrelatingMessageHandler extends AbstractMessageP
 	@Override
 	public void setTaskScheduler(TaskScheduler taskScheduler) {
 		super.setTaskScheduler(taskScheduler);
+		this.taskSchedulerSet = true;
 	}
 
 	@Override
@@ -310,6 +315,12 @@ public abstract class AbstractCorrelatingMessageHandler extends AbstractMessageP
 			if (this.releaseStrategy instanceof BeanFactoryAware) {
 				((BeanFactoryAware) this.releaseStrategy).setBeanFactory(beanFactory);
 			}
+			if (!this.taskSchedulerSet) {
+				TaskScheduler timingWheel = IntegrationContextUtils.getTimingWheelTaskScheduler(beanFactory);
+				if (timingWheel != null) {
+					super.setTaskScheduler(timingWheel);
+				}
+			}
 		}
 
 		if (this.discardChannel == null) {
@@ -460,7 +471,7 @@ public abstract class AbstractCorrelatingMessageHandler extends AbstractMessageP
 				}
 				messageGroup = this.store(correlationKey, message);
 
-				if (this.releaseStrategy.canRelease(messageGroup)) {
+				if (canRelease(messageGroup, message)) {
 					Collection<Message<?>> completedMessages = null;
 					try {
 						completedMessages = completeGroup(message, correlationKey, messageGroup);
@@ -487,6 +498,16 @@ public abstract class AbstractCorrelatingMessageHandler extends AbstractMessageP
 		}
 	}
 
+	private boolean canRelease(MessageGroup messageGroup, Message<?> message) {
+		if (this.releaseStrategy instanceof IncrementalReleaseStrategy) {
+			MessageGroupSequenceInfo sequenceInfo = messageGroup.getSequenceInfo();
+			if (sequenceInfo != null) {
+				return ((IncrementalReleaseStrategy) this.releaseStrategy).canRelease(message, sequenceInfo);
+			}
+		}
+		return this.releaseStrategy.canRelease(messageGroup);
+	}
+
 	protected boolean isExpireGroupsUponCompletion() {
 		return false;
 	}
@@ -843,6 +864,8 @@ public abstract class AbstractCorrelatingMessageHandler extends AbstractMessageP
 
 		private final SimpleMessageGroup sourceGroup;
 
+		private final MessageGroupSequenceInfo sourceSequenceInfo;
+
 		public SequenceAwareMessageGroup(MessageGroup messageGroup) {
 			/*
 			 * Since this group is temporary, and never added to, we simply use the
@@ -857,6 +880,12 @@ public abstract class AbstractCorrelatingMessageHandler extends AbstractMessageP
 			else {
 				this.sourceGroup = null;
 			}
+			this.sourceSequenceInfo = messageGroup.getSequenceInfo();
+		}
+
+		@Override
+		public MessageGroupSequenceInfo getSequenceInfo() {
+			return this.sourceSequenceInfo;
 		}
 
 		/**
@@ -867,7 +896,8 @@ public abstract class AbstractCorrelatingMessageHandler extends AbstractMessageP
 		 */
 		@Override
 		public boolean canAdd(Message<?> message) {
-			if (this.size() == 0) {
+			MessageGroupSequenceInfo sequenceInfo = this.sourceSequenceInfo;
+			if (sequenceInfo != null ? sequenceInfo.getCount() == 0 : this.size() == 0) {
 				return true;
 			}
 			Integer messageSequenceNumber = message.getHeaders().get(IntegrationMessageHeaderAccessor.SEQUENCE_NUMBER,
@@ -878,6 +908,10 @@ public abstract class AbstractCorrelatingMessageHandler extends AbstractMessageP
 				if (messageSequenceSize == null) {
 					messageSequenceSize = 0;
 				}
+				if (sequenceInfo != null) {
+					return messageSequenceSize == sequenceInfo.getSequenceSize()
+							&& !sequenceInfo.contains(messageSequenceNumber);
+				}
 				return messageSequenceSize.equals(getSequenceSize())
 						&& !(this.sourceGroup != null ? this.sourceGroup.containsSequence(messageSequenceNumber)
 						: containsSequenceNumber(this.getMessages(), messageSequenceNumber));
@@ -16,7 +16,11 @@
 
 package org.springframework.integration.aggregator;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
 
 import org.springframework.integration.store.MessageGroup;
 import org.springframework.integration.store.MessageGroupStore;
@@ -36,6 +40,8 @@ import org.springframework.messaging.Message;
  */
 public class AggregatingMessageHandler extends AbstractCorrelatingMessageHandler {
 
+	private static final int REMOVE_BATCH_SIZE = 100;
+
 	private volatile boolean expireGroupsUponCompletion = false;
 
 	public AggregatingMessageHandler(MessageGroupProcessor processor, MessageGroupStore store,
@@ -70,6 +76,8 @@ public class AggregatingMessageHandler extends AbstractCorrelatingMessageHandler
 	/**
 	 * Complete the group and remove all its messages.
 	 * If the {@link #expireGroupsUponCompletion} is true, then remove group fully.
+	 * Otherwise the messages are streamed from the group and removed in batches, so a
+	 * large persistent group is not loaded at once.
 	 * @param messageGroup the group to clean up.
 	 * @param completedMessages The completed messages. Ignored in this implementation.
 	 */
@@ -87,7 +95,24 @@ public class AggregatingMessageHandler extends AbstractCorrelatingMessageHandler
 				((SimpleMessageStore) messageStore).clearMessageGroup(groupId);
 			}
 			else {
-				messageStore.removeMessagesFromGroup(groupId, messageGroup.getMessages());
+				removeMessagesFromGroup(messageStore, groupId, messageGroup);
+			}
+		}
+	}
+
+	private void removeMessagesFromGroup(MessageGroupStore messageStore, Object groupId, MessageGroup messageGroup) {
+		try (Stream<Message<?>> messages = messageGroup.streamMessages()) {
+			List<Message<?>> batch = new ArrayList<>(REMOVE_BATCH_SIZE);
+			Iterator<Message<?>> iterator = messages.iterator();
+			while (iterator.hasNext()) {
+				batch.add(iterator.next());
+				if (batch.size() == REMOVE_BATCH_SIZE) {
+					messageStore.removeMessagesFromGroup(groupId, batch);
+					batch = new ArrayList<>(REMOVE_BATCH_SIZE);
+				}
+			}
+			if (!batch.isEmpty()) {
+				messageStore.removeMessagesFromGroup(groupId, batch);
 			}
 		}
 	}
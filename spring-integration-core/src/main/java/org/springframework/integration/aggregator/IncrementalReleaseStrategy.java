@@ -0,0 +1,43 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.integration.aggregator;
+
+import org.springframework.integration.store.MessageGroup;
+import org.springframework.integration.store.MessageGroupSequenceInfo;
+import org.springframework.messaging.Message;
+
+/**
+ * A {@link ReleaseStrategy} which can decide on the release from the message just added
+ * to the group and the group's {@link MessageGroupSequenceInfo}, without looking at the
+ * other messages in the group. The correlating handlers use it after each added message
+ * when the message store maintains the sequence metadata for the group; otherwise, and
+ * for forced completion, {@link #canRelease(MessageGroup)} is used.
+ *
+ * @since 5.1
+ */
+public interface IncrementalReleaseStrategy extends ReleaseStrategy {
+
+	/**
+	 * Decide on the release after a message has been added to the group.
+	 * @param message the message just added to the group.
+	 * @param sequenceInfo the sequence metadata of the group, including that message.
+	 * @return true if the group can be released.
+	 */
+	boolean canRelease(Message<?> message, MessageGroupSequenceInfo sequenceInfo);
+
+}
@@ -17,6 +17,8 @@
 package org.springframework.integration.aggregator;
 
 import org.springframework.integration.store.MessageGroup;
+import org.springframework.integration.store.MessageGroupSequenceInfo;
+import org.springframework.messaging.Message;
 
 /**
  * A {@link ReleaseStrategy} that releases only the first <code>n</code> messages, where <code>n</code> is a threshold.
@@ -25,7 +27,7 @@ import org.springframework.integration.store.MessageGroup;
  * @author Oleg Zhurakousky
  *
  */
-public class MessageCountReleaseStrategy implements ReleaseStrategy {
+public class MessageCountReleaseStrategy implements IncrementalReleaseStrategy {
 
 	private final int threshold;
 
@@ -54,4 +56,9 @@ public class MessageCountReleaseStrategy implements ReleaseStrategy {
 		return group.size() >= this.threshold;
 	}
 
+	@Override
+	public boolean canRelease(Message<?> message, MessageGroupSequenceInfo sequenceInfo) {
+		return sequenceInfo.getCount() >= this.threshold;
+	}
+
 }
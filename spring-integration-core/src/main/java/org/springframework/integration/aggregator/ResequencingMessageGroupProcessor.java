@@ -24,6 +24,7 @@ import java.util.List;
 
 import org.springframework.integration.IntegrationMessageHeaderAccessor;
 import org.springframework.integration.store.MessageGroup;
+import org.springframework.integration.store.SimpleMessageGroup;
 import org.springframework.messaging.Message;
 
 /**
@@ -42,19 +43,25 @@ public class ResequencingMessageGroupProcessor implements MessageGroupProcessor
 		Collection<Message<?>> messages = group.getMessages();
 
 		if (messages.size() > 0) {
-			List<Message<?>> sorted = new ArrayList<Message<?>>(messages);
-			Collections.sort(sorted, this.comparator);
+			Collection<Message<?>> sorted;
+			if (group instanceof SimpleMessageGroup && ((SimpleMessageGroup) group).isSequenceOrdered()) {
+				sorted = messages;
+			}
+			else {
+				List<Message<?>> list = new ArrayList<Message<?>>(messages);
+				Collections.sort(list, this.comparator);
+				sorted = list;
+			}
 			ArrayList<Message<?>> partialSequence = new ArrayList<Message<?>>();
-			int previousSequence = extractSequenceNumber(sorted.get(0));
-			int currentSequence = previousSequence;
+			int previousSequence = 0;
 			for (Message<?> message : sorted) {
-				previousSequence = currentSequence;
-				currentSequence = extractSequenceNumber(message);
-				if (currentSequence - 1 > previousSequence) {
+				int currentSequence = extractSequenceNumber(message);
+				if (!partialSequence.isEmpty() && currentSequence - 1 > previousSequence) {
 					//there is a gap in the sequence here
 					break;
 				}
 				partialSequence.add(message);
+				previousSequence = currentSequence;
 			}
 
 			return partialSequence;
@@ -25,6 +25,7 @@ import org.apache.commons.logging.LogFactory;
 
 import org.springframework.integration.IntegrationMessageHeaderAccessor;
 import org.springframework.integration.store.MessageGroup;
+import org.springframework.integration.store.MessageGroupSequenceInfo;
 import org.springframework.messaging.Message;
 
 /**
@@ -40,7 +41,7 @@ import org.springframework.messaging.Message;
  * @author Artem Bilan
  * @author Enrique Rodríguez
  */
-public class SequenceSizeReleaseStrategy implements ReleaseStrategy {
+public class SequenceSizeReleaseStrategy implements IncrementalReleaseStrategy {
 
 	private static final Log logger = LogFactory.getLog(SequenceSizeReleaseStrategy.class);
 
@@ -111,4 +112,15 @@ public class SequenceSizeReleaseStrategy implements ReleaseStrategy {
 		return canRelease;
 	}
 
+	@Override
+	public boolean canRelease(Message<?> message, MessageGroupSequenceInfo sequenceInfo) {
+		int size = sequenceInfo.getCount();
+		if (this.releasePartialSequences && size > 0) {
+			return sequenceInfo.getMinSequenceNumber() - sequenceInfo.getLastReleasedSequenceNumber() == 1;
+		}
+		else {
+			return size == 0 || sequenceInfo.getSequenceSize() == size;
+		}
+	}
+
 }
@@ -17,6 +17,8 @@
 package org.springframework.integration.aggregator;
 
 import org.springframework.integration.store.MessageGroup;
+import org.springframework.integration.store.MessageGroupSequenceInfo;
+import org.springframework.messaging.Message;
 
 /**
  * An implementation of {@link ReleaseStrategy} that simply compares the current size of
@@ -27,11 +29,16 @@ import org.springframework.integration.store.MessageGroup;
  * @since 4.3.4
  *
  */
-public class SimpleSequenceSizeReleaseStrategy implements ReleaseStrategy {
+public class SimpleSequenceSizeReleaseStrategy implements IncrementalReleaseStrategy {
 
 	@Override
 	public boolean canRelease(MessageGroup group) {
 		return group.getSequenceSize() == group.size();
 	}
 
+	@Override
+	public boolean canRelease(Message<?> message, MessageGroupSequenceInfo sequenceInfo) {
+		return sequenceInfo.getSequenceSize() == sequenceInfo.getCount();
+	}
+
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.aggregator;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.integration.store.MessageGroup;
+import org.springframework.messaging.Message;
+import org.springframework.util.Assert;
+
+/**
+ * An {@link AbstractAggregatingMessageGroupProcessor} that reduces the payloads of the
+ * group with a {@link Collector} while streaming the messages with
+ * {@link MessageGroup#streamMessages()}, so that a large group in a persistent store
+ * need not be loaded into memory at once. With a collector that writes each payload to
+ * a file or an output stream, for example, only one page of messages is held in memory.
+ * <p>
+ * The messages are streamed twice: once to aggregate the headers (unless
+ * {@link #setAggregateHeaders(boolean) aggregateHeaders} is false) and once to collect
+ * the payloads. The collector is applied when the group is released, because the
+ * messages are removed from the store right after release.
+ *
+ * @since 5.1
+ */
+public class StreamingAggregatingMessageGroupProcessor extends AbstractAggregatingMessageGroupProcessor {
+
+	private final Collector<Object, ?, ?> collector;
+
+	private boolean aggregateHeaders = true;
+
+	/**
+	 * Construct an instance that collects the payloads to a {@link java.util.List}.
+	 */
+	public StreamingAggregatingMessageGroupProcessor() {
+		this(Collectors.toList());
+	}
+
+	/**
+	 * Construct an instance that collects the payloads with the provided collector; the
+	 * result of the collector is the payload of the output message.
+	 * @param collector the collector.
+	 */
+	public StreamingAggregatingMessageGroupProcessor(Collector<Object, ?, ?> collector) {
+		Assert.notNull(collector, "'collector' must not be null");
+		this.collector = collector;
+	}
+
+	/**
+	 * Set to false to avoid the streaming pass over the messages that aggregates their
+	 * headers; the output message then has no headers from the group.
+	 * Default true.
+	 * @param aggregateHeaders false to not aggregate headers.
+	 */
+	public void setAggregateHeaders(boolean aggregateHeaders) {
+		this.aggregateHeaders = aggregateHeaders;
+	}
+
+	@Override
+	protected Map<String, Object> aggregateHeaders(MessageGroup group) {
+		if (!this.aggregateHeaders) {
+			return new HashMap<>();
+		}
+		try (Stream<Message<?>> messages = group.streamMessages()) {
+			return aggregateHeaders(group.getGroupId(), messages::iterator);
+		}
+	}
+
+	@Override
+	protected Object aggregatePayloads(MessageGroup group, Map<String, Object> defaultHeaders) {
+		try (Stream<Message<?>> messages = group.streamMessages()) {
+			return messages
+					.map(message -> (Object) message.getPayload())
+					.collect(this.collector);
+		}
+	}
+
+}
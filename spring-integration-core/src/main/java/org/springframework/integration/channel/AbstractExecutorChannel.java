@@ -124,7 +124,7 @@ public abstract class AbstractExecutorChannel extends AbstractSubscribableChanne
 		return this.executorInterceptorsSize > 0;
 	}
 
-	protected class MessageHandlingTask implements Runnable {
+	protected class MessageHandlingTask implements MessageHandlingRunnable {
 
 		private final MessageHandlingRunnable delegate;
 
@@ -132,6 +132,16 @@ public abstract class AbstractExecutorChannel extends AbstractSubscribableChanne
 			this.delegate = task;
 		}
 
+		@Override
+		public Message<?> getMessage() {
+			return this.delegate.getMessage();
+		}
+
+		@Override
+		public MessageHandler getMessageHandler() {
+			return this.delegate.getMessageHandler();
+		}
+
 		@Override
 		public void run() {
 			Message<?> message = this.delegate.getMessage();
@@ -16,7 +16,7 @@
 
 package org.springframework.integration.channel;
 
-import java.util.ArrayDeque;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Deque;
@@ -414,7 +414,8 @@ public abstract class AbstractMessageChannel extends IntegrationObjectSupport
 			message = MessageHistory.write(message, this, this.getMessageBuilderFactory());
 		}
 
-		Deque<ChannelInterceptor> interceptorStack = null;
+		ChannelInterceptor[] interceptorArray = null;
+		int appliedInterceptors = 0;
 		boolean sent = false;
 		boolean metricsProcessed = false;
 		MetricsContext metrics = null;
@@ -431,11 +432,12 @@ public abstract class AbstractMessageChannel extends IntegrationObjectSupport
 				logger.debug("preSend on channel '" + this + "', message: " + message);
 			}
 			if (interceptors.getSize() > 0) {
-				interceptorStack = new ArrayDeque<>();
-				message = interceptors.preSend(message, this, interceptorStack);
+				interceptorArray = interceptors.getInterceptorArray();
+				message = interceptors.preSend(message, this, interceptorArray);
 				if (message == null) {
 					return false;
 				}
+				appliedInterceptors = interceptorArray.length;
 			}
 			if (countsEnabled) {
 				metrics = channelMetrics.beforeSend();
@@ -456,9 +458,9 @@ public abstract class AbstractMessageChannel extends IntegrationObjectSupport
 			if (debugEnabled) {
 				logger.debug("postSend (sent=" + sent + ") on channel '" + this + "', message: " + message);
 			}
-			if (interceptorStack != null) {
-				interceptors.postSend(message, this, sent);
-				interceptors.afterSendCompletion(message, this, sent, null, interceptorStack);
+			if (interceptorArray != null) {
+				interceptors.postSend(message, this, sent, interceptorArray);
+				interceptors.afterSendCompletion(message, this, sent, null, interceptorArray, appliedInterceptors);
 			}
 			return sent;
 		}
@@ -469,14 +471,50 @@ public abstract class AbstractMessageChannel extends IntegrationObjectSupport
 				}
 				channelMetrics.afterSend(metrics, false);
 			}
-			if (interceptorStack != null) {
-				interceptors.afterSendCompletion(message, this, sent, e, interceptorStack);
+			if (appliedInterceptors > 0) {
+				interceptors.afterSendCompletion(message, this, sent, e, interceptorArray, appliedInterceptors);
 			}
 			throw IntegrationUtils.wrapInDeliveryExceptionIfNecessary(message,
 					() -> "failed to send Message to channel '" + this.getComponentName() + "'", e);
 		}
 	}
 
+	/**
+	 * Send the messages to this channel in order, blocking indefinitely if the channel is at capacity.
+	 * @param messages the messages to send.
+	 * @return the number of messages sent.
+	 * @since 5.1
+	 * @see #sendAll(Collection, long)
+	 */
+	public int sendAll(Collection<? extends Message<?>> messages) {
+		return sendAll(messages, -1);
+	}
+
+	/**
+	 * Send the messages to this channel in order. The timeout is the budget for the whole
+	 * batch: each message is sent with the time remaining before the deadline. Sending stops
+	 * at the first message which is not sent.
+	 * Each message is sent with the {@link #send(Message, long)} semantics: interceptors,
+	 * metrics and the payload conversion are applied per message.
+	 * @param messages the messages to send.
+	 * @param timeout the timeout in milliseconds for the whole batch; negative to block indefinitely.
+	 * @return the number of messages sent.
+	 * @since 5.1
+	 */
+	public int sendAll(Collection<? extends Message<?>> messages, long timeout) {
+		Assert.notNull(messages, "'messages' must not be null");
+		long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : 0;
+		int sent = 0;
+		for (Message<?> message : messages) {
+			long remaining = timeout > 0 ? Math.max(deadline - System.currentTimeMillis(), 0) : timeout;
+			if (!send(message, remaining)) {
+				break;
+			}
+			sent++;
+		}
+		return sent;
+	}
+
 	private TimerFacade sendTimer(boolean sent) {
 		if (sent) {
 			if (this.successTimer == null) {
@@ -554,6 +592,8 @@ public abstract class AbstractMessageChannel extends IntegrationObjectSupport
 
 		protected final List<ChannelInterceptor> interceptors = new CopyOnWriteArrayList<ChannelInterceptor>();
 
+		private volatile ChannelInterceptor[] interceptorArray = new ChannelInterceptor[0];
+
 		private volatile int size;
 
 		public ChannelInterceptorList(Log logger) {
@@ -564,7 +604,9 @@ public abstract class AbstractMessageChannel extends IntegrationObjectSupport
 			synchronized (this.interceptors) {
 				this.interceptors.clear();
 				this.size = interceptors.size();
-				return this.interceptors.addAll(interceptors);
+				boolean added = this.interceptors.addAll(interceptors);
+				updateInterceptorArray();
+				return added;
 			}
 		}
 
@@ -573,15 +615,119 @@ public abstract class AbstractMessageChannel extends IntegrationObjectSupport
 		}
 
 		public boolean add(ChannelInterceptor interceptor) {
-			this.size++;
-			return this.interceptors.add(interceptor);
+			synchronized (this.interceptors) {
+				this.size++;
+				boolean added = this.interceptors.add(interceptor);
+				updateInterceptorArray();
+				return added;
+			}
 		}
 
 		public void add(int index, ChannelInterceptor interceptor) {
-			this.size++;
-			this.interceptors.add(index, interceptor);
+			synchronized (this.interceptors) {
+				this.size++;
+				this.interceptors.add(index, interceptor);
+				updateInterceptorArray();
+			}
+		}
+
+		/**
+		 * Return a snapshot of the current interceptors; the array must not be modified.
+		 * Use the same snapshot for all the send callbacks of a single message so the
+		 * completion callbacks are invoked exactly on the interceptors which have been applied.
+		 * @return the interceptors.
+		 * @since 5.1
+		 */
+		public ChannelInterceptor[] getInterceptorArray() {
+			return this.interceptorArray;
+		}
+
+		/**
+		 * Apply {@link ChannelInterceptor#preSend(Message, MessageChannel)} of the provided
+		 * interceptors in order. If an interceptor returns {@code null} or throws an exception,
+		 * {@link ChannelInterceptor#afterSendCompletion(Message, MessageChannel, boolean, Exception)}
+		 * is invoked on the already applied interceptors before returning (or re-throwing).
+		 * @param message the message.
+		 * @param channel the channel.
+		 * @param interceptors the interceptors from {@link #getInterceptorArray()}.
+		 * @return the message to send or {@code null} if the send is precluded.
+		 * @since 5.1
+		 */
+		public Message<?> preSend(Message<?> message, MessageChannel channel, ChannelInterceptor[] interceptors) {
+			Message<?> messageToSend = message;
+			for (int i = 0; i < interceptors.length; i++) {
+				ChannelInterceptor interceptor = interceptors[i];
+				try {
+					messageToSend = interceptor.preSend(messageToSend, channel);
+				}
+				catch (RuntimeException ex) {
+					afterSendCompletion(message, channel, false, ex, interceptors, i);
+					throw ex;
+				}
+				if (messageToSend == null) {
+					if (this.logger.isDebugEnabled()) {
+						this.logger.debug(interceptor.getClass().getSimpleName()
+								+ " returned null from preSend, i.e. precluding the send.");
+					}
+					afterSendCompletion(null, channel, false, null, interceptors, i);
+					return null;
+				}
+			}
+			return messageToSend;
 		}
 
+		/**
+		 * Apply {@link ChannelInterceptor#postSend(Message, MessageChannel, boolean)} of the
+		 * provided interceptors.
+		 * @param message the message.
+		 * @param channel the channel.
+		 * @param sent the send result.
+		 * @param interceptors the interceptors from {@link #getInterceptorArray()}.
+		 * @since 5.1
+		 */
+		public void postSend(Message<?> message, MessageChannel channel, boolean sent,
+				ChannelInterceptor[] interceptors) {
+
+			for (ChannelInterceptor interceptor : interceptors) {
+				interceptor.postSend(message, channel, sent);
+			}
+		}
+
+		/**
+		 * Apply {@link ChannelInterceptor#afterSendCompletion(Message, MessageChannel, boolean, Exception)}
+		 * of the first {@code applied} interceptors in reverse order.
+		 * @param message the message.
+		 * @param channel the channel.
+		 * @param sent the send result.
+		 * @param ex the exception, if any.
+		 * @param interceptors the interceptors from {@link #getInterceptorArray()}.
+		 * @param applied the number of interceptors whose {@code preSend()} has been applied.
+		 * @since 5.1
+		 */
+		public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex,
+				ChannelInterceptor[] interceptors, int applied) {
+
+			for (int i = applied - 1; i >= 0; i--) {
+				ChannelInterceptor interceptor = interceptors[i];
+				try {
+					interceptor.afterSendCompletion(message, channel, sent, ex);
+				}
+				catch (Exception ex2) {
+					this.logger.error("Exception from afterSendCompletion in " + interceptor, ex2);
+				}
+			}
+		}
+
+		/**
+		 * Apply {@code preSend()} of the current interceptors.
+		 * @param message the message.
+		 * @param channel the channel.
+		 * @param interceptorStack the stack to collect the applied interceptors.
+		 * @return the message to send or {@code null}.
+		 * @deprecated since 5.1 in favor of {@link #preSend(Message, MessageChannel, ChannelInterceptor[])}
+		 * which does not require a stack allocation per message.
+		 */
+		@Deprecated
 		public Message<?> preSend(Message<?> message, MessageChannel channel,
 				Deque<ChannelInterceptor> interceptorStack) {
 			if (this.size > 0) {
@@ -609,6 +755,17 @@ public abstract class AbstractMessageChannel extends IntegrationObjectSupport
 			}
 		}
 
+		/**
+		 * Apply {@code afterSendCompletion()} of the interceptors in the stack.
+		 * @param message the message.
+		 * @param channel the channel.
+		 * @param sent the send result.
+		 * @param ex the exception, if any.
+		 * @param interceptorStack the applied interceptors.
+		 * @deprecated since 5.1 in favor of
+		 * {@link #afterSendCompletion(Message, MessageChannel, boolean, Exception, ChannelInterceptor[], int)}.
+		 */
+		@Deprecated
 		public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex,
 				Deque<ChannelInterceptor> interceptorStack) {
 			for (Iterator<ChannelInterceptor> iterator = interceptorStack.descendingIterator(); iterator.hasNext(); ) {
@@ -665,21 +822,31 @@ public abstract class AbstractMessageChannel extends IntegrationObjectSupport
 		}
 
 		public boolean remove(ChannelInterceptor interceptor) {
-			if (this.interceptors.remove(interceptor)) {
-				this.size--;
-				return true;
-			}
-			else {
-				return false;
+			synchronized (this.interceptors) {
+				if (this.interceptors.remove(interceptor)) {
+					this.size--;
+					updateInterceptorArray();
+					return true;
+				}
+				else {
+					return false;
+				}
 			}
 		}
 
 		public ChannelInterceptor remove(int index) {
-			ChannelInterceptor removed = this.interceptors.remove(index);
-			if (removed != null) {
-				this.size--;
+			synchronized (this.interceptors) {
+				ChannelInterceptor removed = this.interceptors.remove(index);
+				if (removed != null) {
+					this.size--;
+					updateInterceptorArray();
+				}
+				return removed;
 			}
-			return removed;
+		}
+
+		private void updateInterceptorArray() {
+			this.interceptorArray = this.interceptors.toArray(new ChannelInterceptor[0]);
 		}
 
 	}
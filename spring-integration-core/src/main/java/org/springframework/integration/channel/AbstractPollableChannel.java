@@ -17,6 +17,8 @@
 package org.springframework.integration.channel;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.List;
 
@@ -24,9 +26,9 @@ import org.springframework.integration.support.management.PollableChannelManagem
 import org.springframework.integration.support.management.metrics.CounterFacade;
 import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
-import org.springframework.messaging.PollableChannel;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.util.Assert;
 
 /**
  * Base class for all pollable channels.
@@ -37,7 +39,7 @@ import org.springframework.messaging.support.ExecutorChannelInterceptor;
  * @author Artem Bilan
  */
 public abstract class AbstractPollableChannel extends AbstractMessageChannel
-		implements PollableChannel, PollableChannelManagement, ExecutorChannelInterceptorAware {
+		implements BatchPollableChannel, PollableChannelManagement, ExecutorChannelInterceptorAware {
 
 	private volatile int executorInterceptorsSize;
 
@@ -138,17 +140,77 @@ public abstract class AbstractPollableChannel extends AbstractMessageChannel
 		}
 		catch (RuntimeException e) {
 			if (countsEnabled && !counted) {
-				if (getMetricsCaptor() != null) {
-					getMetricsCaptor().counterBuilder(RECEIVE_COUNTER_NAME)
-							.tag("name", getComponentName() == null ? "unknown" : getComponentName())
-							.tag("type", "channel")
-							.tag("result", "failure")
-							.tag("exception", e.getClass().getSimpleName())
-							.description("Messages received")
-							.build()
-							.increment();
+				countReceiveError(e);
+			}
+			if (interceptorStack != null) {
+				interceptorList.afterReceiveCompletion(null, this, e, interceptorStack);
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Receive up to {@code maxMessages} messages from this channel in one operation.
+	 * The {@link ChannelInterceptor#preReceive(org.springframework.messaging.MessageChannel)}
+	 * and {@link ChannelInterceptor#afterReceiveCompletion(Message, org.springframework.messaging.MessageChannel,
+	 * Exception)} callbacks are invoked once per batch (the latter with the last received message),
+	 * {@link ChannelInterceptor#postReceive(Message, org.springframework.messaging.MessageChannel)}
+	 * is invoked for each message.
+	 * @param maxMessages the maximum number of messages to receive.
+	 * @param timeout the timeout in milliseconds to wait for the first message.
+	 * @return the received messages; empty if no message is available within the allotted time.
+	 * @since 5.1
+	 * @see #doReceive(int, long)
+	 */
+	@Override
+	public List<Message<?>> receive(int maxMessages, long timeout) {
+		Assert.isTrue(maxMessages > 0, "'maxMessages' must be greater than 0");
+		ChannelInterceptorList interceptorList = getInterceptors();
+		Deque<ChannelInterceptor> interceptorStack = null;
+		int counted = 0;
+		boolean countsEnabled = isCountsEnabled();
+		try {
+			if (isLoggingEnabled() && logger.isTraceEnabled()) {
+				logger.trace("preReceive on channel '" + this + "' for up to " + maxMessages + " messages");
+			}
+			if (interceptorList.getSize() > 0) {
+				interceptorStack = new ArrayDeque<>();
+
+				if (!interceptorList.preReceive(this, interceptorStack)) {
+					return Collections.emptyList();
 				}
-				getMetrics().afterError();
+			}
+			List<Message<?>> messages = doReceive(maxMessages, timeout);
+			if (countsEnabled) {
+				for (; counted < messages.size(); counted++) {
+					if (getMetricsCaptor() != null) {
+						incrementReceiveCounter();
+					}
+					getMetrics().afterReceive();
+				}
+			}
+			if (isLoggingEnabled() && logger.isDebugEnabled() && !messages.isEmpty()) {
+				logger.debug("postReceive on channel '" + this + "', messages: " + messages);
+			}
+
+			Message<?> lastMessage = null;
+			if (interceptorStack != null) {
+				List<Message<?>> intercepted = new ArrayList<>(messages.size());
+				for (Message<?> message : messages) {
+					Message<?> interceptedMessage = interceptorList.postReceive(message, this);
+					if (interceptedMessage != null) {
+						intercepted.add(interceptedMessage);
+						lastMessage = interceptedMessage;
+					}
+				}
+				messages = intercepted;
+				interceptorList.afterReceiveCompletion(lastMessage, this, null, interceptorStack);
+			}
+			return messages;
+		}
+		catch (RuntimeException e) {
+			if (countsEnabled && counted == 0) {
+				countReceiveError(e);
 			}
 			if (interceptorStack != null) {
 				interceptorList.afterReceiveCompletion(null, this, e, interceptorStack);
@@ -157,6 +219,20 @@ public abstract class AbstractPollableChannel extends AbstractMessageChannel
 		}
 	}
 
+	private void countReceiveError(RuntimeException e) {
+		if (getMetricsCaptor() != null) {
+			getMetricsCaptor().counterBuilder(RECEIVE_COUNTER_NAME)
+					.tag("name", getComponentName() == null ? "unknown" : getComponentName())
+					.tag("type", "channel")
+					.tag("result", "failure")
+					.tag("exception", e.getClass().getSimpleName())
+					.description("Messages received")
+					.build()
+					.increment();
+		}
+		getMetrics().afterError();
+	}
+
 	private void incrementReceiveCounter() {
 		if (this.receiveCounter == null) {
 			this.receiveCounter = getMetricsCaptor().counterBuilder(RECEIVE_COUNTER_NAME)
@@ -231,4 +307,27 @@ public abstract class AbstractPollableChannel extends AbstractMessageChannel
 	@Nullable
 	protected abstract Message<?> doReceive(long timeout);
 
+	/**
+	 * Receive up to {@code maxMessages} messages; the timeout applies to the first message
+	 * only, further messages are taken only if they are immediately available.
+	 * This implementation invokes {@link #doReceive(long)} for each message; subclasses
+	 * should override it when they can obtain several messages in one operation.
+	 * @param maxMessages the maximum number of messages to receive.
+	 * @param timeout the timeout for the first message.
+	 * @return the messages, never null.
+	 * @since 5.1
+	 */
+	protected List<Message<?>> doReceive(int maxMessages, long timeout) {
+		Message<?> message = doReceive(timeout);
+		if (message == null) {
+			return Collections.emptyList();
+		}
+		List<Message<?>> messages = new ArrayList<>();
+		while (message != null) {
+			messages.add(message);
+			message = messages.size() < maxMessages ? doReceive(0) : null;
+		}
+		return messages;
+	}
+
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.channel;
+
+import java.util.List;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.PollableChannel;
+
+/**
+ * A {@link PollableChannel} that can hand over several messages in one receive operation,
+ * amortizing the locking, metrics and interceptor overhead over the batch.
+ *
+ * @since 5.1
+ */
+public interface BatchPollableChannel extends PollableChannel {
+
+	/**
+	 * Receive up to {@code maxMessages} messages from this channel. Waits up to
+	 * {@code timeout} for the first message (indefinitely if negative); further
+	 * messages are only received if they are immediately available.
+	 * @param maxMessages the maximum number of messages to receive.
+	 * @param timeout the timeout in milliseconds for the first message.
+	 * @return the received messages; empty if no message is available within the timeout.
+	 */
+	List<Message<?>> receive(int maxMessages, long timeout);
+
+	/**
+	 * Return true if the messages of this channel are persisted, in which case they must
+	 * not be received in batches that are only partly handled before a shutdown.
+	 * @return true if persistent; false by default.
+	 */
+	default boolean isPersistent() {
+		return false;
+	}
+
+}
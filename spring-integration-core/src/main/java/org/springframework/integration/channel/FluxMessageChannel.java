@@ -16,15 +16,24 @@
 
 package org.springframework.integration.channel;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.reactivestreams.Publisher;
 import org.reactivestreams.Subscriber;
 
+import org.springframework.integration.support.management.metrics.MetricsCaptor;
+import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
 import org.springframework.util.Assert;
 
 import reactor.core.publisher.ConnectableFlux;
@@ -34,6 +43,14 @@ import reactor.core.publisher.FluxSink;
 /**
  * The {@link AbstractMessageChannel} implementation for the
  * Reactive Streams {@link Publisher} based on the Project Reactor {@link Flux}.
+ * <p>
+ * Messages are emitted only when there is demand from downstream; until then they
+ * are held in a buffer (the shared {@link Flux} prefetches only one message).
+ * When the buffer is full, the {@link OverflowStrategy} decides the fate of the
+ * message being sent. By default, the buffer is unbounded; bounding it is opt-in with
+ * the {@link #FluxMessageChannel(int)} constructor.
+ * Messages are emitted outside of the lock guarding the buffer, so senders are not
+ * held up by subscribers, which may also send back to this channel.
  *
  * @author Artem Bilan
  * @author Gary Russell
@@ -47,25 +64,243 @@ public class FluxMessageChannel extends AbstractMessageChannel
 
 	private final Map<Publisher<Message<?>>, ConnectableFlux<?>> publishers = new ConcurrentHashMap<>();
 
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Condition notFull = this.lock.newCondition();
+
+	private final ArrayDeque<Message<?>> buffer = new ArrayDeque<>();
+
+	private final AtomicLong dropped = new AtomicLong();
+
+	private final int bufferSize;
+
 	private final Flux<Message<?>> flux;
 
-	private FluxSink<Message<?>> sink;
+	private volatile OverflowStrategy overflowStrategy = OverflowStrategy.BLOCK;
+
+	private volatile FluxSink<Message<?>> sink;
+
+	private final AtomicInteger wip = new AtomicInteger();
 
+	private volatile Thread drainingThread;
+
+	/**
+	 * Create a channel with an unbounded buffer.
+	 */
 	public FluxMessageChannel() {
+		this(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Create a channel which buffers up to the provided number of messages while
+	 * there is no demand from downstream.
+	 * @param bufferSize the buffer size.
+	 * @since 5.1
+	 */
+	public FluxMessageChannel(int bufferSize) {
+		Assert.isTrue(bufferSize > 0, "'bufferSize' must be greater than 0");
+		this.bufferSize = bufferSize;
 		this.flux =
-				Flux.<Message<?>>create(emitter -> this.sink = emitter, FluxSink.OverflowStrategy.IGNORE)
-						.publish()
+				Flux.<Message<?>>create(emitter -> {
+							this.sink = emitter;
+							emitter.onRequest(n -> drain());
+						},
+						FluxSink.OverflowStrategy.ERROR)
+						.publish(1)
 						.autoConnect();
 	}
 
+	/**
+	 * Set the strategy to apply when the buffer is full.
+	 * Default {@link OverflowStrategy#BLOCK}.
+	 * @param overflowStrategy the overflow strategy.
+	 * @since 5.1
+	 */
+	public void setOverflowStrategy(OverflowStrategy overflowStrategy) {
+		Assert.notNull(overflowStrategy, "'overflowStrategy' cannot be null");
+		this.overflowStrategy = overflowStrategy;
+	}
+
+	/**
+	 * Return the capacity of the buffer.
+	 * @return the buffer size.
+	 * @since 5.1
+	 */
+	public int getBufferSize() {
+		return this.bufferSize;
+	}
+
+	/**
+	 * Return the number of messages waiting for demand from downstream.
+	 * @return the buffered message count.
+	 * @since 5.1
+	 */
+	public int getBufferedCount() {
+		this.lock.lock();
+		try {
+			return this.buffer.size();
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Return the number of messages discarded by the
+	 * {@link OverflowStrategy#DROP_OLDEST} and {@link OverflowStrategy#DROP_LATEST} strategies.
+	 * @return the dropped message count.
+	 * @since 5.1
+	 */
+	public long getDroppedCount() {
+		return this.dropped.get();
+	}
+
+	@Override
+	public void registerMetricsCaptor(MetricsCaptor metricsCaptor) {
+		super.registerMetricsCaptor(metricsCaptor);
+		metricsCaptor.gaugeBuilder("spring.integration.channel.buffer.size", this,
+				c -> ((FluxMessageChannel) c).getBufferedCount())
+				.tag("name", getComponentName() == null ? "unknown" : getComponentName())
+				.description("Messages waiting for downstream demand")
+				.build();
+	}
+
 	@Override
 	protected boolean doSend(Message<?> message, long timeout) {
 		Assert.state(this.subscribers.size() > 0,
 				() -> "The [" + this + "] doesn't have subscribers to accept messages");
-		this.sink.next(message);
+		try {
+			this.lock.lockInterruptibly();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		try {
+			if (!enqueue(message, timeout)) {
+				return false;
+			}
+		}
+		finally {
+			this.lock.unlock();
+		}
+		drain();
 		return true;
 	}
 
+	private boolean enqueue(Message<?> message, long timeout) {
+		if (this.buffer.size() < this.bufferSize
+				// a subscriber sending back on the emitting thread cannot wait for itself
+				|| this.drainingThread == Thread.currentThread()) {
+			this.buffer.add(message);
+			return true;
+		}
+		switch (this.overflowStrategy) {
+			case DROP_LATEST:
+				this.dropped.incrementAndGet();
+				if (logger.isDebugEnabled()) {
+					logger.debug("Buffer of [" + this + "] is full; dropped " + message);
+				}
+				return true;
+			case DROP_OLDEST:
+				Message<?> oldest = this.buffer.poll();
+				this.buffer.add(message);
+				this.dropped.incrementAndGet();
+				if (logger.isDebugEnabled()) {
+					logger.debug("Buffer of [" + this + "] is full; dropped " + oldest);
+				}
+				return true;
+			case ERROR:
+				throw new MessageDeliveryException(message,
+						"The buffer of [" + this + "] is full (" + this.bufferSize + " messages)");
+			default:
+				return awaitCapacity(message, timeout);
+		}
+	}
+
+	private boolean awaitCapacity(Message<?> message, long timeout) {
+		long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+		try {
+			while (this.buffer.size() >= this.bufferSize) {
+				if (timeout < 0) {
+					this.notFull.await();
+				}
+				else if (nanos <= 0) {
+					return false;
+				}
+				else {
+					nanos = this.notFull.awaitNanos(nanos);
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		this.buffer.add(message);
+		return true;
+	}
+
+	/**
+	 * Emit buffered messages while there is demand; called after each send and
+	 * whenever downstream requests more. Only one thread drains at a time: a call
+	 * made while another one (or a re-entrant call) is draining only bumps the
+	 * work-in-progress counter, so the drainer makes another pass. Messages are
+	 * emitted outside of the lock, which only guards the buffer. A failure to emit
+	 * ends the current pass only; it is rethrown once the passes requested meanwhile
+	 * are done.
+	 */
+	private void drain() {
+		if (this.wip.getAndIncrement() != 0) {
+			return;
+		}
+		RuntimeException failure = null;
+		int missed = 1;
+		do {
+			FluxSink<Message<?>> sink = this.sink;
+			if (sink != null) {
+				this.drainingThread = Thread.currentThread();
+				try {
+					while (sink.requestedFromDownstream() > 0) {
+						Message<?> message = poll();
+						if (message == null) {
+							break;
+						}
+						sink.next(message);
+					}
+				}
+				catch (RuntimeException e) {
+					if (failure == null) {
+						failure = e;
+					}
+				}
+				finally {
+					this.drainingThread = null;
+				}
+			}
+			missed = this.wip.addAndGet(-missed);
+		}
+		while (missed != 0);
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	@Nullable
+	private Message<?> poll() {
+		this.lock.lock();
+		try {
+			Message<?> message = this.buffer.poll();
+			if (message != null) {
+				this.notFull.signal();
+			}
+			return message;
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
 	@Override
 	public void subscribe(Subscriber<? super Message<?>> subscriber) {
 		this.subscribers.add(subscriber);
@@ -94,4 +329,33 @@ public class FluxMessageChannel extends AbstractMessageChannel
 		}
 	}
 
+	/**
+	 * The strategy to apply when a message is sent and the buffer is full.
+	 *
+	 * @since 5.1
+	 */
+	public enum OverflowStrategy {
+
+		/**
+		 * Wait for buffer space for up to the send timeout, then fail the send.
+		 */
+		BLOCK,
+
+		/**
+		 * Discard the oldest buffered message to make room for the new one.
+		 */
+		DROP_OLDEST,
+
+		/**
+		 * Discard the message being sent.
+		 */
+		DROP_LATEST,
+
+		/**
+		 * Fail the send with a {@link MessageDeliveryException}.
+		 */
+		ERROR
+
+	}
+
 }
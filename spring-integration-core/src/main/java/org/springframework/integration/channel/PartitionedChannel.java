@@ -0,0 +1,576 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.channel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.integration.context.IntegrationProperties;
+import org.springframework.integration.dispatcher.LoadBalancingStrategy;
+import org.springframework.integration.dispatcher.RoundRobinLoadBalancingStrategy;
+import org.springframework.integration.dispatcher.UnicastingDispatcher;
+import org.springframework.integration.expression.ExpressionUtils;
+import org.springframework.integration.support.channel.BeanFactoryChannelResolver;
+import org.springframework.integration.support.management.DefaultMessageChannelMetrics;
+import org.springframework.integration.support.management.MessageChannelMetrics;
+import org.springframework.integration.support.management.MetricsContext;
+import org.springframework.integration.support.management.Statistics;
+import org.springframework.integration.support.management.metrics.MetricsCaptor;
+import org.springframework.integration.util.PartitionedWorkers;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.ErrorHandler;
+
+/**
+ * A point-to-point channel which dispatches messages on a fixed number of partitions,
+ * each served by a single thread. Messages are assigned to a partition by a key - the
+ * {@link IntegrationMessageHeaderAccessor#CORRELATION_ID correlationId} header by default -
+ * so messages with the same key are handled one at a time and in the order they were
+ * sent, while messages with different keys are handled in parallel. Messages without a
+ * key are spread evenly over the partitions.
+ * <p>
+ * Each partition has a queue of the provided capacity; a send to a full partition blocks
+ * up to the send timeout (indefinitely by default) and returns {@code false} if no space
+ * becomes available, so a slow partition throttles only the senders of its own keys.
+ * <p>
+ * Like the {@link ExecutorChannel}, this channel supports the load-balancing and failover
+ * of its subscribers, and {@link org.springframework.messaging.support.ExecutorChannelInterceptor}s.
+ * Exceptions thrown by the subscribers are handled by the {@link ErrorHandler}, a
+ * {@link MessagePublishingErrorHandler} by default.
+ * <p>
+ * The channel send metrics reflect the enqueueing of messages; the handling on each
+ * partition is reported by {@link #getPartitionMetrics(int)}.
+ *
+ * @since 5.1
+ */
+public class PartitionedChannel extends AbstractExecutorChannel implements DisposableBean {
+
+	/**
+	 * The default time to wait for the partition threads to stop, in milliseconds.
+	 */
+	public static final long DEFAULT_SHUTDOWN_TIMEOUT = 10_000;
+
+	/*
+	 * Wakes up an idle partition thread on destruction.
+	 */
+	private static final Message<?> POISON_PILL = new GenericMessage<>("poison pill");
+
+	private final Partition[] partitions;
+
+	private final PartitionedWorkers partitioning;
+
+	private final MessageHandler dispatchHandler = message -> getDispatcher().dispatch(message);
+
+	private volatile boolean failover = true;
+
+	private final LoadBalancingStrategy loadBalancingStrategy;
+
+	private Expression partitionKeyExpression;
+
+	private ThreadFactory threadFactory;
+
+	private ErrorHandler errorHandler;
+
+	private volatile long shutdownTimeout = DEFAULT_SHUTDOWN_TIMEOUT;
+
+	/**
+	 * Create a channel with the provided number of partitions, each with an unbounded queue.
+	 * @param partitionCount the number of partitions.
+	 */
+	public PartitionedChannel(int partitionCount) {
+		this(partitionCount, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Create a channel with the provided number of partitions, each with a queue of the
+	 * provided capacity.
+	 * @param partitionCount the number of partitions.
+	 * @param capacity the capacity of each partition's queue.
+	 */
+	public PartitionedChannel(int partitionCount, int capacity) {
+		this(partitionCount, capacity, new RoundRobinLoadBalancingStrategy());
+	}
+
+	/**
+	 * Create a channel with the provided number of partitions, each with a queue of the
+	 * provided capacity, and a {@link LoadBalancingStrategy} for the subscribers.
+	 * @param partitionCount the number of partitions.
+	 * @param capacity the capacity of each partition's queue.
+	 * @param loadBalancingStrategy the load balancing strategy; may be null.
+	 */
+	public PartitionedChannel(int partitionCount, int capacity, LoadBalancingStrategy loadBalancingStrategy) {
+		super(null);
+		Assert.isTrue(partitionCount > 0, "'partitionCount' must be greater than 0");
+		Assert.isTrue(capacity > 0, "'capacity' must be greater than 0");
+		this.partitions = new Partition[partitionCount];
+		for (int i = 0; i < partitionCount; i++) {
+			this.partitions[i] = new Partition(i, capacity);
+		}
+		this.partitioning = new PartitionedWorkers(partitionCount);
+		this.loadBalancingStrategy = loadBalancingStrategy;
+		this.dispatcher = createDispatcher();
+	}
+
+	/**
+	 * Set the function to extract the partition key from a message; messages with equal
+	 * keys are handled in order. The function may return null, in which case the message
+	 * is assigned to any partition.
+	 * @param partitionKeyFunction the function.
+	 */
+	public void setPartitionKeyFunction(Function<Message<?>, ?> partitionKeyFunction) {
+		this.partitioning.setPartitionKeyFunction(partitionKeyFunction);
+		this.partitionKeyExpression = null;
+	}
+
+	/**
+	 * Set a SpEL expression, evaluated against the message, to extract the partition key.
+	 * @param partitionKeyExpression the expression.
+	 * @see #setPartitionKeyFunction(Function)
+	 */
+	public void setPartitionKeyExpression(Expression partitionKeyExpression) {
+		Assert.notNull(partitionKeyExpression, "'partitionKeyExpression' must not be null");
+		this.partitionKeyExpression = partitionKeyExpression;
+	}
+
+	/**
+	 * Specify whether the channel's dispatcher should have failover enabled.
+	 * By default, it will. Set this value to 'false' to disable it.
+	 * @param failover The failover boolean.
+	 */
+	public void setFailover(boolean failover) {
+		this.failover = failover;
+		getDispatcher().setFailover(failover);
+	}
+
+	/**
+	 * Set the {@link ThreadFactory} for the partition threads; by default the threads are
+	 * named after the channel.
+	 * @param threadFactory the thread factory.
+	 */
+	public void setThreadFactory(ThreadFactory threadFactory) {
+		Assert.notNull(threadFactory, "'threadFactory' must not be null");
+		this.threadFactory = threadFactory;
+	}
+
+	/**
+	 * Provide an {@link ErrorHandler} for exceptions thrown by the subscribers.
+	 * By default, a {@link MessagePublishingErrorHandler} sends an error message to the
+	 * failed message's error channel header, if available, or to the default
+	 * 'errorChannel' otherwise.
+	 * @param errorHandler the error handler.
+	 */
+	public void setErrorHandler(ErrorHandler errorHandler) {
+		this.errorHandler = errorHandler;
+	}
+
+	/**
+	 * Set the time to wait on {@link #destroy()} for the partition threads to finish
+	 * handling their current message; the threads still running after that are interrupted.
+	 * Default {@value #DEFAULT_SHUTDOWN_TIMEOUT} milliseconds.
+	 * @param shutdownTimeout the timeout in milliseconds.
+	 */
+	public void setShutdownTimeout(long shutdownTimeout) {
+		this.shutdownTimeout = shutdownTimeout;
+	}
+
+	@Override
+	public String getComponentType() {
+		return "partitioned-channel";
+	}
+
+	public int getPartitionCount() {
+		return this.partitions.length;
+	}
+
+	/**
+	 * Return the number of messages waiting in the partition.
+	 * @param partition the partition index.
+	 * @return the queue size.
+	 */
+	public int getPartitionQueueSize(int partition) {
+		return this.partitions[partition].queue.size();
+	}
+
+	/**
+	 * Return the number of messages the partition can accept before senders are blocked.
+	 * @param partition the partition index.
+	 * @return the remaining capacity.
+	 */
+	public int getPartitionRemainingCapacity(int partition) {
+		return this.partitions[partition].queue.remainingCapacity();
+	}
+
+	/**
+	 * Return the metrics of the message handling on the partition; a "send" in these
+	 * metrics is the dispatch of a message to a subscriber.
+	 * @param partition the partition index.
+	 * @return the metrics.
+	 */
+	public MessageChannelMetrics getPartitionMetrics(int partition) {
+		return this.partitions[partition].metrics;
+	}
+
+	@Override
+	public void setStatsEnabled(boolean statsEnabled) {
+		super.setStatsEnabled(statsEnabled);
+		for (Partition partition : this.partitions) {
+			partition.metrics.setStatsEnabled(statsEnabled);
+		}
+	}
+
+	@Override
+	public void registerMetricsCaptor(MetricsCaptor metricsCaptor) {
+		super.registerMetricsCaptor(metricsCaptor);
+		String name = getComponentName() == null ? "unknown" : getComponentName();
+		for (Partition partition : this.partitions) {
+			metricsCaptor.gaugeBuilder("spring.integration.channel.partition.size", partition,
+					p -> ((Partition) p).queue.size())
+					.tag("name", name)
+					.tag("partition", Integer.toString(partition.index))
+					.description("Messages waiting in the channel partition")
+					.build();
+		}
+	}
+
+	@Override
+	protected UnicastingDispatcher getDispatcher() {
+		return (UnicastingDispatcher) this.dispatcher;
+	}
+
+	@Override
+	public final void onInit() throws Exception {
+		Assert.state(getDispatcher().getHandlerCount() == 0, "You cannot subscribe() until the channel "
+				+ "bean is fully initialized by the framework. Do not subscribe in a @Bean definition");
+		super.onInit();
+		if (this.errorHandler == null) {
+			this.errorHandler = new MessagePublishingErrorHandler(new BeanFactoryChannelResolver(getBeanFactory()));
+		}
+		if (this.partitionKeyExpression != null) {
+			Expression expression = this.partitionKeyExpression;
+			EvaluationContext evaluationContext = ExpressionUtils.createStandardEvaluationContext(getBeanFactory());
+			this.partitioning.setPartitionKeyFunction(message -> expression.getValue(evaluationContext, message));
+		}
+		UnicastingDispatcher unicastingDispatcher = createDispatcher();
+		if (this.maxSubscribers == null) {
+			this.maxSubscribers =
+					getIntegrationProperty(IntegrationProperties.CHANNELS_MAX_UNICAST_SUBSCRIBERS, Integer.class);
+		}
+		unicastingDispatcher.setMaxSubscribers(this.maxSubscribers);
+		this.dispatcher = unicastingDispatcher;
+	}
+
+	private UnicastingDispatcher createDispatcher() {
+		UnicastingDispatcher unicastingDispatcher = new UnicastingDispatcher();
+		unicastingDispatcher.setFailover(this.failover);
+		if (this.loadBalancingStrategy != null) {
+			unicastingDispatcher.setLoadBalancingStrategy(this.loadBalancingStrategy);
+		}
+		return unicastingDispatcher;
+	}
+
+	@Override
+	protected boolean doSend(Message<?> message, long timeout) {
+		if (getDispatcher().getHandlerCount() == 0) {
+			throw new MessageDeliveryException(message,
+					"Dispatcher has no subscribers for channel '" + getFullChannelName() + "'.");
+		}
+		if (!this.partitioning.isRunning()) {
+			start(message);
+		}
+		BlockingQueue<Message<?>> queue = this.partitions[this.partitioning.partitionIndex(message)].queue;
+		try {
+			if (timeout < 0) {
+				queue.put(message);
+				return true;
+			}
+			return queue.offer(message, timeout, TimeUnit.MILLISECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private void start(Message<?> message) {
+		ThreadFactory threadFactory = this.threadFactory;
+		if (threadFactory == null) {
+			threadFactory = new CustomizableThreadFactory(
+					(getComponentName() == null ? "partitioned-channel" : getComponentName()) + "-");
+		}
+		if (!this.partitioning.start(threadFactory, this.partitions)) {
+			throw new MessageDeliveryException(message,
+					"Channel '" + getFullChannelName() + "' has been destroyed");
+		}
+	}
+
+	/**
+	 * Stop the partition threads once they have handled their current message;
+	 * the messages still queued are discarded. The threads which are still busy after
+	 * the {@link #setShutdownTimeout(long) shutdown timeout} are interrupted.
+	 */
+	@Override
+	public void destroy() {
+		this.partitioning.stop(thread -> {
+			// woken up by the poison pill
+		});
+		List<Message<?>> discarded = new ArrayList<>();
+		for (Partition partition : this.partitions) {
+			partition.queue.drainTo(discarded);
+			partition.queue.offer(POISON_PILL);
+		}
+		if (discarded.size() > 0 && logger.isWarnEnabled()) {
+			logger.warn(discarded.size() + " message(s) discarded on destruction of channel '"
+					+ getFullChannelName() + "'");
+		}
+		boolean terminated = false;
+		try {
+			terminated = this.partitioning.awaitTermination(this.shutdownTimeout);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (!terminated) {
+			if (logger.isWarnEnabled()) {
+				logger.warn("Interrupting the partition threads of channel '" + getFullChannelName()
+						+ "' still busy after " + this.shutdownTimeout + " ms");
+			}
+			this.partitioning.stop(Thread::interrupt);
+		}
+	}
+
+	private void handleError(Throwable t) {
+		if (this.errorHandler != null) {
+			this.errorHandler.handleError(t);
+		}
+		else {
+			logger.error("Failed to handle message on channel '" + getFullChannelName() + "'", t);
+		}
+	}
+
+	private final class Partition implements Runnable {
+
+		private final int index;
+
+		private final BlockingQueue<Message<?>> queue;
+
+		private final PartitionMetrics metrics = new PartitionMetrics();
+
+		Partition(int index, int capacity) {
+			this.index = index;
+			this.queue = new LinkedBlockingQueue<>(capacity);
+		}
+
+		@Override
+		public void run() {
+			PartitionedWorkers partitioning = PartitionedChannel.this.partitioning;
+			while (partitioning.isRunning()) {
+				try {
+					Message<?> message = this.queue.take();
+					if (message != POISON_PILL) {
+						handle(message);
+					}
+				}
+				catch (InterruptedException e) {
+					if (!partitioning.isRunning()) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			}
+		}
+
+		private void handle(Message<?> message) {
+			boolean countsEnabled = isCountsEnabled();
+			MetricsContext context = countsEnabled ? this.metrics.delegate.beforeSend() : null;
+			Throwable failure = null;
+			try {
+				if (PartitionedChannel.this.executorInterceptorsSize > 0) {
+					new MessageHandlingTask(new MessageHandlingRunnable() {
+
+						@Override
+						public void run() {
+							PartitionedChannel.this.dispatchHandler.handleMessage(message);
+						}
+
+						@Override
+						public Message<?> getMessage() {
+							return message;
+						}
+
+						@Override
+						public MessageHandler getMessageHandler() {
+							return PartitionedChannel.this.dispatchHandler;
+						}
+
+					}).run();
+				}
+				else {
+					PartitionedChannel.this.dispatchHandler.handleMessage(message);
+				}
+			}
+			catch (Throwable t) { //NOSONAR
+				failure = t;
+			}
+			if (countsEnabled) {
+				this.metrics.delegate.afterSend(context, failure == null);
+			}
+			if (failure != null) {
+				handleError(failure);
+			}
+		}
+
+	}
+
+	private static final class PartitionMetrics implements MessageChannelMetrics {
+
+		private final DefaultMessageChannelMetrics delegate = new DefaultMessageChannelMetrics();
+
+		private volatile boolean loggingEnabled = true;
+
+		private volatile boolean statsEnabled;
+
+		PartitionMetrics() {
+			super();
+		}
+
+		@Override
+		public void setLoggingEnabled(boolean enabled) {
+			this.loggingEnabled = enabled;
+		}
+
+		@Override
+		public boolean isLoggingEnabled() {
+			return this.loggingEnabled;
+		}
+
+		@Override
+		public void reset() {
+			this.delegate.reset();
+		}
+
+		@Override
+		public void setCountsEnabled(boolean countsEnabled) {
+			// counts follow the channel
+		}
+
+		@Override
+		public boolean isCountsEnabled() {
+			return true;
+		}
+
+		@Override
+		public void setStatsEnabled(boolean statsEnabled) {
+			this.statsEnabled = statsEnabled;
+			this.delegate.setFullStatsEnabled(statsEnabled);
+		}
+
+		@Override
+		public boolean isStatsEnabled() {
+			return this.statsEnabled;
+		}
+
+		@Override
+		public int getSendCount() {
+			return this.delegate.getSendCount();
+		}
+
+		@Override
+		public long getSendCountLong() {
+			return this.delegate.getSendCountLong();
+		}
+
+		@Override
+		public int getSendErrorCount() {
+			return this.delegate.getSendErrorCount();
+		}
+
+		@Override
+		public long getSendErrorCountLong() {
+			return this.delegate.getSendErrorCountLong();
+		}
+
+		@Override
+		public double getTimeSinceLastSend() {
+			return this.delegate.getTimeSinceLastSend();
+		}
+
+		@Override
+		public double getMeanSendRate() {
+			return this.delegate.getMeanSendRate();
+		}
+
+		@Override
+		public double getMeanErrorRate() {
+			return this.delegate.getMeanErrorRate();
+		}
+
+		@Override
+		public double getMeanErrorRatio() {
+			return this.delegate.getMeanErrorRatio();
+		}
+
+		@Override
+		public double getMeanSendDuration() {
+			return this.delegate.getMeanSendDuration();
+		}
+
+		@Override
+		public double getMinSendDuration() {
+			return this.delegate.getMinSendDuration();
+		}
+
+		@Override
+		public double getMaxSendDuration() {
+			return this.delegate.getMaxSendDuration();
+		}
+
+		@Override
+		public double getStandardDeviationSendDuration() {
+			return this.delegate.getStandardDeviationSendDuration();
+		}
+
+		@Override
+		public Statistics getSendDuration() {
+			return this.delegate.getSendDuration();
+		}
+
+		@Override
+		public Statistics getSendRate() {
+			return this.delegate.getSendRate();
+		}
+
+		@Override
+		public Statistics getErrorRate() {
+			return this.delegate.getErrorRate();
+		}
+
+	}
+
+}
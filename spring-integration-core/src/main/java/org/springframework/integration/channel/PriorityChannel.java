@@ -17,12 +17,14 @@
 package org.springframework.integration.channel;
 
 import java.util.Comparator;
+import java.util.List;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.integration.IntegrationMessageHeaderAccessor;
 import org.springframework.integration.store.MessageGroupQueue;
 import org.springframework.integration.store.PriorityCapableChannelMessageStore;
+import org.springframework.integration.util.PriorityBucketQueue;
 import org.springframework.integration.util.UpperBound;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageHeaders;
@@ -30,6 +32,10 @@ import org.springframework.messaging.MessageHeaders;
 /**
  * A message channel that prioritizes messages based on a {@link Comparator}.
  * The default comparator is based upon the message header's 'priority'.
+ * <p>
+ * When the priorities are known to be in a small range (e.g. 0-9), use
+ * {@link #PriorityChannel(int, int, int)}: the messages are then stored in a
+ * FIFO bucket per priority instead of a single heap.
  *
  * @author Mark Fisher
  * @author Oleg Zhurakousky
@@ -42,7 +48,7 @@ public class PriorityChannel extends QueueChannel {
 
 	private final AtomicLong sequenceCounter = new AtomicLong();
 
-	private final boolean useMessageStore;
+	private final boolean wrapMessages;
 
 	/**
 	 * Create a channel with an unbounded queue. Message priority will be
@@ -87,7 +93,26 @@ public class PriorityChannel extends QueueChannel {
 	public PriorityChannel(int capacity, Comparator<Message<?>> comparator) {
 		super(new PriorityBlockingQueue<>(11, new SequenceFallbackComparator(comparator)));
 		this.upperBound = new UpperBound(capacity);
-		this.useMessageStore = false;
+		this.wrapMessages = true;
+	}
+
+	/**
+	 * Create a channel with the specified queue capacity for messages with a
+	 * {@link IntegrationMessageHeaderAccessor#getPriority() priority} in the provided
+	 * (inclusive) range. Each priority has its own lock-free FIFO bucket, which makes
+	 * a send O(1) and avoids the contention of a single heap. A message without a
+	 * priority is treated as priority {@code 0}; priorities outside the range are
+	 * treated as the nearest bound.
+	 * @param capacity The capacity; if non-positive, the queue is unbounded.
+	 * @param minPriority the lowest priority.
+	 * @param maxPriority the highest priority.
+	 * @since 5.1
+	 * @see PriorityBucketQueue
+	 */
+	public PriorityChannel(int capacity, int minPriority, int maxPriority) {
+		super(new PriorityBucketQueue<Message<?>>(minPriority, maxPriority, PriorityChannel::priority));
+		this.upperBound = new UpperBound(capacity);
+		this.wrapMessages = false;
 	}
 
 	/**
@@ -109,7 +134,7 @@ public class PriorityChannel extends QueueChannel {
 	public PriorityChannel(MessageGroupQueue messageGroupQueue) {
 		super(messageGroupQueue);
 		this.upperBound = new UpperBound(0);
-		this.useMessageStore = true;
+		this.wrapMessages = false;
 	}
 
 	@Override
@@ -122,7 +147,7 @@ public class PriorityChannel extends QueueChannel {
 		if (!this.upperBound.tryAcquire(timeout)) {
 			return false;
 		}
-		if (!this.useMessageStore) {
+		if (this.wrapMessages) {
 			message = new MessageWrapper(message);
 		}
 		return super.doSend(message, 0);
@@ -132,7 +157,7 @@ public class PriorityChannel extends QueueChannel {
 	protected Message<?> doReceive(long timeout) {
 		Message<?> message = super.doReceive(timeout);
 		if (message != null) {
-			if (!this.useMessageStore) {
+			if (this.wrapMessages) {
 				message = ((MessageWrapper) message).getRootMessage();
 			}
 			this.upperBound.release();
@@ -140,6 +165,24 @@ public class PriorityChannel extends QueueChannel {
 		return message;
 	}
 
+	@Override
+	protected List<Message<?>> doReceive(int maxMessages, long timeout) {
+		List<Message<?>> messages = super.doReceive(maxMessages, timeout);
+		// the first message has already been unwrapped by doReceive(long); the rest are drained as is
+		for (int i = 1; i < messages.size(); i++) {
+			if (this.wrapMessages) {
+				messages.set(i, ((MessageWrapper) messages.get(i)).getRootMessage());
+			}
+			this.upperBound.release();
+		}
+		return messages;
+	}
+
+	private static int priority(Message<?> message) {
+		Object priority = message.getHeaders().get(IntegrationMessageHeaderAccessor.PRIORITY);
+		return priority instanceof Number ? ((Number) priority).intValue() : 0;
+	}
+
 	private static final class SequenceFallbackComparator implements Comparator<Message<?>> {
 
 		private final Comparator<Message<?>> targetComparator;
@@ -17,6 +17,7 @@
 package org.springframework.integration.channel;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
@@ -25,6 +26,7 @@ import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 import org.springframework.integration.core.MessageSelector;
+import org.springframework.integration.store.MessageGroupQueue;
 import org.springframework.integration.support.management.QueueChannelManagement;
 import org.springframework.messaging.Message;
 import org.springframework.util.Assert;
@@ -145,6 +147,31 @@ public class QueueChannel extends AbstractPollableChannel implements QueueChanne
 		}
 	}
 
+	/**
+	 * Take the first message with the timeout, then drain up to {@code maxMessages - 1}
+	 * further messages in one {@link BlockingQueue#drainTo(java.util.Collection, int)} operation.
+	 */
+	@Override
+	protected List<Message<?>> doReceive(int maxMessages, long timeout) {
+		Message<?> message = doReceive(timeout);
+		if (message == null) {
+			return Collections.emptyList();
+		}
+		List<Message<?>> messages = new ArrayList<>();
+		messages.add(message);
+		if (maxMessages > 1) {
+			if (this.queue instanceof BlockingQueue) {
+				((BlockingQueue<Message<?>>) this.queue).drainTo(messages, maxMessages - 1);
+			}
+			else {
+				while (messages.size() < maxMessages && (message = this.queue.poll()) != null) {
+					messages.add(message);
+				}
+			}
+		}
+		return messages;
+	}
+
 	@Override
 	public List<Message<?>> clear() {
 		List<Message<?>> clearedMessages = new ArrayList<Message<?>>();
@@ -181,6 +208,17 @@ public class QueueChannel extends AbstractPollableChannel implements QueueChanne
 		return this.queue.size();
 	}
 
+	/**
+	 * Return true if the channel is backed by a {@link MessageGroupQueue}, and thus by a
+	 * message store, which is assumed to be persistent.
+	 * @return true if the queue is a {@link MessageGroupQueue}.
+	 * @since 5.1
+	 */
+	@Override
+	public boolean isPersistent() {
+		return this.queue instanceof MessageGroupQueue;
+	}
+
 	@Override
 	public int getRemainingCapacity() {
 		if (this.queue instanceof BlockingQueue) {
@@ -0,0 +1,697 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.channel;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.OrderComparator;
+import org.springframework.integration.context.IntegrationProperties;
+import org.springframework.integration.dispatcher.BroadcastingDispatcher;
+import org.springframework.integration.support.MessageDecorator;
+import org.springframework.integration.support.channel.BeanFactoryChannelResolver;
+import org.springframework.integration.support.utils.IntegrationUtils;
+import org.springframework.integration.util.WaitStrategy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.ErrorHandler;
+
+/**
+ * A publish-subscribe channel backed by a ring buffer: a send publishes the message
+ * once into a shared, pre-sized buffer, and each subscriber consumes the buffer on its
+ * own thread, tracking its own sequence. Unlike a {@link PublishSubscribeChannel} with an
+ * executor, no task is submitted per subscriber and message; unlike one without an
+ * executor, a slow subscriber does not delay the others, as long as it is less than the
+ * buffer size behind.
+ * <p>
+ * Each message is delivered to the subscribers present when it was sent, in order.
+ * With {@link #setApplySequence(boolean) applySequence}, the sequence number is the
+ * position of the subscriber (in {@link org.springframework.core.Ordered} order, then
+ * subscription order) and the sequence size is the number of those subscribers.
+ * <p>
+ * When the slowest subscriber is a full buffer behind, the {@link SlowConsumerPolicy}
+ * applies: by default, the sender blocks until space is available or the send timeout
+ * elapses.
+ * <p>
+ * The subscriber threads run while the channel is {@link #start() started}; they
+ * spin briefly and then block until a message is published, unless another
+ * {@link WaitStrategy} is configured.
+ * <p>
+ * Exceptions thrown by the subscribers are handled by the {@link ErrorHandler}
+ * (a {@link MessagePublishingErrorHandler} by default), unless
+ * {@link #setIgnoreFailures(boolean) ignoreFailures} is set, in which case they are
+ * logged.
+ *
+ * @since 5.1
+ */
+public class RingBufferPublishSubscribeChannel extends AbstractExecutorChannel
+		implements SmartLifecycle, DisposableBean {
+
+	/**
+	 * The action taken on a send when the slowest subscriber has not yet consumed
+	 * the buffer slot the message would be published into.
+	 */
+	public enum SlowConsumerPolicy {
+
+		/**
+		 * Wait for the slowest subscriber until the send timeout elapses.
+		 */
+		BLOCK,
+
+		/**
+		 * Fail the send immediately.
+		 */
+		REJECT
+
+	}
+
+	private static final int DEFAULT_BUFFER_SIZE = 1024;
+
+	private static final Consumer[] NO_CONSUMERS = new Consumer[0];
+
+	private final AtomicReferenceArray<Entry> buffer;
+
+	private final AtomicLongArray published;
+
+	private final int bufferSize;
+
+	private final int mask;
+
+	private final AtomicLong claimed = new AtomicLong(-1);
+
+	private final Map<MessageHandler, Consumer> consumersByHandler = new LinkedHashMap<>();
+
+	private final ReentrantLock waitLock = new ReentrantLock();
+
+	private final Condition publishedCondition = this.waitLock.newCondition();
+
+	private final Condition consumedCondition = this.waitLock.newCondition();
+
+	private volatile int waitingConsumers;
+
+	private volatile int waitingSenders;
+
+	private volatile Consumer[] consumers = NO_CONSUMERS;
+
+	private volatile SlowConsumerPolicy slowConsumerPolicy = SlowConsumerPolicy.BLOCK;
+
+	private volatile WaitStrategy waitStrategy = WaitStrategy.BLOCKING;
+
+	private volatile boolean ignoreFailures;
+
+	private volatile boolean applySequence;
+
+	private volatile int minSubscribers;
+
+	private ThreadFactory threadFactory;
+
+	private ErrorHandler errorHandler;
+
+	private volatile boolean autoStartup = true;
+
+	private volatile int phase = Integer.MIN_VALUE;
+
+	private volatile boolean running;
+
+	private volatile boolean destroyed;
+
+	/**
+	 * Create a channel with a buffer of 1024 messages.
+	 */
+	public RingBufferPublishSubscribeChannel() {
+		this(DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Create a channel with a buffer of the provided size.
+	 * @param bufferSize the buffer size; must be a power of 2.
+	 */
+	public RingBufferPublishSubscribeChannel(int bufferSize) {
+		super(null);
+		Assert.isTrue(bufferSize > 0 && Integer.bitCount(bufferSize) == 1, "'bufferSize' must be a power of 2");
+		this.bufferSize = bufferSize;
+		this.mask = bufferSize - 1;
+		this.buffer = new AtomicReferenceArray<>(bufferSize);
+		this.published = new AtomicLongArray(bufferSize);
+		for (int i = 0; i < bufferSize; i++) {
+			this.published.set(i, -1);
+		}
+		this.dispatcher = new BroadcastingDispatcher();
+	}
+
+	/**
+	 * Set the action taken when the slowest subscriber is a full buffer behind.
+	 * Default {@link SlowConsumerPolicy#BLOCK}.
+	 * @param slowConsumerPolicy the policy.
+	 */
+	public void setSlowConsumerPolicy(SlowConsumerPolicy slowConsumerPolicy) {
+		Assert.notNull(slowConsumerPolicy, "'slowConsumerPolicy' must not be null");
+		this.slowConsumerPolicy = slowConsumerPolicy;
+	}
+
+	/**
+	 * Set how the subscriber threads wait for new messages, and blocked senders for space.
+	 * Default {@link WaitStrategy#BLOCKING}: the threads are signalled when a message is
+	 * published or consumed, so idle subscribers use no CPU.
+	 * @param waitStrategy the wait strategy.
+	 */
+	public void setWaitStrategy(WaitStrategy waitStrategy) {
+		Assert.notNull(waitStrategy, "'waitStrategy' must not be null");
+		this.waitStrategy = waitStrategy;
+	}
+
+	/**
+	 * Specify whether failures for one or more of the handlers should be
+	 * ignored (logged) rather than passed to the error handler.
+	 * Default false.
+	 * @param ignoreFailures true if failures should be ignored.
+	 */
+	public void setIgnoreFailures(boolean ignoreFailures) {
+		this.ignoreFailures = ignoreFailures;
+	}
+
+	/**
+	 * Specify whether to apply the sequence number and size headers to the
+	 * messages prior to invoking the subscribed handlers. Default false.
+	 * @param applySequence true if the sequence information should be applied.
+	 */
+	public void setApplySequence(boolean applySequence) {
+		this.applySequence = applySequence;
+	}
+
+	/**
+	 * If at least this number of subscribers are present when a message is sent,
+	 * the send returns true. Default: 0.
+	 * @param minSubscribers The minimum number of subscribers.
+	 */
+	public void setMinSubscribers(int minSubscribers) {
+		this.minSubscribers = minSubscribers;
+	}
+
+	/**
+	 * Set the {@link ThreadFactory} for the subscriber threads; by default the threads
+	 * are named after the channel.
+	 * @param threadFactory the thread factory.
+	 */
+	public void setThreadFactory(ThreadFactory threadFactory) {
+		Assert.notNull(threadFactory, "'threadFactory' must not be null");
+		this.threadFactory = threadFactory;
+	}
+
+	/**
+	 * Provide an {@link ErrorHandler} for exceptions thrown by the subscribers.
+	 * By default, a {@link MessagePublishingErrorHandler} sends an error message to the
+	 * failed message's error channel header, if available, or to the default
+	 * 'errorChannel' otherwise.
+	 * @param errorHandler the error handler.
+	 */
+	public void setErrorHandler(ErrorHandler errorHandler) {
+		this.errorHandler = errorHandler;
+	}
+
+	public void setAutoStartup(boolean autoStartup) {
+		this.autoStartup = autoStartup;
+	}
+
+	/**
+	 * Set the lifecycle phase; by default the channel starts before, and stops after,
+	 * the endpoints which send to it.
+	 * @param phase the phase.
+	 */
+	public void setPhase(int phase) {
+		this.phase = phase;
+	}
+
+	@Override
+	public String getComponentType() {
+		return "publish-subscribe-channel";
+	}
+
+	public int getBufferSize() {
+		return this.bufferSize;
+	}
+
+	/**
+	 * Return the number of messages published but not yet consumed by the slowest subscriber.
+	 * @return the backlog.
+	 */
+	public long getBacklog() {
+		long current = this.claimed.get();
+		return current - minimumSequence(this.consumers, current);
+	}
+
+	@Override
+	protected BroadcastingDispatcher getDispatcher() {
+		return (BroadcastingDispatcher) this.dispatcher;
+	}
+
+	@Override
+	public final void onInit() throws Exception {
+		super.onInit();
+		if (this.errorHandler == null) {
+			this.errorHandler = new MessagePublishingErrorHandler(new BeanFactoryChannelResolver(getBeanFactory()));
+		}
+		if (this.maxSubscribers == null) {
+			setMaxSubscribers(
+					getIntegrationProperty(IntegrationProperties.CHANNELS_MAX_BROADCAST_SUBSCRIBERS, Integer.class));
+		}
+	}
+
+	@Override
+	public boolean subscribe(MessageHandler handler) {
+		synchronized (this.consumersByHandler) {
+			Assert.state(!this.destroyed, "The channel has been destroyed");
+			boolean added = super.subscribe(handler);
+			if (added) {
+				// the new subscriber receives the messages claimed from now on
+				Consumer consumer = new Consumer(handler, this.claimed.get());
+				this.consumersByHandler.put(handler, consumer);
+				updateConsumers();
+				if (this.running) {
+					consumer.start();
+				}
+			}
+			return added;
+		}
+	}
+
+	@Override
+	public boolean unsubscribe(MessageHandler handler) {
+		synchronized (this.consumersByHandler) {
+			boolean removed = super.unsubscribe(handler);
+			Consumer consumer = this.consumersByHandler.remove(handler);
+			if (consumer != null) {
+				updateConsumers();
+				consumer.stop();
+			}
+			return removed;
+		}
+	}
+
+	private void updateConsumers() {
+		List<Consumer> consumers = new ArrayList<>(this.consumersByHandler.values());
+		consumers.sort((c1, c2) -> OrderComparator.INSTANCE.compare(c1.handler, c2.handler));
+		this.consumers = consumers.toArray(NO_CONSUMERS);
+		// blocked senders may no longer wait for an unsubscribed consumer
+		signalAll(this.consumedCondition);
+	}
+
+	@Override
+	public boolean isAutoStartup() {
+		return this.autoStartup;
+	}
+
+	@Override
+	public int getPhase() {
+		return this.phase;
+	}
+
+	@Override
+	public boolean isRunning() {
+		return this.running;
+	}
+
+	/**
+	 * Start a thread for each subscriber; the messages sent while the channel was
+	 * stopped are delivered, as far as they are still in the buffer.
+	 */
+	@Override
+	public void start() {
+		synchronized (this.consumersByHandler) {
+			Assert.state(!this.destroyed, "The channel has been destroyed");
+			if (!this.running) {
+				this.running = true;
+				for (Consumer consumer : this.consumersByHandler.values()) {
+					consumer.start();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stop the subscriber threads once they have handled their current message;
+	 * the messages they have not consumed yet stay in the buffer.
+	 */
+	@Override
+	public void stop() {
+		synchronized (this.consumersByHandler) {
+			if (this.running) {
+				this.running = false;
+				for (Consumer consumer : this.consumersByHandler.values()) {
+					consumer.stop();
+				}
+			}
+		}
+	}
+
+	@Override
+	public void stop(Runnable callback) {
+		stop();
+		callback.run();
+	}
+
+	@Override
+	protected boolean doSend(Message<?> message, long timeout) {
+		if (this.destroyed) {
+			throw new MessageDeliveryException(message, "Channel '" + getFullChannelName() + "' has been destroyed");
+		}
+		long deadline = timeout > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout) : 0;
+		int attempt = 0;
+		while (true) {
+			Consumer[] consumers = this.consumers;
+			if (consumers.length == 0) {
+				return this.minSubscribers == 0;
+			}
+			long current = this.claimed.get();
+			long next = current + 1;
+			if (next - this.bufferSize > minimumSequence(consumers, current)) {
+				if (this.slowConsumerPolicy == SlowConsumerPolicy.REJECT || timeout == 0
+						|| (timeout > 0 && System.nanoTime() - deadline >= 0)
+						|| Thread.currentThread().isInterrupted()) {
+					return false;
+				}
+				WaitStrategy waitStrategy = this.waitStrategy;
+				if (waitStrategy.isBlockingAfter(attempt)) {
+					awaitConsumed(consumers, current, timeout, deadline);
+				}
+				else {
+					waitStrategy.idle(attempt);
+				}
+				if (attempt < Integer.MAX_VALUE) {
+					attempt++;
+				}
+			}
+			else if (this.claimed.compareAndSet(current, next)) {
+				int index = (int) (next & this.mask);
+				this.buffer.set(index, new Entry(message, consumers));
+				this.published.set(index, next);
+				if (this.waitingConsumers > 0) {
+					signalAll(this.publishedCondition);
+				}
+				return consumers.length >= this.minSubscribers;
+			}
+		}
+	}
+
+	/*
+	 * The waiting counts are updated under the lock, so a thread which publishes or
+	 * consumes after a waiter has registered signals it once it awaits.
+	 */
+	private void awaitConsumed(Consumer[] consumers, long current, long timeout, long deadline) {
+		this.waitLock.lock();
+		try {
+			this.waitingSenders++;
+			try {
+				while (current + 1 - this.bufferSize > minimumSequence(consumers, current)
+						&& this.consumers == consumers) {
+					if (timeout < 0) {
+						this.consumedCondition.await();
+					}
+					else {
+						long nanos = deadline - System.nanoTime();
+						if (nanos <= 0) {
+							break;
+						}
+						this.consumedCondition.awaitNanos(nanos);
+					}
+				}
+			}
+			finally {
+				this.waitingSenders--;
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			this.waitLock.unlock();
+		}
+	}
+
+	private void awaitPublished(Consumer consumer, int index, long sequence) {
+		this.waitLock.lock();
+		try {
+			this.waitingConsumers++;
+			try {
+				while (consumer.running && this.published.get(index) != sequence) {
+					this.publishedCondition.await();
+				}
+			}
+			finally {
+				this.waitingConsumers--;
+			}
+		}
+		catch (InterruptedException e) {
+			// the subscriber threads are stopped with stop(), not interrupted
+		}
+		finally {
+			this.waitLock.unlock();
+		}
+	}
+
+	private void signalAll(Condition condition) {
+		this.waitLock.lock();
+		try {
+			condition.signalAll();
+		}
+		finally {
+			this.waitLock.unlock();
+		}
+	}
+
+	private static long minimumSequence(Consumer[] consumers, long current) {
+		long minimum = current;
+		for (Consumer consumer : consumers) {
+			minimum = Math.min(minimum, consumer.sequence.get());
+		}
+		return minimum;
+	}
+
+	/**
+	 * Stop the subscriber threads once they have handled their current message;
+	 * the messages they have not consumed yet are discarded.
+	 */
+	@Override
+	public void destroy() {
+		synchronized (this.consumersByHandler) {
+			stop();
+			this.destroyed = true;
+			long backlog = getBacklog();
+			if (backlog > 0 && logger.isWarnEnabled()) {
+				logger.warn("Up to " + backlog + " message(s) not delivered to all subscribers on destruction of "
+						+ "channel '" + getFullChannelName() + "'");
+			}
+		}
+	}
+
+	private void handleError(Throwable t) {
+		if (this.errorHandler != null) {
+			this.errorHandler.handleError(t);
+		}
+		else {
+			logger.error("Failed to handle message on channel '" + getFullChannelName() + "'", t);
+		}
+	}
+
+	private static final class Entry {
+
+		private final Message<?> message;
+
+		private final Consumer[] subscribers;
+
+		Entry(Message<?> message, Consumer[] subscribers) {
+			this.message = message;
+			this.subscribers = subscribers;
+		}
+
+	}
+
+	private final class Consumer implements Runnable {
+
+		private final MessageHandler handler;
+
+		private final AtomicLong sequence;
+
+		private volatile boolean running;
+
+		private volatile Thread thread;
+
+		Consumer(MessageHandler handler, long sequence) {
+			this.handler = handler;
+			this.sequence = new AtomicLong(sequence);
+		}
+
+		void start() {
+			Thread previous = this.thread;
+			if (previous != null) {
+				// don't deliver the message the previous thread may still be handling twice
+				try {
+					previous.join();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted while waiting for the previous subscriber thread", e);
+				}
+			}
+			this.running = true;
+			ThreadFactory threadFactory = RingBufferPublishSubscribeChannel.this.threadFactory;
+			if (threadFactory == null) {
+				threadFactory = new CustomizableThreadFactory(
+						(getComponentName() == null ? "ring-buffer-channel" : getComponentName()) + "-");
+			}
+			this.thread = threadFactory.newThread(this);
+			this.thread.start();
+		}
+
+		void stop() {
+			this.running = false;
+			LockSupport.unpark(this.thread);
+			signalAll(RingBufferPublishSubscribeChannel.this.publishedCondition);
+		}
+
+		@Override
+		public void run() {
+			AtomicReferenceArray<Entry> buffer = RingBufferPublishSubscribeChannel.this.buffer;
+			AtomicLongArray published = RingBufferPublishSubscribeChannel.this.published;
+			int mask = RingBufferPublishSubscribeChannel.this.mask;
+			long next = this.sequence.get() + 1;
+			int attempt = 0;
+			while (this.running) {
+				int index = (int) (next & mask);
+				if (published.get(index) == next) {
+					deliver(buffer.get(index));
+					consumed(next++);
+					attempt = 0;
+				}
+				else {
+					WaitStrategy waitStrategy = RingBufferPublishSubscribeChannel.this.waitStrategy;
+					if (waitStrategy.isBlockingAfter(attempt)) {
+						awaitPublished(this, index, next);
+					}
+					else {
+						waitStrategy.idle(attempt);
+					}
+					if (attempt < Integer.MAX_VALUE) {
+						attempt++;
+					}
+				}
+			}
+		}
+
+		private void consumed(long sequence) {
+			if (RingBufferPublishSubscribeChannel.this.waitStrategy == WaitStrategy.BLOCKING) {
+				// a full barrier, so that a sender registering as waiting sees the new sequence
+				this.sequence.set(sequence);
+				if (RingBufferPublishSubscribeChannel.this.waitingSenders > 0) {
+					signalAll(RingBufferPublishSubscribeChannel.this.consumedCondition);
+				}
+			}
+			else {
+				this.sequence.lazySet(sequence);
+			}
+		}
+
+		private void deliver(Entry entry) {
+			Consumer[] subscribers = entry.subscribers;
+			int position = -1;
+			for (int i = 0; i < subscribers.length; i++) {
+				if (subscribers[i] == this) {
+					position = i;
+					break;
+				}
+			}
+			if (position < 0) {
+				return; // subscribed after the message was sent
+			}
+			Message<?> message = entry.message;
+			if (RingBufferPublishSubscribeChannel.this.applySequence) {
+				UUID sequenceId = message.getHeaders().getId();
+				Message<?> sequenced = getMessageBuilderFactory()
+						.fromMessage(message)
+						.pushSequenceDetails(sequenceId, position + 1, subscribers.length)
+						.build();
+				if (message instanceof MessageDecorator) {
+					sequenced = ((MessageDecorator) message).decorateMessage(sequenced);
+				}
+				message = sequenced;
+			}
+			try {
+				if (RingBufferPublishSubscribeChannel.this.executorInterceptorsSize > 0) {
+					new MessageHandlingTask(createTask(message)).run();
+				}
+				else {
+					this.handler.handleMessage(message);
+				}
+			}
+			catch (Throwable t) { //NOSONAR
+				if (RingBufferPublishSubscribeChannel.this.ignoreFailures) {
+					if (logger.isWarnEnabled()) {
+						logger.warn("Suppressing Exception since 'ignoreFailures' is set to TRUE.", t);
+					}
+				}
+				else if (t instanceof Exception) {
+					handleError(IntegrationUtils.wrapInDeliveryExceptionIfNecessary(message,
+							() -> "Failed to handle Message", (Exception) t));
+				}
+				else {
+					handleError(t);
+				}
+			}
+		}
+
+		private MessageHandlingRunnable createTask(Message<?> message) {
+			MessageHandler handler = this.handler;
+			return new MessageHandlingRunnable() {
+
+				@Override
+				public void run() {
+					handler.handleMessage(message);
+				}
+
+				@Override
+				public Message<?> getMessage() {
+					return message;
+				}
+
+				@Override
+				public MessageHandler getMessageHandler() {
+					return handler;
+				}
+
+			};
+		}
+
+	}
+
+}
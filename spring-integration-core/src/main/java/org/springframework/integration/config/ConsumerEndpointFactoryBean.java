@@ -298,6 +298,7 @@ public class ConsumerEndpointFactoryBean
 				pollingConsumer.setTrigger(this.pollerMetadata.getTrigger());
 				pollingConsumer.setAdviceChain(this.pollerMetadata.getAdviceChain());
 				pollingConsumer.setMaxMessagesPerPoll(this.pollerMetadata.getMaxMessagesPerPoll());
+				pollingConsumer.setBatchReceive(this.pollerMetadata.isBatchReceive());
 
 				pollingConsumer.setErrorHandler(this.pollerMetadata.getErrorHandler());
 
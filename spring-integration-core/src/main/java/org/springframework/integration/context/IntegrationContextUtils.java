@@ -39,6 +39,8 @@ public abstract class IntegrationContextUtils {
 
 	public static final String TASK_SCHEDULER_BEAN_NAME = "taskScheduler";
 
+	public static final String TIMING_WHEEL_TASK_SCHEDULER_BEAN_NAME = "integrationTimingWheelTaskScheduler";
+
 	public static final String ERROR_CHANNEL_BEAN_NAME = "errorChannel";
 
 	public static final String ERROR_LOGGER_BEAN_NAME = "_org.springframework.integration.errorLogger";
@@ -134,6 +136,17 @@ public abstract class IntegrationContextUtils {
 		return taskScheduler;
 	}
 
+	/**
+	 * @param beanFactory BeanFactory for lookup, must not be null.
+	 * @return The {@link TaskScheduler} bean whose name is
+	 * {@value #TIMING_WHEEL_TASK_SCHEDULER_BEAN_NAME} if available.
+	 * @since 5.1
+	 * @see org.springframework.integration.scheduling.TimingWheelTaskScheduler
+	 */
+	public static TaskScheduler getTimingWheelTaskScheduler(BeanFactory beanFactory) {
+		return getBeanOfType(beanFactory, TIMING_WHEEL_TASK_SCHEDULER_BEAN_NAME, TaskScheduler.class);
+	}
+
 	/**
 	 * @param beanFactory BeanFactory for lookup, must not be null.
 	 * @return the instance of {@link StandardEvaluationContext} bean whose name is
@@ -120,6 +120,13 @@ public class Channels {
 		return MessageChannels.executor(id, executor);
 	}
 
+	public PartitionedChannelSpec partitioned(int partitionCount) {
+		return MessageChannels.partitioned(partitionCount);
+	}
+
+	public PartitionedChannelSpec partitioned(String id, int partitionCount) {
+		return MessageChannels.partitioned(id, partitionCount);
+	}
 
 	public FluxMessageChannelSpec flux() {
 		return MessageChannels.flux();
@@ -129,6 +136,14 @@ public class Channels {
 		return MessageChannels.flux(id);
 	}
 
+	public FluxMessageChannelSpec flux(int bufferSize) {
+		return MessageChannels.flux(bufferSize);
+	}
+
+	public FluxMessageChannelSpec flux(String id, int bufferSize) {
+		return MessageChannels.flux(id, bufferSize);
+	}
+
 	Channels() {
 		super();
 	}
@@ -30,4 +30,20 @@ public class FluxMessageChannelSpec extends MessageChannelSpec<FluxMessageChanne
 		this.channel = new FluxMessageChannel();
 	}
 
+	FluxMessageChannelSpec(int bufferSize) {
+		this.channel = new FluxMessageChannel(bufferSize);
+	}
+
+	/**
+	 * Set the strategy to apply when the buffer is full.
+	 * @param overflowStrategy the overflow strategy.
+	 * @return the spec.
+	 * @since 5.1
+	 * @see FluxMessageChannel#setOverflowStrategy(FluxMessageChannel.OverflowStrategy)
+	 */
+	public FluxMessageChannelSpec overflowStrategy(FluxMessageChannel.OverflowStrategy overflowStrategy) {
+		this.channel.setOverflowStrategy(overflowStrategy);
+		return this;
+	}
+
 }
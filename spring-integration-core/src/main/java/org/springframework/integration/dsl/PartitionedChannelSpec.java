@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.dsl;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Function;
+
+import org.springframework.expression.Expression;
+import org.springframework.integration.channel.PartitionedChannel;
+import org.springframework.messaging.Message;
+import org.springframework.util.ErrorHandler;
+
+/**
+ * A {@link MessageChannelSpec} for a {@link PartitionedChannel}.
+ *
+ * @since 5.1
+ */
+public class PartitionedChannelSpec extends LoadBalancingChannelSpec<PartitionedChannelSpec, PartitionedChannel> {
+
+	private final int partitionCount;
+
+	private int capacity = Integer.MAX_VALUE;
+
+	private Function<Message<?>, ?> partitionKeyFunction;
+
+	private Expression partitionKeyExpression;
+
+	private ThreadFactory threadFactory;
+
+	private ErrorHandler errorHandler;
+
+	PartitionedChannelSpec(int partitionCount) {
+		this.partitionCount = partitionCount;
+	}
+
+	/**
+	 * Set the capacity of each partition's queue; senders block when the partition of
+	 * their message is full.
+	 * @param capacity the capacity.
+	 * @return the spec.
+	 */
+	public PartitionedChannelSpec capacity(int capacity) {
+		this.capacity = capacity;
+		return this;
+	}
+
+	/**
+	 * Set the function to extract the partition key from a message.
+	 * @param partitionKeyFunction the function.
+	 * @return the spec.
+	 * @see PartitionedChannel#setPartitionKeyFunction(Function)
+	 */
+	public PartitionedChannelSpec partitionKey(Function<Message<?>, ?> partitionKeyFunction) {
+		this.partitionKeyFunction = partitionKeyFunction;
+		this.partitionKeyExpression = null;
+		return this;
+	}
+
+	/**
+	 * Set a SpEL expression to extract the partition key from a message.
+	 * @param partitionKeyExpression the expression.
+	 * @return the spec.
+	 * @see PartitionedChannel#setPartitionKeyExpression(Expression)
+	 */
+	public PartitionedChannelSpec partitionKeyExpression(String partitionKeyExpression) {
+		this.partitionKeyExpression = PARSER.parseExpression(partitionKeyExpression);
+		this.partitionKeyFunction = null;
+		return this;
+	}
+
+	public PartitionedChannelSpec threadFactory(ThreadFactory threadFactory) {
+		this.threadFactory = threadFactory;
+		return this;
+	}
+
+	public PartitionedChannelSpec errorHandler(ErrorHandler errorHandler) {
+		this.errorHandler = errorHandler;
+		return this;
+	}
+
+	@Override
+	protected PartitionedChannel doGet() {
+		this.channel = new PartitionedChannel(this.partitionCount, this.capacity, this.loadBalancingStrategy);
+		if (this.failover != null) {
+			this.channel.setFailover(this.failover);
+		}
+		if (this.maxSubscribers != null) {
+			this.channel.setMaxSubscribers(this.maxSubscribers);
+		}
+		if (this.partitionKeyFunction != null) {
+			this.channel.setPartitionKeyFunction(this.partitionKeyFunction);
+		}
+		if (this.partitionKeyExpression != null) {
+			this.channel.setPartitionKeyExpression(this.partitionKeyExpression);
+		}
+		if (this.threadFactory != null) {
+			this.channel.setThreadFactory(this.threadFactory);
+		}
+		if (this.errorHandler != null) {
+			this.channel.setErrorHandler(this.errorHandler);
+		}
+		return super.doGet();
+	}
+
+}
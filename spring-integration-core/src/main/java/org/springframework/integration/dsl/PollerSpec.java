@@ -120,6 +120,17 @@ public final class PollerSpec extends IntegrationComponentSpec<PollerSpec, Polle
 		return this;
 	}
 
+	/**
+	 * @param batchReceive true to receive up to {@code maxMessagesPerPoll} messages in one operation.
+	 * @return the spec.
+	 * @since 5.1
+	 * @see PollerMetadata#setBatchReceive
+	 */
+	public PollerSpec batchReceive(boolean batchReceive) {
+		this.target.setBatchReceive(batchReceive);
+		return this;
+	}
+
 	/**
 	 * Specify a timeout in milliseconds to wait for a message in the
 	 * {@link org.springframework.messaging.MessageChannel}.
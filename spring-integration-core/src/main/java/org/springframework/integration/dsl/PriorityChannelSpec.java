@@ -37,6 +37,8 @@ public class PriorityChannelSpec extends MessageChannelSpec<PriorityChannelSpec,
 
 	private MessageGroupQueue messageGroupQueue;
 
+	private int[] priorityRange;
+
 	PriorityChannelSpec() {
 		super();
 	}
@@ -51,6 +53,19 @@ public class PriorityChannelSpec extends MessageChannelSpec<PriorityChannelSpec,
 		return this;
 	}
 
+	/**
+	 * Store messages in a FIFO bucket per priority for the provided (inclusive) range.
+	 * @param minPriority the lowest priority.
+	 * @param maxPriority the highest priority.
+	 * @return the spec.
+	 * @since 5.1
+	 * @see PriorityChannel#PriorityChannel(int, int, int)
+	 */
+	public PriorityChannelSpec priorityRange(int minPriority, int maxPriority) {
+		this.priorityRange = new int[] { minPriority, maxPriority };
+		return this;
+	}
+
 	public PriorityChannelSpec messageStore(PriorityCapableChannelMessageStore messageGroupStore, Object groupId) {
 		this.messageGroupQueue = new MessageGroupQueue(messageGroupStore, groupId);
 		this.messageGroupQueue.setPriority(true);
@@ -61,10 +76,15 @@ public class PriorityChannelSpec extends MessageChannelSpec<PriorityChannelSpec,
 	protected PriorityChannel doGet() {
 		Assert.state(!(this.comparator != null && this.messageGroupQueue != null),
 				"Only one of 'comparator' or 'messageGroupStore' can be specified.");
+		Assert.state(!(this.priorityRange != null && (this.comparator != null || this.messageGroupQueue != null)),
+				"'priorityRange' cannot be combined with 'comparator' or 'messageGroupStore'.");
 
 		if (this.messageGroupQueue != null) {
 			this.channel = new PriorityChannel(this.messageGroupQueue);
 		}
+		else if (this.priorityRange != null) {
+			this.channel = new PriorityChannel(this.capacity, this.priorityRange[0], this.priorityRange[1]);
+		}
 		else {
 			this.channel = new PriorityChannel(this.capacity, this.comparator);
 		}
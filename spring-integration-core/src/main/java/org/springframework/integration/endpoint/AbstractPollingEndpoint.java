@@ -17,10 +17,14 @@
 package org.springframework.integration.endpoint;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledFuture;
 import java.util.stream.Collectors;
@@ -98,6 +102,12 @@ public abstract class AbstractPollingEndpoint extends AbstractEndpoint implement
 
 	private volatile boolean initialized;
 
+	private final Queue<Message<?>> prefetchedMessages = new ConcurrentLinkedQueue<>();
+
+	private boolean batchReceive;
+
+	private volatile boolean batchReceiveActive;
+
 	public AbstractPollingEndpoint() {
 		this.setPhase(Integer.MAX_VALUE / 2);
 	}
@@ -129,6 +139,19 @@ public abstract class AbstractPollingEndpoint extends AbstractEndpoint implement
 		this.maxMessagesPerPoll = maxMessagesPerPoll;
 	}
 
+	/**
+	 * Set to true to receive up to {@code maxMessagesPerPoll} messages in one operation
+	 * when the endpoint supports it (see {@link #isBatchReceiveSupported()}).
+	 * The messages of a batch that are not handled yet are only buffered in memory:
+	 * they are handled when a stopped endpoint is restarted, but lost if the application
+	 * stops or crashes first. Default false.
+	 * @param batchReceive true to enable batch receive.
+	 * @since 5.1
+	 */
+	public void setBatchReceive(boolean batchReceive) {
+		this.batchReceive = batchReceive;
+	}
+
 	public void setErrorHandler(ErrorHandler errorHandler) {
 		this.errorHandler = errorHandler;
 	}
@@ -229,6 +252,11 @@ public abstract class AbstractPollingEndpoint extends AbstractEndpoint implement
 		}
 
 		this.pollingTask = createPollingTask();
+		this.batchReceiveActive = this.batchReceive
+				&& this.maxMessagesPerPoll > 1
+				&& this.transactionSynchronizationFactory == null
+				&& CollectionUtils.isEmpty(this.adviceChain)
+				&& isBatchReceiveSupported();
 
 		if (isReactive()) {
 			this.pollingFlux = createFluxGenerator();
@@ -358,7 +386,7 @@ public abstract class AbstractPollingEndpoint extends AbstractEndpoint implement
 		IntegrationResourceHolder holder = bindResourceHolderIfNecessary(getResourceKey(), getResourceToBind());
 		Message<?> message;
 		try {
-			message = receiveMessage();
+			message = this.batchReceiveActive ? receiveFromBatch() : receiveMessage();
 		}
 		catch (Exception e) {
 			if (Thread.interrupted()) {
@@ -404,6 +432,22 @@ public abstract class AbstractPollingEndpoint extends AbstractEndpoint implement
 		return message;
 	}
 
+	private Message<?> receiveFromBatch() {
+		Message<?> message = this.prefetchedMessages.poll();
+		if (message == null) {
+			List<Message<?>> messages = receiveMessages((int) Math.min(this.maxMessagesPerPoll, Integer.MAX_VALUE));
+			if (!messages.isEmpty()) {
+				message = messages.get(0);
+				this.prefetchedMessages.addAll(messages.subList(1, messages.size()));
+				if (!this.batchReceiveActive) {
+					// stopped meanwhile
+					releasePrefetchedMessages();
+				}
+			}
+		}
+		return message;
+	}
+
 	@Override // guarded by super#lifecycleLock
 	protected void doStop() {
 		if (this.runningTask != null) {
@@ -414,6 +458,20 @@ public abstract class AbstractPollingEndpoint extends AbstractEndpoint implement
 		if (this.subscription != null) {
 			this.subscription.cancel();
 		}
+
+		this.batchReceiveActive = false;
+		releasePrefetchedMessages();
+	}
+
+	private void releasePrefetchedMessages() {
+		List<Message<?>> messages = new ArrayList<>();
+		Message<?> message;
+		while ((message = this.prefetchedMessages.poll()) != null) {
+			messages.add(message);
+		}
+		if (!messages.isEmpty()) {
+			releasePrefetchedMessages(messages);
+		}
 	}
 
 	/**
@@ -429,6 +487,60 @@ public abstract class AbstractPollingEndpoint extends AbstractEndpoint implement
 	 */
 	protected abstract void handleMessage(Message<?> message);
 
+	/**
+	 * Return true if this endpoint can obtain several messages in one
+	 * {@link #receiveMessages(int)} operation. When it can, {@link #setBatchReceive(boolean)
+	 * batchReceive} is enabled and {@code maxMessagesPerPoll} is greater than 1, the
+	 * endpoint receives a batch of up to {@code maxMessagesPerPoll} messages at once and
+	 * handles them one by one. Batching is not used when a transaction synchronization
+	 * factory or an advice chain is configured, since those apply to the receive operation
+	 * of each individual message.
+	 * Implementations must not support batch receive from a source whose messages are
+	 * persisted, since the messages of a batch that are not handled yet are only kept
+	 * in memory; they may throw an {@link IllegalStateException} instead.
+	 * @return true if batch receive is supported; false by default.
+	 * @since 5.1
+	 */
+	protected boolean isBatchReceiveSupported() {
+		return false;
+	}
+
+	/**
+	 * Obtain up to {@code maxMessages} messages in one operation.
+	 * Should be overridden when {@link #isBatchReceiveSupported()} returns true; by
+	 * default, a batch of at most one message is obtained with {@link #receiveMessage()}.
+	 * @param maxMessages the maximum number of messages.
+	 * @return the messages; never null.
+	 * @since 5.1
+	 */
+	protected List<Message<?>> receiveMessages(int maxMessages) {
+		Message<?> message = receiveMessage();
+		return message == null ? Collections.emptyList() : Collections.singletonList(message);
+	}
+
+	/**
+	 * Release the messages received in a batch but not handled yet when the endpoint is
+	 * stopped. By default, they are handled on the calling thread; a failure is passed
+	 * to the error handler, if any, or logged.
+	 * @param messages the messages.
+	 * @since 5.1
+	 */
+	protected void releasePrefetchedMessages(List<Message<?>> messages) {
+		for (Message<?> message : messages) {
+			try {
+				handleMessage(message);
+			}
+			catch (Exception e) {
+				if (this.errorHandler != null) {
+					this.errorHandler.handleError(new MessagingException(message, e));
+				}
+				else {
+					logger.error("Failed to handle the prefetched message " + message + " on stop", e);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Return a resource (MessageSource etc) to bind when using transaction
 	 * synchronization.
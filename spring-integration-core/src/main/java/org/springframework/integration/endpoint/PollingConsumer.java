@@ -17,6 +17,7 @@
 package org.springframework.integration.endpoint;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
@@ -24,6 +25,7 @@ import java.util.List;
 import org.reactivestreams.Subscriber;
 
 import org.springframework.context.Lifecycle;
+import org.springframework.integration.channel.BatchPollableChannel;
 import org.springframework.integration.channel.ExecutorChannelInterceptorAware;
 import org.springframework.integration.channel.NullChannel;
 import org.springframework.integration.channel.ReactiveStreamsSubscribableChannel;
@@ -204,6 +206,40 @@ public class PollingConsumer extends AbstractPollingEndpoint implements Integrat
 				: this.inputChannel.receive();
 	}
 
+	@Override
+	protected boolean isBatchReceiveSupported() {
+		if (this.inputChannel instanceof BatchPollableChannel) {
+			Assert.state(!((BatchPollableChannel) this.inputChannel).isPersistent(),
+					() -> "Batch receive cannot be used with the persistent channel '" + this.inputChannel
+							+ "': the received messages not handled yet would be lost on shutdown");
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	protected List<Message<?>> receiveMessages(int maxMessages) {
+		return ((BatchPollableChannel) this.inputChannel).receive(maxMessages, this.receiveTimeout);
+	}
+
+	/**
+	 * Send the messages received in a batch but not handled yet back to the input
+	 * channel, so that they are not lost when the endpoint stops; a message the
+	 * channel does not accept immediately is handled instead.
+	 */
+	@Override
+	protected void releasePrefetchedMessages(List<Message<?>> messages) {
+		List<Message<?>> notSent = new ArrayList<>();
+		for (Message<?> message : messages) {
+			if (!this.inputChannel.send(message, 0)) {
+				notSent.add(message);
+			}
+		}
+		if (!notSent.isEmpty()) {
+			super.releasePrefetchedMessages(notSent);
+		}
+	}
+
 	@Override
 	protected Object getResourceToBind() {
 		return this.inputChannel;
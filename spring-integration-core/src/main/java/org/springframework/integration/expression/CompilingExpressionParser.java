@@ -0,0 +1,248 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.expression;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+import org.springframework.core.SpringProperties;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.ParseException;
+import org.springframework.expression.ParserContext;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.ast.SpelNodeImpl;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.util.Assert;
+
+/**
+ * An {@link ExpressionParser} that returns a {@link CompilingSpelExpression} for each
+ * expression string and caches it, so that components parsing the same string share
+ * one expression and its compiled form.
+ * <p>
+ * Expressions are compiled after {@link #setCompileThreshold(int) compileThreshold}
+ * evaluations, similar to {@link SpelCompilerMode#MIXED}, except that the failures are
+ * counted and exposed; see {@link #getExpressions()}. As with the mixed mode, an
+ * evaluation whose compiled form fails is repeated in interpreted mode.
+ * <p>
+ * Template expressions are parsed by a regular {@link SpelExpressionParser} and are not
+ * cached. Once the cache holds {@link #setCacheLimit(int) cacheLimit} expressions, new
+ * expression strings are still parsed and compiled, but no longer cached.
+ * <p>
+ * The {@value SpelParserConfiguration#SPRING_EXPRESSION_COMPILER_MODE_PROPERTY_NAME}
+ * Spring property, when set, is honored: with {@code off}, expressions are parsed by a
+ * regular {@link SpelExpressionParser}, neither cached nor compiled; with
+ * {@code immediate}, they are compiled after their first evaluation.
+ *
+ * @since 5.1
+ *
+ * @see ExpressionUtils#compilingExpressionParser()
+ */
+public class CompilingExpressionParser implements ExpressionParser {
+
+	/**
+	 * The default number of interpreted evaluations before an expression is compiled.
+	 */
+	public static final int DEFAULT_COMPILE_THRESHOLD = 100;
+
+	/**
+	 * The default number of failures after which an expression is no longer compiled.
+	 */
+	public static final int DEFAULT_MAX_COMPILE_FAILURES = 100;
+
+	/**
+	 * The default maximum number of cached expressions.
+	 */
+	public static final int DEFAULT_CACHE_LIMIT = 1024;
+
+	private final ConcurrentMap<String, CompilingSpelExpression> expressions = new ConcurrentHashMap<>();
+
+	private final SpelParserConfiguration configuration;
+
+	private final SpelExpressionParser parser;
+
+	private final boolean compilerOff;
+
+	private volatile int compileThreshold = DEFAULT_COMPILE_THRESHOLD;
+
+	private volatile int maxCompileFailures = DEFAULT_MAX_COMPILE_FAILURES;
+
+	private volatile int cacheLimit = DEFAULT_CACHE_LIMIT;
+
+	private volatile boolean statsEnabled;
+
+	public CompilingExpressionParser() {
+		this(false);
+	}
+
+	/**
+	 * Construct an instance with the provided auto grow option.
+	 * @param autoGrow true to auto grow null references and collections.
+	 * @see SpelParserConfiguration#isAutoGrowNullReferences()
+	 * @see SpelParserConfiguration#isAutoGrowCollections()
+	 */
+	public CompilingExpressionParser(boolean autoGrow) {
+		this.configuration =
+				new SpelParserConfiguration(SpelCompilerMode.OFF, null, autoGrow, autoGrow, Integer.MAX_VALUE);
+		this.parser = new SpelExpressionParser(this.configuration);
+		String compilerMode =
+				SpringProperties.getProperty(SpelParserConfiguration.SPRING_EXPRESSION_COMPILER_MODE_PROPERTY_NAME);
+		SpelCompilerMode mode = compilerMode != null
+				? SpelCompilerMode.valueOf(compilerMode.toUpperCase())
+				: SpelCompilerMode.MIXED;
+		this.compilerOff = SpelCompilerMode.OFF.equals(mode);
+		if (SpelCompilerMode.IMMEDIATE.equals(mode)) {
+			this.compileThreshold = 1;
+		}
+	}
+
+	/**
+	 * Set the number of interpreted evaluations after which an expression is compiled.
+	 * Default {@value #DEFAULT_COMPILE_THRESHOLD}.
+	 * @param compileThreshold the threshold.
+	 */
+	public void setCompileThreshold(int compileThreshold) {
+		Assert.isTrue(compileThreshold > 0, "'compileThreshold' must be greater than 0");
+		this.compileThreshold = compileThreshold;
+	}
+
+	public int getCompileThreshold() {
+		return this.compileThreshold;
+	}
+
+	/**
+	 * Set the number of failed compilations, or failed evaluations of the compiled
+	 * form, after which an expression is always interpreted.
+	 * Default {@value #DEFAULT_MAX_COMPILE_FAILURES}.
+	 * @param maxCompileFailures the maximum number of failures.
+	 */
+	public void setMaxCompileFailures(int maxCompileFailures) {
+		Assert.isTrue(maxCompileFailures > 0, "'maxCompileFailures' must be greater than 0");
+		this.maxCompileFailures = maxCompileFailures;
+	}
+
+	public int getMaxCompileFailures() {
+		return this.maxCompileFailures;
+	}
+
+	/**
+	 * Set the maximum number of cached expressions.
+	 * Default {@value #DEFAULT_CACHE_LIMIT}.
+	 * @param cacheLimit the limit.
+	 */
+	public void setCacheLimit(int cacheLimit) {
+		this.cacheLimit = cacheLimit;
+	}
+
+	/**
+	 * Set to true to measure the time spent evaluating each expression.
+	 * Evaluations are always counted.
+	 * @param statsEnabled true to measure evaluation times.
+	 * @see CompilingSpelExpression#getTotalEvaluationTime()
+	 */
+	public void setStatsEnabled(boolean statsEnabled) {
+		this.statsEnabled = statsEnabled;
+	}
+
+	public boolean isStatsEnabled() {
+		return this.statsEnabled;
+	}
+
+	/**
+	 * Return whether the compiler is turned off by the
+	 * {@value SpelParserConfiguration#SPRING_EXPRESSION_COMPILER_MODE_PROPERTY_NAME}
+	 * Spring property, in which case this parser returns plain {@code SpelExpression}s.
+	 * @return true if expressions are not compiled.
+	 */
+	public boolean isCompilerOff() {
+		return this.compilerOff;
+	}
+
+	@Override
+	public Expression parseExpression(String expressionString) throws ParseException {
+		if (this.compilerOff) {
+			return this.parser.parseExpression(expressionString);
+		}
+		CompilingSpelExpression expression = this.expressions.get(expressionString);
+		if (expression == null) {
+			SpelNodeImpl ast = (SpelNodeImpl) this.parser.parseRaw(expressionString).getAST();
+			expression = new CompilingSpelExpression(expressionString, ast, this.configuration, this);
+			if (this.expressions.size() < this.cacheLimit) {
+				CompilingSpelExpression existing = this.expressions.putIfAbsent(expressionString, expression);
+				if (existing != null) {
+					expression = existing;
+				}
+			}
+		}
+		return expression;
+	}
+
+	@Override
+	public Expression parseExpression(String expressionString, ParserContext context) throws ParseException {
+		if (context != null && context.isTemplate()) {
+			return this.parser.parseExpression(expressionString, context);
+		}
+		return parseExpression(expressionString);
+	}
+
+	/**
+	 * Return the cached expressions, the ones with the highest total evaluation time
+	 * (or, without statistics, the most evaluated ones) first.
+	 * @return the expressions.
+	 */
+	public List<CompilingSpelExpression> getExpressions() {
+		return this.expressions.values()
+				.stream()
+				.map(ExpressionUsage::new) // the counters keep changing; sort a snapshot
+				.sorted()
+				.map(usage -> usage.expression)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Remove all the cached expressions; expressions already returned keep working.
+	 */
+	public void clear() {
+		this.expressions.clear();
+	}
+
+	private static final class ExpressionUsage implements Comparable<ExpressionUsage> {
+
+		private final CompilingSpelExpression expression;
+
+		private final long evaluationTime;
+
+		private final long evaluationCount;
+
+		ExpressionUsage(CompilingSpelExpression expression) {
+			this.expression = expression;
+			this.evaluationTime = expression.getTotalEvaluationTime();
+			this.evaluationCount = expression.getEvaluationCount();
+		}
+
+		@Override
+		public int compareTo(ExpressionUsage other) {
+			int result = Long.compare(other.evaluationTime, this.evaluationTime);
+			return result != 0 ? result : Long.compare(other.evaluationCount, this.evaluationCount);
+		}
+
+	}
+
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.expression;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.EvaluationException;
+import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.expression.spel.SpelMessage;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.ast.SpelNodeImpl;
+import org.springframework.expression.spel.standard.SpelExpression;
+
+/**
+ * A {@link SpelExpression} created by a {@link CompilingExpressionParser}: it is
+ * interpreted until it has been evaluated {@code compileThreshold} times, then compiled.
+ * If the compiled form fails, the expression reverts to interpretation for that
+ * evaluation and is compiled again later; after {@code maxCompileFailures} failed
+ * compilations or failed compiled evaluations it stays interpreted.
+ * <p>
+ * Instances may be shared by several components, so they also expose how often they
+ * are evaluated and, when statistics are enabled on the parser, how long that takes.
+ *
+ * @since 5.1
+ */
+public class CompilingSpelExpression extends SpelExpression {
+
+	private final CompilingExpressionParser parser;
+
+	private final LongAdder evaluationCount = new LongAdder();
+
+	private final LongAdder evaluationTime = new LongAdder();
+
+	private final AtomicInteger interpretedCount = new AtomicInteger();
+
+	private final AtomicInteger compileFailureCount = new AtomicInteger();
+
+	private final AtomicInteger compiledEvaluationFailureCount = new AtomicInteger();
+
+	private volatile boolean compiled;
+
+	private volatile boolean interpretedOnly;
+
+	CompilingSpelExpression(String expression, SpelNodeImpl ast, SpelParserConfiguration configuration,
+			CompilingExpressionParser parser) {
+
+		super(expression, ast, configuration);
+		this.parser = parser;
+	}
+
+	/**
+	 * Return the number of successful evaluations.
+	 * @return the count.
+	 */
+	public long getEvaluationCount() {
+		return this.evaluationCount.sum();
+	}
+
+	/**
+	 * Return the total time, in nanoseconds, spent in successful evaluations while
+	 * statistics were enabled on the parser.
+	 * @return the time.
+	 * @see CompilingExpressionParser#setStatsEnabled(boolean)
+	 */
+	public long getTotalEvaluationTime() {
+		return this.evaluationTime.sum();
+	}
+
+	/**
+	 * Return true if the expression is currently evaluated in its compiled form.
+	 * @return true if compiled.
+	 */
+	public boolean isCompiled() {
+		return this.compiled;
+	}
+
+	/**
+	 * Return the number of compilation attempts that failed because the expression (or
+	 * its current evaluation types) cannot be compiled.
+	 * @return the count.
+	 */
+	public int getCompileFailureCount() {
+		return this.compileFailureCount.get();
+	}
+
+	/**
+	 * Return the number of times the compiled form failed and the expression reverted to
+	 * interpretation.
+	 * @return the count.
+	 */
+	public int getCompiledEvaluationFailureCount() {
+		return this.compiledEvaluationFailureCount.get();
+	}
+
+	@Override
+	public Object getValue() throws EvaluationException {
+		long start = beforeEvaluation();
+		Object value;
+		try {
+			value = super.getValue();
+		}
+		catch (SpelEvaluationException e) {
+			revertIfCompiledEvaluationFailed(e);
+			value = super.getValue();
+		}
+		afterEvaluation(start);
+		return value;
+	}
+
+	@Override
+	public <T> T getValue(Class<T> expectedResultType) throws EvaluationException {
+		long start = beforeEvaluation();
+		T value;
+		try {
+			value = super.getValue(expectedResultType);
+		}
+		catch (SpelEvaluationException e) {
+			revertIfCompiledEvaluationFailed(e);
+			value = super.getValue(expectedResultType);
+		}
+		afterEvaluation(start);
+		return value;
+	}
+
+	@Override
+	public Object getValue(Object rootObject) throws EvaluationException {
+		long start = beforeEvaluation();
+		Object value;
+		try {
+			value = super.getValue(rootObject);
+		}
+		catch (SpelEvaluationException e) {
+			revertIfCompiledEvaluationFailed(e);
+			value = super.getValue(rootObject);
+		}
+		afterEvaluation(start);
+		return value;
+	}
+
+	@Override
+	public <T> T getValue(Object rootObject, Class<T> expectedResultType) throws EvaluationException {
+		long start = beforeEvaluation();
+		T value;
+		try {
+			value = super.getValue(rootObject, expectedResultType);
+		}
+		catch (SpelEvaluationException e) {
+			revertIfCompiledEvaluationFailed(e);
+			value = super.getValue(rootObject, expectedResultType);
+		}
+		afterEvaluation(start);
+		return value;
+	}
+
+	@Override
+	public Object getValue(EvaluationContext context) throws EvaluationException {
+		long start = beforeEvaluation();
+		Object value;
+		try {
+			value = super.getValue(context);
+		}
+		catch (SpelEvaluationException e) {
+			revertIfCompiledEvaluationFailed(e);
+			value = super.getValue(context);
+		}
+		afterEvaluation(start);
+		return value;
+	}
+
+	@Override
+	public <T> T getValue(EvaluationContext context, Class<T> expectedResultType) throws EvaluationException {
+		long start = beforeEvaluation();
+		T value;
+		try {
+			value = super.getValue(context, expectedResultType);
+		}
+		catch (SpelEvaluationException e) {
+			revertIfCompiledEvaluationFailed(e);
+			value = super.getValue(context, expectedResultType);
+		}
+		afterEvaluation(start);
+		return value;
+	}
+
+	@Override
+	public Object getValue(EvaluationContext context, Object rootObject) throws EvaluationException {
+		long start = beforeEvaluation();
+		Object value;
+		try {
+			value = super.getValue(context, rootObject);
+		}
+		catch (SpelEvaluationException e) {
+			revertIfCompiledEvaluationFailed(e);
+			value = super.getValue(context, rootObject);
+		}
+		afterEvaluation(start);
+		return value;
+	}
+
+	@Override
+	public <T> T getValue(EvaluationContext context, Object rootObject, Class<T> expectedResultType)
+			throws EvaluationException {
+
+		long start = beforeEvaluation();
+		T value;
+		try {
+			value = super.getValue(context, rootObject, expectedResultType);
+		}
+		catch (SpelEvaluationException e) {
+			revertIfCompiledEvaluationFailed(e);
+			value = super.getValue(context, rootObject, expectedResultType);
+		}
+		afterEvaluation(start);
+		return value;
+	}
+
+	@Override
+	public void revertToInterpreted() {
+		super.revertToInterpreted();
+		this.compiled = false;
+		this.interpretedCount.set(0);
+	}
+
+	private long beforeEvaluation() {
+		return this.parser.isStatsEnabled() ? System.nanoTime() : 0;
+	}
+
+	private void afterEvaluation(long start) {
+		this.evaluationCount.increment();
+		if (start != 0) {
+			this.evaluationTime.add(System.nanoTime() - start);
+		}
+		if (!this.compiled && !this.interpretedOnly
+				&& this.interpretedCount.incrementAndGet() >= this.parser.getCompileThreshold()) {
+
+			this.interpretedCount.set(0);
+			if (compileExpression()) {
+				this.compiled = true;
+			}
+			else if (this.compileFailureCount.incrementAndGet() >= this.parser.getMaxCompileFailures()) {
+				this.interpretedOnly = true;
+			}
+		}
+	}
+
+	private void revertIfCompiledEvaluationFailed(SpelEvaluationException e) {
+		if (!SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION.equals(e.getMessageCode())) {
+			throw e;
+		}
+		revertToInterpreted();
+		if (this.compiledEvaluationFailureCount.incrementAndGet() >= this.parser.getMaxCompileFailures()) {
+			this.interpretedOnly = true;
+		}
+	}
+
+}
@@ -51,12 +51,40 @@ public final class ExpressionUtils {
 
 	private static final ExpressionParser EXPRESSION_PARSER = new SpelExpressionParser();
 
+	private static final CompilingExpressionParser COMPILING_EXPRESSION_PARSER = new CompilingExpressionParser();
+
+	private static final CompilingExpressionParser AUTO_GROW_COMPILING_EXPRESSION_PARSER =
+			new CompilingExpressionParser(true);
+
 	private static final Log logger = LogFactory.getLog(ExpressionUtils.class);
 
 	private ExpressionUtils() {
 		super();
 	}
 
+	/**
+	 * Return the shared {@link CompilingExpressionParser}: expressions parsed with it
+	 * are cached by expression string and compiled once they are used often enough.
+	 * Its {@link CompilingExpressionParser#getExpressions()} can be used to find the
+	 * most used expressions.
+	 * @return the parser.
+	 * @since 5.1
+	 */
+	public static CompilingExpressionParser compilingExpressionParser() {
+		return COMPILING_EXPRESSION_PARSER;
+	}
+
+	/**
+	 * Return the shared {@link CompilingExpressionParser} for the auto grow option.
+	 * @param autoGrow true to auto grow null references and collections.
+	 * @return the parser.
+	 * @since 5.1
+	 * @see #compilingExpressionParser()
+	 */
+	public static CompilingExpressionParser compilingExpressionParser(boolean autoGrow) {
+		return autoGrow ? AUTO_GROW_COMPILING_EXPRESSION_PARSER : COMPILING_EXPRESSION_PARSER;
+	}
+
 	/**
 	 * Used to create a context with no BeanFactory, usually in tests.
 	 * @return The evaluation context.
@@ -36,6 +36,7 @@ import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.Expression;
 import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.integration.context.IntegrationContextUtils;
 import org.springframework.integration.context.IntegrationObjectSupport;
 import org.springframework.integration.expression.ExpressionUtils;
 import org.springframework.integration.store.MessageGroup;
@@ -122,6 +123,8 @@ public class DelayHandler extends AbstractReplyProducingMessageHandler implement
 
 	private long retryDelay = DEFAULT_RETRY_DELAY;
 
+	private boolean taskSchedulerSet;
+
 	/**
 	 * Create a DelayHandler with the given 'messageGroupId' that is used as 'key' for
 	 * {@link MessageGroup} to store delayed Messages in the {@link MessageGroupStore}.
@@ -287,6 +290,12 @@ public class DelayHandler extends AbstractReplyProducingMessageHandler implement
 		return "delayer";
 	}
 
+	@Override
+	protected void setTaskScheduler(TaskScheduler taskScheduler) {
+		super.setTaskScheduler(taskScheduler);
+		this.taskSchedulerSet = true;
+	}
+
 	@Override
 	protected void doInit() {
 		if (this.messageStore == null) {
@@ -297,6 +306,12 @@ public class DelayHandler extends AbstractReplyProducingMessageHandler implement
 		}
 		this.evaluationContext = ExpressionUtils.createStandardEvaluationContext(this.getBeanFactory());
 		this.releaseHandler = this.createReleaseMessageTask();
+		if (!this.taskSchedulerSet && getBeanFactory() != null) {
+			TaskScheduler timingWheel = IntegrationContextUtils.getTimingWheelTaskScheduler(getBeanFactory());
+			if (timingWheel != null) {
+				super.setTaskScheduler(timingWheel);
+			}
+		}
 	}
 
 	private MessageHandler createReleaseMessageTask() {
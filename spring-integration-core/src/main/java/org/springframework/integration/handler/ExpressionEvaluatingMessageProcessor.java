@@ -18,6 +18,7 @@ package org.springframework.integration.handler;
 
 import org.springframework.expression.Expression;
 import org.springframework.expression.ParseException;
+import org.springframework.integration.expression.ExpressionUtils;
 import org.springframework.messaging.Message;
 import org.springframework.util.Assert;
 
@@ -69,7 +70,7 @@ public class ExpressionEvaluatingMessageProcessor<T> extends AbstractMessageProc
 	 */
 	public ExpressionEvaluatingMessageProcessor(String expression) {
 		try {
-			this.expression = EXPRESSION_PARSER.parseExpression(expression);
+			this.expression = ExpressionUtils.compilingExpressionParser().parseExpression(expression);
 			this.expectedType = null;
 		}
 		catch (ParseException e) {
@@ -86,7 +87,7 @@ public class ExpressionEvaluatingMessageProcessor<T> extends AbstractMessageProc
 	 */
 	public ExpressionEvaluatingMessageProcessor(String expression, Class<T> expectedType) {
 		try {
-			this.expression = EXPRESSION_PARSER.parseExpression(expression);
+			this.expression = ExpressionUtils.compilingExpressionParser().parseExpression(expression);
 			this.expectedType = expectedType;
 		}
 		catch (ParseException e) {
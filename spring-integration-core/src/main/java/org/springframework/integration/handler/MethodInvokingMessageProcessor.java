@@ -83,6 +83,18 @@ public class MethodInvokingMessageProcessor<T> extends AbstractMessageProcessor<
 		this.delegate.setUseSpelInvoker(useSpelInvoker);
 	}
 
+	/**
+	 * A {@code boolean} flag to invoke the target method through a
+	 * {@link java.lang.invoke.MethodHandle} with precomputed argument extractors
+	 * when the message needs no argument conversion.
+	 * @param useMethodHandleInvoker true to use the method handle invoker where possible.
+	 * @since 5.1
+	 * @see MessagingMethodInvokerHelper#setUseMethodHandleInvoker(boolean)
+	 */
+	public void setUseMethodHandleInvoker(boolean useMethodHandleInvoker) {
+		this.delegate.setUseMethodHandleInvoker(useMethodHandleInvoker);
+	}
+
 	@Override
 	public void start() {
 		this.delegate.start();
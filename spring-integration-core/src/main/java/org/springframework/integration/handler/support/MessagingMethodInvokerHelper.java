@@ -198,6 +198,8 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 
 	private boolean useSpelInvoker;
 
+	private boolean useMethodHandleInvoker;
+
 	private HandlerMethod defaultHandlerMethod;
 
 	private BeanExpressionResolver resolver = new StandardBeanExpressionResolver();
@@ -290,6 +292,22 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 		this.useSpelInvoker = useSpelInvoker;
 	}
 
+	/**
+	 * A {@code boolean} flag to invoke the target method through a
+	 * {@link java.lang.invoke.MethodHandle} with argument extractors precomputed from the
+	 * method signature, instead of the argument resolvers of an
+	 * {@link InvocableHandlerMethod}, when the arguments need no conversion.
+	 * Only applies to methods that take the message, its headers, the payload or a header
+	 * by name; other methods, and messages whose payload or headers need a conversion,
+	 * are still handled by the {@link InvocableHandlerMethod}.
+	 * Ignored when the SpEL invoker is used.
+	 * @param useMethodHandleInvoker true to use the method handle invoker where possible.
+	 * @since 5.1
+	 */
+	public void setUseMethodHandleInvoker(boolean useMethodHandleInvoker) {
+		this.useMethodHandleInvoker = useMethodHandleInvoker;
+	}
+
 	@Override
 	public void setBeanFactory(BeanFactory beanFactory) {
 		super.setBeanFactory(beanFactory);
@@ -496,6 +514,10 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 					: SPEL_COMPILERS.get(SpelCompilerMode.valueOf(compilerMode));
 		}
 		candidate.expression = parser.parseExpression(candidate.expressionString);
+		if (this.useMethodHandleInvoker && !this.canProcessMessageList) {
+			candidate.methodHandleInvoker =
+					MethodHandleInvoker.forMethod(this.targetObject, candidate.invocableHandlerMethod.getMethod());
+		}
 		candidate.initialized = true;
 	}
 
@@ -580,6 +602,13 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 
 	@SuppressWarnings("unchecked")
 	private T invokeHandlerMethod(HandlerMethod handlerMethod, ParametersWrapper parameters) throws Exception {
+		MethodHandleInvoker methodHandleInvoker = handlerMethod.methodHandleInvoker;
+		if (methodHandleInvoker != null) {
+			Object[] arguments = methodHandleInvoker.resolveArguments(parameters.getMessage());
+			if (arguments != null) {
+				return (T) methodHandleInvoker.invoke(arguments);
+			}
+		}
 		try {
 			return (T) handlerMethod.invoke(parameters);
 		}
@@ -1064,6 +1093,8 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 
 		private volatile UseSpelInvoker useSpelInvoker;
 
+		private volatile MethodHandleInvoker methodHandleInvoker;
+
 		private volatile boolean initialized;
 
 		// The number of times InvocableHandlerMethod was attempted and failed - enables us to eventually
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.handler.support;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Headers;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.handler.annotation.ValueConstants;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Invokes a POJO handler method through a {@link MethodHandle} bound to the target
+ * object, with an argument extractor per parameter precomputed from the method
+ * signature, instead of walking the argument resolvers of an
+ * {@link org.springframework.messaging.handler.invocation.InvocableHandlerMethod}
+ * on each call.
+ * <p>
+ * Only parameters that need no conversion are supported: the {@link Message}, its
+ * {@link MessageHeaders} ({@code @Headers} or unannotated), the payload (unannotated
+ * or {@code @Payload} without an expression) and a header by name ({@code @Header}
+ * without an expression or default value). {@link #resolveArguments(Message)} returns
+ * {@code null} when an argument of a given message would need a conversion (or would
+ * fail to resolve), so the caller can fall back to the regular invoker for that message.
+ *
+ * @since 5.1
+ */
+final class MethodHandleInvoker {
+
+	private static final Object UNRESOLVED = new Object();
+
+	private final MethodHandle methodHandle;
+
+	private final List<Function<Message<?>, Object>> argumentExtractors;
+
+	private MethodHandleInvoker(MethodHandle methodHandle, List<Function<Message<?>, Object>> argumentExtractors) {
+		this.methodHandle = methodHandle;
+		this.argumentExtractors = argumentExtractors;
+	}
+
+	/**
+	 * Resolve the arguments for the method from the message.
+	 * @param message the message.
+	 * @return the arguments, or null if any of them cannot be resolved without conversion.
+	 */
+	Object[] resolveArguments(Message<?> message) {
+		Object[] arguments = new Object[this.argumentExtractors.size()];
+		for (int i = 0; i < arguments.length; i++) {
+			Object argument = this.argumentExtractors.get(i).apply(message);
+			if (argument == UNRESOLVED) {
+				return null;
+			}
+			arguments[i] = argument;
+		}
+		return arguments;
+	}
+
+	/**
+	 * Invoke the method with the arguments returned by {@link #resolveArguments(Message)}.
+	 * @param arguments the arguments.
+	 * @return the method result; null for a {@code void} method.
+	 * @throws Exception any exception thrown by the method.
+	 */
+	Object invoke(Object[] arguments) throws Exception {
+		try {
+			return (Object) this.methodHandle.invokeExact(arguments);
+		}
+		catch (Exception | Error e) {
+			throw e;
+		}
+		catch (Throwable t) {
+			throw new IllegalStateException("Failed to invoke " + this.methodHandle, t);
+		}
+	}
+
+	/**
+	 * Create an invoker for the method if all its parameters are supported.
+	 * @param targetObject the target object.
+	 * @param method the method.
+	 * @return the invoker, or null if the method is not eligible.
+	 */
+	static MethodHandleInvoker forMethod(Object targetObject, Method method) {
+		List<Function<Message<?>, Object>> argumentExtractors = new ArrayList<>();
+		for (int i = 0; i < method.getParameterCount(); i++) {
+			MethodParameter methodParameter = new MethodParameter(method, i);
+			methodParameter.initParameterNameDiscovery(new DefaultParameterNameDiscoverer());
+			Function<Message<?>, Object> argumentExtractor = argumentExtractor(methodParameter);
+			if (argumentExtractor == null) {
+				return null;
+			}
+			argumentExtractors.add(argumentExtractor);
+		}
+		try {
+			ReflectionUtils.makeAccessible(method);
+			MethodHandle methodHandle = MethodHandles.lookup().unreflect(method);
+			if (!Modifier.isStatic(method.getModifiers())) {
+				methodHandle = methodHandle.bindTo(targetObject);
+			}
+			methodHandle = methodHandle.asType(MethodType.genericMethodType(method.getParameterCount()))
+					.asSpreader(Object[].class, method.getParameterCount());
+			return new MethodHandleInvoker(methodHandle, argumentExtractors);
+		}
+		catch (IllegalAccessException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	private static Function<Message<?>, Object> argumentExtractor(MethodParameter methodParameter) {
+		Annotation[] annotations = methodParameter.getParameterAnnotations();
+		if (annotations.length > 1) {
+			return null;
+		}
+		Class<?> parameterType = methodParameter.getParameterType();
+		Annotation annotation = annotations.length == 1 ? annotations[0] : null;
+		if (annotation == null) {
+			if (Message.class.isAssignableFrom(parameterType)) {
+				return messageExtractor(methodParameter);
+			}
+			else if (MessageHeaders.class.equals(parameterType)) {
+				return Message::getHeaders;
+			}
+			else if (Map.class.isAssignableFrom(parameterType)) {
+				return null; // a Map may be the payload or the headers
+			}
+			return payloadExtractor(parameterType);
+		}
+		else if (annotation instanceof Payload) {
+			Payload payload = AnnotationUtils.synthesizeAnnotation((Payload) annotation, null);
+			return StringUtils.hasText(payload.expression()) ? null : payloadExtractor(parameterType);
+		}
+		else if (annotation instanceof Headers) {
+			return parameterType.isAssignableFrom(MessageHeaders.class) ? Message::getHeaders : null;
+		}
+		else if (annotation instanceof Header) {
+			return headerExtractor(AnnotationUtils.synthesizeAnnotation((Header) annotation, null),
+					methodParameter);
+		}
+		return null;
+	}
+
+	private static Function<Message<?>, Object> messageExtractor(MethodParameter methodParameter) {
+		Class<?> messageType = methodParameter.getParameterType();
+		Class<?> payloadType = ResolvableType.forMethodParameter(methodParameter).as(Message.class)
+				.getGeneric().resolve(Object.class);
+		return message ->
+				messageType.isInstance(message) && payloadType.isInstance(message.getPayload())
+						? message
+						: UNRESOLVED;
+	}
+
+	private static Function<Message<?>, Object> payloadExtractor(Class<?> parameterType) {
+		Class<?> payloadType = ClassUtils.resolvePrimitiveIfNecessary(parameterType);
+		return message -> {
+			Object payload = message.getPayload();
+			// empty payloads are rejected by the payload argument resolver
+			return payloadType.isInstance(payload) && !isEmpty(payload) ? payload : UNRESOLVED;
+		};
+	}
+
+	private static Function<Message<?>, Object> headerExtractor(Header header, MethodParameter methodParameter) {
+		String headerName = StringUtils.hasText(header.name()) ? header.name() : methodParameter.getParameterName();
+		Class<?> parameterType = methodParameter.getParameterType();
+		if (headerName == null || headerName.indexOf('.') != -1 || Optional.class.equals(parameterType)
+				|| !ValueConstants.DEFAULT_NONE.equals(header.defaultValue())) {
+			return null;
+		}
+		Class<?> headerType = ClassUtils.resolvePrimitiveIfNecessary(parameterType);
+		boolean nullable = !header.required() && !parameterType.isPrimitive();
+		return message -> {
+			Object value = message.getHeaders().get(headerName);
+			if (value == null) {
+				return nullable ? null : UNRESOLVED;
+			}
+			return headerType.isInstance(value) ? value : UNRESOLVED;
+		};
+	}
+
+	private static boolean isEmpty(Object payload) {
+		return (payload instanceof String && !StringUtils.hasText((String) payload))
+				|| (payload instanceof byte[] && ((byte[]) payload).length == 0);
+	}
+
+}
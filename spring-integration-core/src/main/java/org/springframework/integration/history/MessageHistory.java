@@ -17,6 +17,7 @@
 package org.springframework.integration.history;
 
 import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -35,6 +36,7 @@ import org.springframework.integration.support.MessageBuilderFactory;
 import org.springframework.integration.support.MutableMessage;
 import org.springframework.integration.support.MutableMessageBuilderFactory;
 import org.springframework.integration.support.context.NamedComponent;
+import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.support.ErrorMessage;
 import org.springframework.messaging.support.GenericMessage;
@@ -42,6 +44,14 @@ import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
 /**
+ * The history of the components a message passed through, stored in its
+ * {@link #HEADER_NAME} header.
+ * <p>
+ * Since version 5.1, each {@link #write(Message, NamedComponent) write} appends a compact
+ * record, referring to the previous ones rather than copying them, and the records are only
+ * rendered as {@link Entry} properties when the history is read. The history can be bounded
+ * to its most recent entries with {@link MessageHistoryConfigurer#setMaxEntries(int)}.
+ *
  * @author Mark Fisher
  * @author Artem Bilan
  * @since 2.0
@@ -61,6 +71,8 @@ public final class MessageHistory implements List<Properties>, Serializable {
 
 	private static final MessageBuilderFactory MESSAGE_BUILDER_FACTORY = new DefaultMessageBuilderFactory();
 
+	private static volatile int maxEntries = Integer.MAX_VALUE;
+
 
 	private final List<Properties> components;
 
@@ -78,13 +90,12 @@ public final class MessageHistory implements List<Properties>, Serializable {
 			MessageBuilderFactory messageBuilderFactory) {
 		Assert.notNull(message, "Message must not be null");
 		Assert.notNull(component, "Component must not be null");
-		Properties metadata = extractMetadata(component);
-		if (!metadata.isEmpty()) {
+		String name = component.getComponentName();
+		if (name != null && !name.startsWith("org.springframework.integration")) {
 			MessageHistory previousHistory = message.getHeaders().get(HEADER_NAME, MessageHistory.class);
-			List<Properties> components = (previousHistory != null) ?
-					new ArrayList<Properties>(previousHistory) : new ArrayList<Properties>();
-			components.add(metadata);
-			MessageHistory history = new MessageHistory(components);
+			MessageHistory history = new MessageHistory(new Record(
+					previousHistory != null ? previousHistory.components : null,
+					name, component.getComponentType(), System.currentTimeMillis(), maxEntries));
 
 			if (message instanceof MutableMessage) {
 				message.getHeaders().put(HEADER_NAME, history);
@@ -127,6 +138,15 @@ public final class MessageHistory implements List<Properties>, Serializable {
 		this.components = components;
 	}
 
+	static void setMaxEntries(int maxEntries) {
+		Assert.isTrue(maxEntries > 0, "'maxEntries' must be greater than 0");
+		MessageHistory.maxEntries = maxEntries;
+	}
+
+	static int getMaxEntries() {
+		return maxEntries;
+	}
+
 
 	@Override
 	public int size() {
@@ -261,23 +281,6 @@ public final class MessageHistory implements List<Properties>, Serializable {
 	}
 
 
-	private static Properties extractMetadata(NamedComponent component) {
-		Entry entry = new Entry();
-		String name = component.getComponentName();
-		String type = component.getComponentType();
-		if (name != null && !name.startsWith("org.springframework.integration")) {
-			entry.setName(name);
-			if (type != null) {
-				entry.setType(type);
-			}
-		}
-		if (!entry.isEmpty()) {
-			entry.setTimestamp(Long.toString(System.currentTimeMillis()));
-		}
-		return entry;
-	}
-
-
 	/**
 	 * Inner class for each Entry in the history.
 	 */
@@ -309,4 +312,123 @@ public final class MessageHistory implements List<Properties>, Serializable {
 
 	}
 
+	/**
+	 * The most recent component of a history, chained to the previous ones. The
+	 * history is the newest {@code maxEntries} of the {@code base} entries followed by
+	 * the chained records; when the chain holds twice as many entries as retained, the
+	 * next record starts a new chain with a copy of the retained ones as its base.
+	 * Once rendered, a record drops its link to the previous ones, and the records chained
+	 * to it later reuse its rendered entries, so a chain keeps at most one rendering reachable.
+	 * Serialized as a plain list of the rendered entries.
+	 */
+	private static final class Record extends AbstractList<Properties> implements Serializable {
+
+		private volatile Record previous;
+
+		private final List<Properties> base;
+
+		private final String name;
+
+		private final String type;
+
+		private final long timestamp;
+
+		private final int count;
+
+		private final int size;
+
+		private volatile Entry entry;
+
+		private volatile Properties[] rendered;
+
+		Record(@Nullable List<Properties> previous, String name, @Nullable String type, long timestamp,
+				int maxEntries) {
+
+			if (previous instanceof Record && ((Record) previous).count < 2L * maxEntries) {
+				Record previousRecord = (Record) previous;
+				this.previous = previousRecord;
+				this.base = previousRecord.base;
+				this.count = previousRecord.count + 1;
+			}
+			else {
+				this.previous = null;
+				if (previous == null) {
+					this.base = Collections.emptyList();
+				}
+				else if (previous instanceof Record) {
+					this.base = new ArrayList<>(previous.subList(previous.size() - maxEntries + 1, previous.size()));
+				}
+				else {
+					this.base = previous;
+				}
+				this.count = this.base.size() + 1;
+			}
+			this.name = name;
+			this.type = type;
+			this.timestamp = timestamp;
+			this.size = Math.min(this.count, maxEntries);
+		}
+
+		@Override
+		public Properties get(int index) {
+			return render()[index];
+		}
+
+		@Override
+		public int size() {
+			return this.size;
+		}
+
+		private Properties[] render() {
+			Properties[] rendered = this.rendered;
+			if (rendered == null) {
+				rendered = new Properties[this.size];
+				int index = this.size;
+				Record record = this;
+				while (index > 0) {
+					// read before the rendering, which is published before the link is dropped
+					Record previous = record.previous;
+					Properties[] previousRendered = record.rendered;
+					if (previousRendered != null) {
+						System.arraycopy(previousRendered, previousRendered.length - index, rendered, 0, index);
+						index = 0;
+					}
+					else {
+						rendered[--index] = record.entry();
+						if (previous == null) {
+							break;
+						}
+						record = previous;
+					}
+				}
+				int baseSize = this.base.size();
+				for (int i = 0; i < index; i++) {
+					rendered[i] = this.base.get(baseSize - index + i);
+				}
+				this.rendered = rendered;
+				this.previous = null;
+			}
+			return rendered;
+		}
+
+		private Entry entry() {
+			Entry entry = this.entry;
+			if (entry == null) {
+				entry = new Entry();
+				entry.setName(this.name);
+				if (this.type != null) {
+					entry.setType(this.type);
+				}
+				entry.setTimestamp(Long.toString(this.timestamp));
+				this.entry = entry;
+			}
+			return entry;
+		}
+
+		private Object writeReplace() {
+			return new ArrayList<>(this);
+		}
+
+	}
+
 }
@@ -106,6 +106,24 @@ public class MessageHistoryConfigurer implements SmartLifecycle, BeanFactoryAwar
 		return StringUtils.arrayToCommaDelimitedString(this.componentNamePatterns);
 	}
 
+	/**
+	 * The maximum number of entries retained in a {@link MessageHistory}; older ones are
+	 * dropped as components are added. Unbounded by default.
+	 * Like the {@code IdGenerator}, this setting is shared by all the application contexts
+	 * in the classloader.
+	 * @param maxEntries the maximum number of entries.
+	 * @since 5.1
+	 */
+	@ManagedAttribute(description = "the maximum number of entries retained in a message history")
+	public void setMaxEntries(int maxEntries) {
+		MessageHistory.setMaxEntries(maxEntries);
+	}
+
+	@ManagedAttribute
+	public int getMaxEntries() {
+		return MessageHistory.getMaxEntries();
+	}
+
 
 	/**
 	 * The patterns for which components will be tracked; default '*' (all trackable
@@ -17,6 +17,7 @@
 package org.springframework.integration.router;
 
 import org.springframework.expression.Expression;
+import org.springframework.integration.expression.ExpressionUtils;
 import org.springframework.integration.handler.ExpressionEvaluatingMessageProcessor;
 
 /**
@@ -35,7 +36,7 @@ public class ExpressionEvaluatingRouter extends AbstractMessageProcessingRouter
 	 * @param expressionString the expression string.
 	 */
 	public ExpressionEvaluatingRouter(String expressionString) {
-		this(EXPRESSION_PARSER.parseExpression(expressionString));
+		this(ExpressionUtils.compilingExpressionParser().parseExpression(expressionString));
 	}
 
 	/**
@@ -60,6 +60,8 @@ public class PollerMetadata {
 
 	private volatile TransactionSynchronizationFactory transactionSynchronizationFactory;
 
+	private volatile boolean batchReceive;
+
 
 	public void setTransactionSynchronizationFactory(
 			TransactionSynchronizationFactory transactionSynchronizationFactory) {
@@ -106,6 +108,22 @@ public class PollerMetadata {
 		return this.maxMessagesPerPoll;
 	}
 
+	/**
+	 * Set to true to let polling consumers receive up to {@code maxMessagesPerPoll}
+	 * messages in one operation from channels that support it.
+	 * Default false.
+	 * @param batchReceive true to enable batch receive.
+	 * @since 5.1
+	 * @see org.springframework.integration.endpoint.AbstractPollingEndpoint#setBatchReceive(boolean)
+	 */
+	public void setBatchReceive(boolean batchReceive) {
+		this.batchReceive = batchReceive;
+	}
+
+	public boolean isBatchReceive() {
+		return this.batchReceive;
+	}
+
 	public void setReceiveTimeout(long receiveTimeout) {
 		this.receiveTimeout = receiveTimeout;
 	}
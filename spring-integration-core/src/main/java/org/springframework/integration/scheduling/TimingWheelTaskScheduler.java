@@ -0,0 +1,527 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.integration.scheduling;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.integration.context.IntegrationContextUtils;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.support.TaskUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.ErrorHandler;
+
+/**
+ * A {@link TaskScheduler} that keeps one-time tasks in a hashed timing wheel instead of
+ * submitting each of them to the delegate scheduler. Scheduling and cancelling a task
+ * is O(1) and does not touch the delegate's (heap based) work queue; a single periodic
+ * task on the delegate advances the wheel every {@code tickDuration} milliseconds and
+ * hands the tasks expired in that tick off for execution.
+ * <p>
+ * Intended for a large number of short-lived timeouts which are mostly cancelled
+ * before they expire, such as aggregator and resequencer group timeouts or delayer
+ * releases: a single instance can be shared by all such components via their
+ * {@code scheduler} (or {@code taskScheduler}) option, or by declaring it as a bean
+ * named {@value IntegrationContextUtils#TIMING_WHEEL_TASK_SCHEDULER_BEAN_NAME}.
+ * A task runs at the first tick at or after its scheduled time, so the precision is
+ * {@code tickDuration}.
+ * <p>
+ * Trigger-based and periodic tasks are delegated to the underlying scheduler as is.
+ * <p>
+ * Each expired task is submitted to the {@link #setExpiryExecutor(Executor) expiryExecutor},
+ * by default the delegate scheduler itself, so expired tasks run concurrently and a slow
+ * task holds back neither the others nor the next tick.
+ * <p>
+ * On {@link #destroy()}, the tasks that have not expired yet are cancelled.
+ *
+ * @since 5.1
+ */
+public class TimingWheelTaskScheduler implements TaskScheduler, DisposableBean {
+
+	private static final Log logger = LogFactory.getLog(TimingWheelTaskScheduler.class);
+
+	private static final long DEFAULT_TICK_DURATION = 100;
+
+	private static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+	private static final AtomicIntegerFieldUpdater<WheelTask> STATE_UPDATER =
+			AtomicIntegerFieldUpdater.newUpdater(WheelTask.class, "state");
+
+	private final TaskScheduler taskScheduler;
+
+	private final long tickDuration;
+
+	private final Bucket[] wheel;
+
+	private final int mask;
+
+	private final Queue<WheelTask> pendingTasks = new ConcurrentLinkedQueue<>();
+
+	private final Queue<WheelTask> cancelledTasks = new ConcurrentLinkedQueue<>();
+
+	private final AtomicLong scheduledCount = new AtomicLong();
+
+	private final Object lifecycleMonitor = new Object();
+
+	private final Object wheelMonitor = new Object();
+
+	private ErrorHandler errorHandler = TaskUtils.LOG_AND_SUPPRESS_ERROR_HANDLER;
+
+	private Executor expiryExecutor;
+
+	private volatile ScheduledFuture<?> ticker;
+
+	private volatile long startTime;
+
+	private volatile boolean destroyed;
+
+	private long tick;
+
+	/**
+	 * Create an instance with a tick duration of 100 milliseconds and 512 ticks per wheel.
+	 * @param taskScheduler the scheduler to advance the wheel and to delegate the
+	 * periodic tasks to.
+	 */
+	public TimingWheelTaskScheduler(TaskScheduler taskScheduler) {
+		this(taskScheduler, DEFAULT_TICK_DURATION, DEFAULT_TICKS_PER_WHEEL);
+	}
+
+	/**
+	 * Create an instance with the provided tick duration and wheel size.
+	 * @param taskScheduler the scheduler to advance the wheel and to delegate the
+	 * periodic tasks to.
+	 * @param tickDuration the tick duration in milliseconds.
+	 * @param ticksPerWheel the number of buckets; rounded up to a power of two.
+	 */
+	public TimingWheelTaskScheduler(TaskScheduler taskScheduler, long tickDuration, int ticksPerWheel) {
+		Assert.notNull(taskScheduler, "'taskScheduler' must not be null");
+		Assert.isTrue(tickDuration > 0, "'tickDuration' must be greater than 0");
+		Assert.isTrue(ticksPerWheel > 0 && ticksPerWheel <= 1 << 30,
+				"'ticksPerWheel' must be between 1 and 2^30");
+		this.taskScheduler = taskScheduler;
+		this.tickDuration = tickDuration;
+		int size = 1;
+		while (size < ticksPerWheel) {
+			size <<= 1;
+		}
+		this.wheel = new Bucket[size];
+		for (int i = 0; i < size; i++) {
+			this.wheel[i] = new Bucket();
+		}
+		this.mask = size - 1;
+		this.expiryExecutor = taskScheduler instanceof Executor
+				? (Executor) taskScheduler
+				: task -> taskScheduler.schedule(task, new Date());
+	}
+
+	/**
+	 * Set the {@link ErrorHandler} for exceptions thrown by the one-time tasks.
+	 * Defaults to logging the exception.
+	 * @param errorHandler the error handler.
+	 */
+	public void setErrorHandler(ErrorHandler errorHandler) {
+		Assert.notNull(errorHandler, "'errorHandler' must not be null");
+		this.errorHandler = errorHandler;
+	}
+
+	/**
+	 * Set the {@link Executor} to run the expired tasks on. Defaults to the delegate
+	 * scheduler. A task that the executor rejects is run on the ticker thread.
+	 * @param expiryExecutor the executor.
+	 */
+	public void setExpiryExecutor(Executor expiryExecutor) {
+		Assert.notNull(expiryExecutor, "'expiryExecutor' must not be null");
+		this.expiryExecutor = expiryExecutor;
+	}
+
+	public long getTickDuration() {
+		return this.tickDuration;
+	}
+
+	/**
+	 * Return the number of one-time tasks which are scheduled and not yet expired or
+	 * cancelled.
+	 * @return the number of tasks.
+	 */
+	public long getScheduledCount() {
+		return this.scheduledCount.get();
+	}
+
+	@Override
+	public ScheduledFuture<?> schedule(Runnable task, Date startTime) {
+		Assert.notNull(task, "'task' must not be null");
+		Assert.notNull(startTime, "'startTime' must not be null");
+		Assert.state(!this.destroyed, "The scheduler has been destroyed");
+		startIfNecessary();
+		WheelTask wheelTask = new WheelTask(task, startTime.getTime());
+		this.scheduledCount.incrementAndGet();
+		this.pendingTasks.add(wheelTask);
+		if (this.destroyed) {
+			// raced with destroy(), which may have drained the pending tasks already
+			wheelTask.cancel(false);
+		}
+		return wheelTask;
+	}
+
+	@Override
+	public ScheduledFuture<?> schedule(Runnable task, Trigger trigger) {
+		return this.taskScheduler.schedule(task, trigger);
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, Date startTime, long period) {
+		return this.taskScheduler.scheduleAtFixedRate(task, startTime, period);
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long period) {
+		return this.taskScheduler.scheduleAtFixedRate(task, period);
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, Date startTime, long delay) {
+		return this.taskScheduler.scheduleWithFixedDelay(task, startTime, delay);
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long delay) {
+		return this.taskScheduler.scheduleWithFixedDelay(task, delay);
+	}
+
+	/**
+	 * Stop the ticker and cancel the tasks that have not expired yet.
+	 */
+	@Override
+	public void destroy() {
+		synchronized (this.lifecycleMonitor) {
+			this.destroyed = true;
+			if (this.ticker != null) {
+				this.ticker.cancel(false);
+				this.ticker = null;
+			}
+		}
+		synchronized (this.wheelMonitor) {
+			WheelTask task;
+			while ((task = this.pendingTasks.poll()) != null) {
+				task.cancel(false);
+			}
+			for (Bucket bucket : this.wheel) {
+				bucket.cancelAll();
+			}
+			this.cancelledTasks.clear();
+		}
+	}
+
+	private void startIfNecessary() {
+		if (this.ticker == null) {
+			synchronized (this.lifecycleMonitor) {
+				if (this.ticker == null && !this.destroyed) {
+					this.startTime = System.currentTimeMillis();
+					this.ticker = this.taskScheduler.scheduleAtFixedRate(this::advance, this.tickDuration);
+				}
+			}
+		}
+	}
+
+	/*
+	 * Invoked by the delegate scheduler; a fixed-rate task never runs concurrently
+	 * with itself, so the monitor is only contended on destroy().
+	 */
+	private void advance() {
+		List<WheelTask> expired = null;
+		synchronized (this.wheelMonitor) {
+			if (this.destroyed) {
+				return;
+			}
+			long now = System.currentTimeMillis();
+			long currentTick = (now - this.startTime) / this.tickDuration;
+			while (this.tick <= currentTick) {
+				transferPendingTasks();
+				removeCancelledTasks();
+				expired = this.wheel[(int) (this.tick & this.mask)].expire(expired);
+				this.tick++;
+			}
+		}
+		if (expired != null) {
+			runExpired(expired);
+		}
+	}
+
+	private void transferPendingTasks() {
+		WheelTask task;
+		while ((task = this.pendingTasks.poll()) != null) {
+			if (task.state == WheelTask.INIT) {
+				long deadlineTick = (task.deadline - this.startTime + this.tickDuration - 1) / this.tickDuration;
+				long targetTick = Math.max(deadlineTick, this.tick);
+				task.remainingRounds = (targetTick - this.tick) / this.wheel.length;
+				this.wheel[(int) (targetTick & this.mask)].add(task);
+			}
+		}
+	}
+
+	private void removeCancelledTasks() {
+		WheelTask task;
+		while ((task = this.cancelledTasks.poll()) != null) {
+			if (task.bucket != null) {
+				task.bucket.remove(task);
+			}
+		}
+	}
+
+	private void runExpired(List<WheelTask> expired) {
+		for (WheelTask task : expired) {
+			try {
+				this.expiryExecutor.execute(task);
+			}
+			catch (RuntimeException e) {
+				logger.warn("Failed to hand off an expired task to the expiryExecutor; running it on the ticker thread",
+						e);
+				runQuietly(task);
+			}
+		}
+	}
+
+	private static void runQuietly(WheelTask task) {
+		try {
+			task.run();
+		}
+		catch (RuntimeException e) {
+			logger.error("Error handler failed for an expired task", e);
+		}
+	}
+
+	private static final class Bucket {
+
+		private WheelTask head;
+
+		private WheelTask tail;
+
+		void add(WheelTask task) {
+			task.bucket = this;
+			if (this.head == null) {
+				this.head = task;
+				this.tail = task;
+			}
+			else {
+				this.tail.next = task;
+				task.prev = this.tail;
+				this.tail = task;
+			}
+		}
+
+		void remove(WheelTask task) {
+			if (task.prev != null) {
+				task.prev.next = task.next;
+			}
+			else {
+				this.head = task.next;
+			}
+			if (task.next != null) {
+				task.next.prev = task.prev;
+			}
+			else {
+				this.tail = task.prev;
+			}
+			task.prev = null;
+			task.next = null;
+			task.bucket = null;
+		}
+
+		void cancelAll() {
+			WheelTask task = this.head;
+			while (task != null) {
+				WheelTask next = task.next;
+				remove(task);
+				task.cancel(false);
+				task = next;
+			}
+		}
+
+		List<WheelTask> expire(List<WheelTask> expired) {
+			List<WheelTask> result = expired;
+			WheelTask task = this.head;
+			while (task != null) {
+				WheelTask next = task.next;
+				if (task.remainingRounds <= 0) {
+					remove(task);
+					if (task.expire()) {
+						if (result == null) {
+							result = new ArrayList<>();
+						}
+						result.add(task);
+					}
+				}
+				else {
+					task.remainingRounds--;
+				}
+				task = next;
+			}
+			return result;
+		}
+
+	}
+
+	private final class WheelTask implements ScheduledFuture<Object>, Runnable {
+
+		private static final int INIT = 0;
+
+		private static final int CANCELLED = 1;
+
+		private static final int EXPIRED = 2;
+
+		private static final int DONE = 3;
+
+		private final Runnable task;
+
+		private final long deadline;
+
+		volatile int state; // updated through STATE_UPDATER
+
+		private Throwable failure;
+
+		private long remainingRounds;
+
+		private Bucket bucket;
+
+		private WheelTask prev;
+
+		private WheelTask next;
+
+		WheelTask(Runnable task, long deadline) {
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+		boolean expire() {
+			if (STATE_UPDATER.compareAndSet(this, INIT, EXPIRED)) {
+				TimingWheelTaskScheduler.this.scheduledCount.decrementAndGet();
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public void run() {
+			try {
+				this.task.run();
+			}
+			catch (Throwable t) { //NOSONAR - handed to the errorHandler
+				this.failure = t;
+				TimingWheelTaskScheduler.this.errorHandler.handleError(t);
+			}
+			finally {
+				synchronized (this) {
+					this.state = DONE;
+					notifyAll();
+				}
+			}
+		}
+
+		/**
+		 * Cancel the task if it has not expired yet; a running task is never interrupted.
+		 */
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			if (STATE_UPDATER.compareAndSet(this, INIT, CANCELLED)) {
+				TimingWheelTaskScheduler.this.scheduledCount.decrementAndGet();
+				TimingWheelTaskScheduler.this.cancelledTasks.add(this);
+				synchronized (this) {
+					notifyAll();
+				}
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return this.state == CANCELLED;
+		}
+
+		@Override
+		public boolean isDone() {
+			int current = this.state;
+			return current == CANCELLED || current == DONE;
+		}
+
+		@Override
+		public Object get() throws InterruptedException, ExecutionException {
+			synchronized (this) {
+				while (!isDone()) {
+					wait();
+				}
+			}
+			return result();
+		}
+
+		@Override
+		public Object get(long timeout, TimeUnit unit)
+				throws InterruptedException, ExecutionException, TimeoutException {
+
+			long deadlineNanos = System.nanoTime() + unit.toNanos(timeout);
+			synchronized (this) {
+				while (!isDone()) {
+					long remaining = deadlineNanos - System.nanoTime();
+					if (remaining <= 0) {
+						throw new TimeoutException();
+					}
+					TimeUnit.NANOSECONDS.timedWait(this, remaining);
+				}
+			}
+			return result();
+		}
+
+		private Object result() throws ExecutionException {
+			if (this.state == CANCELLED) {
+				throw new CancellationException();
+			}
+			if (this.failure != null) {
+				throw new ExecutionException(this.failure);
+			}
+			return null;
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(this.deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed other) {
+			return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+		}
+
+	}
+}
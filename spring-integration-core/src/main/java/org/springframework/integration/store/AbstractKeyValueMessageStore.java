@@ -18,12 +18,18 @@ package org.springframework.integration.store;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.messaging.Message;
@@ -55,6 +61,16 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 
 	private final String groupPrefix;
 
+	private volatile boolean expiryIndexInitialized;
+
+	private final AtomicLong nearCacheHits = new AtomicLong();
+
+	private final AtomicLong nearCacheMisses = new AtomicLong();
+
+	private volatile NearCache nearCache;
+
+	private volatile long nearCacheTimeToLive;
+
 	protected AbstractKeyValueMessageStore() {
 		this("");
 	}
@@ -95,12 +111,65 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 		return this.groupPrefix;
 	}
 
+	/**
+	 * Set the maximum number of group metadata and message entries kept in a local
+	 * cache in front of the target key-value store, to avoid remote reads of the groups
+	 * and messages recently read or written by this store. Entries are evicted in least
+	 * recently used order and replaced on every write through this store.
+	 * Only enable the cache when this store instance is the only writer of the groups it
+	 * handles (e.g. each correlation key is handled by one application instance);
+	 * changes made by other instances are not seen until the entry is evicted.
+	 * Default 0 - no cache.
+	 * @param nearCacheSize the maximum number of cached entries; 0 to disable.
+	 * @since 5.1
+	 * @see #setNearCacheTimeToLive(long)
+	 */
+	public void setNearCacheSize(int nearCacheSize) {
+		Assert.isTrue(nearCacheSize >= 0, "'nearCacheSize' must not be negative");
+		this.nearCache = nearCacheSize > 0 ? new NearCache(nearCacheSize) : null;
+	}
+
+	/**
+	 * Set the time in milliseconds after which a near cache entry is discarded, to bound
+	 * how long changes made by other writers may go unnoticed.
+	 * Default 0 - entries are only evicted when the cache is full.
+	 * @param nearCacheTimeToLive the time to live of cache entries.
+	 * @since 5.1
+	 * @see #setNearCacheSize(int)
+	 */
+	public void setNearCacheTimeToLive(long nearCacheTimeToLive) {
+		this.nearCacheTimeToLive = nearCacheTimeToLive;
+	}
+
+	/**
+	 * Return the number of reads served by the near cache.
+	 * @return the number of near cache hits.
+	 * @since 5.1
+	 * @see #setNearCacheSize(int)
+	 */
+	@ManagedAttribute
+	public long getNearCacheHitCount() {
+		return this.nearCacheHits.get();
+	}
+
+	/**
+	 * Return the number of reads that went to the target store while the near cache is
+	 * enabled.
+	 * @return the number of near cache misses.
+	 * @since 5.1
+	 * @see #setNearCacheSize(int)
+	 */
+	@ManagedAttribute
+	public long getNearCacheMissCount() {
+		return this.nearCacheMisses.get();
+	}
+
 	// MessageStore methods
 
 	@Override
 	public Message<?> getMessage(UUID messageId) {
 		Assert.notNull(messageId, "'messageId' must not be null");
-		Object object = doRetrieve(this.messagePrefix + messageId);
+		Object object = retrieve(this.messagePrefix + messageId);
 		if (object != null) {
 			return extractMessage(object);
 		}
@@ -126,7 +195,7 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 	@Override
 	public MessageMetadata getMessageMetadata(UUID messageId) {
 		Assert.notNull(messageId, "'messageId' must not be null");
-		Object object = doRetrieve(this.messagePrefix + messageId);
+		Object object = retrieve(this.messagePrefix + messageId);
 		if (object != null) {
 			extractMessage(object);
 			if (object instanceof MessageHolder) {
@@ -146,13 +215,13 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 	protected void doAddMessage(Message<?> message) {
 		Assert.notNull(message, "'message' must not be null");
 		UUID messageId = message.getHeaders().getId();
-		doStoreIfAbsent(this.messagePrefix + messageId, new MessageHolder(message));
+		storeIfAbsent(this.messagePrefix + messageId, new MessageHolder(message));
 	}
 
 	@Override
 	public Message<?> removeMessage(UUID id) {
 		Assert.notNull(id, "'id' must not be null");
-		Object object = doRemove(this.messagePrefix + id);
+		Object object = removeKey(this.messagePrefix + id);
 		if (object != null) {
 			return extractMessage(object);
 		}
@@ -178,22 +247,28 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 	public MessageGroup getMessageGroup(Object groupId) {
 		MessageGroupMetadata metadata = getGroupMetadata(groupId);
 		if (metadata != null) {
-
-			MessageGroup messageGroup = getMessageGroupFactory()
-					.create(this, groupId, metadata.getTimestamp(), metadata.isComplete());
-			messageGroup.setLastModified(metadata.getLastModified());
-			messageGroup.setLastReleasedMessageSequenceNumber(metadata.getLastReleasedMessageSequenceNumber());
-			return messageGroup;
+			return createMessageGroup(groupId, metadata);
 		}
 		else {
 			return new SimpleMessageGroup(groupId);
 		}
 	}
 
+	private MessageGroup createMessageGroup(Object groupId, MessageGroupMetadata metadata) {
+		MessageGroup messageGroup = getMessageGroupFactory()
+				.create(this, groupId, metadata.getTimestamp(), metadata.isComplete());
+		messageGroup.setLastModified(metadata.getLastModified());
+		messageGroup.setLastReleasedMessageSequenceNumber(metadata.getLastReleasedMessageSequenceNumber());
+		if (messageGroup instanceof PersistentMessageGroup) {
+			((PersistentMessageGroup) messageGroup).setSequenceInfo(metadata.getSequenceInfo());
+		}
+		return messageGroup;
+	}
+
 	@Override
 	public MessageGroupMetadata getGroupMetadata(Object groupId) {
 		Assert.notNull(groupId, "'groupId' must not be null");
-		Object mgm = this.doRetrieve(this.groupPrefix + groupId);
+		Object mgm = retrieve(this.groupPrefix + groupId);
 		if (mgm != null) {
 			Assert.isInstanceOf(MessageGroupMetadata.class, mgm);
 			return (MessageGroupMetadata) mgm;
@@ -215,7 +290,7 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 		for (Message<?> message : messages) {
 			doAddMessage(message);
 			if (metadata != null) {
-				metadata.add(message.getHeaders().getId());
+				metadata.add(message);
 			}
 			else {
 				group.add(message);
@@ -233,7 +308,7 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 
 
 		// store MessageGroupMetadata built from enriched MG
-		doStore(this.groupPrefix + groupId, metadata);
+		storeGroupMetadata(groupId, metadata, group != null);
 	}
 
 	@Override
@@ -241,7 +316,7 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 		Assert.notNull(groupId, "'groupId' must not be null");
 		Assert.notNull(messages, "'messages' must not be null");
 
-		Object mgm = doRetrieve(this.groupPrefix + groupId);
+		Object mgm = retrieve(this.groupPrefix + groupId);
 		if (mgm != null) {
 			Assert.isInstanceOf(MessageGroupMetadata.class, mgm);
 			MessageGroupMetadata messageGroupMetadata = (MessageGroupMetadata) mgm;
@@ -251,17 +326,17 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 							.map(messageToRemove -> messageToRemove.getHeaders().getId())
 							.collect(Collectors.toList());
 
-			messageGroupMetadata.removeAll(ids);
+			messageGroupMetadata.removeMessages(messages);
 
 			List<Object> messageIds =
 					ids.stream()
 							.map(id -> this.messagePrefix + id)
 							.collect(Collectors.toList());
 
-			doRemoveAll(messageIds);
+			removeKeys(messageIds);
 
 			messageGroupMetadata.setLastModified(System.currentTimeMillis());
-			doStore(this.groupPrefix + groupId, messageGroupMetadata);
+			storeGroupMetadata(groupId, messageGroupMetadata, false);
 		}
 	}
 
@@ -272,7 +347,7 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 		if (metadata != null) {
 			metadata.complete();
 			metadata.setLastModified(System.currentTimeMillis());
-			doStore(this.groupPrefix + groupId, metadata);
+			storeGroupMetadata(groupId, metadata, false);
 		}
 	}
 
@@ -282,7 +357,7 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 	@Override
 	public void removeMessageGroup(Object groupId) {
 		Assert.notNull(groupId, "'groupId' must not be null");
-		Object mgm = doRemove(this.groupPrefix + groupId);
+		Object mgm = removeKey(this.groupPrefix + groupId);
 		if (mgm != null) {
 			Assert.isInstanceOf(MessageGroupMetadata.class, mgm);
 			MessageGroupMetadata messageGroupMetadata = (MessageGroupMetadata) mgm;
@@ -293,21 +368,23 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 							.map(id -> this.messagePrefix + id)
 							.collect(Collectors.toList());
 
-			doRemoveAll(messageIds);
+			removeKeys(messageIds);
 		}
+		doRemoveGroupFromExpiryIndex(groupId);
 	}
 
 	@Override
 	public void setLastReleasedSequenceNumberForGroup(Object groupId, int sequenceNumber) {
 		Assert.notNull(groupId, "'groupId' must not be null");
 		MessageGroupMetadata metadata = getGroupMetadata(groupId);
-		if (metadata == null) {
+		boolean created = metadata == null;
+		if (created) {
 			SimpleMessageGroup messageGroup = new SimpleMessageGroup(groupId);
 			metadata = new MessageGroupMetadata(messageGroup);
 		}
 		metadata.setLastReleasedMessageSequenceNumber(sequenceNumber);
 		metadata.setLastModified(System.currentTimeMillis());
-		doStore(this.groupPrefix + groupId, metadata);
+		storeGroupMetadata(groupId, metadata, created);
 	}
 
 	@Override
@@ -318,7 +395,7 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 			if (firstId != null) {
 				groupMetadata.remove(firstId);
 				groupMetadata.setLastModified(System.currentTimeMillis());
-				doStore(this.groupPrefix + groupId, groupMetadata);
+				storeGroupMetadata(groupId, groupMetadata, false);
 				return removeMessage(firstId);
 			}
 		}
@@ -350,6 +427,22 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 		return messages;
 	}
 
+	/**
+	 * Stream the messages of the group, retrieving each message from the store as the
+	 * stream is consumed.
+	 */
+	@Override
+	public Stream<Message<?>> streamMessagesForGroup(Object groupId) {
+		MessageGroupMetadata groupMetadata = getGroupMetadata(groupId);
+		if (groupMetadata == null) {
+			return Stream.empty();
+		}
+		return groupMetadata.getMessageIds()
+				.stream()
+				.map(this::getMessage)
+				.filter(Objects::nonNull);
+	}
+
 	@Override
 	@SuppressWarnings("unchecked")
 	public Iterator<MessageGroup> iterator() {
@@ -385,6 +478,175 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 		}
 	}
 
+	@Override
+	public void setTimeoutOnIdle(boolean timeoutOnIdle) {
+		super.setTimeoutOnIdle(timeoutOnIdle);
+		this.expiryIndexInitialized = false;
+	}
+
+	/**
+	 * Use the time index maintained by {@link #doIndexGroupForExpiry(Object, long)}, if
+	 * {@link #isExpiryIndexSupported() supported}. On first use, the groups already in
+	 * the store (e.g. stored before an upgrade) are indexed with a single full scan.
+	 * Index entries of groups which no longer exist (e.g. removed by another client or
+	 * expired by the underlying store) are pruned.
+	 */
+	@Override
+	protected Iterable<MessageGroup> getExpiryCandidates(long threshold) {
+		if (!isExpiryIndexSupported()) {
+			return this;
+		}
+		if (!this.expiryIndexInitialized) {
+			for (MessageGroup group : this) {
+				doIndexGroupForExpiry(group.getGroupId(),
+						getExpiryTimestamp(group.getTimestamp(), group.getLastModified()));
+			}
+			this.expiryIndexInitialized = true;
+		}
+		Collection<?> groupIds = doListGroupIdsFromExpiryIndex(threshold);
+		List<MessageGroup> groups = new ArrayList<>(groupIds.size());
+		for (Object groupId : groupIds) {
+			MessageGroupMetadata metadata = getGroupMetadata(groupId);
+			if (metadata == null) {
+				doRemoveGroupFromExpiryIndex(groupId);
+				metadata = getGroupMetadata(groupId);
+				if (metadata == null) {
+					continue;
+				}
+				// re-created meanwhile
+				doIndexGroupForExpiry(groupId, getExpiryTimestamp(metadata.getTimestamp(), metadata.getLastModified()));
+			}
+			groups.add(createMessageGroup(groupId, metadata));
+		}
+		return groups;
+	}
+
+	private void storeGroupMetadata(Object groupId, MessageGroupMetadata metadata, boolean created) {
+		store(this.groupPrefix + groupId, metadata);
+		// the expiry timestamp only changes after creation when it is the last modified time
+		if (created || isTimeoutOnIdle()) {
+			doIndexGroupForExpiry(groupId, getExpiryTimestamp(metadata.getTimestamp(), metadata.getLastModified()));
+		}
+	}
+
+	/**
+	 * Return true if the store maintains an index of the groups by expiry timestamp,
+	 * in which case the other expiry index methods must be implemented.
+	 * @return true if the expiry index is supported; false by default.
+	 * @since 5.1
+	 */
+	protected boolean isExpiryIndexSupported() {
+		return false;
+	}
+
+	/**
+	 * Record the expiry timestamp of a group in the expiry index.
+	 * Does nothing by default.
+	 * @param groupId the group id.
+	 * @param timestamp the expiry timestamp.
+	 * @since 5.1
+	 * @see #getExpiryTimestamp(long, long)
+	 */
+	protected void doIndexGroupForExpiry(Object groupId, long timestamp) {
+	}
+
+	/**
+	 * Remove a group from the expiry index. Does nothing by default.
+	 * @param groupId the group id.
+	 * @since 5.1
+	 */
+	protected void doRemoveGroupFromExpiryIndex(Object groupId) {
+	}
+
+	/**
+	 * Return the ids of the groups whose indexed expiry timestamp is not later than
+	 * the threshold. Returns an empty collection by default.
+	 * @param threshold the threshold.
+	 * @return the group ids.
+	 * @since 5.1
+	 */
+	protected Collection<?> doListGroupIdsFromExpiryIndex(long threshold) {
+		return Collections.emptyList();
+	}
+
+	private Object retrieve(Object id) {
+		NearCache cache = this.nearCache;
+		if (cache == null) {
+			return doRetrieve(id);
+		}
+		Object object = cache.get(id);
+		if (object != null) {
+			this.nearCacheHits.incrementAndGet();
+			return copyIfMutable(object);
+		}
+		this.nearCacheMisses.incrementAndGet();
+		long generation = cache.getGeneration();
+		object = doRetrieve(id);
+		if (object != null) {
+			// don't cache what was read if the key was stored or removed concurrently
+			cache.putIfUnchanged(id, copyIfMutable(object), this.nearCacheTimeToLive, generation);
+		}
+		return object;
+	}
+
+	private void store(Object id, Object objectToStore) {
+		NearCache cache = this.nearCache;
+		if (cache == null) {
+			doStore(id, objectToStore);
+			return;
+		}
+		cache.invalidate(id);
+		doStore(id, objectToStore);
+		cache.put(id, copyIfMutable(objectToStore), this.nearCacheTimeToLive);
+	}
+
+	private void storeIfAbsent(Object id, Object objectToStore) {
+		doStoreIfAbsent(id, objectToStore);
+		NearCache cache = this.nearCache;
+		if (cache != null) {
+			cache.put(id, objectToStore, this.nearCacheTimeToLive);
+		}
+	}
+
+	private Object removeKey(Object id) {
+		NearCache cache = this.nearCache;
+		if (cache == null) {
+			return doRemove(id);
+		}
+		cache.invalidate(id);
+		try {
+			return doRemove(id);
+		}
+		finally {
+			cache.invalidate(id);
+		}
+	}
+
+	private void removeKeys(Collection<Object> ids) {
+		NearCache cache = this.nearCache;
+		if (cache == null) {
+			doRemoveAll(ids);
+			return;
+		}
+		ids.forEach(cache::invalidate);
+		try {
+			doRemoveAll(ids);
+		}
+		finally {
+			ids.forEach(cache::invalidate);
+		}
+	}
+
+	/*
+	 * Callers update the group metadata they retrieve before storing it, so the cache keeps
+	 * its own copy; the message holders are not modified once stored.
+	 */
+	private static Object copyIfMutable(Object object) {
+		return object instanceof MessageGroupMetadata
+				? new MessageGroupMetadata((MessageGroupMetadata) object)
+				: object;
+	}
+
 	protected abstract Object doRetrieve(Object id);
 
 	protected abstract void doStore(Object id, Object objectToStore);
@@ -423,4 +685,96 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 
 	}
 
+	/**
+	 * An LRU cache whose changes are numbered by a generation. Invalidated keys keep a
+	 * tombstone entry with the generation of the invalidation, so a read that started
+	 * before a concurrent store or removal of its key can tell that its result is stale.
+	 */
+	private static final class NearCache {
+
+		private final Map<Object, NearCacheEntry> entries;
+
+		private long generation;
+
+		private long evictedTombstoneGeneration;
+
+		NearCache(int maxSize) {
+			this.entries = new LinkedHashMap<Object, NearCacheEntry>(16, 0.75f, true) {
+
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Object, NearCacheEntry> eldest) {
+					if (size() > maxSize) {
+						NearCacheEntry entry = eldest.getValue();
+						if (entry.value == null) {
+							NearCache.this.evictedTombstoneGeneration =
+									Math.max(NearCache.this.evictedTombstoneGeneration, entry.generation);
+						}
+						return true;
+					}
+					return false;
+				}
+
+			};
+		}
+
+		synchronized long getGeneration() {
+			return this.generation;
+		}
+
+		synchronized Object get(Object id) {
+			NearCacheEntry entry = this.entries.get(id);
+			if (entry == null || entry.value == null) {
+				return null;
+			}
+			if (entry.expiresAt > 0 && entry.expiresAt < System.currentTimeMillis()) {
+				this.entries.remove(id);
+				return null;
+			}
+			return entry.value;
+		}
+
+		synchronized void put(Object id, Object value, long timeToLive) {
+			this.entries.put(id, new NearCacheEntry(value, ++this.generation,
+					timeToLive > 0 ? System.currentTimeMillis() + timeToLive : 0));
+		}
+
+		/*
+		 * Cache a value read when the generation was the provided one, unless the key has
+		 * a value or was invalidated since; when the tombstone of the key may have been
+		 * evicted meanwhile, the value is not cached either.
+		 */
+		synchronized void putIfUnchanged(Object id, Object value, long timeToLive, long readGeneration) {
+			NearCacheEntry entry = this.entries.get(id);
+			boolean stale = entry != null
+					? entry.value != null || entry.generation > readGeneration
+					: this.evictedTombstoneGeneration > readGeneration;
+			if (!stale) {
+				put(id, value, timeToLive);
+			}
+		}
+
+		synchronized void invalidate(Object id) {
+			this.entries.put(id, new NearCacheEntry(null, ++this.generation, 0));
+		}
+
+	}
+
+	private static final class NearCacheEntry {
+
+		private final Object value;
+
+		private final long generation;
+
+		private final long expiresAt;
+
+		NearCacheEntry(Object value, long generation, long expiresAt) {
+			this.value = value;
+			this.generation = generation;
+			this.expiresAt = expiresAt;
+		}
+
+	}
+
 }
@@ -118,14 +118,8 @@ public abstract class AbstractMessageGroupStore extends AbstractBatchingMessageG
 	public synchronized int expireMessageGroups(long timeout) {
 		int count = 0;
 		long threshold = System.currentTimeMillis() - timeout;
-		for (MessageGroup group : this) {
-
-			long timestamp = group.getTimestamp();
-			if (this.isTimeoutOnIdle() && group.getLastModified() > 0) {
-				timestamp = group.getLastModified();
-			}
-
-			if (timestamp <= threshold) {
+		for (MessageGroup group : getExpiryCandidates(threshold)) {
+			if (getExpiryTimestamp(group.getTimestamp(), group.getLastModified()) <= threshold) {
 				count++;
 				expire(copy(group));
 			}
@@ -133,6 +127,32 @@ public abstract class AbstractMessageGroupStore extends AbstractBatchingMessageG
 		return count;
 	}
 
+	/**
+	 * Return the groups to check in {@link #expireMessageGroups(long)}; it must include
+	 * at least all the groups whose {@link #getExpiryTimestamp(long, long) expiry timestamp}
+	 * is not later than the threshold. The default implementation returns all the groups
+	 * in the store; stores that maintain an index by time return only the due ones,
+	 * instead of scanning the whole store on each reaper run.
+	 * @param threshold the time before which groups are expired.
+	 * @return the groups to check.
+	 * @since 5.1
+	 */
+	protected Iterable<MessageGroup> getExpiryCandidates(long threshold) {
+		return this;
+	}
+
+	/**
+	 * Return the time a group's expiry is based upon: its last modification time if
+	 * {@link #isTimeoutOnIdle()} and the group has been modified, its creation time otherwise.
+	 * @param timestamp the group creation time.
+	 * @param lastModified the group last modified time.
+	 * @return the expiry timestamp.
+	 * @since 5.1
+	 */
+	protected long getExpiryTimestamp(long timestamp, long lastModified) {
+		return isTimeoutOnIdle() && lastModified > 0 ? lastModified : timestamp;
+	}
+
 	/**
 	 * Used by expireMessageGroups. We need to return a snapshot of the group
 	 * at the time the reaper runs, so we can properly detect if the
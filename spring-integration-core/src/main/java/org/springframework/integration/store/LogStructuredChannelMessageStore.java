@@ -0,0 +1,770 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.integration.codec.Codec;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.messaging.Message;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link PriorityCapableChannelMessageStore} which persists messages to an append-only
+ * log of memory-mapped segment files in a local directory, so that a durable
+ * {@code QueueChannel} does not need a database round trip per message.
+ * <p>
+ * Each add, poll and group removal appends a checksummed record to the current segment;
+ * an in-memory index of the live messages (their location in the log) is rebuilt from the
+ * records in {@link #afterPropertiesSet()} after a restart or crash. A torn record at the
+ * end of the log is discarded.
+ * <p>
+ * When {@link #setForceOnAdd(boolean) forceOnAdd} is true (default), adding a message
+ * does not return before the log has been forced to the storage device. Concurrent
+ * writers are group-committed: one of them forces the log on behalf of all records
+ * appended so far while the others wait. Poll records are not forced; after an operating
+ * system crash a polled message may be delivered again.
+ * <p>
+ * Segments are deleted once all their messages have been polled. When the oldest segment
+ * holds less than the {@link #setCompactionThreshold(double) compaction threshold} of live
+ * data, its remaining messages are copied to the end of the log, and the copies forced to
+ * the storage device, so that it can be deleted.
+ * <p>
+ * Messages are serialized with the provided {@link Codec}. Group ids are persisted in
+ * their {@link Object#toString() String} form.
+ *
+ * @since 5.1
+ */
+public class LogStructuredChannelMessageStore
+		implements PriorityCapableChannelMessageStore, InitializingBean, DisposableBean {
+
+	/**
+	 * The default segment size - 64Mb.
+	 */
+	public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+	/**
+	 * The default compaction threshold - a quarter of the segment.
+	 */
+	public static final double DEFAULT_COMPACTION_THRESHOLD = 0.25;
+
+	private static final String SEGMENT_SUFFIX = ".log";
+
+	/*
+	 * The length of a record counts its type byte and its body, so it is never 0, which
+	 * marks the end of the records in a segment.
+	 */
+	private static final int RECORD_PREFIX_SIZE = 8; // length (int), crc (int)
+
+	private static final int RECORD_HEADER_SIZE = RECORD_PREFIX_SIZE + 1; // type (byte)
+
+	private static final byte ADD = 1;
+
+	private static final byte REMOVE = 2;
+
+	private static final byte REMOVE_GROUP = 3;
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	private final Lock lock = new ReentrantLock();
+
+	private final Object forceMonitor = new Object();
+
+	private final NavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+	private final Map<String, GroupQueue> groups = new HashMap<>();
+
+	private final File directory;
+
+	private final Codec codec;
+
+	private final int segmentSize;
+
+	private MessageGroupFactory messageGroupFactory = new SimpleMessageGroupFactory();
+
+	private boolean priorityEnabled;
+
+	private boolean forceOnAdd = true;
+
+	private double compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+
+	private boolean initialized;
+
+	private Segment active;
+
+	private int writeOffset;
+
+	private long nextSequence;
+
+	private int messageCount;
+
+	private volatile long writePosition;
+
+	private long forcedPosition; // guarded by forceMonitor
+
+	private boolean forcing; // guarded by forceMonitor
+
+	/**
+	 * Construct an instance with {@value #DEFAULT_SEGMENT_SIZE} byte segments.
+	 * @param directory the directory for the segment files.
+	 * @param codec the codec to serialize messages.
+	 */
+	public LogStructuredChannelMessageStore(File directory, Codec codec) {
+		this(directory, codec, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * Construct an instance with the provided segment size.
+	 * @param directory the directory for the segment files.
+	 * @param codec the codec to serialize messages.
+	 * @param segmentSize the size of each segment file; a serialized message must fit in
+	 * one segment.
+	 */
+	public LogStructuredChannelMessageStore(File directory, Codec codec, int segmentSize) {
+		Assert.notNull(directory, "'directory' must not be null");
+		Assert.notNull(codec, "'codec' must not be null");
+		Assert.isTrue(segmentSize >= 1024, "'segmentSize' must be at least 1024");
+		this.directory = directory;
+		this.codec = codec;
+		this.segmentSize = segmentSize;
+	}
+
+	/**
+	 * Specify the {@link MessageGroupFactory} to create {@link MessageGroup} objects.
+	 * @param messageGroupFactory the {@link MessageGroupFactory} to use.
+	 */
+	public void setMessageGroupFactory(MessageGroupFactory messageGroupFactory) {
+		Assert.notNull(messageGroupFactory, "'messageGroupFactory' must not be null");
+		this.messageGroupFactory = messageGroupFactory;
+	}
+
+	/**
+	 * Set to true to poll messages in the order of their
+	 * {@link IntegrationMessageHeaderAccessor#PRIORITY priority} header (highest first,
+	 * messages without priority last) and then in FIFO order. Must be set before
+	 * {@link #afterPropertiesSet()}.
+	 * @param priorityEnabled true to enable priority.
+	 */
+	public void setPriorityEnabled(boolean priorityEnabled) {
+		Assert.state(!this.initialized, "'priorityEnabled' cannot be changed after initialization");
+		this.priorityEnabled = priorityEnabled;
+	}
+
+	@Override
+	public boolean isPriorityEnabled() {
+		return this.priorityEnabled;
+	}
+
+	/**
+	 * Set to false to return from {@link #addMessageToGroup(Object, Message)} without
+	 * waiting for the log to be forced to the storage device; messages then survive an
+	 * application crash, but not necessarily an operating system crash.
+	 * Default true.
+	 * @param forceOnAdd false to not wait.
+	 */
+	public void setForceOnAdd(boolean forceOnAdd) {
+		this.forceOnAdd = forceOnAdd;
+	}
+
+	/**
+	 * Set the fraction of a segment under which the live messages of the oldest segment
+	 * are copied to the end of the log so that the segment can be deleted; 0 to only
+	 * delete segments without live messages.
+	 * Default {@value #DEFAULT_COMPACTION_THRESHOLD}.
+	 * @param compactionThreshold the threshold between 0 and 1.
+	 */
+	public void setCompactionThreshold(double compactionThreshold) {
+		Assert.isTrue(compactionThreshold >= 0 && compactionThreshold <= 1,
+				"'compactionThreshold' must be between 0 and 1");
+		this.compactionThreshold = compactionThreshold;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		this.lock.lock();
+		try {
+			if (!this.initialized) {
+				Assert.isTrue(this.directory.isDirectory() || this.directory.mkdirs(),
+						() -> "Cannot create directory " + this.directory);
+				recover();
+				this.initialized = true;
+			}
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	@Override
+	public void destroy() {
+		this.lock.lock();
+		try {
+			for (Segment segment : this.segments.values()) {
+				segment.buffer.force();
+			}
+			this.segments.clear();
+			this.groups.clear();
+			this.active = null;
+			this.messageCount = 0;
+			this.initialized = false;
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	@Override
+	@ManagedAttribute
+	public int messageGroupSize(Object groupId) {
+		Assert.notNull(groupId, "'groupId' must not be null");
+		this.lock.lock();
+		try {
+			GroupQueue queue = this.groups.get(groupId.toString());
+			return queue == null ? 0 : queue.size;
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	@Override
+	public MessageGroup getMessageGroup(Object groupId) {
+		Assert.notNull(groupId, "'groupId' must not be null");
+		List<byte[]> encoded = new ArrayList<>();
+		this.lock.lock();
+		try {
+			assertInitialized();
+			GroupQueue queue = this.groups.get(groupId.toString());
+			if (queue != null) {
+				for (Entry entry : queue) {
+					encoded.add(readMessage(entry));
+				}
+			}
+		}
+		finally {
+			this.lock.unlock();
+		}
+		List<Message<?>> messages = new ArrayList<>(encoded.size());
+		for (byte[] bytes : encoded) {
+			messages.add(decode(bytes));
+		}
+		return this.messageGroupFactory.create(messages, groupId);
+	}
+
+	@Override
+	public MessageGroup addMessageToGroup(Object groupId, Message<?> message) {
+		Assert.notNull(groupId, "'groupId' must not be null");
+		Assert.notNull(message, "'message' must not be null");
+		byte[] messageBytes;
+		try {
+			messageBytes = this.codec.encode(message);
+		}
+		catch (IOException e) {
+			throw new MessageStoreException(message, "Failed to encode Message", e);
+		}
+		Integer priority = message.getHeaders().get(IntegrationMessageHeaderAccessor.PRIORITY, Integer.class);
+		String group = groupId.toString();
+		byte[] groupBytes = group.getBytes(StandardCharsets.UTF_8);
+		long position;
+		this.lock.lock();
+		try {
+			assertInitialized();
+			long sequence = this.nextSequence++;
+			int priorityValue = priority == null ? Integer.MIN_VALUE : priority;
+			ByteBuffer body = ByteBuffer.allocate(16 + groupBytes.length + messageBytes.length)
+					.putLong(sequence)
+					.putInt(priorityValue)
+					.putInt(groupBytes.length)
+					.put(groupBytes)
+					.put(messageBytes);
+			Entry entry = new Entry(group, sequence, priorityValue);
+			locate(entry, append(ADD, body.array()));
+			queueFor(group).add(entry, this.priorityEnabled);
+			this.messageCount++;
+			position = this.writePosition;
+		}
+		finally {
+			this.lock.unlock();
+		}
+		if (this.forceOnAdd) {
+			force(position);
+		}
+		return null;
+	}
+
+	@Override
+	public Message<?> pollMessageFromGroup(Object groupId) {
+		Assert.notNull(groupId, "'groupId' must not be null");
+		byte[] messageBytes;
+		this.lock.lock();
+		try {
+			assertInitialized();
+			GroupQueue queue = this.groups.get(groupId.toString());
+			if (queue == null || queue.size == 0) {
+				return null;
+			}
+			Entry entry = queue.poll();
+			messageBytes = readMessage(entry);
+			append(REMOVE, ByteBuffer.allocate(8).putLong(entry.sequence).array());
+			release(entry);
+			this.messageCount--;
+			compact();
+		}
+		finally {
+			this.lock.unlock();
+		}
+		return decode(messageBytes);
+	}
+
+	@Override
+	public void removeMessageGroup(Object groupId) {
+		Assert.notNull(groupId, "'groupId' must not be null");
+		String group = groupId.toString();
+		this.lock.lock();
+		try {
+			assertInitialized();
+			GroupQueue queue = this.groups.remove(group);
+			if (queue != null) {
+				append(REMOVE_GROUP, group.getBytes(StandardCharsets.UTF_8));
+				for (Entry entry : queue) {
+					release(entry);
+				}
+				this.messageCount -= queue.size;
+				compact();
+			}
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	@ManagedAttribute
+	public int getMessageCountForAllMessageGroups() {
+		this.lock.lock();
+		try {
+			return this.messageCount;
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	@ManagedAttribute
+	public int getMessageGroupCount() {
+		this.lock.lock();
+		try {
+			return this.groups.size();
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Return the number of segment files currently in use.
+	 * @return the number of segments.
+	 */
+	@ManagedAttribute
+	public int getSegmentCount() {
+		return this.segments.size();
+	}
+
+	private void assertInitialized() {
+		Assert.state(this.initialized, "The store must be initialized with 'afterPropertiesSet()' before use");
+	}
+
+	private GroupQueue queueFor(String group) {
+		return this.groups.computeIfAbsent(group, g -> new GroupQueue());
+	}
+
+	/*
+	 * Appends a record and returns its position; called while holding the lock.
+	 */
+	private long append(byte type, byte[] body) {
+		CRC32 crc = new CRC32();
+		crc.update(type);
+		crc.update(body, 0, body.length);
+		byte[] record = ByteBuffer.allocate(RECORD_HEADER_SIZE + body.length)
+				.putInt(1 + body.length)
+				.putInt((int) crc.getValue())
+				.put(type)
+				.put(body)
+				.array();
+		return appendRecord(record);
+	}
+
+	private long appendRecord(byte[] record) {
+		if (record.length > this.segmentSize) {
+			throw new MessageStoreException("The record (" + record.length + " bytes) does not fit in a segment ("
+					+ this.segmentSize + " bytes)");
+		}
+		if (this.active == null || this.writeOffset + record.length > this.active.buffer.capacity()) {
+			roll();
+		}
+		ByteBuffer buffer = this.active.buffer.duplicate();
+		buffer.position(this.writeOffset);
+		buffer.put(record);
+		long position = position(this.active.id, this.writeOffset);
+		this.writeOffset += record.length;
+		this.writePosition = position(this.active.id, this.writeOffset);
+		return position;
+	}
+
+	private void roll() {
+		long id = this.segments.isEmpty() ? 0 : this.segments.lastKey() + 1;
+		File file = new File(this.directory, String.format("%020d", id) + SEGMENT_SUFFIX);
+		this.active = new Segment(id, file, map(file, this.segmentSize));
+		this.segments.put(id, this.active);
+		this.writeOffset = 0;
+	}
+
+	private void locate(Entry entry, long position) {
+		Segment segment = this.segments.get(position >>> 32);
+		entry.segment = segment;
+		entry.offset = (int) position;
+		entry.length = RECORD_PREFIX_SIZE + segment.buffer.getInt(entry.offset);
+		segment.entries.add(entry);
+		segment.liveBytes += entry.length;
+	}
+
+	private void release(Entry entry) {
+		entry.segment.entries.remove(entry);
+		entry.segment.liveBytes -= entry.length;
+	}
+
+	private byte[] readMessage(Entry entry) {
+		ByteBuffer buffer = entry.segment.buffer.duplicate();
+		buffer.position(entry.offset + RECORD_HEADER_SIZE + 12);
+		int groupLength = buffer.getInt();
+		buffer.position(buffer.position() + groupLength);
+		byte[] bytes = new byte[entry.offset + entry.length - buffer.position()];
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	private Message<?> decode(byte[] bytes) {
+		try {
+			return this.codec.decode(bytes, Message.class);
+		}
+		catch (IOException e) {
+			throw new MessageStoreException("Failed to decode Message", e);
+		}
+	}
+
+	/*
+	 * Deletes the leading segments without live messages, copying the live messages of
+	 * a sparse oldest segment to the end of the log first. Deleting only from the head
+	 * keeps the poll records for older segments until those segments are gone. The copies
+	 * are forced before the segment is deleted, so that messages reported as durable
+	 * never exist only in the page cache.
+	 */
+	private void compact() {
+		while (this.segments.size() > 1) {
+			Segment oldest = this.segments.firstEntry().getValue();
+			if (!oldest.entries.isEmpty()) {
+				if (oldest.liveBytes > this.compactionThreshold * oldest.buffer.capacity()) {
+					return;
+				}
+				relocate(oldest);
+				force(this.writePosition);
+			}
+			this.segments.remove(oldest.id);
+			if (!oldest.file.delete() && this.logger.isWarnEnabled()) {
+				this.logger.warn("Failed to delete segment " + oldest.file);
+			}
+		}
+	}
+
+	private void relocate(Segment segment) {
+		for (Entry entry : new ArrayList<>(segment.entries)) {
+			byte[] record = new byte[entry.length];
+			ByteBuffer buffer = segment.buffer.duplicate();
+			buffer.position(entry.offset);
+			buffer.get(record);
+			release(entry);
+			locate(entry, appendRecord(record));
+		}
+	}
+
+	private void force(long position) {
+		while (true) {
+			long from;
+			long to;
+			synchronized (this.forceMonitor) {
+				while (this.forcing && this.forcedPosition < position) {
+					try {
+						this.forceMonitor.wait();
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new MessageStoreException("Interrupted while waiting for the log to be forced", e);
+					}
+				}
+				if (this.forcedPosition >= position) {
+					return;
+				}
+				this.forcing = true;
+				from = this.forcedPosition;
+				to = this.writePosition;
+			}
+			boolean forced = false;
+			try {
+				for (Segment segment : this.segments.subMap(from >>> 32, true, to >>> 32, true).values()) {
+					segment.buffer.force();
+				}
+				forced = true;
+			}
+			finally {
+				synchronized (this.forceMonitor) {
+					this.forcing = false;
+					if (forced) {
+						this.forcedPosition = Math.max(this.forcedPosition, to);
+					}
+					this.forceMonitor.notifyAll();
+				}
+			}
+		}
+	}
+
+	private void recover() {
+		File[] files = this.directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+		Arrays.sort(files);
+		Map<Long, Entry> bySequence = new HashMap<>();
+		Map<String, Map<Long, Entry>> recovered = new LinkedHashMap<>();
+		long maxSequence = -1;
+		for (File file : files) {
+			long id = Long.parseLong(file.getName().substring(0, file.getName().length() - SEGMENT_SUFFIX.length()));
+			Segment segment = new Segment(id, file, map(file, (int) Math.max(file.length(), this.segmentSize)));
+			this.segments.put(id, segment);
+			ByteBuffer buffer = segment.buffer.duplicate();
+			int offset = 0;
+			while (offset + RECORD_HEADER_SIZE <= buffer.capacity()) {
+				int length = buffer.getInt(offset);
+				if (length == 0) {
+					break;
+				}
+				byte[] body = validBody(buffer, offset, length);
+				if (body == null) {
+					if (this.logger.isWarnEnabled()) {
+						this.logger.warn("Discarding a torn record at offset " + offset + " of segment " + file);
+					}
+					zero(buffer, offset);
+					break;
+				}
+				byte type = buffer.get(offset + 8);
+				ByteBuffer record = ByteBuffer.wrap(body);
+				if (type == ADD) {
+					long sequence = record.getLong();
+					int priority = record.getInt();
+					byte[] groupBytes = new byte[record.getInt()];
+					record.get(groupBytes);
+					String group = new String(groupBytes, StandardCharsets.UTF_8);
+					Entry entry = bySequence.get(sequence);
+					if (entry == null) {
+						entry = new Entry(group, sequence, priority);
+						bySequence.put(sequence, entry);
+						recovered.computeIfAbsent(group, g -> new HashMap<>()).put(sequence, entry);
+					}
+					else {
+						release(entry); // copied by a compaction
+					}
+					locate(entry, position(id, offset));
+					maxSequence = Math.max(maxSequence, sequence);
+				}
+				else if (type == REMOVE) {
+					Entry entry = bySequence.remove(record.getLong());
+					if (entry != null) {
+						recovered.get(entry.group).remove(entry.sequence);
+						release(entry);
+					}
+				}
+				else if (type == REMOVE_GROUP) {
+					Map<Long, Entry> groupEntries = recovered.remove(new String(body, StandardCharsets.UTF_8));
+					if (groupEntries != null) {
+						for (Entry entry : groupEntries.values()) {
+							bySequence.remove(entry.sequence);
+							release(entry);
+						}
+					}
+				}
+				offset += RECORD_PREFIX_SIZE + length;
+			}
+			this.active = segment;
+			this.writeOffset = offset;
+		}
+		for (Map<Long, Entry> groupEntries : recovered.values()) {
+			List<Entry> entries = new ArrayList<>(groupEntries.values());
+			entries.sort(Comparator.comparingLong(e -> e.sequence));
+			for (Entry entry : entries) {
+				queueFor(entry.group).add(entry, this.priorityEnabled);
+			}
+			this.messageCount += entries.size();
+		}
+		this.nextSequence = maxSequence + 1;
+		this.writePosition = this.active == null ? 0 : position(this.active.id, this.writeOffset);
+		synchronized (this.forceMonitor) {
+			this.forcedPosition = this.writePosition;
+		}
+		compact();
+	}
+
+	private static byte[] validBody(ByteBuffer buffer, int offset, int length) {
+		if (length < 1 || length > buffer.capacity() - offset - RECORD_PREFIX_SIZE) {
+			return null;
+		}
+		byte[] body = new byte[length - 1];
+		ByteBuffer duplicate = buffer.duplicate();
+		duplicate.position(offset + RECORD_HEADER_SIZE);
+		duplicate.get(body);
+		CRC32 crc = new CRC32();
+		crc.update(buffer.get(offset + 8));
+		crc.update(body, 0, body.length);
+		return (int) crc.getValue() == buffer.getInt(offset + 4) ? body : null;
+	}
+
+	private static void zero(ByteBuffer buffer, int offset) {
+		ByteBuffer duplicate = buffer.duplicate();
+		duplicate.position(offset);
+		byte[] zeros = new byte[8192];
+		while (duplicate.hasRemaining()) {
+			duplicate.put(zeros, 0, Math.min(zeros.length, duplicate.remaining()));
+		}
+	}
+
+	private static MappedByteBuffer map(File file, int size) {
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+				FileChannel channel = randomAccessFile.getChannel()) {
+
+			return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+		}
+		catch (IOException e) {
+			throw new MessageStoreException("Failed to map segment " + file, e);
+		}
+	}
+
+	private static long position(long segmentId, int offset) {
+		return segmentId << 32 | offset;
+	}
+
+	private static final class Segment {
+
+		private final long id;
+
+		private final File file;
+
+		private final MappedByteBuffer buffer;
+
+		private final Set<Entry> entries = new HashSet<>();
+
+		private long liveBytes;
+
+		Segment(long id, File file, MappedByteBuffer buffer) {
+			this.id = id;
+			this.file = file;
+			this.buffer = buffer;
+		}
+
+	}
+
+	private static final class Entry {
+
+		private final String group;
+
+		private final long sequence;
+
+		private final int priority;
+
+		private Segment segment;
+
+		private int offset;
+
+		private int length;
+
+		Entry(String group, long sequence, int priority) {
+			this.group = group;
+			this.sequence = sequence;
+			this.priority = priority;
+		}
+
+	}
+
+	/**
+	 * The live entries of a group, by descending priority (a single bucket when priority
+	 * is not enabled) and then in FIFO order.
+	 */
+	private static final class GroupQueue implements Iterable<Entry> {
+
+		private final NavigableMap<Integer, ArrayDeque<Entry>> buckets = new TreeMap<>(Collections.reverseOrder());
+
+		private int size;
+
+		void add(Entry entry, boolean priority) {
+			this.buckets.computeIfAbsent(priority ? entry.priority : 0, p -> new ArrayDeque<>()).add(entry);
+			this.size++;
+		}
+
+		Entry poll() {
+			Map.Entry<Integer, ArrayDeque<Entry>> first = this.buckets.firstEntry();
+			Entry entry = first.getValue().poll();
+			if (first.getValue().isEmpty()) {
+				this.buckets.remove(first.getKey());
+			}
+			this.size--;
+			return entry;
+		}
+
+		@Override
+		public Iterator<Entry> iterator() {
+			return this.buckets.values()
+					.stream()
+					.flatMap(ArrayDeque::stream)
+					.iterator();
+		}
+
+	}
+
+}
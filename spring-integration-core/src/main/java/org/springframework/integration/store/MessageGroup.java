@@ -17,6 +17,7 @@
 package org.springframework.integration.store;
 
 import java.util.Collection;
+import java.util.stream.Stream;
 
 import org.springframework.messaging.Message;
 
@@ -63,6 +64,18 @@ public interface MessageGroup {
 	 */
 	Collection<Message<?>> getMessages();
 
+	/**
+	 * Return a stream of the messages of the group, which may be read from the store
+	 * while the stream is consumed instead of being loaded all at once.
+	 * The stream should be closed after use, e.g. with try-with-resources, because it may
+	 * hold resources such as a database cursor.
+	 * @return the stream of messages.
+	 * @since 5.1
+	 */
+	default Stream<Message<?>> streamMessages() {
+		return getMessages().stream();
+	}
+
 	/**
 	 * @return the key that links these messages together
 	 */
@@ -95,6 +108,16 @@ public interface MessageGroup {
 	 */
 	int size();
 
+	/**
+	 * Return the compact sequence metadata maintained for this group by its store, if
+	 * any. It allows release decisions without loading the messages of the group.
+	 * @return the sequence metadata or {@code null} if not maintained.
+	 * @since 5.1
+	 */
+	default MessageGroupSequenceInfo getSequenceInfo() {
+		return null;
+	}
+
 	/**
 	 * @return a single message from the group
 	 */
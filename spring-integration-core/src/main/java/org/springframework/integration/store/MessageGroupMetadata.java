@@ -23,6 +23,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.UUID;
 
+import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
 import org.springframework.util.Assert;
 
@@ -50,6 +51,8 @@ public class MessageGroupMetadata implements Serializable {
 
 	private volatile int lastReleasedMessageSequenceNumber;
 
+	private MessageGroupSequenceInfo sequenceInfo;
+
 	private MessageGroupMetadata() {
 		//For Jackson deserialization
 	}
@@ -63,20 +66,71 @@ public class MessageGroupMetadata implements Serializable {
 		this.timestamp = messageGroup.getTimestamp();
 		this.lastReleasedMessageSequenceNumber = messageGroup.getLastReleasedMessageSequenceNumber();
 		this.lastModified = messageGroup.getLastModified();
+		MessageGroupSequenceInfo groupSequenceInfo = messageGroup.getSequenceInfo();
+		this.sequenceInfo = groupSequenceInfo != null
+				? new MessageGroupSequenceInfo(groupSequenceInfo)
+				: new MessageGroupSequenceInfo(messageGroup.getMessages());
+		this.sequenceInfo.setLastReleasedSequenceNumber(this.lastReleasedMessageSequenceNumber);
+	}
+
+	/**
+	 * Construct a copy of the provided metadata.
+	 * @param metadata the metadata to copy.
+	 * @since 5.1
+	 */
+	MessageGroupMetadata(MessageGroupMetadata metadata) {
+		this.messageIds.addAll(metadata.messageIds);
+		this.timestamp = metadata.timestamp;
+		this.complete = metadata.complete;
+		this.lastModified = metadata.lastModified;
+		this.lastReleasedMessageSequenceNumber = metadata.lastReleasedMessageSequenceNumber;
+		this.sequenceInfo = metadata.sequenceInfo != null ? new MessageGroupSequenceInfo(metadata.sequenceInfo) : null;
+	}
+
+	/**
+	 * Construct an instance with the provided state.
+	 * @param messageIds the message ids, owned by the new instance from now on.
+	 * @param timestamp the group timestamp.
+	 * @param complete the completion state.
+	 * @param lastModified the last modification time.
+	 * @param lastReleasedMessageSequenceNumber the last released sequence number.
+	 * @param sequenceInfo the sequence metadata, owned by the new instance from now on.
+	 * @since 5.1
+	 */
+	MessageGroupMetadata(LinkedList<UUID> messageIds, long timestamp, boolean complete, long lastModified,
+			int lastReleasedMessageSequenceNumber, @Nullable MessageGroupSequenceInfo sequenceInfo) {
+
+		this.messageIds = messageIds;
+		this.timestamp = timestamp;
+		this.complete = complete;
+		this.lastModified = lastModified;
+		this.lastReleasedMessageSequenceNumber = lastReleasedMessageSequenceNumber;
+		this.sequenceInfo = sequenceInfo;
 	}
 
 	public void remove(UUID messageId) {
 		this.messageIds.remove(messageId);
+		// the sequence number of the message is unknown here
+		this.sequenceInfo = null;
 	}
 
 	public void removeAll(Collection<UUID> messageIds) {
 		this.messageIds.removeAll(messageIds);
+		this.sequenceInfo = null;
 	}
 
 	boolean add(UUID messageId) {
 		return !this.messageIds.contains(messageId) && this.messageIds.add(messageId);
 	}
 
+	boolean add(Message<?> message) {
+		boolean added = add(message.getHeaders().getId());
+		if (added && this.sequenceInfo != null) {
+			this.sequenceInfo.add(message);
+		}
+		return added;
+	}
+
 	void setLastModified(long lastModified) {
 		this.lastModified = lastModified;
 	}
@@ -127,6 +181,28 @@ public class MessageGroupMetadata implements Serializable {
 
 	void setLastReleasedMessageSequenceNumber(int lastReleasedMessageSequenceNumber) {
 		this.lastReleasedMessageSequenceNumber = lastReleasedMessageSequenceNumber;
+		if (this.sequenceInfo != null) {
+			this.sequenceInfo.setLastReleasedSequenceNumber(lastReleasedMessageSequenceNumber);
+		}
+	}
+
+	/**
+	 * Return the sequence metadata of the group; {@code null} if it is not available,
+	 * e.g. for metadata stored by a previous version or with a JSON serializer, or after a
+	 * message has been removed by its id only.
+	 * @return the sequence metadata.
+	 * @since 5.1
+	 */
+	MessageGroupSequenceInfo getSequenceInfo() {
+		return this.sequenceInfo;
+	}
+
+	void removeMessages(Collection<Message<?>> messages) {
+		for (Message<?> message : messages) {
+			if (this.messageIds.remove(message.getHeaders().getId()) && this.sequenceInfo != null) {
+				this.sequenceInfo.remove(message);
+			}
+		}
 	}
 
 }
@@ -201,10 +201,12 @@ public class MessageGroupQueue extends AbstractQueue<Message<?>> implements Bloc
 		try {
 			storeLock.lockInterruptibly();
 			try {
-				Message<?> message = this.messageGroupStore.pollMessageFromGroup(this.groupId);
-				for (int i = 0; i < maxElements && message != null; i++) {
+				for (int i = 0; i < maxElements; i++) {
+					Message<?> message = this.messageGroupStore.pollMessageFromGroup(this.groupId);
+					if (message == null) {
+						break;
+					}
 					list.add(message);
-					message = this.messageGroupStore.pollMessageFromGroup(this.groupId);
 				}
 				this.messageStoreNotFull.signal();
 			}
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.integration.store;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.TreeSet;
+
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.messaging.Message;
+
+/**
+ * Compact sequence metadata of a {@link MessageGroup}: the number of messages, the
+ * expected sequence size, the lowest and highest sequence numbers and a bitmap of the
+ * sequence numbers present in the group.
+ * <p>
+ * The message stores update it as messages are added to and removed from the group,
+ * so that a {@link org.springframework.integration.aggregator.IncrementalReleaseStrategy}
+ * can decide on the release in constant time without loading the messages.
+ * Sequence numbers are expected to be unique within the group (as ensured by the
+ * sequence-aware correlating handlers); messages without a sequence number count as
+ * sequence number {@code 0}.
+ * <p>
+ * Not thread-safe: it is mutated together with its group, under the group's lock.
+ *
+ * @since 5.1
+ */
+public class MessageGroupSequenceInfo implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Sequence numbers below this value are kept in the bitmap (128k at most);
+	 * the larger ones in a sorted set.
+	 */
+	private static final int MAX_BITMAP_SEQUENCE = 1 << 20;
+
+	private long[] bitmap = new long[1];
+
+	private TreeSet<Integer> largeSequenceNumbers;
+
+	private int count;
+
+	private int distinctCount;
+
+	private int sequenceSize;
+
+	private int minSequenceNumber = -1;
+
+	private int maxSequenceNumber = -1;
+
+	private int lastReleasedSequenceNumber;
+
+	public MessageGroupSequenceInfo() {
+		super();
+	}
+
+	public MessageGroupSequenceInfo(Collection<? extends Message<?>> messages) {
+		for (Message<?> message : messages) {
+			if (message != null) {
+				add(message);
+			}
+		}
+	}
+
+	public MessageGroupSequenceInfo(MessageGroupSequenceInfo sequenceInfo) {
+		this.bitmap = Arrays.copyOf(sequenceInfo.bitmap, sequenceInfo.bitmap.length);
+		if (sequenceInfo.largeSequenceNumbers != null) {
+			this.largeSequenceNumbers = new TreeSet<>(sequenceInfo.largeSequenceNumbers);
+		}
+		this.count = sequenceInfo.count;
+		this.distinctCount = sequenceInfo.distinctCount;
+		this.sequenceSize = sequenceInfo.sequenceSize;
+		this.minSequenceNumber = sequenceInfo.minSequenceNumber;
+		this.maxSequenceNumber = sequenceInfo.maxSequenceNumber;
+		this.lastReleasedSequenceNumber = sequenceInfo.lastReleasedSequenceNumber;
+	}
+
+	/**
+	 * Record a message added to the group.
+	 * @param message the message.
+	 */
+	public void add(Message<?> message) {
+		IntegrationMessageHeaderAccessor accessor = new IntegrationMessageHeaderAccessor(message);
+		if (this.count++ == 0) {
+			this.sequenceSize = accessor.getSequenceSize();
+		}
+		int sequenceNumber = accessor.getSequenceNumber();
+		if (sequenceNumber >= 0 && set(sequenceNumber)) {
+			this.distinctCount++;
+			if (this.minSequenceNumber < 0 || sequenceNumber < this.minSequenceNumber) {
+				this.minSequenceNumber = sequenceNumber;
+			}
+			if (sequenceNumber > this.maxSequenceNumber) {
+				this.maxSequenceNumber = sequenceNumber;
+			}
+		}
+	}
+
+	/**
+	 * Record a message removed from the group.
+	 * @param message the message.
+	 */
+	public void remove(Message<?> message) {
+		if (this.count == 0) {
+			return;
+		}
+		if (--this.count == 0) {
+			clear();
+			return;
+		}
+		int sequenceNumber = new IntegrationMessageHeaderAccessor(message).getSequenceNumber();
+		if (sequenceNumber >= 0 && unset(sequenceNumber)) {
+			this.distinctCount--;
+			if (sequenceNumber == this.minSequenceNumber) {
+				this.minSequenceNumber = nextSequenceNumber(sequenceNumber + 1);
+			}
+			if (sequenceNumber == this.maxSequenceNumber) {
+				this.maxSequenceNumber = previousSequenceNumber(sequenceNumber - 1);
+			}
+		}
+	}
+
+	/**
+	 * Reset to an empty group; the last released sequence number is retained.
+	 */
+	public void clear() {
+		this.bitmap = new long[1];
+		this.largeSequenceNumbers = null;
+		this.count = 0;
+		this.distinctCount = 0;
+		this.sequenceSize = 0;
+		this.minSequenceNumber = -1;
+		this.maxSequenceNumber = -1;
+	}
+
+	/**
+	 * @param sequenceNumber the sequence number.
+	 * @return true if a message with this sequence number is in the group.
+	 */
+	public boolean contains(int sequenceNumber) {
+		if (sequenceNumber < 0) {
+			return false;
+		}
+		if (sequenceNumber >= MAX_BITMAP_SEQUENCE) {
+			return this.largeSequenceNumbers != null && this.largeSequenceNumbers.contains(sequenceNumber);
+		}
+		int word = sequenceNumber >>> 6;
+		return word < this.bitmap.length && (this.bitmap[word] & (1L << sequenceNumber)) != 0;
+	}
+
+	/**
+	 * @return the number of messages in the group.
+	 */
+	public int getCount() {
+		return this.count;
+	}
+
+	/**
+	 * @return the number of distinct sequence numbers in the group.
+	 */
+	public int getDistinctSequenceCount() {
+		return this.distinctCount;
+	}
+
+	/**
+	 * @return the sequence size of the first message added to the group; 0 if unknown.
+	 */
+	public int getSequenceSize() {
+		return this.sequenceSize;
+	}
+
+	/**
+	 * @return the lowest sequence number in the group; -1 if empty.
+	 */
+	public int getMinSequenceNumber() {
+		return this.minSequenceNumber;
+	}
+
+	/**
+	 * @return the highest sequence number in the group; -1 if empty.
+	 */
+	public int getMaxSequenceNumber() {
+		return this.maxSequenceNumber;
+	}
+
+	public int getLastReleasedSequenceNumber() {
+		return this.lastReleasedSequenceNumber;
+	}
+
+	public void setLastReleasedSequenceNumber(int lastReleasedSequenceNumber) {
+		this.lastReleasedSequenceNumber = lastReleasedSequenceNumber;
+	}
+
+	private boolean set(int sequenceNumber) {
+		if (sequenceNumber >= MAX_BITMAP_SEQUENCE) {
+			if (this.largeSequenceNumbers == null) {
+				this.largeSequenceNumbers = new TreeSet<>();
+			}
+			return this.largeSequenceNumbers.add(sequenceNumber);
+		}
+		int word = sequenceNumber >>> 6;
+		if (word >= this.bitmap.length) {
+			this.bitmap = Arrays.copyOf(this.bitmap, Math.max(word + 1, this.bitmap.length * 2));
+		}
+		long bit = 1L << sequenceNumber;
+		if ((this.bitmap[word] & bit) != 0) {
+			return false;
+		}
+		this.bitmap[word] |= bit;
+		return true;
+	}
+
+	private boolean unset(int sequenceNumber) {
+		if (sequenceNumber >= MAX_BITMAP_SEQUENCE) {
+			return this.largeSequenceNumbers != null && this.largeSequenceNumbers.remove(sequenceNumber);
+		}
+		int word = sequenceNumber >>> 6;
+		long bit = 1L << sequenceNumber;
+		if (word >= this.bitmap.length || (this.bitmap[word] & bit) == 0) {
+			return false;
+		}
+		this.bitmap[word] &= ~bit;
+		return true;
+	}
+
+	private int nextSequenceNumber(int from) {
+		if (from < MAX_BITMAP_SEQUENCE) {
+			int word = from >>> 6;
+			if (word < this.bitmap.length) {
+				long bits = this.bitmap[word] & (-1L << from);
+				while (true) {
+					if (bits != 0) {
+						return (word << 6) + Long.numberOfTrailingZeros(bits);
+					}
+					if (++word == this.bitmap.length) {
+						break;
+					}
+					bits = this.bitmap[word];
+				}
+			}
+		}
+		if (this.largeSequenceNumbers != null) {
+			Integer next = this.largeSequenceNumbers.ceiling(from);
+			if (next != null) {
+				return next;
+			}
+		}
+		return -1;
+	}
+
+	private int previousSequenceNumber(int from) {
+		if (from < 0) {
+			return -1;
+		}
+		if (this.largeSequenceNumbers != null && from >= MAX_BITMAP_SEQUENCE) {
+			Integer previous = this.largeSequenceNumbers.floor(from);
+			if (previous != null) {
+				return previous;
+			}
+		}
+		int start = Math.min(from, MAX_BITMAP_SEQUENCE - 1);
+		int word = Math.min(start >>> 6, this.bitmap.length - 1);
+		long bits = this.bitmap[word];
+		if (word == start >>> 6) {
+			bits &= -1L >>> (63 - (start & 63));
+		}
+		while (true) {
+			if (bits != 0) {
+				return (word << 6) + 63 - Long.numberOfLeadingZeros(bits);
+			}
+			if (word-- == 0) {
+				return -1;
+			}
+			bits = this.bitmap[word];
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "MessageGroupSequenceInfo{" +
+				"count=" + this.count +
+				", sequenceSize=" + this.sequenceSize +
+				", minSequenceNumber=" + this.minSequenceNumber +
+				", maxSequenceNumber=" + this.maxSequenceNumber +
+				", lastReleasedSequenceNumber=" + this.lastReleasedSequenceNumber +
+				'}';
+	}
+
+}
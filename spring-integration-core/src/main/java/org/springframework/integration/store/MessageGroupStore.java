@@ -18,6 +18,7 @@ package org.springframework.integration.store;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.stream.Stream;
 
 import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.jmx.export.annotation.ManagedOperation;
@@ -142,6 +143,19 @@ public interface MessageGroupStore extends BasicMessageGroupStore {
 	 */
 	Collection<Message<?>> getMessagesForGroup(Object groupId);
 
+	/**
+	 * Return a stream of the messages for the provided group id, which implementations
+	 * may read from the store page by page while the stream is consumed, to avoid loading
+	 * a large group into memory at once. The stream should be closed after use.
+	 * The default implementation streams the result of {@link #getMessagesForGroup(Object)}.
+	 * @param groupId The group id to retrieve messages for.
+	 * @return the stream of messages for group.
+	 * @since 5.1
+	 */
+	default Stream<Message<?>> streamMessagesForGroup(Object groupId) {
+		return getMessagesForGroup(groupId).stream();
+	}
+
 	/**
 	 * Invoked when a MessageGroupStore expires a group.
 	 */
@@ -0,0 +1,880 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.store;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.integration.codec.Codec;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessagingException;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link MessageGroupStore} and {@link MessageStore} which keeps the messages outside
+ * of the Java heap, serialized with the provided {@link Codec} (usually a
+ * {@link org.springframework.integration.codec.kryo.MessageCodec}).
+ * <p>
+ * Messages are written to fixed size slabs of direct memory or, when a
+ * {@link #setDirectory(File) directory} is configured, of memory-mapped files. Each
+ * message occupies a block of the next power of 2 size, obtained by splitting larger
+ * free blocks in halves; a freed block is merged back with its buddy when that one is
+ * free too, so the memory freed by small messages can be reused for large ones. The
+ * heap holds only a compact form of the group metadata (the message ids as primitive
+ * {@code long}s and the sequence details), which messages are appended to in place, and
+ * a compact open-addressing index from message id to off-heap block.
+ * <p>
+ * As with the {@link SimpleMessageStore}, the number of messages in a group can be
+ * limited with a {@code groupCapacity}; the total memory can be limited with
+ * {@code maxMemory}. Exceeding either limit causes a {@link MessagingException}.
+ * <p>
+ * The content of the store is lost when the application stops. A
+ * {@link #setNearCacheSize(int) near cache} is not supported since the group metadata
+ * is already on the heap.
+ *
+ * @since 5.1
+ */
+public class OffHeapMessageStore extends AbstractKeyValueMessageStore implements DisposableBean {
+
+	/**
+	 * The default size of each off-heap slab - 16Mb.
+	 */
+	public static final int DEFAULT_SLAB_SIZE = 16 * 1024 * 1024;
+
+	private static final int HEADER_SIZE = 12; // length (int) and timestamp (long)
+
+	private static final int MIN_BLOCK_SHIFT = 6;
+
+	private final Map<Object, Object> groupMetadata = new ConcurrentHashMap<>();
+
+	private final Codec codec;
+
+	private final int groupCapacity;
+
+	private final int slabSize;
+
+	private final long maxMemory;
+
+	private final MessageIndex index = new MessageIndex();
+
+	private final List<ByteBuffer> slabs = new ArrayList<>();
+
+	private final List<File> slabFiles = new ArrayList<>();
+
+	private final LongSet[] freeBlocks;
+
+	private File directory;
+
+	private long usedMemory;
+
+	/**
+	 * Construct an instance with unlimited group capacity and memory.
+	 * @param codec the codec to serialize messages.
+	 */
+	public OffHeapMessageStore(Codec codec) {
+		this(codec, 0);
+	}
+
+	/**
+	 * Construct an instance with the provided group capacity and unlimited memory.
+	 * @param codec the codec to serialize messages.
+	 * @param groupCapacity the maximum number of messages in a group; unlimited if less
+	 * than 1.
+	 */
+	public OffHeapMessageStore(Codec codec, int groupCapacity) {
+		this(codec, groupCapacity, DEFAULT_SLAB_SIZE, 0);
+	}
+
+	/**
+	 * Construct an instance with the provided limits.
+	 * @param codec the codec to serialize messages.
+	 * @param groupCapacity the maximum number of messages in a group; unlimited if less
+	 * than 1.
+	 * @param slabSize the size of each off-heap slab; a power of 2 between 4Kb and 1Gb.
+	 * A serialized message must fit in one slab.
+	 * @param maxMemory the maximum off-heap memory to allocate; unlimited if less than 1.
+	 */
+	public OffHeapMessageStore(Codec codec, int groupCapacity, int slabSize, long maxMemory) {
+		Assert.notNull(codec, "'codec' must not be null");
+		Assert.isTrue(slabSize >= 1 << 12 && slabSize <= 1 << 30 && (slabSize & (slabSize - 1)) == 0,
+				"'slabSize' must be a power of 2 between 4Kb and 1Gb");
+		this.codec = codec;
+		this.groupCapacity = groupCapacity;
+		this.slabSize = slabSize;
+		this.maxMemory = maxMemory;
+		this.freeBlocks = new LongSet[Integer.numberOfTrailingZeros(slabSize) - MIN_BLOCK_SHIFT + 1];
+		for (int i = 0; i < this.freeBlocks.length; i++) {
+			this.freeBlocks[i] = new LongSet();
+		}
+	}
+
+	/**
+	 * Set a directory for memory-mapped slab files instead of using direct memory.
+	 * The files are deleted when the store is {@link #destroy() destroyed}.
+	 * Must be set before the store is used.
+	 * @param directory the directory.
+	 */
+	public void setDirectory(File directory) {
+		Assert.notNull(directory, "'directory' must not be null");
+		Assert.isTrue(directory.isDirectory(), () -> "'" + directory + "' is not a directory");
+		synchronized (this.index) {
+			Assert.state(this.slabs.isEmpty(), "The directory cannot be changed after the store has been used");
+			this.directory = directory;
+		}
+	}
+
+	@Override
+	@ManagedAttribute
+	public long getMessageCount() {
+		synchronized (this.index) {
+			return this.index.size();
+		}
+	}
+
+	/**
+	 * Return the off-heap memory occupied by messages, including the unused part of
+	 * their blocks.
+	 * @return the used memory in bytes.
+	 */
+	@ManagedAttribute
+	public long getUsedMemory() {
+		synchronized (this.index) {
+			return this.usedMemory;
+		}
+	}
+
+	/**
+	 * Return the off-heap memory allocated for slabs.
+	 * @return the allocated memory in bytes.
+	 */
+	@ManagedAttribute
+	public long getAllocatedMemory() {
+		synchronized (this.index) {
+			return (long) this.slabs.size() * this.slabSize;
+		}
+	}
+
+	/**
+	 * Not supported: the group metadata is kept on the heap and the messages are read
+	 * from local memory.
+	 * @param nearCacheSize must be 0.
+	 */
+	@Override
+	public void setNearCacheSize(int nearCacheSize) {
+		Assert.isTrue(nearCacheSize == 0, "The OffHeapMessageStore does not support a near cache");
+	}
+
+	/**
+	 * Append the messages to the compact group record in place, instead of rebuilding the
+	 * group metadata for each addition as the super class does.
+	 */
+	@Override
+	public void addMessagesToGroup(Object groupId, Message<?>... messages) {
+		Assert.notNull(groupId, "'groupId' must not be null");
+		Assert.notNull(messages, "'messages' must not be null");
+		checkCapacity(groupId, 0, messages.length);
+		String key = getGroupPrefix() + groupId;
+		while (true) {
+			GroupRecord record = (GroupRecord) this.groupMetadata.computeIfAbsent(key,
+					k -> new GroupRecord(System.currentTimeMillis()));
+			synchronized (record) {
+				if (!record.removed) {
+					checkCapacity(groupId, record.size, messages.length);
+					for (Message<?> message : messages) {
+						UUID messageId = message.getHeaders().getId();
+						// only a message which is already stored can already be in the group
+						if (!containsMessage(messageId) || !record.contains(messageId)) {
+							doAddMessage(message);
+							record.add(message);
+						}
+					}
+					// when the group is new reuse "create time" as a "last modified"
+					record.lastModified = record.created ? record.timestamp : System.currentTimeMillis();
+					record.created = false;
+					return;
+				}
+			}
+			// removed concurrently - retry with a new record
+		}
+	}
+
+	@Override
+	public int messageGroupSize(Object groupId) {
+		Assert.notNull(groupId, "'groupId' must not be null");
+		Object record = this.groupMetadata.get(getGroupPrefix() + groupId);
+		if (record instanceof GroupRecord) {
+			synchronized (record) {
+				return ((GroupRecord) record).size;
+			}
+		}
+		return 0;
+	}
+
+	@Override
+	public void destroy() {
+		synchronized (this.index) {
+			this.index.clear();
+			this.slabs.clear();
+			for (LongSet free : this.freeBlocks) {
+				free.clear();
+			}
+			this.usedMemory = 0;
+			for (File file : this.slabFiles) {
+				if (!file.delete() && this.logger.isDebugEnabled()) {
+					this.logger.debug("Failed to delete slab file " + file);
+				}
+			}
+			this.slabFiles.clear();
+		}
+		this.groupMetadata.clear();
+	}
+
+	@Override
+	protected Object doRetrieve(Object id) {
+		UUID messageId = toMessageId(id);
+		if (messageId == null) {
+			return fromHeap(this.groupMetadata.get(id));
+		}
+		byte[] record;
+		synchronized (this.index) {
+			long handle = this.index.get(messageId);
+			record = handle < 0 ? null : read(handle, false);
+		}
+		return record == null ? null : decode(record);
+	}
+
+	@Override
+	protected void doStore(Object id, Object objectToStore) {
+		UUID messageId = toMessageId(id);
+		if (messageId == null) {
+			this.groupMetadata.compute(id, (key, existing) -> update(existing, objectToStore));
+		}
+		else {
+			storeMessage(messageId, objectToStore, true);
+		}
+	}
+
+	@Override
+	protected void doStoreIfAbsent(Object id, Object objectToStore) {
+		UUID messageId = toMessageId(id);
+		if (messageId == null) {
+			this.groupMetadata.putIfAbsent(id, toHeap(objectToStore));
+		}
+		else {
+			synchronized (this.index) {
+				if (this.index.get(messageId) >= 0) {
+					return;
+				}
+			}
+			storeMessage(messageId, objectToStore, false);
+		}
+	}
+
+	@Override
+	protected Object doRemove(Object id) {
+		UUID messageId = toMessageId(id);
+		if (messageId == null) {
+			return fromHeap(markRemoved(this.groupMetadata.remove(id)));
+		}
+		byte[] record;
+		synchronized (this.index) {
+			long handle = this.index.remove(messageId);
+			record = handle < 0 ? null : read(handle, true);
+		}
+		return record == null ? null : decode(record);
+	}
+
+	@Override
+	protected void doRemoveAll(Collection<Object> ids) {
+		for (Object id : ids) {
+			UUID messageId = toMessageId(id);
+			if (messageId == null) {
+				markRemoved(this.groupMetadata.remove(id));
+			}
+			else {
+				synchronized (this.index) {
+					long handle = this.index.remove(messageId);
+					if (handle >= 0) {
+						free(handle);
+					}
+				}
+			}
+		}
+	}
+
+	@Override
+	protected Collection<?> doListKeys(String keyPattern) {
+		String prefix = keyPattern.endsWith("*") ? keyPattern.substring(0, keyPattern.length() - 1) : keyPattern;
+		if (prefix.equals(getMessagePrefix())) {
+			List<String> keys = new ArrayList<>();
+			synchronized (this.index) {
+				this.index.forEach(id -> keys.add(prefix + id));
+			}
+			return keys;
+		}
+		return this.groupMetadata.keySet()
+				.stream()
+				.map(Object::toString)
+				.filter(key -> key.startsWith(prefix))
+				.collect(Collectors.toList());
+	}
+
+	private UUID toMessageId(Object id) {
+		String key = id.toString();
+		if (!key.startsWith(getGroupPrefix()) && key.startsWith(getMessagePrefix())) {
+			return UUID.fromString(key.substring(getMessagePrefix().length()));
+		}
+		return null;
+	}
+
+	private boolean containsMessage(UUID messageId) {
+		synchronized (this.index) {
+			return this.index.get(messageId) >= 0;
+		}
+	}
+
+	private void checkCapacity(Object groupId, int size, int added) {
+		if (this.groupCapacity > 0 && size + added > this.groupCapacity) {
+			throw new MessagingException(getClass().getSimpleName() +
+					" was out of capacity (" + this.groupCapacity + ") for group '" + groupId +
+					"', try constructing it with a larger capacity.");
+		}
+	}
+
+	/*
+	 * The super class updates the group metadata it retrieves in place before storing it
+	 * again, while other threads may read it; the store therefore keeps its own compact
+	 * record, guarded by its monitor, and hands out new instances. A record stays in the
+	 * map for the life of the group, so messages can be appended to it in place.
+	 */
+	private static Object toHeap(Object object) {
+		return object instanceof MessageGroupMetadata ? new GroupRecord((MessageGroupMetadata) object) : object;
+	}
+
+	private static Object update(Object existing, Object object) {
+		if (existing instanceof GroupRecord && object instanceof MessageGroupMetadata) {
+			synchronized (existing) {
+				((GroupRecord) existing).update((MessageGroupMetadata) object);
+			}
+			return existing;
+		}
+		return toHeap(object);
+	}
+
+	private static Object fromHeap(Object object) {
+		if (object instanceof GroupRecord) {
+			synchronized (object) {
+				return ((GroupRecord) object).toMetadata();
+			}
+		}
+		return object;
+	}
+
+	private static Object markRemoved(Object object) {
+		if (object instanceof GroupRecord) {
+			synchronized (object) {
+				((GroupRecord) object).removed = true;
+			}
+		}
+		return object;
+	}
+
+	private void storeMessage(UUID messageId, Object objectToStore, boolean replace) {
+		Assert.isInstanceOf(MessageHolder.class, objectToStore);
+		MessageHolder holder = (MessageHolder) objectToStore;
+		byte[] bytes;
+		try {
+			bytes = this.codec.encode(holder.getMessage());
+		}
+		catch (IOException e) {
+			throw new MessageStoreException(holder.getMessage(), "Failed to encode Message", e);
+		}
+		int blockSize = blockSize(bytes.length);
+		if (blockSize > this.slabSize) {
+			throw new MessageStoreException(holder.getMessage(), "The encoded Message (" + bytes.length
+					+ " bytes) does not fit in a slab (" + this.slabSize + " bytes)");
+		}
+		synchronized (this.index) {
+			long existing = this.index.get(messageId);
+			if (existing >= 0 && !replace) {
+				return;
+			}
+			long handle = allocate(blockSize);
+			buffer(handle)
+					.putInt(bytes.length)
+					.putLong(holder.getMessageMetadata().getTimestamp())
+					.put(bytes);
+			this.index.put(messageId, handle);
+			if (existing >= 0) {
+				free(existing);
+			}
+		}
+	}
+
+	/*
+	 * Called while holding the index monitor; returns the timestamp followed by the
+	 * encoded message.
+	 */
+	private byte[] read(long handle, boolean free) {
+		ByteBuffer buffer = buffer(handle);
+		int length = buffer.getInt();
+		byte[] record = new byte[length + 8];
+		buffer.get(record);
+		if (free) {
+			release(handle, length);
+		}
+		return record;
+	}
+
+	private MessageHolder decode(byte[] record) {
+		Message<?> message;
+		try {
+			message = this.codec.decode(new ByteArrayInputStream(record, 8, record.length - 8), Message.class);
+		}
+		catch (IOException e) {
+			throw new MessageStoreException("Failed to decode Message", e);
+		}
+		MessageHolder holder = new MessageHolder(message);
+		holder.setTimestamp(ByteBuffer.wrap(record).getLong());
+		return holder;
+	}
+
+	private void free(long handle) {
+		release(handle, buffer(handle).getInt());
+	}
+
+	private void release(long handle, int length) {
+		int blockSize = blockSize(length);
+		this.usedMemory -= blockSize;
+		int sizeClass = sizeClass(blockSize);
+		// merge with the buddy block as long as it is free too
+		while (sizeClass < this.freeBlocks.length - 1) {
+			long buddy = handle ^ (1 << (sizeClass + MIN_BLOCK_SHIFT));
+			if (!this.freeBlocks[sizeClass].remove(buddy)) {
+				break;
+			}
+			handle = Math.min(handle, buddy);
+			sizeClass++;
+		}
+		this.freeBlocks[sizeClass].add(handle);
+	}
+
+	private long allocate(int blockSize) {
+		int sizeClass = sizeClass(blockSize);
+		long handle = splitFreeBlock(sizeClass);
+		if (handle < 0) {
+			newSlab();
+			handle = splitFreeBlock(sizeClass);
+		}
+		this.usedMemory += blockSize;
+		return handle;
+	}
+
+	/*
+	 * Take the smallest free block which is large enough and split it in halves down to
+	 * the requested size class, keeping the upper halves as free blocks.
+	 */
+	private long splitFreeBlock(int sizeClass) {
+		for (int larger = sizeClass; larger < this.freeBlocks.length; larger++) {
+			if (!this.freeBlocks[larger].isEmpty()) {
+				long handle = this.freeBlocks[larger].pop();
+				for (int i = larger - 1; i >= sizeClass; i--) {
+					this.freeBlocks[i].add(handle + (1 << (i + MIN_BLOCK_SHIFT)));
+				}
+				return handle;
+			}
+		}
+		return -1;
+	}
+
+	private void newSlab() {
+		if (this.maxMemory > 0 && (long) (this.slabs.size() + 1) * this.slabSize > this.maxMemory) {
+			throw new MessagingException(getClass().getSimpleName() + " was out of off-heap memory ("
+					+ this.maxMemory + " bytes), try constructing it with a larger 'maxMemory'.");
+		}
+		this.slabs.add(this.directory == null ? ByteBuffer.allocateDirect(this.slabSize) : mapSlab());
+		this.freeBlocks[this.freeBlocks.length - 1].add((long) (this.slabs.size() - 1) << 32);
+	}
+
+	private ByteBuffer mapSlab() {
+		File file = new File(this.directory, "slab-" + Integer.toHexString(System.identityHashCode(this))
+				+ "-" + this.slabs.size() + ".bin");
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+				FileChannel channel = randomAccessFile.getChannel()) {
+
+			this.slabFiles.add(file);
+			return channel.map(FileChannel.MapMode.READ_WRITE, 0, this.slabSize);
+		}
+		catch (IOException e) {
+			throw new MessageStoreException("Failed to map slab file " + file, e);
+		}
+	}
+
+	private ByteBuffer buffer(long handle) {
+		ByteBuffer buffer = this.slabs.get((int) (handle >>> 32)).duplicate();
+		buffer.position((int) handle);
+		return buffer;
+	}
+
+	private static int blockSize(int length) {
+		int size = Math.max(length + HEADER_SIZE, 1 << MIN_BLOCK_SHIFT);
+		return size > 1 << 30 ? Integer.MAX_VALUE : Integer.highestOneBit(size - 1) << 1;
+	}
+
+	private static int sizeClass(int blockSize) {
+		return Integer.numberOfTrailingZeros(blockSize) - MIN_BLOCK_SHIFT;
+	}
+
+	/**
+	 * The compact on-heap form of a {@link MessageGroupMetadata}: the message ids are kept
+	 * as pairs of {@code long}s in an array which grows as messages are appended.
+	 * Guarded by its own monitor.
+	 */
+	private static final class GroupRecord {
+
+		private long[] messageIds;
+
+		private int size;
+
+		private long timestamp;
+
+		private boolean complete;
+
+		private long lastModified;
+
+		private int lastReleasedMessageSequenceNumber;
+
+		private MessageGroupSequenceInfo sequenceInfo;
+
+		private boolean created;
+
+		private boolean removed;
+
+		GroupRecord(long timestamp) {
+			this.messageIds = new long[16];
+			this.timestamp = timestamp;
+			this.lastModified = timestamp;
+			this.sequenceInfo = new MessageGroupSequenceInfo();
+			this.created = true;
+		}
+
+		GroupRecord(MessageGroupMetadata metadata) {
+			update(metadata);
+		}
+
+		void update(MessageGroupMetadata metadata) {
+			this.messageIds = new long[Math.max(metadata.size() * 2, 16)];
+			this.size = 0;
+			Iterator<UUID> iterator = metadata.messageIdIterator();
+			while (iterator.hasNext()) {
+				append(iterator.next());
+			}
+			this.timestamp = metadata.getTimestamp();
+			this.complete = metadata.isComplete();
+			this.lastModified = metadata.getLastModified();
+			this.lastReleasedMessageSequenceNumber = metadata.getLastReleasedMessageSequenceNumber();
+			this.sequenceInfo = copy(metadata.getSequenceInfo());
+			this.created = false;
+		}
+
+		boolean contains(UUID messageId) {
+			long msb = messageId.getMostSignificantBits();
+			long lsb = messageId.getLeastSignificantBits();
+			for (int i = 0; i < this.size * 2; i += 2) {
+				if (this.messageIds[i] == msb && this.messageIds[i + 1] == lsb) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		void add(Message<?> message) {
+			append(message.getHeaders().getId());
+			if (this.sequenceInfo != null) {
+				this.sequenceInfo.add(message);
+			}
+		}
+
+		private void append(UUID messageId) {
+			if (this.size * 2 == this.messageIds.length) {
+				this.messageIds = Arrays.copyOf(this.messageIds, this.messageIds.length * 2);
+			}
+			this.messageIds[this.size * 2] = messageId.getMostSignificantBits();
+			this.messageIds[this.size * 2 + 1] = messageId.getLeastSignificantBits();
+			this.size++;
+		}
+
+		MessageGroupMetadata toMetadata() {
+			LinkedList<UUID> ids = new LinkedList<>();
+			for (int i = 0; i < this.size * 2; i += 2) {
+				ids.add(new UUID(this.messageIds[i], this.messageIds[i + 1]));
+			}
+			return new MessageGroupMetadata(ids, this.timestamp, this.complete, this.lastModified,
+					this.lastReleasedMessageSequenceNumber, copy(this.sequenceInfo));
+		}
+
+		private static MessageGroupSequenceInfo copy(MessageGroupSequenceInfo sequenceInfo) {
+			return sequenceInfo == null ? null : new MessageGroupSequenceInfo(sequenceInfo);
+		}
+
+	}
+
+	/**
+	 * Linear probing hash table from message id to block handle, with the ids and
+	 * handles in primitive arrays; removal shifts entries back instead of leaving
+	 * tombstones.
+	 */
+	private static final class MessageIndex {
+
+		private static final int INITIAL_CAPACITY = 64;
+
+		private long[] ids = new long[INITIAL_CAPACITY * 2];
+
+		private long[] handles = new long[INITIAL_CAPACITY]; // handle + 1; 0 when empty
+
+		private int size;
+
+		int size() {
+			return this.size;
+		}
+
+		long get(UUID id) {
+			int slot = find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+			return this.handles[slot] - 1;
+		}
+
+		void put(UUID id, long handle) {
+			long msb = id.getMostSignificantBits();
+			long lsb = id.getLeastSignificantBits();
+			int slot = find(msb, lsb);
+			if (this.handles[slot] == 0) {
+				this.ids[slot * 2] = msb;
+				this.ids[slot * 2 + 1] = lsb;
+				if (++this.size * 2 > this.handles.length) {
+					this.handles[slot] = handle + 1;
+					resize();
+					return;
+				}
+			}
+			this.handles[slot] = handle + 1;
+		}
+
+		long remove(UUID id) {
+			int slot = find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+			long handle = this.handles[slot] - 1;
+			if (handle >= 0) {
+				delete(slot);
+				this.size--;
+			}
+			return handle;
+		}
+
+		void forEach(Consumer<UUID> consumer) {
+			for (int i = 0; i < this.handles.length; i++) {
+				if (this.handles[i] != 0) {
+					consumer.accept(new UUID(this.ids[i * 2], this.ids[i * 2 + 1]));
+				}
+			}
+		}
+
+		void clear() {
+			this.ids = new long[INITIAL_CAPACITY * 2];
+			this.handles = new long[INITIAL_CAPACITY];
+			this.size = 0;
+		}
+
+		private int find(long msb, long lsb) {
+			int mask = this.handles.length - 1;
+			int slot = hash(msb, lsb) & mask;
+			while (this.handles[slot] != 0
+					&& (this.ids[slot * 2] != msb || this.ids[slot * 2 + 1] != lsb)) {
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+
+		private void delete(int slot) {
+			int mask = this.handles.length - 1;
+			int hole = slot;
+			int next = slot;
+			while (true) {
+				next = (next + 1) & mask;
+				if (this.handles[next] == 0) {
+					break;
+				}
+				int home = hash(this.ids[next * 2], this.ids[next * 2 + 1]) & mask;
+				boolean stays = hole <= next ? hole < home && home <= next : hole < home || home <= next;
+				if (!stays) {
+					this.ids[hole * 2] = this.ids[next * 2];
+					this.ids[hole * 2 + 1] = this.ids[next * 2 + 1];
+					this.handles[hole] = this.handles[next];
+					hole = next;
+				}
+			}
+			this.handles[hole] = 0;
+		}
+
+		private void resize() {
+			long[] oldIds = this.ids;
+			long[] oldHandles = this.handles;
+			this.ids = new long[oldIds.length * 2];
+			this.handles = new long[oldHandles.length * 2];
+			for (int i = 0; i < oldHandles.length; i++) {
+				if (oldHandles[i] != 0) {
+					int slot = find(oldIds[i * 2], oldIds[i * 2 + 1]);
+					this.ids[slot * 2] = oldIds[i * 2];
+					this.ids[slot * 2 + 1] = oldIds[i * 2 + 1];
+					this.handles[slot] = oldHandles[i];
+				}
+			}
+		}
+
+		private static int hash(long msb, long lsb) {
+			long hash = msb ^ lsb;
+			hash ^= hash >>> 33;
+			hash *= 0xff51afd7ed558ccdL;
+			hash ^= hash >>> 33;
+			return (int) hash;
+		}
+
+	}
+
+	/**
+	 * Linear probing hash set of the free block handles of a size class, so that the
+	 * buddy of a freed block can be found and taken out for merging.
+	 */
+	private static final class LongSet {
+
+		private static final int INITIAL_CAPACITY = 16;
+
+		private long[] elements = new long[INITIAL_CAPACITY]; // element + 1; 0 when empty
+
+		private int size;
+
+		private int cursor;
+
+		boolean isEmpty() {
+			return this.size == 0;
+		}
+
+		void add(long element) {
+			int slot = find(element);
+			if (this.elements[slot] == 0) {
+				this.elements[slot] = element + 1;
+				if (++this.size * 2 > this.elements.length) {
+					resize();
+				}
+			}
+		}
+
+		boolean remove(long element) {
+			int slot = find(element);
+			if (this.elements[slot] == 0) {
+				return false;
+			}
+			delete(slot);
+			return true;
+		}
+
+		/*
+		 * Remove and return any element; the scan resumes where the previous one stopped.
+		 */
+		long pop() {
+			int mask = this.elements.length - 1;
+			while (this.elements[this.cursor & mask] == 0) {
+				this.cursor++;
+			}
+			int slot = this.cursor & mask;
+			long element = this.elements[slot] - 1;
+			delete(slot);
+			return element;
+		}
+
+		void clear() {
+			this.elements = new long[INITIAL_CAPACITY];
+			this.size = 0;
+			this.cursor = 0;
+		}
+
+		private int find(long element) {
+			int mask = this.elements.length - 1;
+			int slot = hash(element) & mask;
+			while (this.elements[slot] != 0 && this.elements[slot] != element + 1) {
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+
+		private void delete(int slot) {
+			int mask = this.elements.length - 1;
+			int hole = slot;
+			int next = slot;
+			while (true) {
+				next = (next + 1) & mask;
+				if (this.elements[next] == 0) {
+					break;
+				}
+				int home = hash(this.elements[next] - 1) & mask;
+				boolean stays = hole <= next ? hole < home && home <= next : hole < home || home <= next;
+				if (!stays) {
+					this.elements[hole] = this.elements[next];
+					hole = next;
+				}
+			}
+			this.elements[hole] = 0;
+			this.size--;
+		}
+
+		private void resize() {
+			long[] oldElements = this.elements;
+			this.elements = new long[oldElements.length * 2];
+			this.cursor = 0;
+			for (long element : oldElements) {
+				if (element != 0) {
+					this.elements[find(element - 1)] = element;
+				}
+			}
+		}
+
+		private static int hash(long element) {
+			long hash = element;
+			hash ^= hash >>> 33;
+			hash *= 0xff51afd7ed558ccdL;
+			hash ^= hash >>> 33;
+			return (int) hash;
+		}
+
+	}
+
+}
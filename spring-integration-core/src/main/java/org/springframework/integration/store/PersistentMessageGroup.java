@@ -20,6 +20,7 @@ import java.util.AbstractCollection;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.stream.Stream;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -37,7 +38,7 @@ class PersistentMessageGroup implements MessageGroup {
 
 	private final MessageGroupStore messageGroupStore;
 
-	private final Collection<Message<?>> messages = new PersistentCollection();
+	private final PersistentCollection messages = new PersistentCollection();
 
 	private final MessageGroup original;
 
@@ -45,6 +46,8 @@ class PersistentMessageGroup implements MessageGroup {
 
 	private volatile int size;
 
+	private volatile MessageGroupSequenceInfo sequenceInfo;
+
 	PersistentMessageGroup(MessageGroupStore messageGroupStore, MessageGroup original) {
 		this.messageGroupStore = messageGroupStore;
 		this.original = original;
@@ -54,11 +57,32 @@ class PersistentMessageGroup implements MessageGroup {
 		this.size = size;
 	}
 
+	void setSequenceInfo(MessageGroupSequenceInfo sequenceInfo) {
+		this.sequenceInfo = sequenceInfo;
+	}
+
+	@Override
+	public MessageGroupSequenceInfo getSequenceInfo() {
+		return this.sequenceInfo;
+	}
+
 	@Override
 	public Collection<Message<?>> getMessages() {
 		return Collections.unmodifiableCollection(this.messages);
 	}
 
+	@Override
+	public Stream<Message<?>> streamMessages() {
+		Collection<Message<?>> loaded = this.messages.collection;
+		if (loaded != null) {
+			return loaded.stream();
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Streaming messages for messageGroup: " + this.original.getGroupId());
+		}
+		return this.messageGroupStore.streamMessagesForGroup(this.original.getGroupId());
+	}
+
 	@Override
 	public Message<?> getOne() {
 		if (this.oneMessage == null) {
@@ -76,6 +100,10 @@ class PersistentMessageGroup implements MessageGroup {
 
 	@Override
 	public int getSequenceSize() {
+		MessageGroupSequenceInfo sequenceInfo = this.sequenceInfo;
+		if (sequenceInfo != null) {
+			return sequenceInfo.getSequenceSize();
+		}
 		if (size() == 0) {
 			return 0;
 		}
@@ -95,6 +123,10 @@ class PersistentMessageGroup implements MessageGroup {
 	@Override
 	public int size() {
 		if (this.size == 0) {
+			MessageGroupSequenceInfo sequenceInfo = this.sequenceInfo;
+			if (sequenceInfo != null) {
+				return sequenceInfo.getCount();
+			}
 			synchronized (this) {
 				if (this.size == 0) {
 					if (logger.isDebugEnabled()) {
@@ -149,11 +181,13 @@ class PersistentMessageGroup implements MessageGroup {
 
 	@Override
 	public void add(Message<?> messageToAdd) {
+		this.sequenceInfo = null;
 		this.original.add(messageToAdd);
 	}
 
 	@Override
 	public boolean remove(Message<?> messageToRemove) {
+		this.sequenceInfo = null;
 		return this.original.remove(messageToRemove);
 	}
 
@@ -164,6 +198,7 @@ class PersistentMessageGroup implements MessageGroup {
 
 	@Override
 	public void clear() {
+		this.sequenceInfo = null;
 		this.original.clear();
 	}
 
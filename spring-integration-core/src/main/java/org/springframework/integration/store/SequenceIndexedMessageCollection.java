@@ -0,0 +1,258 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.store;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.messaging.Message;
+
+/**
+ * The internal store of a {@link SimpleMessageGroup} created for
+ * {@link SimpleMessageGroupFactory.GroupType#SEQUENCE_INDEXED}: messages are kept in a
+ * ring buffer indexed by their sequence number relative to the lowest sequence number
+ * in the group, so that adding and removing a message take constant time and iteration
+ * is in sequence order.
+ * <p>
+ * The ring may only become sparse up to the {@code sequenceSize} header of the messages;
+ * messages without a sequence number, with the same sequence number as another message,
+ * or so far from the others that the ring would become too sparse, are kept in an
+ * insertion-ordered overflow set and iterated after the indexed messages; the collection
+ * is then no longer {@link #isSequenceOrdered() sequence ordered}.
+ * Like {@link LinkedHashSet}, equal messages are only added once.
+ *
+ * @since 5.1
+ */
+final class SequenceIndexedMessageCollection extends AbstractCollection<Message<?>> {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private static final int MIN_SPARSE_SPAN = 64;
+
+	private static final int MAX_SLOTS_PER_MESSAGE = 8;
+
+	private Message<?>[] ring = new Message<?>[INITIAL_CAPACITY];
+
+	private int head; // the ring index of 'base'
+
+	private int base; // the lowest indexed sequence number
+
+	private int span; // sequence numbers base to base + span - 1 may be indexed
+
+	private int indexed;
+
+	private Collection<Message<?>> overflow = Collections.emptySet();
+
+	/**
+	 * Return true if the iteration order is the sequence number order, without
+	 * duplicates.
+	 * @return true if sequence ordered.
+	 */
+	boolean isSequenceOrdered() {
+		return this.overflow.isEmpty();
+	}
+
+	@Override
+	public int size() {
+		return this.indexed + this.overflow.size();
+	}
+
+	@Override
+	public boolean add(Message<?> message) {
+		IntegrationMessageHeaderAccessor accessor = new IntegrationMessageHeaderAccessor(message);
+		int sequence = accessor.getSequenceNumber();
+		if (sequence <= 0 || this.overflow.contains(message)) {
+			return addToOverflow(message);
+		}
+		if (!isIndexed(sequence)) {
+			if (this.indexed == 0) {
+				this.base = sequence;
+				this.head = 0;
+				this.span = 0;
+			}
+			long offset = (long) sequence - this.base;
+			long required = offset < 0 ? this.span - offset : offset + 1;
+			if (required > MIN_SPARSE_SPAN && required > (long) (this.indexed + 1) * MAX_SLOTS_PER_MESSAGE
+					&& (offset < 0 ? (long) this.base + this.span - 1 : sequence) > accessor.getSequenceSize()) {
+				return addToOverflow(message);
+			}
+			ensureCapacity((int) required);
+			if (offset < 0) {
+				this.head = (int) (this.head + offset) & (this.ring.length - 1);
+				this.base = sequence;
+			}
+			this.span = (int) required;
+		}
+		int index = index(sequence);
+		Message<?> existing = this.ring[index];
+		if (existing == null) {
+			this.ring[index] = message;
+			this.indexed++;
+			return true;
+		}
+		return !existing.equals(message) && addToOverflow(message);
+	}
+
+	@Override
+	public boolean remove(Object object) {
+		if (!(object instanceof Message)) {
+			return false;
+		}
+		Message<?> message = (Message<?>) object;
+		int sequence = new IntegrationMessageHeaderAccessor(message).getSequenceNumber();
+		if (isIndexed(sequence) && message.equals(this.ring[index(sequence)])) {
+			removeIndexed(sequence);
+			return true;
+		}
+		return this.overflow.remove(message);
+	}
+
+	@Override
+	public boolean contains(Object object) {
+		if (!(object instanceof Message)) {
+			return false;
+		}
+		Message<?> message = (Message<?>) object;
+		int sequence = new IntegrationMessageHeaderAccessor(message).getSequenceNumber();
+		return (isIndexed(sequence) && message.equals(this.ring[index(sequence)])) || this.overflow.contains(message);
+	}
+
+	@Override
+	public void clear() {
+		this.ring = new Message<?>[INITIAL_CAPACITY];
+		this.head = 0;
+		this.base = 0;
+		this.span = 0;
+		this.indexed = 0;
+		this.overflow = Collections.emptySet();
+	}
+
+	@Override
+	public Iterator<Message<?>> iterator() {
+		return new SequenceIterator();
+	}
+
+	private boolean addToOverflow(Message<?> message) {
+		if (this.overflow.isEmpty()) {
+			this.overflow = new LinkedHashSet<>();
+		}
+		return this.overflow.add(message);
+	}
+
+	private boolean isIndexed(long sequence) {
+		return this.indexed > 0 && sequence >= this.base && sequence - this.base < this.span;
+	}
+
+	private int index(long sequence) {
+		return (int) (this.head + sequence - this.base) & (this.ring.length - 1);
+	}
+
+	private void removeIndexed(long sequence) {
+		this.ring[index(sequence)] = null;
+		if (--this.indexed == 0) {
+			this.head = 0;
+			this.base = 0;
+			this.span = 0;
+		}
+		else if (sequence == this.base) {
+			while (this.ring[this.head] == null) {
+				this.head = (this.head + 1) & (this.ring.length - 1);
+				this.base++;
+				this.span--;
+			}
+		}
+		else {
+			while (this.ring[index(this.base + this.span - 1L)] == null) {
+				this.span--;
+			}
+		}
+	}
+
+	private void ensureCapacity(int required) {
+		if (required > this.ring.length) {
+			Message<?>[] newRing = new Message<?>[Integer.highestOneBit(required - 1) << 1];
+			for (int i = 0; i < this.span; i++) {
+				newRing[i] = this.ring[(this.head + i) & (this.ring.length - 1)];
+			}
+			this.ring = newRing;
+			this.head = 0;
+		}
+	}
+
+	private final class SequenceIterator implements Iterator<Message<?>> {
+
+		private long sequence = SequenceIndexedMessageCollection.this.base;
+
+		private Iterator<Message<?>> overflowIterator;
+
+		private Message<?> last;
+
+		private boolean lastIndexed;
+
+		@Override
+		public boolean hasNext() {
+			if (this.overflowIterator == null) {
+				this.sequence = Math.max(this.sequence, SequenceIndexedMessageCollection.this.base);
+				while (isIndexed(this.sequence)) {
+					if (SequenceIndexedMessageCollection.this.ring[index(this.sequence)] != null) {
+						return true;
+					}
+					this.sequence++;
+				}
+				this.overflowIterator = SequenceIndexedMessageCollection.this.overflow.iterator();
+			}
+			return this.overflowIterator.hasNext();
+		}
+
+		@Override
+		public Message<?> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			if (this.overflowIterator == null) {
+				this.last = SequenceIndexedMessageCollection.this.ring[index(this.sequence++)];
+				this.lastIndexed = true;
+			}
+			else {
+				this.last = this.overflowIterator.next();
+				this.lastIndexed = false;
+			}
+			return this.last;
+		}
+
+		@Override
+		public void remove() {
+			if (this.last == null) {
+				throw new IllegalStateException();
+			}
+			if (this.lastIndexed) {
+				removeIndexed(this.sequence - 1);
+			}
+			else {
+				this.overflowIterator.remove();
+			}
+			this.last = null;
+		}
+
+	}
+
+}
@@ -18,10 +18,8 @@ package org.springframework.integration.store;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
-import java.util.Set;
 
 import org.springframework.integration.IntegrationMessageHeaderAccessor;
 import org.springframework.messaging.Message;
@@ -46,7 +44,7 @@ public class SimpleMessageGroup implements MessageGroup {
 
 	private final Collection<Message<?>> messages;
 
-	private final Set<Integer> sequences = new HashSet<>();
+	private final MessageGroupSequenceInfo sequenceInfo;
 
 	private final long timestamp;
 
@@ -82,7 +80,11 @@ public class SimpleMessageGroup implements MessageGroup {
 		this.groupId = groupId;
 		this.timestamp = timestamp;
 		this.complete = complete;
-		if (!storePreLoaded) {
+		if (storePreLoaded) {
+			this.sequenceInfo = null;
+		}
+		else {
+			this.sequenceInfo = new MessageGroupSequenceInfo();
 			Assert.notNull(messages, "'messages' must not be null");
 			for (Message<?> message : messages) {
 				if (message != null) { //see INT-2666
@@ -119,8 +121,11 @@ public class SimpleMessageGroup implements MessageGroup {
 
 	@Override
 	public boolean remove(Message<?> message) {
-		this.sequences.remove(message.getHeaders().get(IntegrationMessageHeaderAccessor.SEQUENCE_NUMBER));
-		return this.messages.remove(message);
+		boolean removed = this.messages.remove(message);
+		if (removed && this.sequenceInfo != null) {
+			this.sequenceInfo.remove(message);
+		}
+		return removed;
 	}
 
 	@Override
@@ -129,9 +134,11 @@ public class SimpleMessageGroup implements MessageGroup {
 	}
 
 	private boolean addMessage(Message<?> message) {
-		Integer sequence = message.getHeaders().get(IntegrationMessageHeaderAccessor.SEQUENCE_NUMBER, Integer.class);
-		this.sequences.add(sequence != null ? sequence : 0);
-		return this.messages.add(message);
+		boolean added = this.messages.add(message);
+		if (added && this.sequenceInfo != null) {
+			this.sequenceInfo.add(message);
+		}
+		return added;
 	}
 
 	@Override
@@ -142,6 +149,9 @@ public class SimpleMessageGroup implements MessageGroup {
 	@Override
 	public void setLastReleasedMessageSequenceNumber(int sequenceNumber) {
 		this.lastReleasedMessageSequence = sequenceNumber;
+		if (this.sequenceInfo != null) {
+			this.sequenceInfo.setLastReleasedSequenceNumber(sequenceNumber);
+		}
 	}
 
 	@Override
@@ -183,7 +193,20 @@ public class SimpleMessageGroup implements MessageGroup {
 	@Override
 	public void clear() {
 		this.messages.clear();
-		this.sequences.clear();
+		if (this.sequenceInfo != null) {
+			this.sequenceInfo.clear();
+		}
+	}
+
+	/**
+	 * Return the sequence metadata of this group, or {@code null} if the group has been
+	 * created over a pre-loaded internal store.
+	 * @return the sequence metadata.
+	 * @since 5.1
+	 */
+	@Override
+	public MessageGroupSequenceInfo getSequenceInfo() {
+		return this.sequenceInfo;
 	}
 
 	/**
@@ -194,7 +217,20 @@ public class SimpleMessageGroup implements MessageGroup {
 	 * @since 4.3.7
 	 */
 	public boolean containsSequence(Integer sequence) {
-		return this.sequences.contains(sequence);
+		return sequence != null && this.sequenceInfo != null && this.sequenceInfo.contains(sequence);
+	}
+
+	/**
+	 * Return true if {@link #getMessages()} iterates over the messages in ascending
+	 * sequence number order, without duplicate sequence numbers. Only a group created for
+	 * {@link SimpleMessageGroupFactory.GroupType#SEQUENCE_INDEXED} keeps its messages
+	 * that way, as long as they all have distinct sequence numbers.
+	 * @return true if the messages are in sequence order.
+	 * @since 5.1
+	 */
+	public boolean isSequenceOrdered() {
+		return this.messages instanceof SequenceIndexedMessageCollection
+				&& ((SequenceIndexedMessageCollection) this.messages).isSequenceOrdered();
 	}
 
 	@Override
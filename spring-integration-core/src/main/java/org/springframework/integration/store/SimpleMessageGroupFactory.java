@@ -122,6 +122,21 @@ public class SimpleMessageGroupFactory implements MessageGroupFactory {
 
 		},
 
+		/**
+		 * Messages are indexed by their sequence number (see
+		 * {@link SimpleMessageGroup#isSequenceOrdered()}); intended for resequencing
+		 * large groups.
+		 * @since 5.1
+		 */
+		SEQUENCE_INDEXED {
+
+			@Override
+			Collection<Message<?>> get() {
+				return new SequenceIndexedMessageCollection();
+			}
+
+		},
+
 		PERSISTENT {
 
 			@Override
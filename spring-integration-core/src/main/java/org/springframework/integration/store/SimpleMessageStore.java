@@ -16,12 +16,18 @@
 
 package org.springframework.integration.store;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 
 import org.springframework.integration.support.locks.DefaultLockRegistry;
@@ -57,6 +63,12 @@ public class SimpleMessageStore extends AbstractMessageGroupStore
 
 	private final ConcurrentMap<Object, UpperBound> groupToUpperBound = new ConcurrentHashMap<Object, UpperBound>();
 
+	private final ConcurrentSkipListSet<ExpiryIndexEntry> expiryIndex = new ConcurrentSkipListSet<>();
+
+	private final ConcurrentMap<Object, ExpiryIndexEntry> groupIdToExpiryIndexEntry = new ConcurrentHashMap<>();
+
+	private final AtomicLong expiryIndexSequence = new AtomicLong();
+
 	private final int groupCapacity;
 
 	private final int individualCapacity;
@@ -162,6 +174,31 @@ public class SimpleMessageStore extends AbstractMessageGroupStore
 		this.lockRegistry = lockRegistry;
 	}
 
+	@Override
+	public void setTimeoutOnIdle(boolean timeoutOnIdle) {
+		super.setTimeoutOnIdle(timeoutOnIdle);
+		// the expiry timestamp of existing groups has changed
+		for (Object groupId : this.groupIdToMessageGroup.keySet()) {
+			Lock lock = this.lockRegistry.obtain(groupId);
+			try {
+				lock.lockInterruptibly();
+				try {
+					MessageGroup group = this.groupIdToMessageGroup.get(groupId);
+					if (group != null) {
+						indexGroup(group);
+					}
+				}
+				finally {
+					lock.unlock();
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new MessagingException("Interrupted while obtaining lock", e);
+			}
+		}
+	}
+
 	@Override
 	public void setLazyLoadMessageGroups(boolean lazyLoadMessageGroups) {
 		throw new UnsupportedOperationException("The lazy-load isn't supported for in-memory 'SimpleMessageStore'");
@@ -301,6 +338,7 @@ public class SimpleMessageStore extends AbstractMessageGroupStore
 				}
 
 				group.setLastModified(System.currentTimeMillis());
+				indexGroup(group);
 			}
 			finally {
 				if (!unlocked) {
@@ -321,6 +359,10 @@ public class SimpleMessageStore extends AbstractMessageGroupStore
 			lock.lockInterruptibly();
 			try {
 				MessageGroup messageGroup = this.groupIdToMessageGroup.remove(groupId);
+				ExpiryIndexEntry indexEntry = this.groupIdToExpiryIndexEntry.remove(groupId);
+				if (indexEntry != null) {
+					this.expiryIndex.remove(indexEntry);
+				}
 				if (messageGroup != null) {
 					UpperBound upperBound = this.groupToUpperBound.remove(groupId);
 					Assert.state(upperBound != null, "'upperBound' must not be null.");
@@ -357,6 +399,7 @@ public class SimpleMessageStore extends AbstractMessageGroupStore
 				}
 				if (modified) {
 					group.setLastModified(System.currentTimeMillis());
+					indexGroup(group);
 				}
 			}
 			finally {
@@ -374,6 +417,45 @@ public class SimpleMessageStore extends AbstractMessageGroupStore
 		return new HashSet<MessageGroup>(this.groupIdToMessageGroup.values()).iterator();
 	}
 
+	/**
+	 * Return the groups due for expiry from an index ordered by expiry timestamp,
+	 * so the reaper does not visit every group in the store.
+	 */
+	@Override
+	protected Iterable<MessageGroup> getExpiryCandidates(long threshold) {
+		Set<Object> groupIds = new LinkedHashSet<>();
+		for (ExpiryIndexEntry entry
+				: this.expiryIndex.headSet(new ExpiryIndexEntry(threshold, Long.MAX_VALUE, null), true)) {
+			groupIds.add(entry.groupId);
+		}
+		List<MessageGroup> groups = new ArrayList<>(groupIds.size());
+		for (Object groupId : groupIds) {
+			MessageGroup group = this.groupIdToMessageGroup.get(groupId);
+			if (group != null) {
+				groups.add(group);
+			}
+		}
+		return groups;
+	}
+
+	/*
+	 * Called with the group lock held after each modification of the group.
+	 */
+	private void indexGroup(MessageGroup group) {
+		Object groupId = group.getGroupId();
+		long timestamp = getExpiryTimestamp(group.getTimestamp(), group.getLastModified());
+		ExpiryIndexEntry existing = this.groupIdToExpiryIndexEntry.get(groupId);
+		if (existing == null || existing.timestamp != timestamp) {
+			ExpiryIndexEntry entry =
+					new ExpiryIndexEntry(timestamp, this.expiryIndexSequence.incrementAndGet(), groupId);
+			this.expiryIndex.add(entry);
+			this.groupIdToExpiryIndexEntry.put(groupId, entry);
+			if (existing != null) {
+				this.expiryIndex.remove(existing);
+			}
+		}
+	}
+
 	@Override
 	public void setLastReleasedSequenceNumberForGroup(Object groupId, int sequenceNumber) {
 		Lock lock = this.lockRegistry.obtain(groupId);
@@ -385,6 +467,7 @@ public class SimpleMessageStore extends AbstractMessageGroupStore
 						"can not be located while attempting to set 'lastReleasedSequenceNumber'");
 				group.setLastReleasedMessageSequenceNumber(sequenceNumber);
 				group.setLastModified(System.currentTimeMillis());
+				indexGroup(group);
 			}
 			finally {
 				lock.unlock();
@@ -407,6 +490,7 @@ public class SimpleMessageStore extends AbstractMessageGroupStore
 						"can not be located while attempting to complete the MessageGroup");
 				group.complete();
 				group.setLastModified(System.currentTimeMillis());
+				indexGroup(group);
 			}
 			finally {
 				lock.unlock();
@@ -461,6 +545,7 @@ public class SimpleMessageStore extends AbstractMessageGroupStore
 						"can not be located while attempting to complete the MessageGroup");
 				group.clear();
 				group.setLastModified(System.currentTimeMillis());
+				indexGroup(group);
 				UpperBound upperBound = this.groupToUpperBound.get(groupId);
 				Assert.state(upperBound != null, "'upperBound' must not be null.");
 				upperBound.release(this.groupCapacity);
@@ -475,4 +560,26 @@ public class SimpleMessageStore extends AbstractMessageGroupStore
 		}
 	}
 
+	private static final class ExpiryIndexEntry implements Comparable<ExpiryIndexEntry> {
+
+		private final long timestamp;
+
+		private final long sequence;
+
+		private final Object groupId;
+
+		ExpiryIndexEntry(long timestamp, long sequence, Object groupId) {
+			this.timestamp = timestamp;
+			this.sequence = sequence;
+			this.groupId = groupId;
+		}
+
+		@Override
+		public int compareTo(ExpiryIndexEntry other) {
+			int result = Long.compare(this.timestamp, other.timestamp);
+			return result != 0 ? result : Long.compare(this.sequence, other.sequence);
+		}
+
+	}
+
 }
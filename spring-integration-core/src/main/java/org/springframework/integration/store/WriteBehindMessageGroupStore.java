@@ -0,0 +1,592 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.stream.Stream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.messaging.Message;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link MessageGroupStore} wrapper that buffers messages added to groups and writes
+ * them to the target store in batches, using
+ * {@link MessageGroupStore#addMessagesToGroup(Object, Message[])} once per group instead
+ * of a round trip per message. This is intended for persistent stores such as the
+ * {@code JdbcMessageStore}, {@code MongoDbMessageStore} or {@code RedisMessageStore}
+ * used by aggregators and resequencers.
+ * <p>
+ * Pending messages are written when a group has {@link #setMaxBatchSize(int) maxBatchSize}
+ * pending messages, every {@link #setFlushInterval(long) flushInterval} when a
+ * {@link TaskScheduler} is provided, and on {@link #flush()}. While a group has pending
+ * messages, it is read from a view that overlays them on the group of the target store,
+ * without loading the messages of the latter until they are requested. Operations that
+ * release or complete a group ({@link #removeMessagesFromGroup(Object, Collection)},
+ * {@link #completeGroup(Object)}, {@link #setLastReleasedSequenceNumberForGroup(Object, int)},
+ * {@link #pollMessageFromGroup(Object)}, {@link #getGroupMetadata(Object)}) write the
+ * pending messages of the group first and are then applied to the target store directly;
+ * messages that are removed before they were written are never written at all. Operations
+ * across all groups flush all pending messages first.
+ * <p>
+ * Messages that are still pending are lost if the application fails, so the flush interval
+ * is the window of messages that may have to be replayed. The target store must not be
+ * modified other than through this wrapper.
+ *
+ * @since 5.1
+ */
+public class WriteBehindMessageGroupStore implements MessageGroupStore, InitializingBean, DisposableBean {
+
+	public static final long DEFAULT_FLUSH_INTERVAL = 100;
+
+	public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+
+	private final Log logger = LogFactory.getLog(getClass());
+
+	private final Map<Object, PendingGroup> pendingGroups = new ConcurrentHashMap<>();
+
+	private final MessageGroupStore targetStore;
+
+	private TaskScheduler taskScheduler;
+
+	private long flushInterval = DEFAULT_FLUSH_INTERVAL;
+
+	private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+	private volatile ScheduledFuture<?> flushFuture;
+
+	/**
+	 * Construct an instance writing to the provided store.
+	 * @param targetStore the store to write to.
+	 */
+	public WriteBehindMessageGroupStore(MessageGroupStore targetStore) {
+		Assert.notNull(targetStore, "'targetStore' must not be null");
+		this.targetStore = targetStore;
+	}
+
+	/**
+	 * Set the scheduler used to flush pending messages every
+	 * {@link #setFlushInterval(long) flushInterval}. Without a scheduler, pending
+	 * messages are only written when a group reaches the
+	 * {@link #setMaxBatchSize(int) maxBatchSize}, when it is released, or on
+	 * {@link #flush()}.
+	 * @param taskScheduler the task scheduler.
+	 */
+	public void setTaskScheduler(TaskScheduler taskScheduler) {
+		this.taskScheduler = taskScheduler;
+	}
+
+	/**
+	 * Set the maximum time in milliseconds that a message stays pending when a
+	 * {@link #setTaskScheduler(TaskScheduler) taskScheduler} is provided.
+	 * Default 100.
+	 * @param flushInterval the flush interval.
+	 */
+	public void setFlushInterval(long flushInterval) {
+		Assert.isTrue(flushInterval > 0, "'flushInterval' must be > 0");
+		this.flushInterval = flushInterval;
+	}
+
+	/**
+	 * Set the number of pending messages of a group that causes them to be written
+	 * immediately, on the calling thread. Default 100.
+	 * @param maxBatchSize the maximum batch size.
+	 */
+	public void setMaxBatchSize(int maxBatchSize) {
+		Assert.isTrue(maxBatchSize > 0, "'maxBatchSize' must be > 0");
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	/**
+	 * Return the number of messages that are not written to the target store yet.
+	 * @return the number of pending messages.
+	 */
+	public int getPendingMessageCount() {
+		int count = 0;
+		for (PendingGroup pendingGroup : this.pendingGroups.values()) {
+			synchronized (pendingGroup) {
+				count += pendingGroup.messages.size();
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		if (this.taskScheduler != null) {
+			this.flushFuture = this.taskScheduler.scheduleWithFixedDelay(this::flushQuietly, this.flushInterval);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		ScheduledFuture<?> future = this.flushFuture;
+		if (future != null) {
+			future.cancel(false);
+			this.flushFuture = null;
+		}
+		flush();
+	}
+
+	/**
+	 * Write the pending messages of all groups to the target store.
+	 */
+	public void flush() {
+		for (Object groupId : this.pendingGroups.keySet()) {
+			flush(groupId);
+		}
+	}
+
+	/**
+	 * Write the pending messages of the group to the target store.
+	 * @param groupId the group id.
+	 */
+	public void flush(Object groupId) {
+		PendingGroup pendingGroup = this.pendingGroups.get(groupId);
+		if (pendingGroup != null) {
+			synchronized (pendingGroup) {
+				if (!pendingGroup.retired) {
+					write(groupId, pendingGroup, true);
+				}
+			}
+		}
+	}
+
+	private void flushQuietly() {
+		for (Object groupId : this.pendingGroups.keySet()) {
+			try {
+				flush(groupId);
+			}
+			catch (Exception e) {
+				this.logger.error("Failed to write pending messages of group [" + groupId + "]; will retry", e);
+			}
+		}
+	}
+
+	/*
+	 * Must be called holding the monitor of the pending group. The group is only retired once
+	 * its messages are written, so they are still pending (and retried) after a failure.
+	 * The view is dropped since its pending messages are now in the target group.
+	 */
+	private void write(Object groupId, PendingGroup pendingGroup, boolean retire) {
+		if (!pendingGroup.messages.isEmpty()) {
+			this.targetStore.addMessagesToGroup(groupId,
+					pendingGroup.messages.toArray(new Message<?>[pendingGroup.messages.size()]));
+			pendingGroup.messages.clear();
+		}
+		pendingGroup.view = null;
+		if (retire) {
+			pendingGroup.retired = true;
+			this.pendingGroups.remove(groupId, pendingGroup);
+		}
+	}
+
+	@Override
+	public MessageGroup addMessageToGroup(Object groupId, Message<?> message) {
+		return add(groupId, Collections.singletonList(message));
+	}
+
+	@Override
+	public void addMessagesToGroup(Object groupId, Message<?>... messages) {
+		add(groupId, Arrays.asList(messages));
+	}
+
+	private MessageGroup add(Object groupId, Collection<Message<?>> messages) {
+		while (true) {
+			PendingGroup pendingGroup = this.pendingGroups.computeIfAbsent(groupId, key -> new PendingGroup());
+			synchronized (pendingGroup) {
+				if (pendingGroup.retired) {
+					continue;
+				}
+				if (pendingGroup.view == null) {
+					pendingGroup.view = new OverlayMessageGroup(this.targetStore.getMessageGroup(groupId));
+				}
+				for (Message<?> message : messages) {
+					pendingGroup.view.add(message);
+					pendingGroup.messages.add(message);
+				}
+				pendingGroup.view.setLastModified(System.currentTimeMillis());
+				if (pendingGroup.messages.size() >= this.maxBatchSize) {
+					write(groupId, pendingGroup, false);
+					return this.targetStore.getMessageGroup(groupId);
+				}
+				return pendingGroup.view;
+			}
+		}
+	}
+
+	@Override
+	public MessageGroup getMessageGroup(Object groupId) {
+		PendingGroup pendingGroup = this.pendingGroups.get(groupId);
+		if (pendingGroup != null) {
+			synchronized (pendingGroup) {
+				if (!pendingGroup.retired && pendingGroup.view != null) {
+					return pendingGroup.view;
+				}
+			}
+		}
+		return this.targetStore.getMessageGroup(groupId);
+	}
+
+	@Override
+	public int messageGroupSize(Object groupId) {
+		PendingGroup pendingGroup = this.pendingGroups.get(groupId);
+		if (pendingGroup != null) {
+			synchronized (pendingGroup) {
+				if (!pendingGroup.retired && pendingGroup.view != null) {
+					return pendingGroup.view.size();
+				}
+			}
+		}
+		return this.targetStore.messageGroupSize(groupId);
+	}
+
+	@Override
+	public Collection<Message<?>> getMessagesForGroup(Object groupId) {
+		PendingGroup pendingGroup = this.pendingGroups.get(groupId);
+		if (pendingGroup != null) {
+			synchronized (pendingGroup) {
+				if (!pendingGroup.retired && pendingGroup.view != null) {
+					return pendingGroup.view.getMessages();
+				}
+			}
+		}
+		return this.targetStore.getMessagesForGroup(groupId);
+	}
+
+	@Override
+	public Stream<Message<?>> streamMessagesForGroup(Object groupId) {
+		PendingGroup pendingGroup = this.pendingGroups.get(groupId);
+		if (pendingGroup != null) {
+			synchronized (pendingGroup) {
+				if (!pendingGroup.retired && pendingGroup.view != null) {
+					return pendingGroup.view.streamMessages();
+				}
+			}
+		}
+		return this.targetStore.streamMessagesForGroup(groupId);
+	}
+
+	@Override
+	public Message<?> getOneMessageFromGroup(Object groupId) {
+		PendingGroup pendingGroup = this.pendingGroups.get(groupId);
+		if (pendingGroup != null) {
+			synchronized (pendingGroup) {
+				if (!pendingGroup.retired && pendingGroup.view != null) {
+					return pendingGroup.view.getOne();
+				}
+			}
+		}
+		return this.targetStore.getOneMessageFromGroup(groupId);
+	}
+
+	@Override
+	public void removeMessagesFromGroup(Object key, Message<?>... messages) {
+		removeMessagesFromGroup(key, Arrays.asList(messages));
+	}
+
+	@Override
+	public void removeMessagesFromGroup(Object key, Collection<Message<?>> messages) {
+		Collection<Message<?>> toRemove = messages;
+		PendingGroup pendingGroup = this.pendingGroups.get(key);
+		if (pendingGroup != null) {
+			synchronized (pendingGroup) {
+				if (!pendingGroup.retired) {
+					toRemove = new LinkedHashSet<>(messages);
+					for (Iterator<Message<?>> iterator = toRemove.iterator(); iterator.hasNext(); ) {
+						if (pendingGroup.messages.remove(iterator.next())) {
+							iterator.remove();
+						}
+					}
+					write(key, pendingGroup, true);
+				}
+			}
+		}
+		if (!toRemove.isEmpty()) {
+			this.targetStore.removeMessagesFromGroup(key, toRemove);
+		}
+	}
+
+	@Override
+	public Message<?> pollMessageFromGroup(Object groupId) {
+		flush(groupId);
+		return this.targetStore.pollMessageFromGroup(groupId);
+	}
+
+	@Override
+	public void removeMessageGroup(Object groupId) {
+		PendingGroup pendingGroup = this.pendingGroups.get(groupId);
+		if (pendingGroup != null) {
+			synchronized (pendingGroup) {
+				pendingGroup.messages.clear();
+				pendingGroup.retired = true;
+				this.pendingGroups.remove(groupId, pendingGroup);
+			}
+		}
+		this.targetStore.removeMessageGroup(groupId);
+	}
+
+	@Override
+	public void completeGroup(Object groupId) {
+		flush(groupId);
+		this.targetStore.completeGroup(groupId);
+	}
+
+	@Override
+	public void setLastReleasedSequenceNumberForGroup(Object groupId, int sequenceNumber) {
+		flush(groupId);
+		this.targetStore.setLastReleasedSequenceNumberForGroup(groupId, sequenceNumber);
+	}
+
+	@Override
+	public MessageGroupMetadata getGroupMetadata(Object groupId) {
+		flush(groupId);
+		return this.targetStore.getGroupMetadata(groupId);
+	}
+
+	@Override
+	public int getMessageCountForAllMessageGroups() {
+		flush();
+		return this.targetStore.getMessageCountForAllMessageGroups();
+	}
+
+	@Override
+	public int getMessageGroupCount() {
+		flush();
+		return this.targetStore.getMessageGroupCount();
+	}
+
+	@Override
+	public Iterator<MessageGroup> iterator() {
+		flush();
+		return this.targetStore.iterator();
+	}
+
+	@Override
+	public int expireMessageGroups(long timeout) {
+		flush();
+		return this.targetStore.expireMessageGroups(timeout);
+	}
+
+	@Override
+	public void registerMessageGroupExpiryCallback(MessageGroupCallback callback) {
+		this.targetStore.registerMessageGroupExpiryCallback(callback);
+	}
+
+	private static final class PendingGroup {
+
+		private final Set<Message<?>> messages = new LinkedHashSet<>();
+
+		private OverlayMessageGroup view;
+
+		private boolean retired;
+
+	}
+
+	/**
+	 * The view of a group with pending messages: the group of the target store, which
+	 * persistent stores load lazily, overlaid with the messages added to, or removed
+	 * from, this view. The target messages are only loaded when they are requested.
+	 */
+	private static final class OverlayMessageGroup implements MessageGroup {
+
+		private final MessageGroup target;
+
+		private final Set<Message<?>> added = new LinkedHashSet<>();
+
+		private final Set<Message<?>> removed = new HashSet<>();
+
+		private volatile boolean complete;
+
+		private volatile int lastReleasedMessageSequenceNumber;
+
+		private volatile long lastModified;
+
+		private MessageGroupSequenceInfo sequenceInfo;
+
+		private boolean sequenceInfoResolved;
+
+		OverlayMessageGroup(MessageGroup target) {
+			this.target = target;
+			this.complete = target.isComplete();
+			this.lastReleasedMessageSequenceNumber = target.getLastReleasedMessageSequenceNumber();
+			this.lastModified = target.getLastModified();
+		}
+
+		@Override
+		public boolean canAdd(Message<?> message) {
+			return true;
+		}
+
+		@Override
+		public synchronized void add(Message<?> messageToAdd) {
+			this.removed.remove(messageToAdd);
+			if (this.added.add(messageToAdd) && this.sequenceInfo != null) {
+				this.sequenceInfo.add(messageToAdd);
+			}
+		}
+
+		@Override
+		public synchronized boolean remove(Message<?> messageToRemove) {
+			if (this.added.remove(messageToRemove)
+					|| (!this.removed.contains(messageToRemove) && this.target.getMessages().contains(messageToRemove)
+							&& this.removed.add(messageToRemove))) {
+
+				if (this.sequenceInfo != null) {
+					this.sequenceInfo.remove(messageToRemove);
+				}
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public synchronized Collection<Message<?>> getMessages() {
+			if (this.added.isEmpty() && this.removed.isEmpty()) {
+				return this.target.getMessages();
+			}
+			Set<Message<?>> messages = new LinkedHashSet<>(this.target.getMessages());
+			messages.removeAll(this.removed);
+			messages.addAll(this.added);
+			return Collections.unmodifiableSet(messages);
+		}
+
+		@Override
+		public synchronized Stream<Message<?>> streamMessages() {
+			if (this.added.isEmpty() && this.removed.isEmpty()) {
+				return this.target.streamMessages();
+			}
+			Set<Message<?>> excluded = new HashSet<>(this.removed);
+			return Stream.concat(this.target.streamMessages().filter(message -> !excluded.contains(message)),
+					new ArrayList<>(this.added).stream());
+		}
+
+		@Override
+		public synchronized Message<?> getOne() {
+			if (!this.removed.isEmpty()) {
+				Iterator<Message<?>> iterator = getMessages().iterator();
+				return iterator.hasNext() ? iterator.next() : null;
+			}
+			Message<?> one = this.target.getOne();
+			if (one == null && !this.added.isEmpty()) {
+				one = this.added.iterator().next();
+			}
+			return one;
+		}
+
+		@Override
+		public synchronized int size() {
+			return this.target.size() - this.removed.size() + this.added.size();
+		}
+
+		@Override
+		public int getSequenceSize() {
+			if (size() == 0) {
+				return 0;
+			}
+			return new IntegrationMessageHeaderAccessor(getOne()).getSequenceSize();
+		}
+
+		/**
+		 * The sequence metadata of the target group, with the messages added and removed
+		 * since then applied; maintained incrementally once requested.
+		 */
+		@Override
+		public synchronized MessageGroupSequenceInfo getSequenceInfo() {
+			if (!this.sequenceInfoResolved) {
+				this.sequenceInfoResolved = true;
+				MessageGroupSequenceInfo targetSequenceInfo = this.target.getSequenceInfo();
+				if (targetSequenceInfo != null) {
+					this.sequenceInfo = new MessageGroupSequenceInfo(targetSequenceInfo);
+					this.removed.forEach(this.sequenceInfo::remove);
+					this.added.forEach(this.sequenceInfo::add);
+				}
+			}
+			if (this.sequenceInfo != null) {
+				this.sequenceInfo.setLastReleasedSequenceNumber(this.lastReleasedMessageSequenceNumber);
+			}
+			return this.sequenceInfo;
+		}
+
+		@Override
+		public synchronized void clear() {
+			this.added.clear();
+			this.removed.addAll(this.target.getMessages());
+			if (this.sequenceInfo != null) {
+				this.sequenceInfo.clear();
+			}
+		}
+
+		@Override
+		public Object getGroupId() {
+			return this.target.getGroupId();
+		}
+
+		@Override
+		public int getLastReleasedMessageSequenceNumber() {
+			return this.lastReleasedMessageSequenceNumber;
+		}
+
+		@Override
+		public void setLastReleasedMessageSequenceNumber(int sequenceNumber) {
+			this.lastReleasedMessageSequenceNumber = sequenceNumber;
+		}
+
+		@Override
+		public boolean isComplete() {
+			return this.complete;
+		}
+
+		@Override
+		public void complete() {
+			this.complete = true;
+		}
+
+		@Override
+		public long getTimestamp() {
+			return this.target.getTimestamp();
+		}
+
+		@Override
+		public long getLastModified() {
+			return this.lastModified;
+		}
+
+		@Override
+		public void setLastModified(long lastModified) {
+			this.lastModified = lastModified;
+		}
+
+	}
+
+}
@@ -20,6 +20,7 @@ import java.util.Arrays;
 
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageHeaders;
+import org.springframework.util.IdGenerator;
 
 /**
  * @author Gary Russell
@@ -31,6 +32,10 @@ public class DefaultMessageBuilderFactory implements MessageBuilderFactory {
 
 	private String[] readOnlyHeaders;
 
+	private IdGenerator idGenerator;
+
+	private boolean suppressIdAndTimestamp;
+
 	/**
 	 * Specify a list of headers which should be considered as a read only
 	 * and prohibited from the population to the message.
@@ -59,16 +64,45 @@ public class DefaultMessageBuilderFactory implements MessageBuilderFactory {
 		this.readOnlyHeaders = headers;
 	}
 
+	/**
+	 * Specify an {@link IdGenerator} for the messages built by this factory, instead of
+	 * the global one used by {@link MessageHeaders}. Components accept their own factory
+	 * via {@code setMessageBuilderFactory()}, so a dedicated factory can be used for the
+	 * endpoints of a particular flow.
+	 * @param idGenerator the {@link IdGenerator}.
+	 * @since 5.1
+	 * @see MessageBuilder#idGenerator(IdGenerator)
+	 */
+	public void setIdGenerator(IdGenerator idGenerator) {
+		this.idGenerator = idGenerator;
+	}
+
+	/**
+	 * Set to true to build messages without the {@link MessageHeaders#ID} and
+	 * {@link MessageHeaders#TIMESTAMP} headers; only use a factory with this option on
+	 * internal hops of a flow where nothing reads them.
+	 * @param suppressIdAndTimestamp true to omit the id and timestamp headers.
+	 * @since 5.1
+	 * @see MessageBuilder#suppressIdAndTimestamp(boolean)
+	 */
+	public void setSuppressIdAndTimestamp(boolean suppressIdAndTimestamp) {
+		this.suppressIdAndTimestamp = suppressIdAndTimestamp;
+	}
+
 	@Override
 	public <T> MessageBuilder<T> fromMessage(Message<T> message) {
 		return MessageBuilder.fromMessage(message)
-				.readOnlyHeaders(this.readOnlyHeaders);
+				.readOnlyHeaders(this.readOnlyHeaders)
+				.idGenerator(this.idGenerator)
+				.suppressIdAndTimestamp(this.suppressIdAndTimestamp);
 	}
 
 	@Override
 	public <T> MessageBuilder<T> withPayload(T payload) {
 		return MessageBuilder.withPayload(payload)
-				.readOnlyHeaders(this.readOnlyHeaders);
+				.readOnlyHeaders(this.readOnlyHeaders)
+				.idGenerator(this.idGenerator)
+				.suppressIdAndTimestamp(this.suppressIdAndTimestamp);
 	}
 
 }
@@ -16,9 +16,12 @@
 
 package org.springframework.integration.support;
 
+import java.security.SecureRandom;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.springframework.util.Assert;
 import org.springframework.util.IdGenerator;
 
 
@@ -78,4 +81,78 @@ public class IdGenerators {
 
 	}
 
+	/**
+	 * Generates time-ordered, node-prefixed ids without contention between threads.
+	 * The {@code mostSigBits} hold the {@link System#currentTimeMillis() current time}
+	 * shifted left by 16 bits, followed by the 16 bit {@code nodeId}; the {@code leastSigBits}
+	 * hold an index assigned to the calling thread on its first use, followed by a
+	 * counter held in a {@link ThreadLocal}. Ids therefore sort by the millisecond they
+	 * were generated in and no two threads ever compete for the same counter.
+	 * <p>
+	 * Ids are unique within a JVM, regardless of the clock, for the first {@code 2^32}
+	 * threads using this generator. They are unique across a cluster as long as each
+	 * member is configured with a distinct {@code nodeId}; by default, a random one is
+	 * chosen, in which case two members may share it.
+	 * Like {@link SimpleIncrementingIdGenerator}, the ids are not random and should not be
+	 * used where they have to be unpredictable.
+	 * @since 5.1
+	 */
+	public static class TimeOrderedIdGenerator implements IdGenerator {
+
+		private static final int MAX_NODE_ID = 0xffff;
+
+		private static final AtomicInteger threadIndex = new AtomicInteger();
+
+		private static final ThreadLocal<ThreadSequence> sequences =
+				ThreadLocal.withInitial(() -> new ThreadSequence(threadIndex.getAndIncrement()));
+
+		private final long nodeId;
+
+		/**
+		 * Construct an instance with a random node id.
+		 */
+		public TimeOrderedIdGenerator() {
+			this(new SecureRandom().nextInt(MAX_NODE_ID + 1));
+		}
+
+		/**
+		 * Construct an instance with the provided node id.
+		 * @param nodeId the node id, between 0 and 65535, unique within the cluster.
+		 */
+		public TimeOrderedIdGenerator(int nodeId) {
+			Assert.isTrue(nodeId >= 0 && nodeId <= MAX_NODE_ID, "'nodeId' must be between 0 and " + MAX_NODE_ID);
+			this.nodeId = nodeId;
+		}
+
+		/**
+		 * Return the node id of this generator.
+		 * @return the node id.
+		 */
+		public int getNodeId() {
+			return (int) this.nodeId;
+		}
+
+		@Override
+		public UUID generateId() {
+			return new UUID((System.currentTimeMillis() << 16) | this.nodeId, sequences.get().next());
+		}
+
+		private static final class ThreadSequence {
+
+			private final long threadBits;
+
+			private int counter;
+
+			ThreadSequence(int threadIndex) {
+				this.threadBits = (long) threadIndex << 32;
+			}
+
+			long next() {
+				return this.threadBits | (this.counter++ & 0xffffffffL);
+			}
+
+		}
+
+	}
+
 }
@@ -31,6 +31,7 @@ import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.support.ErrorMessage;
 import org.springframework.messaging.support.GenericMessage;
 import org.springframework.util.Assert;
+import org.springframework.util.IdGenerator;
 import org.springframework.util.ObjectUtils;
 
 /**
@@ -60,6 +61,10 @@ public final class MessageBuilder<T> extends AbstractIntegrationMessageBuilder<T
 
 	private String[] readOnlyHeaders;
 
+	private IdGenerator idGenerator;
+
+	private boolean suppressIdAndTimestamp;
+
 	/**
 	 * Private constructor to be invoked from the static factory methods only.
 	 */
@@ -312,6 +317,36 @@ public final class MessageBuilder<T> extends AbstractIntegrationMessageBuilder<T
 		return this;
 	}
 
+	/**
+	 * Specify an {@link IdGenerator} for the {@link MessageHeaders#ID} header of the
+	 * message to build, instead of the global one used by {@link MessageHeaders}.
+	 * The headers of the message are then {@link MutableMessageHeaders}, since only a
+	 * subclass may provide the id.
+	 * @param idGenerator the {@link IdGenerator}; null for the global one.
+	 * @return the current {@link MessageBuilder}
+	 * @since 5.1
+	 * @see IdGenerators.TimeOrderedIdGenerator
+	 */
+	public MessageBuilder<T> idGenerator(@Nullable IdGenerator idGenerator) {
+		this.idGenerator = idGenerator;
+		return this;
+	}
+
+	/**
+	 * Build the message without the {@link MessageHeaders#ID} and
+	 * {@link MessageHeaders#TIMESTAMP} headers, saving their generation. Only use it for
+	 * messages that no component identifies by their id, such as message stores or
+	 * the {@code MessageHistory}. The headers of the message are then
+	 * {@link MutableMessageHeaders}, since only a subclass may omit them.
+	 * @param suppressIdAndTimestamp true to omit the id and timestamp headers.
+	 * @return the current {@link MessageBuilder}
+	 * @since 5.1
+	 */
+	public MessageBuilder<T> suppressIdAndTimestamp(boolean suppressIdAndTimestamp) {
+		this.suppressIdAndTimestamp = suppressIdAndTimestamp;
+		return this;
+	}
+
 	@Override
 	@SuppressWarnings("unchecked")
 	public Message<T> build() {
@@ -319,10 +354,23 @@ public final class MessageBuilder<T> extends AbstractIntegrationMessageBuilder<T
 				&& !containsReadOnly(this.originalMessage.getHeaders())) {
 			return this.originalMessage;
 		}
+		MessageHeaders headers = buildHeaders();
 		if (this.payload instanceof Throwable) {
-			return (Message<T>) new ErrorMessage((Throwable) this.payload, this.headerAccessor.toMap());
+			return (Message<T>) new ErrorMessage((Throwable) this.payload, headers);
+		}
+		return new GenericMessage<T>(this.payload, headers);
+	}
+
+	private MessageHeaders buildHeaders() {
+		if (this.suppressIdAndTimestamp) {
+			return new MutableMessageHeaders(this.headerAccessor.toMap(), MessageHeaders.ID_VALUE_NONE, -1L);
+		}
+		else if (this.idGenerator != null) {
+			return new MutableMessageHeaders(this.headerAccessor.toMap(), this.idGenerator.generateId(), null);
+		}
+		else {
+			return this.headerAccessor.toMessageHeaders();
 		}
-		return new GenericMessage<T>(this.payload, this.headerAccessor.toMap());
 	}
 
 	private boolean containsReadOnly(MessageHeaders headers) {
@@ -0,0 +1,426 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.support.locks;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.util.Assert;
+
+/**
+ * An in-memory {@link ExpirableLockRegistry} which, like the {@link DefaultLockRegistry},
+ * hashes keys onto a table of {@link ReentrantLock} stripes, but adapts the table to the
+ * observed contention instead of fixing its size up front.
+ * <p>
+ * A collision is recorded whenever a thread has to wait for a stripe held for a
+ * <b>different</b> key. Once a stripe has seen {@code collisionThreshold} collisions it is
+ * split in two, up to {@code maxStripes}. When a stripe at the maximum size still
+ * collides, the key being unlocked is promoted to its own dedicated lock (at most
+ * {@code maxKeyLocks} of them). Dedicated locks that have not been used recently are
+ * removed by {@link #expireUnusedOlderThan(long)}, so the memory used by the registry
+ * stays bounded by both limits.
+ * <p>
+ * Re-mapping a key only ever happens while the lock it moves away from is held
+ * exclusively; waiters re-check the mapping after acquiring the lock and retry if it has
+ * changed. As a consequence, the {@link Lock}s returned by {@link #obtain(Object)} do not
+ * support {@link Lock#newCondition() conditions}.
+ * <p>
+ * Contention statistics ({@link #getContendedCount()}, {@link #getCollisionCount()},
+ * {@link #getWaitTime(TimeUnit)}) are collected on the slow (blocking) path only and can
+ * be used to size the registry under real load.
+ *
+ * @since 5.1
+ */
+public class StripedLockRegistry implements ExpirableLockRegistry {
+
+	/**
+	 * The default number of stripes on start up.
+	 */
+	public static final int DEFAULT_INITIAL_STRIPES = 256;
+
+	/**
+	 * The default maximum number of stripes.
+	 */
+	public static final int DEFAULT_MAX_STRIPES = 4096;
+
+	/**
+	 * The default number of collisions on a stripe after which it is split.
+	 */
+	public static final int DEFAULT_COLLISION_THRESHOLD = 64;
+
+	/**
+	 * The default maximum number of dedicated per-key locks.
+	 */
+	public static final int DEFAULT_MAX_KEY_LOCKS = 1024;
+
+	private static final int MAXIMUM_STRIPES = 1 << 16;
+
+	private final AtomicReferenceArray<Stripe> slots;
+
+	private final int slotMask;
+
+	private final int maxDepth;
+
+	private final Map<Object, KeyLock> keyLocks = new ConcurrentHashMap<>();
+
+	private final AtomicInteger stripeCount = new AtomicInteger();
+
+	private final LongAdder contended = new LongAdder();
+
+	private final LongAdder collisions = new LongAdder();
+
+	private final LongAdder waitTime = new LongAdder();
+
+	private volatile int collisionThreshold = DEFAULT_COLLISION_THRESHOLD;
+
+	private volatile int maxKeyLocks = DEFAULT_MAX_KEY_LOCKS;
+
+	/**
+	 * Construct an instance with {@value #DEFAULT_INITIAL_STRIPES} initial and
+	 * {@value #DEFAULT_MAX_STRIPES} maximum stripes.
+	 */
+	public StripedLockRegistry() {
+		this(DEFAULT_INITIAL_STRIPES, DEFAULT_MAX_STRIPES);
+	}
+
+	/**
+	 * Construct an instance with the provided initial and maximum number of stripes.
+	 * Both must be powers of 2 and the maximum must not exceed 65536.
+	 * @param initialStripes the number of stripes on start up.
+	 * @param maxStripes the number of stripes the table may grow to.
+	 */
+	public StripedLockRegistry(int initialStripes, int maxStripes) {
+		Assert.isTrue(initialStripes > 0 && (initialStripes & (initialStripes - 1)) == 0,
+				"'initialStripes' must be a power of 2");
+		Assert.isTrue(maxStripes >= initialStripes && (maxStripes & (maxStripes - 1)) == 0,
+				"'maxStripes' must be a power of 2, not less than 'initialStripes'");
+		Assert.isTrue(maxStripes <= MAXIMUM_STRIPES, "'maxStripes' must not exceed " + MAXIMUM_STRIPES);
+		this.slots = new AtomicReferenceArray<>(maxStripes);
+		this.slotMask = maxStripes - 1;
+		this.maxDepth = Integer.numberOfTrailingZeros(maxStripes);
+		int initialDepth = Integer.numberOfTrailingZeros(initialStripes);
+		Stripe[] stripes = new Stripe[initialStripes];
+		for (int i = 0; i < initialStripes; i++) {
+			stripes[i] = new Stripe(i, initialDepth);
+		}
+		for (int i = 0; i < maxStripes; i++) {
+			this.slots.set(i, stripes[i & (initialStripes - 1)]);
+		}
+		this.stripeCount.set(initialStripes);
+	}
+
+	/**
+	 * Set the number of collisions a stripe may see before it is split (or, at
+	 * {@code maxStripes}, before a colliding key is given a dedicated lock).
+	 * Default {@value #DEFAULT_COLLISION_THRESHOLD}.
+	 * @param collisionThreshold the threshold.
+	 */
+	public void setCollisionThreshold(int collisionThreshold) {
+		Assert.isTrue(collisionThreshold > 0, "'collisionThreshold' must be greater than 0");
+		this.collisionThreshold = collisionThreshold;
+	}
+
+	/**
+	 * Set the maximum number of dedicated per-key locks; 0 disables them.
+	 * Default {@value #DEFAULT_MAX_KEY_LOCKS}.
+	 * @param maxKeyLocks the maximum number of per-key locks.
+	 */
+	public void setMaxKeyLocks(int maxKeyLocks) {
+		Assert.isTrue(maxKeyLocks >= 0, "'maxKeyLocks' must not be negative");
+		this.maxKeyLocks = maxKeyLocks;
+	}
+
+	@Override
+	public Lock obtain(Object lockKey) {
+		Assert.notNull(lockKey, "'lockKey' must not be null");
+		return new StripedLock(lockKey);
+	}
+
+	/**
+	 * Remove dedicated per-key locks which are not currently locked and have not been
+	 * unlocked for at least the provided age; their keys fall back to the stripes.
+	 * @param age the time since the lock was last released, in milliseconds.
+	 */
+	@Override
+	public void expireUnusedOlderThan(long age) {
+		long now = System.currentTimeMillis();
+		for (KeyLock keyLock : this.keyLocks.values()) {
+			if (now - keyLock.lastUsed > age && !keyLock.lock.isHeldByCurrentThread()
+					&& keyLock.lock.tryLock()) {
+				try {
+					this.keyLocks.remove(keyLock.key, keyLock);
+				}
+				finally {
+					keyLock.lock.unlock();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Return the current number of stripes.
+	 * @return the number of stripes.
+	 */
+	public int getStripeCount() {
+		return this.stripeCount.get();
+	}
+
+	/**
+	 * Return the current number of dedicated per-key locks.
+	 * @return the number of per-key locks.
+	 */
+	public int getKeyLockCount() {
+		return this.keyLocks.size();
+	}
+
+	/**
+	 * Return the number of lock acquisitions which had to wait.
+	 * @return the contended acquisition count.
+	 */
+	public long getContendedCount() {
+		return this.contended.sum();
+	}
+
+	/**
+	 * Return the number of contended acquisitions where the lock was held for a
+	 * different key.
+	 * @return the collision count.
+	 */
+	public long getCollisionCount() {
+		return this.collisions.sum();
+	}
+
+	/**
+	 * Return the total time threads have spent waiting for contended locks.
+	 * @param unit the time unit for the result.
+	 * @return the total wait time.
+	 */
+	public long getWaitTime(TimeUnit unit) {
+		return unit.convert(this.waitTime.sum(), TimeUnit.NANOSECONDS);
+	}
+
+	private Guard guardFor(Object key, int hash) {
+		if (!this.keyLocks.isEmpty()) {
+			KeyLock keyLock = this.keyLocks.get(key);
+			if (keyLock != null) {
+				return keyLock;
+			}
+		}
+		return this.slots.get(hash & this.slotMask);
+	}
+
+	private boolean validate(Guard guard, Object key, int hash) {
+		if (guardFor(key, hash) == guard) {
+			guard.ownerHash = hash;
+			return true;
+		}
+		guard.lock.unlock();
+		return false;
+	}
+
+	private void recordWait(int ownerHash, int hash, long start) {
+		this.waitTime.add(System.nanoTime() - start);
+		this.contended.increment();
+		if (ownerHash != hash) {
+			this.collisions.increment();
+		}
+	}
+
+	/*
+	 * Called with the lock of the guard held exactly once by the current thread.
+	 */
+	private void adapt(Guard guard, Object key) {
+		guard.collisions = 0;
+		if (guard instanceof Stripe) {
+			Stripe stripe = (Stripe) guard;
+			if (stripe.depth < this.maxDepth) {
+				split(stripe);
+			}
+			else if (this.keyLocks.size() < this.maxKeyLocks) {
+				this.keyLocks.put(key, new KeyLock(key));
+			}
+		}
+	}
+
+	private void split(Stripe stripe) {
+		int depth = stripe.depth;
+		int step = 1 << (depth + 1);
+		Stripe sibling = new Stripe(stripe.index | (1 << depth), depth + 1);
+		for (int i = sibling.index; i <= this.slotMask; i += step) {
+			this.slots.set(i, sibling);
+		}
+		stripe.depth = depth + 1;
+		this.stripeCount.incrementAndGet();
+	}
+
+	private static int spread(Object key) {
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	private abstract static class Guard {
+
+		final ReentrantLock lock = new ReentrantLock();
+
+		volatile int ownerHash;
+
+		int collisions; // guarded by lock
+
+	}
+
+	private static final class Stripe extends Guard {
+
+		final int index;
+
+		volatile int depth;
+
+		Stripe(int index, int depth) {
+			this.index = index;
+			this.depth = depth;
+		}
+
+	}
+
+	private static final class KeyLock extends Guard {
+
+		final Object key;
+
+		volatile long lastUsed = System.currentTimeMillis();
+
+		KeyLock(Object key) {
+			this.key = key;
+		}
+
+	}
+
+	private final class StripedLock implements Lock {
+
+		private final Object key;
+
+		private final int hash;
+
+		StripedLock(Object key) {
+			this.key = key;
+			this.hash = spread(key);
+		}
+
+		@Override
+		public void lock() {
+			while (true) {
+				Guard guard = guardFor(this.key, this.hash);
+				if (!guard.lock.tryLock()) {
+					int owner = guard.ownerHash;
+					long start = System.nanoTime();
+					guard.lock.lock();
+					contended(guard, owner, start);
+				}
+				if (validate(guard, this.key, this.hash)) {
+					return;
+				}
+			}
+		}
+
+		@Override
+		public void lockInterruptibly() throws InterruptedException {
+			while (true) {
+				Guard guard = guardFor(this.key, this.hash);
+				if (!guard.lock.tryLock()) {
+					int owner = guard.ownerHash;
+					long start = System.nanoTime();
+					guard.lock.lockInterruptibly();
+					contended(guard, owner, start);
+				}
+				if (validate(guard, this.key, this.hash)) {
+					return;
+				}
+			}
+		}
+
+		@Override
+		public boolean tryLock() {
+			while (true) {
+				Guard guard = guardFor(this.key, this.hash);
+				if (!guard.lock.tryLock()) {
+					return false;
+				}
+				if (validate(guard, this.key, this.hash)) {
+					return true;
+				}
+			}
+		}
+
+		@Override
+		public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+			long deadline = System.nanoTime() + unit.toNanos(time);
+			while (true) {
+				Guard guard = guardFor(this.key, this.hash);
+				if (!guard.lock.tryLock()) {
+					int owner = guard.ownerHash;
+					long start = System.nanoTime();
+					if (!guard.lock.tryLock(deadline - start, TimeUnit.NANOSECONDS)) {
+						recordWait(owner, this.hash, start);
+						return false;
+					}
+					contended(guard, owner, start);
+				}
+				if (validate(guard, this.key, this.hash)) {
+					return true;
+				}
+			}
+		}
+
+		@Override
+		public void unlock() {
+			Guard guard = guardFor(this.key, this.hash);
+			if (guard.lock.getHoldCount() == 1) {
+				if (guard.collisions >= StripedLockRegistry.this.collisionThreshold) {
+					adapt(guard, this.key);
+				}
+				if (guard instanceof KeyLock) {
+					((KeyLock) guard).lastUsed = System.currentTimeMillis();
+				}
+			}
+			guard.lock.unlock();
+		}
+
+		@Override
+		public Condition newCondition() {
+			throw new UnsupportedOperationException("Conditions are not supported");
+		}
+
+		private void contended(Guard guard, int owner, long start) {
+			recordWait(owner, this.hash, start);
+			if (owner != this.hash) {
+				guard.collisions++;
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "StripedLock [key=" + this.key + ", lock=" + guardFor(this.key, this.hash).lock + "]";
+		}
+
+	}
+
+}
@@ -20,6 +20,9 @@ import java.util.concurrent.Executor;
 
 import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.core.task.TaskExecutor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.support.MessageHandlingRunnable;
 import org.springframework.util.Assert;
 import org.springframework.util.ErrorHandler;
 
@@ -52,14 +55,47 @@ public class ErrorHandlingTaskExecutor implements TaskExecutor {
 
 	@Override
 	public void execute(final Runnable task) {
-		this.executor.execute(() -> {
-			try {
-				task.run();
-			}
-			catch (Throwable t) { //NOSONAR
-				ErrorHandlingTaskExecutor.this.errorHandler.handleError(t);
-			}
-		});
+		if (task instanceof MessageHandlingRunnable) {
+			// keep the message visible to the target executor, e.g. for partitioning
+			this.executor.execute(new ErrorHandlingMessageHandlingRunnable((MessageHandlingRunnable) task));
+		}
+		else {
+			this.executor.execute(() -> run(task));
+		}
+	}
+
+	private void run(Runnable task) {
+		try {
+			task.run();
+		}
+		catch (Throwable t) { //NOSONAR
+			this.errorHandler.handleError(t);
+		}
+	}
+
+	private final class ErrorHandlingMessageHandlingRunnable implements MessageHandlingRunnable {
+
+		private final MessageHandlingRunnable delegate;
+
+		ErrorHandlingMessageHandlingRunnable(MessageHandlingRunnable delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void run() {
+			ErrorHandlingTaskExecutor.this.run(this.delegate);
+		}
+
+		@Override
+		public Message<?> getMessage() {
+			return this.delegate.getMessage();
+		}
+
+		@Override
+		public MessageHandler getMessageHandler() {
+			return this.delegate.getMessageHandler();
+		}
+
 	}
 
 }
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.ErrorHandler;
+
+/**
+ * A {@link TaskExecutor} that hashes each task onto one of a fixed number of partitions
+ * and runs the tasks of a partition one at a time, in submission order.
+ * <p>
+ * A {@link MessageHandlingRunnable} - the task type submitted by the
+ * {@link org.springframework.integration.dispatcher.UnicastingDispatcher} and
+ * {@link org.springframework.integration.dispatcher.BroadcastingDispatcher} - is
+ * partitioned by the key that the {@link #setPartitionKeyFunction(Function) partition key
+ * function} extracts from its message; the
+ * {@link IntegrationMessageHeaderAccessor#CORRELATION_ID correlationId} header by default.
+ * Tasks without a key are spread evenly over the partitions.
+ * <p>
+ * Each worker thread owns a queue of the partitions that have pending tasks. An idle
+ * worker steals whole partitions from the other workers' queues, so the load is balanced
+ * across the workers while a partition is never processed by two threads at once; hence
+ * messages with the same key are handled in the order they were sent.
+ * <p>
+ * Supply it to an {@link org.springframework.integration.channel.ExecutorChannel} to get
+ * a parallel dispatch which preserves the per-key ordering. There must be more partitions
+ * than workers for the stealing to be effective; the default is eight per worker.
+ *
+ * @since 5.1
+ */
+public class PartitionedExecutor implements TaskExecutor, DisposableBean {
+
+	private static final Log logger = LogFactory.getLog(PartitionedExecutor.class);
+
+	private static final int DEFAULT_PARTITIONS_PER_WORKER = 8;
+
+	private static final int MAX_TASKS_PER_TURN = 64;
+
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+	private final Partition[] partitions;
+
+	private final Worker[] workers;
+
+	private final PartitionedWorkers partitioning;
+
+	private ThreadFactory threadFactory = new CustomizableThreadFactory("partitioned-executor-");
+
+	private ErrorHandler errorHandler;
+
+	/**
+	 * Create an instance with one worker per available processor.
+	 */
+	public PartitionedExecutor() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Create an instance with the provided number of workers and eight partitions per worker.
+	 * @param workerCount the number of worker threads.
+	 */
+	public PartitionedExecutor(int workerCount) {
+		this(workerCount, workerCount * DEFAULT_PARTITIONS_PER_WORKER);
+	}
+
+	/**
+	 * Create an instance with the provided number of workers and partitions.
+	 * @param workerCount the number of worker threads.
+	 * @param partitionCount the number of partitions.
+	 */
+	public PartitionedExecutor(int workerCount, int partitionCount) {
+		Assert.isTrue(workerCount > 0, "'workerCount' must be greater than 0");
+		Assert.isTrue(partitionCount >= workerCount, "'partitionCount' must not be less than 'workerCount'");
+		this.workers = new Worker[workerCount];
+		for (int i = 0; i < workerCount; i++) {
+			this.workers[i] = new Worker(i);
+		}
+		this.partitions = new Partition[partitionCount];
+		for (int i = 0; i < partitionCount; i++) {
+			this.partitions[i] = new Partition(this.workers[i % workerCount]);
+		}
+		this.partitioning = new PartitionedWorkers(partitionCount);
+	}
+
+	/**
+	 * Set the function to extract the partition key from the message of a
+	 * {@link MessageHandlingRunnable} task. Messages with equal keys are handled in order.
+	 * The function may return null, in which case the task is assigned to any partition.
+	 * @param partitionKeyFunction the function.
+	 */
+	public void setPartitionKeyFunction(Function<Message<?>, ?> partitionKeyFunction) {
+		this.partitioning.setPartitionKeyFunction(partitionKeyFunction);
+	}
+
+	/**
+	 * Set the {@link ThreadFactory} for the worker threads; must be called before the
+	 * first task is submitted.
+	 * @param threadFactory the thread factory.
+	 */
+	public void setThreadFactory(ThreadFactory threadFactory) {
+		Assert.notNull(threadFactory, "'threadFactory' must not be null");
+		Assert.state(!this.partitioning.isStarted(),
+				"The thread factory cannot be changed after the workers are started");
+		this.threadFactory = threadFactory;
+	}
+
+	/**
+	 * Set an {@link ErrorHandler} for exceptions thrown by the tasks; they are logged
+	 * by default.
+	 * @param errorHandler the error handler.
+	 */
+	public void setErrorHandler(ErrorHandler errorHandler) {
+		this.errorHandler = errorHandler;
+	}
+
+	public int getWorkerCount() {
+		return this.workers.length;
+	}
+
+	public int getPartitionCount() {
+		return this.partitions.length;
+	}
+
+	/**
+	 * Return the number of tasks waiting to be run.
+	 * @return the number of pending tasks.
+	 */
+	public int getPendingTaskCount() {
+		int count = 0;
+		for (Partition partition : this.partitions) {
+			count += partition.tasks.size();
+		}
+		return count;
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		Assert.notNull(task, "'task' must not be null");
+		if (!this.partitioning.isRunning() && !this.partitioning.start(this.threadFactory, this.workers)) {
+			throw new TaskRejectedException("Executor [" + this + "] has been shut down");
+		}
+		Message<?> message = task instanceof MessageHandlingRunnable
+				? ((MessageHandlingRunnable) task).getMessage()
+				: null;
+		Partition partition = this.partitions[this.partitioning.partitionIndex(message)];
+		partition.tasks.offer(task);
+		if (partition.schedule()) {
+			Worker owner = partition.owner;
+			owner.ready.offerLast(partition);
+			signal(owner);
+		}
+	}
+
+	/*
+	 * Wake the owner of a newly scheduled partition or, if it is busy, an idle worker
+	 * which can steal the partition.
+	 */
+	private void signal(Worker owner) {
+		if (owner.parked) {
+			LockSupport.unpark(owner.thread);
+			return;
+		}
+		for (Worker worker : this.workers) {
+			if (worker.parked) {
+				LockSupport.unpark(worker.thread);
+				return;
+			}
+		}
+	}
+
+	private void runTask(Runnable task) {
+		try {
+			task.run();
+		}
+		catch (Throwable t) { //NOSONAR
+			if (this.errorHandler != null) {
+				this.errorHandler.handleError(t);
+			}
+			else {
+				logger.error("Task failed in " + this, t);
+			}
+		}
+	}
+
+	/**
+	 * Stop the workers once they have finished their current task; the pending tasks
+	 * are discarded.
+	 */
+	@Override
+	public void destroy() {
+		this.partitioning.stop(LockSupport::unpark);
+		int pending = getPendingTaskCount();
+		if (pending > 0 && logger.isWarnEnabled()) {
+			logger.warn(pending + " pending task(s) discarded on shutdown of " + this);
+		}
+	}
+
+	private static final class Partition {
+
+		private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		private final Worker owner;
+
+		Partition(Worker owner) {
+			this.owner = owner;
+		}
+
+		boolean schedule() {
+			return !this.scheduled.get() && this.scheduled.compareAndSet(false, true);
+		}
+
+	}
+
+	private final class Worker implements Runnable {
+
+		private final ConcurrentLinkedDeque<Partition> ready = new ConcurrentLinkedDeque<>();
+
+		private final int index;
+
+		private volatile Thread thread;
+
+		private volatile boolean parked;
+
+		Worker(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public void run() {
+			this.thread = Thread.currentThread();
+			while (PartitionedExecutor.this.partitioning.isRunning()) {
+				Partition partition = this.ready.pollFirst();
+				if (partition == null) {
+					partition = steal();
+				}
+				if (partition != null) {
+					process(partition);
+				}
+				else {
+					idle();
+				}
+			}
+		}
+
+		private void process(Partition partition) {
+			Runnable task;
+			int count = 0;
+			while (count++ < MAX_TASKS_PER_TURN && (task = partition.tasks.poll()) != null) {
+				runTask(task);
+			}
+			if (partition.tasks.isEmpty()) {
+				partition.scheduled.set(false);
+				// a task may have been added after the check, by a producer which saw the flag set
+				if (!partition.tasks.isEmpty() && partition.schedule()) {
+					this.ready.offerLast(partition);
+				}
+			}
+			else {
+				// yield to the other partitions of this worker
+				this.ready.offerLast(partition);
+			}
+		}
+
+		private Partition steal() {
+			Worker[] workers = PartitionedExecutor.this.workers;
+			for (int i = 1; i < workers.length; i++) {
+				Partition partition = workers[(this.index + i) % workers.length].ready.pollLast();
+				if (partition != null) {
+					return partition;
+				}
+			}
+			return null;
+		}
+
+		private void idle() {
+			this.parked = true;
+			if (!hasWork()) {
+				LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+			}
+			this.parked = false;
+		}
+
+		private boolean hasWork() {
+			for (Worker worker : PartitionedExecutor.this.workers) {
+				if (!worker.ready.isEmpty()) {
+					return true;
+				}
+			}
+			return !PartitionedExecutor.this.partitioning.isRunning();
+		}
+
+	}
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.util;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.util.Assert;
+
+/**
+ * The assignment of messages to a fixed number of partitions, and the lifecycle of the
+ * threads serving them, shared by the {@link PartitionedExecutor} and the
+ * {@link org.springframework.integration.channel.PartitionedChannel}.
+ * <p>
+ * Messages are assigned by the hash of the key that the
+ * {@link #setPartitionKeyFunction(Function) partition key function} extracts from them;
+ * the {@link IntegrationMessageHeaderAccessor#CORRELATION_ID correlationId} header by
+ * default. Messages without a key are spread evenly over the partitions.
+ * <p>
+ * The threads are started on first use and stopped once for good.
+ *
+ * @since 5.1
+ */
+public class PartitionedWorkers {
+
+	private final int partitionCount;
+
+	private final AtomicInteger nextPartition = new AtomicInteger();
+
+	private final Object lifecycleMonitor = new Object();
+
+	private volatile Function<Message<?>, ?> partitionKeyFunction =
+			message -> message.getHeaders().get(IntegrationMessageHeaderAccessor.CORRELATION_ID);
+
+	private Thread[] threads;
+
+	private volatile boolean started;
+
+	private volatile boolean running;
+
+	/**
+	 * Create an instance assigning messages to the provided number of partitions.
+	 * @param partitionCount the number of partitions.
+	 */
+	public PartitionedWorkers(int partitionCount) {
+		Assert.isTrue(partitionCount > 0, "'partitionCount' must be greater than 0");
+		this.partitionCount = partitionCount;
+	}
+
+	/**
+	 * Set the function to extract the partition key from a message. The function may
+	 * return null, in which case the message is assigned to any partition.
+	 * @param partitionKeyFunction the function.
+	 */
+	public void setPartitionKeyFunction(Function<Message<?>, ?> partitionKeyFunction) {
+		Assert.notNull(partitionKeyFunction, "'partitionKeyFunction' must not be null");
+		this.partitionKeyFunction = partitionKeyFunction;
+	}
+
+	public int getPartitionCount() {
+		return this.partitionCount;
+	}
+
+	/**
+	 * Return the partition of the message: the same one for all the messages with
+	 * equal keys, the next one in turn for the messages without a key.
+	 * @param message the message; may be null.
+	 * @return the partition index.
+	 */
+	public int partitionIndex(@Nullable Message<?> message) {
+		Object key = message != null ? this.partitionKeyFunction.apply(message) : null;
+		int hash;
+		if (key != null) {
+			hash = key.hashCode();
+			hash ^= hash >>> 16;
+		}
+		else {
+			hash = this.nextPartition.getAndIncrement();
+		}
+		return (hash & Integer.MAX_VALUE) % this.partitionCount;
+	}
+
+	/**
+	 * Return whether the threads were started, or stopped before that.
+	 * @return true if started.
+	 */
+	public boolean isStarted() {
+		return this.started;
+	}
+
+	/**
+	 * Return whether the threads are started and not stopped yet; the workers should
+	 * run while this is true.
+	 * @return true if running.
+	 */
+	public boolean isRunning() {
+		return this.running;
+	}
+
+	/**
+	 * Start a thread for each worker, unless they are started already.
+	 * @param threadFactory the factory for the threads.
+	 * @param workers the workers.
+	 * @return false if the threads were stopped, in which case no threads are started.
+	 */
+	public boolean start(ThreadFactory threadFactory, Runnable... workers) {
+		synchronized (this.lifecycleMonitor) {
+			if (this.started) {
+				return this.running;
+			}
+			Thread[] threads = new Thread[workers.length];
+			for (int i = 0; i < workers.length; i++) {
+				threads[i] = threadFactory.newThread(workers[i]);
+			}
+			this.threads = threads;
+			this.running = true;
+			this.started = true;
+			for (Thread thread : threads) {
+				thread.start();
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Stop the workers, or prevent them from being started; the threads are then
+	 * woken up by the provided callback, so that they see {@link #isRunning()} is false.
+	 * @param wakeUp the callback waking up a thread.
+	 */
+	public void stop(Consumer<Thread> wakeUp) {
+		synchronized (this.lifecycleMonitor) {
+			this.running = false;
+			this.started = true;
+			if (this.threads != null) {
+				for (Thread thread : this.threads) {
+					wakeUp.accept(thread);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Wait for the threads to terminate once the workers are {@link #stop(Consumer) stopped}.
+	 * The calling thread is not waited for, if it is one of the workers.
+	 * @param timeout the maximum time to wait, in milliseconds.
+	 * @return true if all the threads terminated, or were never started.
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	public boolean awaitTermination(long timeout) throws InterruptedException {
+		Thread[] threads;
+		synchronized (this.lifecycleMonitor) {
+			threads = this.threads;
+		}
+		if (threads == null) {
+			return true;
+		}
+		long deadline = System.currentTimeMillis() + timeout;
+		for (Thread thread : threads) {
+			if (thread != Thread.currentThread()) {
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining > 0) {
+					thread.join(remaining);
+				}
+				if (thread.isAlive()) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+}
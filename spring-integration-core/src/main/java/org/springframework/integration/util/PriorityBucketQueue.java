@@ -0,0 +1,289 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.util;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
+
+import org.springframework.util.Assert;
+
+/**
+ * An unbounded {@link BlockingQueue} for a bounded range of integer priorities.
+ * Each priority has its own lock-free FIFO bucket, so an insert is O(1) and does not
+ * contend with inserts of other priorities; a poll takes the head of the highest
+ * non-empty bucket. Elements with the same priority are returned in insertion order.
+ * Priorities outside the range are clamped to the nearest bound.
+ * <p>
+ * The lock is only used to park and signal consumers waiting on an empty queue.
+ * {@link #size()} and {@link #iterator()} are weakly consistent.
+ *
+ * @param <E> the element type.
+ *
+ * @since 5.1
+ */
+public class PriorityBucketQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+	private final Queue<E>[] buckets;
+
+	private final int minPriority;
+
+	private final ToIntFunction<? super E> priorityFunction;
+
+	private final AtomicInteger count = new AtomicInteger();
+
+	private final AtomicInteger waiters = new AtomicInteger();
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Condition notEmpty = this.lock.newCondition();
+
+	/**
+	 * Create a queue for the provided (inclusive) priority range.
+	 * @param minPriority the lowest priority.
+	 * @param maxPriority the highest priority.
+	 * @param priorityFunction the function to determine the priority of an element.
+	 */
+	@SuppressWarnings("unchecked")
+	public PriorityBucketQueue(int minPriority, int maxPriority, ToIntFunction<? super E> priorityFunction) {
+		Assert.isTrue(minPriority <= maxPriority, "'minPriority' must not be greater than 'maxPriority'");
+		Assert.isTrue((long) maxPriority - minPriority < 1024, "The priority range cannot exceed 1024 values");
+		Assert.notNull(priorityFunction, "'priorityFunction' must not be null");
+		this.minPriority = minPriority;
+		this.priorityFunction = priorityFunction;
+		this.buckets = new Queue[maxPriority - minPriority + 1];
+		for (int i = 0; i < this.buckets.length; i++) {
+			this.buckets[i] = new ConcurrentLinkedQueue<>();
+		}
+	}
+
+	@Override
+	public boolean offer(E e) {
+		Assert.notNull(e, "'e' must not be null");
+		int bucket = this.priorityFunction.applyAsInt(e) - this.minPriority;
+		bucket = Math.max(0, Math.min(this.buckets.length - 1, bucket));
+		this.buckets[bucket].offer(e);
+		this.count.incrementAndGet();
+		if (this.waiters.get() > 0) {
+			signalNotEmpty();
+		}
+		return true;
+	}
+
+	@Override
+	public void put(E e) {
+		offer(e);
+	}
+
+	@Override
+	public boolean offer(E e, long timeout, TimeUnit unit) {
+		return offer(e);
+	}
+
+	@Override
+	public E poll() {
+		for (int i = this.buckets.length - 1; i >= 0; i--) {
+			E e = this.buckets[i].poll();
+			if (e != null) {
+				this.count.decrementAndGet();
+				return e;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public E take() throws InterruptedException {
+		E e = poll();
+		if (e != null) {
+			return e;
+		}
+		this.lock.lockInterruptibly();
+		this.waiters.incrementAndGet();
+		try {
+			while ((e = poll()) == null) {
+				this.notEmpty.await();
+			}
+		}
+		finally {
+			this.waiters.decrementAndGet();
+			signalNextIfNotEmpty();
+			this.lock.unlock();
+		}
+		return e;
+	}
+
+	@Override
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		E e = poll();
+		if (e != null || timeout <= 0) {
+			return e;
+		}
+		long nanos = unit.toNanos(timeout);
+		this.lock.lockInterruptibly();
+		this.waiters.incrementAndGet();
+		try {
+			while ((e = poll()) == null && nanos > 0) {
+				nanos = this.notEmpty.awaitNanos(nanos);
+			}
+		}
+		finally {
+			this.waiters.decrementAndGet();
+			signalNextIfNotEmpty();
+			this.lock.unlock();
+		}
+		return e;
+	}
+
+	@Override
+	public E peek() {
+		for (int i = this.buckets.length - 1; i >= 0; i--) {
+			E e = this.buckets[i].peek();
+			if (e != null) {
+				return e;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public int size() {
+		return Math.max(0, this.count.get());
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return peek() == null;
+	}
+
+	@Override
+	public int remainingCapacity() {
+		return Integer.MAX_VALUE;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		for (Queue<E> bucket : this.buckets) {
+			if (bucket.remove(o)) {
+				this.count.decrementAndGet();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c) {
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c, int maxElements) {
+		Assert.notNull(c, "'c' must not be null");
+		Assert.isTrue(c != this, "Cannot drain a queue to itself");
+		int drained = 0;
+		E e;
+		while (drained < maxElements && (e = poll()) != null) {
+			c.add(e);
+			drained++;
+		}
+		return drained;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return new BucketIterator();
+	}
+
+	private void signalNotEmpty() {
+		this.lock.lock();
+		try {
+			this.notEmpty.signal();
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/*
+	 * A consumer woken by a signal may leave elements behind for other waiting
+	 * consumers whose producers saw no waiters; pass the signal on.
+	 */
+	private void signalNextIfNotEmpty() {
+		if (this.waiters.get() > 0 && peek() != null) {
+			this.notEmpty.signal();
+		}
+	}
+
+	private final class BucketIterator implements Iterator<E> {
+
+		private int bucket = PriorityBucketQueue.this.buckets.length - 1;
+
+		private Iterator<E> current = PriorityBucketQueue.this.buckets[this.bucket].iterator();
+
+		private Queue<E> lastBucket;
+
+		private E last;
+
+		BucketIterator() {
+			super();
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (!this.current.hasNext()) {
+				if (this.bucket == 0) {
+					return false;
+				}
+				this.current = PriorityBucketQueue.this.buckets[--this.bucket].iterator();
+			}
+			return true;
+		}
+
+		@Override
+		public E next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			this.lastBucket = PriorityBucketQueue.this.buckets[this.bucket];
+			this.last = this.current.next();
+			return this.last;
+		}
+
+		@Override
+		public void remove() {
+			Assert.state(this.last != null, "next() has not been called");
+			// a concurrent poll may have taken the element already
+			if (this.lastBucket.remove(this.last)) {
+				PriorityBucketQueue.this.count.decrementAndGet();
+			}
+			this.last = null;
+			this.lastBucket = null;
+		}
+
+	}
+
+}
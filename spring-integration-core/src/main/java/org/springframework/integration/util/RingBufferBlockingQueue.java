@@ -0,0 +1,325 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.util;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.util.Assert;
+
+/**
+ * A bounded, multi-producer/multi-consumer {@link BlockingQueue} backed by a preallocated
+ * array ring buffer. Offers and polls are lock-free (a single CAS each on the happy path)
+ * and do not allocate; blocked producers and consumers wait according to the configured
+ * {@link WaitStrategy} instead of being signalled.
+ * <p>
+ * Intended to be supplied to a {@link org.springframework.integration.channel.QueueChannel}
+ * for high-rate pollable channels:
+ * <pre class="code">
+ * new QueueChannel(new RingBufferBlockingQueue&lt;&gt;(1024, WaitStrategy.SPIN_THEN_PARK));
+ * </pre>
+ * Removal of an arbitrary element (e.g. {@code QueueChannel.purge()}) is supported by
+ * marking its slot as removed; the slot is reclaimed when it reaches the head of the queue.
+ * {@link #size()} and {@link #iterator()} are weakly consistent.
+ *
+ * @param <E> the element type.
+ *
+ * @since 5.1
+ */
+public class RingBufferBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+	private static final Object REMOVED = new Object();
+
+	private final int capacity;
+
+	private final int mask;
+
+	private final AtomicReferenceArray<Object> buffer;
+
+	private final AtomicLongArray sequences;
+
+	private final AtomicLong head = new AtomicLong();
+
+	private final AtomicLong tail = new AtomicLong();
+
+	private final AtomicInteger removed = new AtomicInteger();
+
+	private final WaitStrategy waitStrategy;
+
+	/**
+	 * Create a queue with the provided capacity and a {@link WaitStrategy#SPIN_THEN_PARK} wait strategy.
+	 * @param capacity the capacity.
+	 */
+	public RingBufferBlockingQueue(int capacity) {
+		this(capacity, WaitStrategy.SPIN_THEN_PARK);
+	}
+
+	/**
+	 * Create a queue with the provided capacity and wait strategy.
+	 * A power of 2 capacity avoids a modulo operation when calculating slot indexes.
+	 * @param capacity the capacity.
+	 * @param waitStrategy the {@link WaitStrategy} for blocked producers and consumers;
+	 * {@link WaitStrategy#BLOCKING} is not supported since waiting threads are not signalled.
+	 */
+	public RingBufferBlockingQueue(int capacity, WaitStrategy waitStrategy) {
+		Assert.isTrue(capacity > 0, "'capacity' must be greater than 0");
+		Assert.notNull(waitStrategy, "'waitStrategy' must not be null");
+		Assert.isTrue(waitStrategy != WaitStrategy.BLOCKING, "The BLOCKING wait strategy is not supported");
+		this.capacity = capacity;
+		this.mask = (capacity & (capacity - 1)) == 0 ? capacity - 1 : -1;
+		this.buffer = new AtomicReferenceArray<>(capacity);
+		this.sequences = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			this.sequences.set(i, i);
+		}
+		this.waitStrategy = waitStrategy;
+	}
+
+	public WaitStrategy getWaitStrategy() {
+		return this.waitStrategy;
+	}
+
+	@Override
+	public boolean offer(E e) {
+		Assert.notNull(e, "'e' must not be null");
+		long position = this.tail.get();
+		while (true) {
+			int index = index(position);
+			long difference = this.sequences.get(index) - position;
+			if (difference == 0) {
+				if (this.tail.compareAndSet(position, position + 1)) {
+					this.buffer.lazySet(index, e);
+					this.sequences.set(index, position + 1);
+					return true;
+				}
+			}
+			else if (difference < 0 && !reclaimRemovedHead()) {
+				return false;
+			}
+			position = this.tail.get();
+		}
+	}
+
+	@Override
+	public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		int attempt = 0;
+		while (!offer(e)) {
+			if (System.nanoTime() - deadline >= 0) {
+				return false;
+			}
+			attempt = idle(attempt);
+		}
+		return true;
+	}
+
+	@Override
+	public void put(E e) throws InterruptedException {
+		int attempt = 0;
+		while (!offer(e)) {
+			attempt = idle(attempt);
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E poll() {
+		Object item;
+		while ((item = pollSlot()) == REMOVED) {
+			this.removed.decrementAndGet();
+		}
+		return (E) item;
+	}
+
+	@Override
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		int attempt = 0;
+		E item;
+		while ((item = poll()) == null) {
+			if (System.nanoTime() - deadline >= 0) {
+				return null;
+			}
+			attempt = idle(attempt);
+		}
+		return item;
+	}
+
+	@Override
+	public E take() throws InterruptedException {
+		int attempt = 0;
+		E item;
+		while ((item = poll()) == null) {
+			attempt = idle(attempt);
+		}
+		return item;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E peek() {
+		long tail = this.tail.get();
+		for (long position = this.head.get(); position < tail; position++) {
+			Object item = this.buffer.get(index(position));
+			if (item != null && item != REMOVED) {
+				return (E) item;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Mark the first element equal to the provided one as removed.
+	 * @param o the element to remove.
+	 * @return true if an element was removed.
+	 */
+	@Override
+	public boolean remove(Object o) {
+		if (o == null) {
+			return false;
+		}
+		long tail = this.tail.get();
+		for (long position = this.head.get(); position < tail; position++) {
+			int index = index(position);
+			Object item = this.buffer.get(index);
+			if (item != null && item != REMOVED && o.equals(item) && this.buffer.compareAndSet(index, item, REMOVED)) {
+				this.removed.incrementAndGet();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public int size() {
+		long head = this.head.get();
+		long size = this.tail.get() - head - this.removed.get();
+		return (int) Math.max(0, Math.min(size, this.capacity));
+	}
+
+	/**
+	 * Return the number of free slots; a slot of a {@link #remove(Object) removed}
+	 * element is not free until it reaches the head of the queue.
+	 * @return the remaining capacity.
+	 */
+	@Override
+	public int remainingCapacity() {
+		long head = this.head.get();
+		long used = this.tail.get() - head;
+		return (int) Math.max(0, this.capacity - Math.min(used, this.capacity));
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c) {
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c, int maxElements) {
+		Assert.notNull(c, "'c' must not be null");
+		Assert.isTrue(c != this, "Cannot drain a queue to itself");
+		int drained = 0;
+		E item;
+		while (drained < maxElements && (item = poll()) != null) {
+			c.add(item);
+			drained++;
+		}
+		return drained;
+	}
+
+	/**
+	 * Return an iterator over a snapshot of the elements currently in the queue.
+	 * The iterator does not support {@code remove()}; use {@link #remove(Object)} instead.
+	 * @return the iterator.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public Iterator<E> iterator() {
+		List<E> snapshot = new ArrayList<>();
+		long tail = this.tail.get();
+		for (long position = this.head.get(); position < tail; position++) {
+			Object item = this.buffer.get(index(position));
+			if (item != null && item != REMOVED) {
+				snapshot.add((E) item);
+			}
+		}
+		return Collections.unmodifiableList(snapshot).iterator();
+	}
+
+	private Object pollSlot() {
+		long position = this.head.get();
+		while (true) {
+			int index = index(position);
+			long difference = this.sequences.get(index) - (position + 1);
+			if (difference == 0) {
+				if (this.head.compareAndSet(position, position + 1)) {
+					Object item = this.buffer.getAndSet(index, null);
+					this.sequences.lazySet(index, position + this.capacity);
+					return item;
+				}
+			}
+			else if (difference < 0) {
+				return null;
+			}
+			position = this.head.get();
+		}
+	}
+
+	/**
+	 * Release the head slot if it was marked as removed, so a producer
+	 * does not have to wait for a consumer to make room.
+	 */
+	private boolean reclaimRemovedHead() {
+		if (this.removed.get() <= 0) {
+			return false;
+		}
+		long position = this.head.get();
+		int index = index(position);
+		if (this.sequences.get(index) == position + 1 && this.buffer.get(index) == REMOVED
+				&& this.head.compareAndSet(position, position + 1)) {
+
+			this.buffer.set(index, null);
+			this.sequences.lazySet(index, position + this.capacity);
+			this.removed.decrementAndGet();
+			return true;
+		}
+		return false;
+	}
+
+	private int index(long position) {
+		return (int) (this.mask >= 0 ? position & this.mask : position % this.capacity);
+	}
+
+	private int idle(int attempt) throws InterruptedException {
+		if (Thread.interrupted()) {
+			throw new InterruptedException();
+		}
+		this.waitStrategy.idle(attempt);
+		return attempt < Integer.MAX_VALUE ? attempt + 1 : attempt;
+	}
+
+}
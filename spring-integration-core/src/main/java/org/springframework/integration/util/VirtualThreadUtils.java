@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ThreadFactory;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.util.Assert;
+
+/**
+ * Utility methods for running integration components on virtual threads
+ * ({@code Thread.ofVirtual()}) when the JVM supports them.
+ * <p>
+ * The framework is compiled for Java 8, so the virtual thread API is looked up
+ * reflectively once; on a JVM without virtual threads, {@link #virtualThreadFactory(String)}
+ * returns {@code null} and {@link #threadPerTaskExecutor(String)} falls back to
+ * platform threads.
+ *
+ * @since 5.1
+ */
+public final class VirtualThreadUtils {
+
+	private static final MethodHandle OF_VIRTUAL;
+
+	private static final MethodHandle NAME;
+
+	private static final MethodHandle FACTORY;
+
+	static {
+		MethodHandle ofVirtual = null;
+		MethodHandle name = null;
+		MethodHandle factory = null;
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			Class<?> ofVirtualClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+			ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(ofVirtualClass));
+			name = lookup.findVirtual(builderClass, "name",
+					MethodType.methodType(builderClass, String.class, long.class));
+			factory = lookup.findVirtual(builderClass, "factory", MethodType.methodType(ThreadFactory.class));
+		}
+		catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+			// no virtual threads on this JVM
+		}
+		OF_VIRTUAL = ofVirtual;
+		NAME = name;
+		FACTORY = factory;
+	}
+
+	private VirtualThreadUtils() {
+		super();
+	}
+
+	/**
+	 * Return true if the JVM supports virtual threads.
+	 * @return true if virtual threads are supported.
+	 */
+	public static boolean isVirtualThreadSupported() {
+		return OF_VIRTUAL != null;
+	}
+
+	/**
+	 * Create a {@link ThreadFactory} for virtual threads named with the provided prefix
+	 * and a sequence number. Plugging it into a fixed-size pool brings little benefit,
+	 * since the pool size still caps the number of blocked tasks; prefer
+	 * {@link #threadPerTaskExecutor(String)}.
+	 * @param threadNamePrefix the thread name prefix.
+	 * @return the thread factory, or {@code null} if virtual threads are not supported.
+	 */
+	public static ThreadFactory virtualThreadFactory(String threadNamePrefix) {
+		Assert.notNull(threadNamePrefix, "'threadNamePrefix' must not be null");
+		if (OF_VIRTUAL == null) {
+			return null;
+		}
+		try {
+			Object builder = OF_VIRTUAL.invoke();
+			builder = NAME.invoke(builder, threadNamePrefix, 1L);
+			return (ThreadFactory) FACTORY.invoke(builder);
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException("Failed to create a virtual thread factory", e);
+		}
+	}
+
+	/**
+	 * Create a {@link TaskExecutor} that starts a new thread for each task - a virtual
+	 * thread if supported, otherwise a platform thread. Intended for the
+	 * {@code taskExecutor} of an {@link org.springframework.integration.channel.ExecutorChannel}
+	 * or a poller when the handlers block on I/O: the number of concurrent tasks is not
+	 * capped by a pool size.
+	 * @param threadNamePrefix the thread name prefix.
+	 * @return the task executor.
+	 */
+	public static TaskExecutor threadPerTaskExecutor(String threadNamePrefix) {
+		ThreadFactory threadFactory = virtualThreadFactory(threadNamePrefix);
+		if (threadFactory != null) {
+			return new SimpleAsyncTaskExecutor(threadFactory);
+		}
+		return new SimpleAsyncTaskExecutor(threadNamePrefix);
+	}
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.util;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Strategies for a thread waiting on a lock-free data structure
+ * (e.g. {@link RingBufferBlockingQueue}) to make progress.
+ * The {@code attempt} argument is the number of consecutive unsuccessful attempts
+ * so far; it allows a strategy to back off the longer the thread has been idle.
+ *
+ * @since 5.1
+ */
+public enum WaitStrategy {
+
+	/**
+	 * Never give up the CPU; the lowest latency at the cost of a fully busy core per waiting thread.
+	 */
+	BUSY_SPIN {
+
+		@Override
+		public void idle(int attempt) {
+			// spin
+		}
+
+	},
+
+	/**
+	 * Spin for a while, then {@link Thread#yield()} on each further attempt.
+	 */
+	YIELDING {
+
+		@Override
+		public void idle(int attempt) {
+			if (attempt >= SPIN_ATTEMPTS) {
+				Thread.yield();
+			}
+		}
+
+	},
+
+	/**
+	 * Spin, then yield, then park the thread with an exponentially growing period
+	 * (capped at one millisecond); a good balance for pollers which may be idle for long periods.
+	 */
+	SPIN_THEN_PARK {
+
+		@Override
+		public void idle(int attempt) {
+			if (attempt >= SPIN_ATTEMPTS + YIELD_ATTEMPTS) {
+				int shift = Math.min(attempt - SPIN_ATTEMPTS - YIELD_ATTEMPTS, MAX_PARK_SHIFT);
+				LockSupport.parkNanos(MIN_PARK_NANOS << shift);
+			}
+			else if (attempt >= SPIN_ATTEMPTS) {
+				Thread.yield();
+			}
+		}
+
+	},
+
+	/**
+	 * Spin, then yield, then block until the data structure signals progress; no CPU
+	 * is used while idle. Only supported by data structures which signal their waiting
+	 * threads (e.g. the
+	 * {@link org.springframework.integration.channel.RingBufferPublishSubscribeChannel}),
+	 * which call {@link #isBlockingAfter(int)}; {@link #idle(int)} behaves as
+	 * {@link #SPIN_THEN_PARK}.
+	 */
+	BLOCKING {
+
+		@Override
+		public void idle(int attempt) {
+			SPIN_THEN_PARK.idle(attempt);
+		}
+
+		@Override
+		public boolean isBlockingAfter(int attempt) {
+			return attempt >= SPIN_ATTEMPTS + YIELD_ATTEMPTS;
+		}
+
+	};
+
+	private static final int SPIN_ATTEMPTS = 100;
+
+	private static final int YIELD_ATTEMPTS = 100;
+
+	private static final long MIN_PARK_NANOS = 1000;
+
+	private static final int MAX_PARK_SHIFT = 10;
+
+	/**
+	 * Wait, according to this strategy, before the next attempt.
+	 * @param attempt the number of consecutive unsuccessful attempts so far.
+	 */
+	public abstract void idle(int attempt);
+
+	/**
+	 * Return true if, according to this strategy, the thread should now block until it
+	 * is signalled instead of calling {@link #idle(int)}.
+	 * @param attempt the number of consecutive unsuccessful attempts so far.
+	 * @return true to block; only {@link #BLOCKING} ever does.
+	 */
+	public boolean isBlockingAfter(int attempt) {
+		return false;
+	}
+
+}
@@ -47,6 +47,7 @@ import org.springframework.integration.channel.DirectChannel;
 import org.springframework.integration.channel.QueueChannel;
 import org.springframework.integration.handler.AbstractMessageHandler;
 import org.springframework.integration.store.MessageGroup;
+import org.springframework.integration.store.MessageGroupSequenceInfo;
 import org.springframework.integration.store.SimpleMessageGroupFactory;
 import org.springframework.integration.store.SimpleMessageStore;
 import org.springframework.integration.support.MessageBuilder;
@@ -449,6 +450,35 @@ public class AggregatorTests {
 		assertThat((reply.getPayload()), is(105));
 	}
 
+	@Test
+	public void testIncrementalReleaseStrategy() {
+		List<Integer> counts = new ArrayList<>();
+		this.aggregator.setReleaseStrategy(new IncrementalReleaseStrategy() {
+
+			@Override
+			public boolean canRelease(Message<?> message, MessageGroupSequenceInfo sequenceInfo) {
+				counts.add(sequenceInfo.getCount());
+				return sequenceInfo.getMinSequenceNumber() == 1
+						&& sequenceInfo.getMaxSequenceNumber() == sequenceInfo.getSequenceSize()
+						&& sequenceInfo.getDistinctSequenceCount() == sequenceInfo.getSequenceSize();
+			}
+
+			@Override
+			public boolean canRelease(MessageGroup group) {
+				throw new IllegalStateException("The group's messages should not be inspected");
+			}
+
+		});
+		QueueChannel replyChannel = new QueueChannel();
+		this.aggregator.handleMessage(createMessage(3, "ABC", 3, 3, replyChannel, null));
+		this.aggregator.handleMessage(createMessage(5, "ABC", 3, 1, replyChannel, null));
+		assertNull(replyChannel.receive(0));
+		this.aggregator.handleMessage(createMessage(7, "ABC", 3, 2, replyChannel, null));
+		Message<?> reply = replyChannel.receive(10000);
+		assertNotNull(reply);
+		assertThat(reply.getPayload(), is(105));
+		assertThat(counts.toString(), is("[1, 2, 3]"));
+	}
 
 	private static Message<?> createMessage(Object payload, Object correlationId, int sequenceSize, int sequenceNumber,
 			MessageChannel replyChannel, String predefinedId) {
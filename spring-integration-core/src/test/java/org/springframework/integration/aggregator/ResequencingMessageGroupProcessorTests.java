@@ -25,7 +25,9 @@ import java.util.List;
 
 import org.junit.Test;
 
+import org.springframework.integration.store.MessageGroup;
 import org.springframework.integration.store.SimpleMessageGroup;
+import org.springframework.integration.store.SimpleMessageGroupFactory;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.messaging.Message;
 
@@ -70,4 +72,21 @@ public class ResequencingMessageGroupProcessorTests {
 		assertThat(processedMessages.size(), is(1));
 	}
 
+	@Test
+	public void shouldProcessSequenceIndexedGroupUpToGap() {
+		MessageGroup group = new SimpleMessageGroupFactory(SimpleMessageGroupFactory.GroupType.SEQUENCE_INDEXED)
+				.create("x");
+		for (int i : new int[] { 4, 2, 6, 1, 3 }) {
+			group.add(MessageBuilder.withPayload(i).setCorrelationId("x").setSequenceNumber(i).setSequenceSize(6)
+					.build());
+		}
+		assertThat(((SimpleMessageGroup) group).isSequenceOrdered(), is(true));
+		@SuppressWarnings("unchecked")
+		List<Message<?>> processedMessages = (List<Message<?>>) processor.processMessageGroup(group);
+		assertThat(processedMessages.size(), is(4));
+		for (int i = 0; i < 4; i++) {
+			assertThat((Integer) processedMessages.get(i).getPayload(), is(i + 1));
+		}
+	}
+
 }
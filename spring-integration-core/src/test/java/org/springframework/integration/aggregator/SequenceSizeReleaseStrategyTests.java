@@ -16,6 +16,7 @@
 
 package org.springframework.integration.aggregator;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -133,4 +134,29 @@ public class SequenceSizeReleaseStrategyTests {
 		assertTrue(releaseStrategy.canRelease(messages));
 	}
 
+	@Test
+	public void shouldReleaseIncrementallyFromSequenceInfo() {
+		SequenceSizeReleaseStrategy releaseStrategy = new SequenceSizeReleaseStrategy();
+		SimpleMessageGroup messages = new SimpleMessageGroup("FOO");
+		for (int i = 3; i > 0; i--) {
+			Message<String> message = MessageBuilder.withPayload("test" + i)
+					.setSequenceSize(3)
+					.setSequenceNumber(i)
+					.build();
+			messages.add(message);
+			assertEquals(i == 1, releaseStrategy.canRelease(message, messages.getSequenceInfo()));
+			assertEquals(releaseStrategy.canRelease(messages),
+					releaseStrategy.canRelease(message, messages.getSequenceInfo()));
+		}
+
+		releaseStrategy.setReleasePartialSequences(true);
+		Message<?> third = messages.getOne();
+		messages.remove(third);
+		assertTrue(releaseStrategy.canRelease(third, messages.getSequenceInfo()));
+		assertTrue(releaseStrategy.canRelease(messages));
+		messages.setLastReleasedMessageSequenceNumber(1);
+		assertFalse(releaseStrategy.canRelease(third, messages.getSequenceInfo()));
+		assertFalse(releaseStrategy.canRelease(messages));
+	}
+
 }
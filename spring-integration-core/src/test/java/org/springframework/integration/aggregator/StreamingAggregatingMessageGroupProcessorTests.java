@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.aggregator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.codec.kryo.MessageCodec;
+import org.springframework.integration.store.MessageGroup;
+import org.springframework.integration.store.OffHeapMessageStore;
+import org.springframework.integration.store.SimpleMessageGroup;
+import org.springframework.integration.support.AbstractIntegrationMessageBuilder;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+
+/**
+ * @since 5.1
+ */
+public class StreamingAggregatingMessageGroupProcessorTests {
+
+	@Test
+	public void testCollectPayloadsAndHeaders() {
+		SimpleMessageGroup group = new SimpleMessageGroup("group");
+		for (int i = 0; i < 3; i++) {
+			group.add(MessageBuilder.withPayload(i)
+					.setHeader("common", "foo")
+					.setHeader("conflict", i)
+					.build());
+		}
+		StreamingAggregatingMessageGroupProcessor processor =
+				new StreamingAggregatingMessageGroupProcessor(
+						Collectors.mapping(Object::toString, Collectors.joining(",")));
+		Message<?> result = ((AbstractIntegrationMessageBuilder<?>) processor.processMessageGroup(group)).build();
+		assertThat(result.getPayload()).isEqualTo("0,1,2");
+		assertThat(result.getHeaders().get("common")).isEqualTo("foo");
+		assertThat(result.getHeaders()).doesNotContainKey("conflict");
+
+		processor.setAggregateHeaders(false);
+		result = ((AbstractIntegrationMessageBuilder<?>) processor.processMessageGroup(group)).build();
+		assertThat(result.getPayload()).isEqualTo("0,1,2");
+		assertThat(result.getHeaders()).doesNotContainKey("common");
+	}
+
+	@Test
+	public void testAggregatorStreamsPersistentGroup() {
+		OffHeapMessageStore store = new OffHeapMessageStore(new MessageCodec()) {
+
+			@Override
+			public Collection<Message<?>> getMessagesForGroup(Object groupId) {
+				throw new IllegalStateException("The group must not be loaded");
+			}
+
+		};
+		try {
+			AggregatingMessageHandler handler =
+					new AggregatingMessageHandler(new StreamingAggregatingMessageGroupProcessor(
+							Collectors.summingInt(payload -> (Integer) payload)), store);
+			QueueChannel outputChannel = new QueueChannel();
+			handler.setOutputChannel(outputChannel);
+			handler.setBeanFactory(mock(BeanFactory.class));
+			handler.afterPropertiesSet();
+			for (int i = 1; i <= 100; i++) {
+				handler.handleMessage(MessageBuilder.withPayload(i)
+						.setCorrelationId("group")
+						.setSequenceNumber(i)
+						.setSequenceSize(100)
+						.build());
+			}
+			Message<?> result = outputChannel.receive(0);
+			assertThat(result).isNotNull();
+			assertThat(result.getPayload()).isEqualTo(5050);
+			MessageGroup group = store.getMessageGroup("group");
+			assertThat(group.size()).isEqualTo(0);
+			assertThat(group.isComplete()).isTrue();
+			assertThat(store.getMessageCount()).isEqualTo(0);
+		}
+		finally {
+			store.destroy();
+		}
+	}
+
+}
@@ -29,19 +29,29 @@ import static org.mockito.BDDMockito.willThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.Test;
 
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
 import org.springframework.integration.dispatcher.RoundRobinLoadBalancingStrategy;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.util.PartitionedExecutor;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageDeliveryException;
@@ -235,6 +245,37 @@ public class ExecutorChannelTests {
 		}
 	}
 
+	@Test
+	public void testPartitionedExecutorPreservesOrderPerKey() throws InterruptedException {
+		PartitionedExecutor executor = new PartitionedExecutor(4);
+		ExecutorChannel channel = new ExecutorChannel(executor);
+		channel.setBeanFactory(mock(BeanFactory.class));
+		channel.afterPropertiesSet();
+		BeforeHandleInterceptor interceptor = new BeforeHandleInterceptor();
+		channel.addInterceptor(interceptor);
+		int keys = 10;
+		int messagesPerKey = 100;
+		CountDownLatch latch = new CountDownLatch(keys * messagesPerKey);
+		Map<Object, List<Object>> received = new ConcurrentHashMap<>();
+		channel.subscribe(m -> {
+			received.computeIfAbsent(new IntegrationMessageHeaderAccessor(m).getCorrelationId(),
+					k -> Collections.synchronizedList(new ArrayList<>()))
+					.add(m.getPayload());
+			latch.countDown();
+		});
+		for (int i = 0; i < messagesPerKey; i++) {
+			for (int key = 0; key < keys; key++) {
+				channel.send(MessageBuilder.withPayload(i).setCorrelationId(key).build());
+			}
+		}
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		assertEquals(keys, received.size());
+		List<Object> expected = IntStream.range(0, messagesPerKey).boxed().collect(Collectors.toList());
+		received.values().forEach(payloads -> assertEquals(expected, payloads));
+		assertEquals(keys * messagesPerKey, interceptor.getCounter().get());
+		executor.destroy();
+	}
+
 
 	private static class TestHandler implements MessageHandler {
 
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.channel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.integration.dsl.MessageChannels;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.support.GenericMessage;
+
+/**
+ * @since 5.1
+ */
+public class PartitionedChannelTests {
+
+	@Test
+	public void testOrderPreservedPerKey() throws InterruptedException {
+		PartitionedChannel channel = MessageChannels.partitioned(4)
+				.partitionKeyExpression("headers.customer")
+				.get();
+		channel.setCountsEnabled(true);
+		channel.setBeanFactory(mock(BeanFactory.class));
+		channel.afterPropertiesSet();
+		int keys = 10;
+		int messagesPerKey = 100;
+		CountDownLatch latch = new CountDownLatch(keys * messagesPerKey);
+		Map<Object, List<Object>> received = new ConcurrentHashMap<>();
+		channel.subscribe(m -> {
+			Object customer = m.getHeaders().get("customer");
+			received.computeIfAbsent(customer, k -> Collections.synchronizedList(new ArrayList<>()))
+					.add(m.getPayload());
+			latch.countDown();
+		});
+		for (int i = 0; i < messagesPerKey; i++) {
+			for (int key = 0; key < keys; key++) {
+				channel.send(MessageBuilder.withPayload(i).setHeader("customer", "customer" + key).build());
+			}
+		}
+		assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+		List<Object> expected = IntStream.range(0, messagesPerKey).boxed().collect(Collectors.toList());
+		assertThat(received).hasSize(keys);
+		received.values().forEach(payloads -> assertThat(payloads).isEqualTo(expected));
+		assertThat(handledCount(channel)).isEqualTo(keys * messagesPerKey);
+		channel.destroy();
+	}
+
+	private static long handledCount(PartitionedChannel channel) {
+		return IntStream.range(0, channel.getPartitionCount())
+				.mapToLong(i -> channel.getPartitionMetrics(i).getSendCountLong())
+				.sum();
+	}
+
+	@Test
+	public void testBackpressurePerPartition() throws InterruptedException {
+		PartitionedChannel channel = new PartitionedChannel(2, 1);
+		channel.setPartitionKeyFunction(Message::getPayload);
+		channel.setBeanFactory(mock(BeanFactory.class));
+		channel.afterPropertiesSet();
+		CountDownLatch handling = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch other = new CountDownLatch(1);
+		channel.subscribe(m -> {
+			if (m.getPayload().equals(0)) {
+				handling.countDown();
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			else {
+				other.countDown();
+			}
+		});
+		assertThat(channel.send(new GenericMessage<>(0))).isTrue();
+		assertThat(handling.await(10, TimeUnit.SECONDS)).isTrue();
+		// one message fits in the queue of the blocked partition, the next one is rejected
+		assertThat(channel.send(new GenericMessage<>(0), 0)).isTrue();
+		assertThat(channel.send(new GenericMessage<>(0), 10)).isFalse();
+		// the other partition is not affected
+		assertThat(channel.send(new GenericMessage<>(1), 0)).isTrue();
+		assertThat(other.await(10, TimeUnit.SECONDS)).isTrue();
+		release.countDown();
+		channel.destroy();
+	}
+
+	@Test
+	public void testErrorHandler() throws InterruptedException {
+		PartitionedChannel channel = new PartitionedChannel(2);
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		CountDownLatch latch = new CountDownLatch(1);
+		channel.setErrorHandler(t -> {
+			error.set(t);
+			latch.countDown();
+		});
+		channel.setCountsEnabled(true);
+		channel.setBeanFactory(mock(BeanFactory.class));
+		channel.afterPropertiesSet();
+		channel.subscribe(m -> {
+			throw new IllegalStateException("test");
+		});
+		channel.send(new GenericMessage<>("foo"));
+		assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(error.get()).isInstanceOf(MessagingException.class);
+		assertThat(error.get().getCause()).isInstanceOf(IllegalStateException.class);
+		int errors = 0;
+		for (int i = 0; i < channel.getPartitionCount(); i++) {
+			errors += channel.getPartitionMetrics(i).getSendErrorCount();
+		}
+		assertThat(errors).isEqualTo(1);
+		channel.destroy();
+	}
+
+	@Test
+	public void testDestroyLetsCurrentMessageComplete() throws InterruptedException {
+		PartitionedChannel channel = new PartitionedChannel(1);
+		channel.setBeanFactory(mock(BeanFactory.class));
+		channel.afterPropertiesSet();
+		CountDownLatch handling = new CountDownLatch(1);
+		AtomicReference<Boolean> interrupted = new AtomicReference<>();
+		List<Object> handled = Collections.synchronizedList(new ArrayList<>());
+		channel.subscribe(m -> {
+			handling.countDown();
+			try {
+				Thread.sleep(200);
+				interrupted.set(false);
+			}
+			catch (InterruptedException e) {
+				interrupted.set(true);
+			}
+			handled.add(m.getPayload());
+		});
+		channel.send(new GenericMessage<>("foo"));
+		channel.send(new GenericMessage<>("bar"));
+		assertThat(handling.await(10, TimeUnit.SECONDS)).isTrue();
+		channel.destroy();
+		assertThat(interrupted.get()).isFalse();
+		assertThat(handled).containsExactly("foo");
+
+		channel = new PartitionedChannel(1);
+		channel.setShutdownTimeout(10);
+		channel.setBeanFactory(mock(BeanFactory.class));
+		channel.afterPropertiesSet();
+		CountDownLatch blocked = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(1);
+		channel.subscribe(m -> {
+			blocked.countDown();
+			try {
+				Thread.sleep(10_000);
+				interrupted.set(false);
+			}
+			catch (InterruptedException e) {
+				interrupted.set(true);
+			}
+			done.countDown();
+		});
+		channel.send(new GenericMessage<>("baz"));
+		assertThat(blocked.await(10, TimeUnit.SECONDS)).isTrue();
+		channel.destroy();
+		assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(interrupted.get()).isTrue();
+	}
+
+}
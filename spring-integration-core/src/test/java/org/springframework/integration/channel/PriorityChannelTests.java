@@ -23,6 +23,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Comparator;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -53,6 +54,42 @@ public class PriorityChannelTests {
 		assertTrue(channel.send(new GenericMessage<>("test5")));
 	}
 
+	@Test
+	public void testBatchReceive() {
+		PriorityChannel channel = new PriorityChannel(3);
+		channel.send(MessageBuilder.withPayload("low").setPriority(1).build());
+		channel.send(MessageBuilder.withPayload("high").setPriority(9).build());
+		channel.send(MessageBuilder.withPayload("normal").setPriority(5).build());
+		assertFalse(channel.send(new GenericMessage<>("atCapacity"), 0));
+		List<Message<?>> received = channel.receive(3, 0);
+		assertEquals(3, received.size());
+		assertEquals("high", received.get(0).getPayload());
+		assertEquals("normal", received.get(1).getPayload());
+		assertEquals("low", received.get(2).getPayload());
+		assertEquals(3, channel.getRemainingCapacity());
+	}
+
+	@Test
+	public void testPriorityRange() {
+		PriorityChannel channel = new PriorityChannel(5, 0, 9);
+		channel.send(createPriorityMessage(-3));
+		channel.send(new GenericMessage<>("none"));
+		channel.send(createPriorityMessage(12));
+		channel.send(createPriorityMessage(5));
+		channel.send(createPriorityMessage(9));
+		assertFalse(channel.send(createPriorityMessage(9), 0));
+		assertEquals(0, channel.getRemainingCapacity());
+		assertEquals("test:12", channel.receive(0).getPayload());
+		assertEquals("test:9", channel.receive(0).getPayload());
+		List<Message<?>> received = channel.receive(3, 0);
+		assertEquals(3, received.size());
+		assertEquals("test:5", received.get(0).getPayload());
+		assertEquals("test:-3", received.get(1).getPayload());
+		assertEquals("none", received.get(2).getPayload());
+		assertEquals(5, channel.getRemainingCapacity());
+		assertNull(channel.receive(0));
+	}
+
 	@Test
 	public void testDefaultComparatorWithTimestampFallback() {
 		PriorityChannel channel = new PriorityChannel();
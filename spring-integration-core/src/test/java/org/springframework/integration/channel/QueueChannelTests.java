@@ -19,8 +19,10 @@ package org.springframework.integration.channel;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -34,6 +36,7 @@ import org.junit.rules.TemporaryFolder;
 
 import org.springframework.integration.selector.UnexpiredMessageSelector;
 import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.util.RingBufferBlockingQueue;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.support.GenericMessage;
 
@@ -224,6 +227,50 @@ public class QueueChannelTests {
 		assertTrue(channel.send(new GenericMessage<String>("roomAvailable"), 0));
 	}
 
+	@Test
+	public void testRingBufferQueue() {
+		QueueChannel channel = new QueueChannel(new RingBufferBlockingQueue<>(2));
+		Message<String> message1 = new GenericMessage<>("test1");
+		Message<String> message2 = new GenericMessage<>("test2");
+		assertTrue(channel.send(message1, 0));
+		assertTrue(channel.send(message2, 0));
+		assertFalse(channel.send(new GenericMessage<>("atCapacity"), 0));
+		assertEquals(2, channel.getQueueSize());
+		assertEquals(0, channel.getRemainingCapacity());
+		List<Message<?>> purgedMessages = channel.purge(m -> m != message1);
+		assertEquals(1, purgedMessages.size());
+		assertEquals(1, channel.getQueueSize());
+		assertTrue(channel.send(new GenericMessage<>("roomAvailable"), 0));
+		assertEquals("test2", channel.receive(0).getPayload());
+		assertEquals("roomAvailable", channel.receive(0).getPayload());
+		assertNull(channel.receive(0));
+	}
+
+	@Test
+	public void testBatchReceive() {
+		QueueChannel channel = new QueueChannel(5);
+		List<Message<String>> messages = Arrays.asList(new GenericMessage<>("test1"),
+				new GenericMessage<>("test2"), new GenericMessage<>("test3"));
+		assertEquals(3, channel.sendAll(messages));
+		List<Message<?>> received = channel.receive(2, 0);
+		assertEquals(2, received.size());
+		assertEquals("test1", received.get(0).getPayload());
+		assertEquals("test2", received.get(1).getPayload());
+		received = channel.receive(10, 0);
+		assertEquals(1, received.size());
+		assertEquals("test3", received.get(0).getPayload());
+		assertTrue(channel.receive(10, 0).isEmpty());
+	}
+
+	@Test
+	public void testSendAllStopsAtCapacity() {
+		QueueChannel channel = new QueueChannel(2);
+		List<Message<String>> messages = Arrays.asList(new GenericMessage<>("test1"),
+				new GenericMessage<>("test2"), new GenericMessage<>("test3"));
+		assertEquals(2, channel.sendAll(messages, 10));
+		assertEquals(2, channel.getQueueSize());
+	}
+
 	@Rule
 	public final TemporaryFolder tempFolder = new TemporaryFolder();
 
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.channel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.integration.channel.RingBufferPublishSubscribeChannel.SlowConsumerPolicy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.support.GenericMessage;
+
+/**
+ * @since 5.1
+ */
+public class RingBufferPublishSubscribeChannelTests {
+
+	@Test
+	public void testFanOutInOrderWithSequence() throws InterruptedException {
+		RingBufferPublishSubscribeChannel channel = new RingBufferPublishSubscribeChannel(16);
+		channel.setApplySequence(true);
+		channel.setBeanFactory(mock(BeanFactory.class));
+		channel.afterPropertiesSet();
+		channel.start();
+		int subscribers = 3;
+		int messages = 1000;
+		CountDownLatch latch = new CountDownLatch(subscribers * messages);
+		List<List<Message<?>>> received = new ArrayList<>();
+		for (int i = 0; i < subscribers; i++) {
+			List<Message<?>> list = Collections.synchronizedList(new ArrayList<>());
+			received.add(list);
+			channel.subscribe(m -> {
+				list.add(m);
+				latch.countDown();
+			});
+		}
+		for (int i = 0; i < messages; i++) {
+			assertThat(channel.send(new GenericMessage<>(i))).isTrue();
+		}
+		assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+		List<Object> expected = IntStream.range(0, messages).boxed().collect(Collectors.toList());
+		for (int i = 0; i < subscribers; i++) {
+			List<Message<?>> list = received.get(i);
+			assertThat(list.stream().map(Message::getPayload).collect(Collectors.toList())).isEqualTo(expected);
+			IntegrationMessageHeaderAccessor accessor = new IntegrationMessageHeaderAccessor(list.get(0));
+			assertThat(accessor.getSequenceNumber()).isEqualTo(i + 1);
+			assertThat(accessor.getSequenceSize()).isEqualTo(subscribers);
+		}
+		channel.destroy();
+	}
+
+	@Test
+	public void testSlowConsumerPolicy() throws InterruptedException {
+		RingBufferPublishSubscribeChannel channel = new RingBufferPublishSubscribeChannel(2);
+		channel.setBeanFactory(mock(BeanFactory.class));
+		channel.afterPropertiesSet();
+		channel.start();
+		CountDownLatch handling = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		channel.subscribe(m -> {
+			handling.countDown();
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertThat(channel.send(new GenericMessage<>("first"))).isTrue();
+		assertThat(handling.await(10, TimeUnit.SECONDS)).isTrue();
+		// the subscriber has not finished with the first message, so the buffer holds two messages
+		assertThat(channel.send(new GenericMessage<>("second"), 0)).isTrue();
+		assertThat(channel.getBacklog()).isEqualTo(2);
+		assertThat(channel.send(new GenericMessage<>("blocked"), 10)).isFalse();
+		channel.setSlowConsumerPolicy(SlowConsumerPolicy.REJECT);
+		assertThat(channel.send(new GenericMessage<>("rejected"))).isFalse();
+		release.countDown();
+		channel.destroy();
+	}
+
+	@Test
+	public void testFailures() throws InterruptedException {
+		RingBufferPublishSubscribeChannel channel = new RingBufferPublishSubscribeChannel();
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		CountDownLatch errorLatch = new CountDownLatch(1);
+		channel.setErrorHandler(t -> {
+			error.set(t);
+			errorLatch.countDown();
+		});
+		channel.setBeanFactory(mock(BeanFactory.class));
+		channel.afterPropertiesSet();
+		channel.start();
+		CountDownLatch otherLatch = new CountDownLatch(2);
+		channel.subscribe(m -> {
+			throw new IllegalStateException("test");
+		});
+		channel.subscribe(m -> otherLatch.countDown());
+		channel.send(new GenericMessage<>("foo"));
+		assertThat(errorLatch.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(error.get()).isInstanceOf(MessagingException.class);
+		assertThat(((MessagingException) error.get()).getFailedMessage().getPayload()).isEqualTo("foo");
+		assertThat(error.get().getCause()).isInstanceOf(IllegalStateException.class);
+		error.set(null);
+		channel.setIgnoreFailures(true);
+		channel.send(new GenericMessage<>("bar"));
+		assertThat(otherLatch.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(error.get()).isNull();
+		channel.destroy();
+	}
+
+	@Test
+	public void testIdleSubscribersBlockAndLifecycle() throws InterruptedException {
+		RingBufferPublishSubscribeChannel channel = new RingBufferPublishSubscribeChannel(16);
+		List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+		channel.setThreadFactory(r -> {
+			Thread thread = new Thread(r);
+			threads.add(thread);
+			return thread;
+		});
+		channel.setBeanFactory(mock(BeanFactory.class));
+		channel.afterPropertiesSet();
+		BlockingQueue<Message<?>> received = new LinkedBlockingQueue<>();
+		channel.subscribe(received::add);
+		assertThat(threads).isEmpty();
+		channel.start();
+		assertThat(channel.isRunning()).isTrue();
+		assertThat(threads).hasSize(1);
+		Thread thread = threads.get(0);
+		int n = 0;
+		while (n++ < 100 && thread.getState() != Thread.State.WAITING) {
+			Thread.sleep(100);
+		}
+		assertThat(thread.getState()).isEqualTo(Thread.State.WAITING);
+		assertThat(channel.send(new GenericMessage<>("foo"))).isTrue();
+		assertThat(received.poll(10, TimeUnit.SECONDS).getPayload()).isEqualTo("foo");
+
+		channel.stop();
+		thread.join(10000);
+		assertThat(thread.isAlive()).isFalse();
+		assertThat(channel.send(new GenericMessage<>("bar"))).isTrue();
+		assertThat(received.poll(100, TimeUnit.MILLISECONDS)).isNull();
+		channel.start();
+		assertThat(received.poll(10, TimeUnit.SECONDS).getPayload()).isEqualTo("bar");
+		channel.destroy();
+		assertThat(channel.isRunning()).isFalse();
+	}
+
+}
@@ -184,6 +184,26 @@ public class ChannelInterceptorTests {
 		assertFalse(interceptor2.wasAfterCompletionInvoked());
 	}
 
+	@Test
+	public void afterCompletionWhenInterceptorRemovedDuringSend() {
+		AfterCompletionTestInterceptor interceptor1 = new AfterCompletionTestInterceptor() {
+
+			@Override
+			public Message<?> preSend(Message<?> message, MessageChannel channel) {
+				ChannelInterceptorTests.this.channel.removeInterceptor(this);
+				return super.preSend(message, channel);
+			}
+
+		};
+		AfterCompletionTestInterceptor interceptor2 = new AfterCompletionTestInterceptor();
+		this.channel.addInterceptor(interceptor1);
+		this.channel.addInterceptor(interceptor2);
+		assertTrue(this.channel.send(MessageBuilder.withPayload("test").build()));
+		assertEquals(1, this.channel.getChannelInterceptors().size());
+		assertTrue(interceptor1.wasAfterCompletionInvoked());
+		assertTrue(interceptor2.wasAfterCompletionInvoked());
+	}
+
 	@Test
 	public void testPreReceiveInterceptorReturnsTrue() {
 		PreReceiveReturnsTrueInterceptor interceptor = new PreReceiveReturnsTrueInterceptor();
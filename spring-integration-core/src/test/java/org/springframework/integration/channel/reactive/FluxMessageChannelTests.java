@@ -19,20 +19,24 @@ package org.springframework.integration.channel.reactive;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.isOneOf;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.reactivestreams.Subscription;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -48,6 +52,7 @@ import org.springframework.integration.dsl.context.IntegrationFlowContext;
 import org.springframework.integration.test.util.TestUtils;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
 import org.springframework.messaging.MessagingException;
 import org.springframework.messaging.PollableChannel;
 import org.springframework.messaging.support.GenericMessage;
@@ -55,6 +60,7 @@ import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import reactor.core.publisher.BaseSubscriber;
 import reactor.core.publisher.Flux;
 
 /**
@@ -141,6 +147,150 @@ public class FluxMessageChannelTests {
 		flowRegistration.destroy();
 	}
 
+	@Test
+	public void testBufferWaitsForDemand() {
+		FluxMessageChannel channel = new FluxMessageChannel(2);
+		channel.setOverflowStrategy(FluxMessageChannel.OverflowStrategy.DROP_LATEST);
+		List<Object> received = new CopyOnWriteArrayList<>();
+		LazySubscriber subscriber = new LazySubscriber(received);
+		channel.subscribe(subscriber);
+
+		for (int i = 0; i < 5; i++) {
+			assertTrue(channel.send(new GenericMessage<>(i)));
+		}
+		// one message is prefetched by the shared flux, two are buffered, the rest are dropped
+		assertEquals(2, channel.getBufferedCount());
+		assertEquals(2, channel.getDroppedCount());
+		assertTrue(received.isEmpty());
+
+		subscriber.request(10);
+		assertThat(received, contains(0, 1, 2));
+		assertEquals(0, channel.getBufferedCount());
+
+		assertTrue(channel.send(new GenericMessage<>(5)));
+		assertThat(received, contains(0, 1, 2, 5));
+		subscriber.dispose();
+	}
+
+	@Test
+	public void testBufferOverflowStrategies() {
+		FluxMessageChannel channel = new FluxMessageChannel(1);
+		List<Object> received = new CopyOnWriteArrayList<>();
+		LazySubscriber subscriber = new LazySubscriber(received);
+		channel.subscribe(subscriber);
+
+		assertTrue(channel.send(new GenericMessage<>(0)));
+		assertTrue(channel.send(new GenericMessage<>(1)));
+		assertFalse(channel.send(new GenericMessage<>(2), 10));
+
+		channel.setOverflowStrategy(FluxMessageChannel.OverflowStrategy.DROP_OLDEST);
+		assertTrue(channel.send(new GenericMessage<>(3)));
+		assertEquals(1, channel.getDroppedCount());
+
+		channel.setOverflowStrategy(FluxMessageChannel.OverflowStrategy.ERROR);
+		try {
+			channel.send(new GenericMessage<>(4));
+			fail("MessageDeliveryException expected");
+		}
+		catch (MessageDeliveryException e) {
+			assertEquals(4, e.getFailedMessage().getPayload());
+		}
+
+		subscriber.request(10);
+		assertThat(received, contains(0, 3));
+		subscriber.dispose();
+	}
+
+	@Test
+	public void testBlockedSendResumesOnDemand() throws InterruptedException {
+		FluxMessageChannel channel = new FluxMessageChannel(1);
+		List<Object> received = new CopyOnWriteArrayList<>();
+		LazySubscriber subscriber = new LazySubscriber(received);
+		channel.subscribe(subscriber);
+
+		assertTrue(channel.send(new GenericMessage<>(0)));
+		assertTrue(channel.send(new GenericMessage<>(1)));
+
+		CountDownLatch sent = new CountDownLatch(1);
+		new Thread(() -> {
+			if (channel.send(new GenericMessage<>(2), 10000)) {
+				sent.countDown();
+			}
+		}).start();
+		assertFalse(sent.await(100, TimeUnit.MILLISECONDS));
+
+		subscriber.request(1);
+		assertTrue(sent.await(10, TimeUnit.SECONDS));
+		subscriber.request(10);
+		assertThat(received, contains(0, 1, 2));
+		subscriber.dispose();
+	}
+
+	@Test
+	public void testSubscriberCanSendBackToChannel() {
+		FluxMessageChannel channel = new FluxMessageChannel(1);
+		assertEquals(Integer.MAX_VALUE, new FluxMessageChannel().getBufferSize());
+		List<Object> received = new CopyOnWriteArrayList<>();
+		channel.subscribe(new BaseSubscriber<Message<?>>() {
+
+			@Override
+			protected void hookOnNext(Message<?> message) {
+				int payload = (int) message.getPayload();
+				received.add(payload);
+				if (payload < 5) {
+					channel.send(new GenericMessage<>(payload + 1));
+					channel.send(new GenericMessage<>(payload + 10));
+				}
+			}
+
+		});
+
+		assertTrue(channel.send(new GenericMessage<>(0)));
+		assertThat(received, contains(0, 1, 10, 2, 11, 3, 12, 4, 13, 5, 14));
+		assertEquals(0, channel.getBufferedCount());
+	}
+
+	@Test
+	public void testSendIsNotBlockedBySlowSubscriber() throws InterruptedException {
+		FluxMessageChannel channel = new FluxMessageChannel();
+		CountDownLatch inSubscriber = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(2);
+		List<Object> received = new CopyOnWriteArrayList<>();
+		channel.subscribe(new BaseSubscriber<Message<?>>() {
+
+			@Override
+			protected void hookOnNext(Message<?> message) {
+				inSubscriber.countDown();
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				received.add(message.getPayload());
+				done.countDown();
+			}
+
+		});
+
+		new Thread(() -> channel.send(new GenericMessage<>(0))).start();
+		assertTrue(inSubscriber.await(10, TimeUnit.SECONDS));
+
+		CountDownLatch sent = new CountDownLatch(1);
+		new Thread(() -> {
+			if (channel.send(new GenericMessage<>(1))) {
+				sent.countDown();
+			}
+		}).start();
+		assertTrue(sent.await(10, TimeUnit.SECONDS));
+		assertEquals(1, channel.getBufferedCount());
+
+		release.countDown();
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		assertThat(received, contains(0, 1));
+	}
+
 	@Configuration
 	@EnableIntegration
 	public static class TestConfiguration {
@@ -170,4 +320,24 @@ public class FluxMessageChannelTests {
 
 	}
 
+	private static class LazySubscriber extends BaseSubscriber<Message<?>> {
+
+		private final List<Object> received;
+
+		LazySubscriber(List<Object> received) {
+			this.received = received;
+		}
+
+		@Override
+		protected void hookOnSubscribe(Subscription subscription) {
+			// no initial demand
+		}
+
+		@Override
+		protected void hookOnNext(Message<?> message) {
+			this.received.add(message.getPayload());
+		}
+
+	}
+
 }
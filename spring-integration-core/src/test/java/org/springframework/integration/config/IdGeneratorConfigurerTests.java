@@ -20,10 +20,12 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Test;
 
@@ -32,6 +34,7 @@ import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.context.support.GenericApplicationContext;
 import org.springframework.integration.support.IdGenerators.JdkIdGenerator;
 import org.springframework.integration.support.IdGenerators.SimpleIncrementingIdGenerator;
+import org.springframework.integration.support.IdGenerators.TimeOrderedIdGenerator;
 import org.springframework.integration.test.util.TestUtils;
 import org.springframework.messaging.MessageHeaders;
 import org.springframework.util.IdGenerator;
@@ -204,6 +207,32 @@ public class IdGeneratorConfigurerTests {
 		context.close();
 	}
 
+	@Test
+	public void testTimeOrdered() throws Exception {
+		GenericApplicationContext context = new GenericApplicationContext();
+		context.registerBeanDefinition("bfpp", new RootBeanDefinition(DefaultConfiguringBeanFactoryPostProcessor.class));
+		RootBeanDefinition generator = new RootBeanDefinition(TimeOrderedIdGenerator.class);
+		generator.getConstructorArgumentValues().addGenericArgumentValue(42);
+		context.registerBeanDefinition("foo", generator);
+		context.refresh();
+		long before = System.currentTimeMillis();
+		UUID id1 = new MessageHeaders(null).getId();
+		UUID id2 = new MessageHeaders(null).getId();
+		long after = System.currentTimeMillis();
+		assertEquals(42, id1.getMostSignificantBits() & 0xffff);
+		assertTrue((id1.getMostSignificantBits() >>> 16) >= before);
+		assertTrue((id2.getMostSignificantBits() >>> 16) <= after);
+		assertTrue(id1.compareTo(id2) <= 0);
+		assertEquals(id1.getLeastSignificantBits() + 1, id2.getLeastSignificantBits());
+		AtomicReference<UUID> otherThreadId = new AtomicReference<>();
+		Thread thread = new Thread(() -> otherThreadId.set(new MessageHeaders(null).getId()));
+		thread.start();
+		thread.join(10000);
+		assertNotEquals(id1.getLeastSignificantBits() >>> 32, otherThreadId.get().getLeastSignificantBits() >>> 32);
+
+		context.close();
+	}
+
 	public static class MyIdGenerator implements IdGenerator {
 
 		@Override
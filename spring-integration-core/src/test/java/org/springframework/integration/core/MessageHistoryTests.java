@@ -29,13 +29,16 @@ import java.util.Properties;
 import org.junit.Test;
 
 import org.springframework.integration.history.MessageHistory;
+import org.springframework.integration.history.MessageHistoryConfigurer;
 import org.springframework.integration.message.AdviceMessage;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.integration.support.MutableMessage;
 import org.springframework.integration.support.context.NamedComponent;
+import org.springframework.integration.test.util.TestUtils;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.support.ErrorMessage;
 import org.springframework.messaging.support.GenericMessage;
+import org.springframework.util.SerializationUtils;
 
 /**
  * @author Mark Fisher
@@ -58,6 +61,64 @@ public class MessageHistoryTests {
 		assertEquals("testComponent-1,testComponent-2", history2.toString());
 	}
 
+	@Test
+	public void testMaxEntries() {
+		MessageHistoryConfigurer configurer = new MessageHistoryConfigurer();
+		configurer.setMaxEntries(2);
+		try {
+			Message<String> message = new GenericMessage<>("foo");
+			message = MessageHistory.write(message, new TestComponent(1));
+			assertEquals("testComponent-1", MessageHistory.read(message).toString());
+			for (int i = 2; i <= 10; i++) {
+				MessageHistory previousHistory = MessageHistory.read(message);
+				String previousNames = previousHistory.toString();
+				message = MessageHistory.write(message, new TestComponent(i));
+				assertEquals("testComponent-" + (i - 1) + ",testComponent-" + i,
+						MessageHistory.read(message).toString());
+				assertEquals(previousNames, previousHistory.toString());
+			}
+			MessageHistory history = MessageHistory.read(message);
+			assertEquals(2, history.size());
+			assertEquals("type-10", history.get(1).getProperty(MessageHistory.TYPE_PROPERTY));
+			assertNotNull(history.get(1).getProperty(MessageHistory.TIMESTAMP_PROPERTY));
+		}
+		finally {
+			configurer.setMaxEntries(Integer.MAX_VALUE);
+		}
+	}
+
+	@Test
+	public void testRenderedHistoryDropsPreviousRecords() {
+		Message<String> message = MessageHistory.write(new GenericMessage<>("foo"), new TestComponent(1));
+		MessageHistory first = MessageHistory.read(message);
+		assertEquals("testComponent-1", first.toString());
+		message = MessageHistory.write(message, new TestComponent(2));
+		message = MessageHistory.write(message, new TestComponent(3));
+		MessageHistory history = MessageHistory.read(message);
+		assertNotNull(TestUtils.getPropertyValue(history, "components.previous"));
+		assertEquals("testComponent-1,testComponent-2,testComponent-3", history.toString());
+		assertNull(TestUtils.getPropertyValue(history, "components.previous"));
+		assertSame(first.get(0), history.get(0));
+		message = MessageHistory.write(message, new TestComponent(4));
+		assertEquals("testComponent-1,testComponent-2,testComponent-3,testComponent-4",
+				MessageHistory.read(message).toString());
+		assertSame(history.get(2), MessageHistory.read(message).get(2));
+	}
+
+	@Test
+	public void testSerialization() {
+		Message<String> message = MessageHistory.write(new GenericMessage<>("foo"), new TestComponent(1));
+		message = MessageHistory.write(message, new TestComponent(2));
+		@SuppressWarnings("unchecked")
+		Message<String> deserialized = (Message<String>) SerializationUtils.deserialize(
+				SerializationUtils.serialize(message));
+		MessageHistory history = MessageHistory.read(deserialized);
+		assertEquals("testComponent-1,testComponent-2", history.toString());
+		assertEquals(MessageHistory.read(message).get(0), history.get(0));
+		message = MessageHistory.write(deserialized, new TestComponent(3));
+		assertEquals("testComponent-1,testComponent-2,testComponent-3", MessageHistory.read(message).toString());
+	}
+
 	@Test(expected = UnsupportedOperationException.class)
 	public void verifyImmutability() {
 		Message<?> message = MessageHistory.write(MessageBuilder.withPayload("test").build(), new TestComponent(1));
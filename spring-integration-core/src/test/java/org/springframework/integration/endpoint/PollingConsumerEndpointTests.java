@@ -16,9 +16,17 @@
 
 package org.springframework.integration.endpoint;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.After;
@@ -28,6 +36,10 @@ import org.mockito.Mockito;
 
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.integration.MessageRejectedException;
+import org.springframework.integration.channel.BatchPollableChannel;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.store.MessageGroupQueue;
+import org.springframework.integration.store.SimpleMessageStore;
 import org.springframework.integration.support.MessagingExceptionWrapper;
 import org.springframework.integration.test.util.OnlyOnceTrigger;
 import org.springframework.messaging.Message;
@@ -169,6 +181,98 @@ public class PollingConsumerEndpointTests {
 		assertEquals(1, this.consumer.counter.get());
 	}
 
+	@Test
+	public void batchReceive() {
+		BatchPollableChannel batchChannel = mock(BatchPollableChannel.class);
+		Mockito.when(batchChannel.receive(5, -1))
+				.thenReturn(Arrays.asList(this.message, this.message, this.message), Collections.emptyList());
+		this.endpoint = new PollingConsumer(batchChannel, this.consumer);
+		this.endpoint.setTaskScheduler(this.taskScheduler);
+		this.endpoint.setTrigger(this.trigger);
+		this.endpoint.setBeanFactory(mock(BeanFactory.class));
+		this.endpoint.setReceiveTimeout(-1);
+		this.endpoint.setMaxMessagesPerPoll(5);
+		this.endpoint.setBatchReceive(true);
+		this.endpoint.afterPropertiesSet();
+		this.endpoint.start();
+		this.trigger.await();
+		this.endpoint.stop();
+		assertEquals(3, this.consumer.counter.get());
+		Mockito.verify(batchChannel, Mockito.times(2)).receive(5, -1);
+		Mockito.verify(batchChannel, Mockito.never()).receive();
+	}
+
+	@Test
+	public void batchReceivePrefetchedMessagesAreSentBackOnStop() throws InterruptedException {
+		BatchPollableChannel batchChannel = mock(BatchPollableChannel.class);
+		Mockito.when(batchChannel.receive(5, -1))
+				.thenReturn(Arrays.asList(this.message, this.message, this.message), Collections.emptyList());
+		Mockito.when(batchChannel.send(this.message, 0)).thenReturn(true);
+		AtomicInteger handled = new AtomicInteger();
+		CountDownLatch handling = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		this.endpoint = new PollingConsumer(batchChannel, m -> {
+			handled.incrementAndGet();
+			handling.countDown();
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		this.endpoint.setTaskScheduler(this.taskScheduler);
+		this.endpoint.setTrigger(this.trigger);
+		this.endpoint.setBeanFactory(mock(BeanFactory.class));
+		this.endpoint.setReceiveTimeout(-1);
+		this.endpoint.setMaxMessagesPerPoll(5);
+		this.endpoint.setBatchReceive(true);
+		this.endpoint.afterPropertiesSet();
+		this.endpoint.start();
+		assertTrue(handling.await(10, TimeUnit.SECONDS));
+		this.endpoint.stop();
+		release.countDown();
+		Mockito.verify(batchChannel, Mockito.times(2)).send(this.message, 0);
+		assertEquals(1, handled.get());
+	}
+
+	@Test
+	public void batchReceiveIsOptIn() {
+		BatchPollableChannel batchChannel = mock(BatchPollableChannel.class);
+		Mockito.when(batchChannel.receive()).thenReturn(this.message, this.message, null);
+		this.endpoint = new PollingConsumer(batchChannel, this.consumer);
+		this.endpoint.setTaskScheduler(this.taskScheduler);
+		this.endpoint.setTrigger(this.trigger);
+		this.endpoint.setBeanFactory(mock(BeanFactory.class));
+		this.endpoint.setReceiveTimeout(-1);
+		this.endpoint.setMaxMessagesPerPoll(5);
+		this.endpoint.afterPropertiesSet();
+		this.endpoint.start();
+		this.trigger.await();
+		this.endpoint.stop();
+		assertEquals(2, this.consumer.counter.get());
+		Mockito.verify(batchChannel, Mockito.never()).receive(Mockito.anyInt(), Mockito.anyLong());
+	}
+
+	@Test
+	public void batchReceiveIsRefusedForPersistentChannel() {
+		QueueChannel storeChannel = new QueueChannel(new MessageGroupQueue(new SimpleMessageStore(), "batch"));
+		this.endpoint = new PollingConsumer(storeChannel, this.consumer);
+		this.endpoint.setTaskScheduler(this.taskScheduler);
+		this.endpoint.setTrigger(this.trigger);
+		this.endpoint.setBeanFactory(mock(BeanFactory.class));
+		this.endpoint.setMaxMessagesPerPoll(5);
+		this.endpoint.setBatchReceive(true);
+		this.endpoint.afterPropertiesSet();
+		try {
+			this.endpoint.start();
+			fail("IllegalStateException expected");
+		}
+		catch (IllegalStateException e) {
+			assertThat(e.getMessage(), containsString("persistent channel"));
+		}
+	}
+
 
 	private static class TestConsumer implements MessageHandler {
 
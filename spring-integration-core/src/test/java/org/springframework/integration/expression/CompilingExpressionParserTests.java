@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.expression;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import org.springframework.expression.Expression;
+import org.springframework.expression.common.TemplateParserContext;
+import org.springframework.expression.spel.SpelParserConfiguration;
+
+/**
+ * @since 5.1
+ */
+public class CompilingExpressionParserTests {
+
+	@Test
+	public void testExpressionsAreShared() {
+		CompilingExpressionParser parser = new CompilingExpressionParser();
+		Expression expression = parser.parseExpression("#root.toUpperCase()");
+		assertThat(parser.parseExpression("#root.toUpperCase()")).isSameAs(expression);
+		assertThat(new CompilingExpressionParser().parseExpression("#root.toUpperCase()")).isNotSameAs(expression);
+		assertThat(parser.parseExpression("#{'foo'}", new TemplateParserContext()))
+				.isNotInstanceOf(CompilingSpelExpression.class);
+		assertThat(parser.getExpressions()).containsExactly((CompilingSpelExpression) expression);
+	}
+
+	@Test
+	public void testCompileAndRevert() {
+		CompilingExpressionParser parser = new CompilingExpressionParser();
+		parser.setCompileThreshold(2);
+		CompilingSpelExpression expression = (CompilingSpelExpression) parser.parseExpression("#root.length()");
+		assertThat(expression.getValue("foo")).isEqualTo(3);
+		assertThat(expression.isCompiled()).isFalse();
+		assertThat(expression.getValue("foo")).isEqualTo(3);
+		assertThat(expression.isCompiled()).isTrue();
+		assertThat(expression.getValue("quux")).isEqualTo(4);
+
+		// The compiled form expects a String root object
+		assertThat(expression.getValue(new StringBuilder("bar"))).isEqualTo(3);
+		assertThat(expression.isCompiled()).isFalse();
+		assertThat(expression.getCompiledEvaluationFailureCount()).isEqualTo(1);
+		assertThat(expression.getEvaluationCount()).isEqualTo(4);
+	}
+
+	@Test
+	public void testStopCompilingAfterFailures() {
+		CompilingExpressionParser parser = new CompilingExpressionParser();
+		parser.setCompileThreshold(1);
+		parser.setMaxCompileFailures(2);
+		CompilingSpelExpression expression = (CompilingSpelExpression) parser.parseExpression("#root.length()");
+		for (int i = 0; i < 10; i++) {
+			Object root = i % 2 == 0 ? "foo" : new StringBuilder("foo");
+			assertThat(expression.getValue(root)).isEqualTo(3);
+		}
+		assertThat(expression.getCompiledEvaluationFailureCount()).isEqualTo(2);
+		assertThat(expression.isCompiled()).isFalse();
+	}
+
+	@Test
+	public void testCompilerModeProperty() {
+		String property = SpelParserConfiguration.SPRING_EXPRESSION_COMPILER_MODE_PROPERTY_NAME;
+		try {
+			System.setProperty(property, "off");
+			CompilingExpressionParser parser = new CompilingExpressionParser();
+			assertThat(parser.isCompilerOff()).isTrue();
+			Expression expression = parser.parseExpression("#root.length()");
+			assertThat(expression).isNotInstanceOf(CompilingSpelExpression.class);
+			assertThat(expression.getValue("foo")).isEqualTo(3);
+			assertThat(parser.getExpressions()).isEmpty();
+
+			System.setProperty(property, "immediate");
+			parser = new CompilingExpressionParser();
+			assertThat(parser.isCompilerOff()).isFalse();
+			CompilingSpelExpression compiling = (CompilingSpelExpression) parser.parseExpression("#root.length()");
+			assertThat(compiling.getValue("foo")).isEqualTo(3);
+			assertThat(compiling.isCompiled()).isTrue();
+		}
+		finally {
+			System.clearProperty(property);
+		}
+		assertThat(new CompilingExpressionParser().getCompileThreshold())
+				.isEqualTo(CompilingExpressionParser.DEFAULT_COMPILE_THRESHOLD);
+	}
+
+	@Test
+	public void testStatistics() {
+		CompilingExpressionParser parser = new CompilingExpressionParser();
+		CompilingSpelExpression cold = (CompilingSpelExpression) parser.parseExpression("#root.trim()");
+		CompilingSpelExpression hot = (CompilingSpelExpression) parser.parseExpression("#root.toLowerCase()");
+		cold.getValue("FOO");
+		for (int i = 0; i < 10; i++) {
+			hot.getValue("FOO");
+		}
+		assertThat(parser.getExpressions()).containsExactly(hot, cold);
+		assertThat(hot.getTotalEvaluationTime()).isEqualTo(0);
+
+		parser.setStatsEnabled(true);
+		cold.getValue("FOO");
+		assertThat(cold.getTotalEvaluationTime()).isGreaterThan(0);
+		assertThat(parser.getExpressions()).containsExactly(cold, hot);
+	}
+
+}
@@ -82,8 +82,10 @@ import org.springframework.messaging.MessageHandlingException;
 import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.MessagingException;
 import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Headers;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.support.GenericMessage;
+import org.springframework.util.Assert;
 import org.springframework.util.StopWatch;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -1027,6 +1029,39 @@ public class MethodInvokingMessageProcessorTests {
 		assertEquals("Foo,Bar", result);
 	}
 
+	@Test
+	public void testMethodHandleInvoker() throws Exception {
+
+		class A {
+
+			@SuppressWarnings("unused")
+			public String handle(@Payload String payload, @Header("number") int number,
+					@Headers Map<String, Object> headers) {
+
+				Assert.state(number >= 0, "negative");
+				return payload + number + headers.get("number");
+			}
+
+		}
+
+		MessagingMethodInvokerHelper<?> helper = new MessagingMethodInvokerHelper<>(new A(),
+				A.class.getDeclaredMethod("handle", String.class, int.class, Map.class), false);
+		helper.setUseMethodHandleInvoker(true);
+		assertEquals("foo11", helper.process(MessageBuilder.withPayload("foo").setHeader("number", 1).build()));
+		assertNotNull(TestUtils.getPropertyValue(helper, "handlerMethod.methodHandleInvoker"));
+
+		// Needs conversion: falls back to the InvocableHandlerMethod
+		assertEquals("4222", helper.process(MessageBuilder.withPayload(42).setHeader("number", "2").build()));
+
+		try {
+			helper.process(MessageBuilder.withPayload("foo").setHeader("number", -1).build());
+			fail("Expected IllegalStateException");
+		}
+		catch (IllegalStateException e) {
+			assertEquals("negative", e.getMessage());
+		}
+	}
+
 	public static class Employee<T> {
 
 		private T entity;
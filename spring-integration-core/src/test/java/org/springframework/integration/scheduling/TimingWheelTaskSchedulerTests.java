@@ -0,0 +1,175 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.integration.scheduling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.integration.aggregator.ResequencingMessageGroupProcessor;
+import org.springframework.integration.aggregator.ResequencingMessageHandler;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.context.IntegrationContextUtils;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.test.util.TestUtils;
+import org.springframework.messaging.Message;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * @since 5.1
+ */
+public class TimingWheelTaskSchedulerTests {
+
+	private ThreadPoolTaskScheduler taskScheduler;
+
+	private TimingWheelTaskScheduler timingWheel;
+
+	@Before
+	public void setup() {
+		this.taskScheduler = new ThreadPoolTaskScheduler();
+		this.taskScheduler.afterPropertiesSet();
+		this.timingWheel = new TimingWheelTaskScheduler(this.taskScheduler, 10, 8);
+	}
+
+	@After
+	public void tearDown() {
+		this.timingWheel.destroy();
+		this.taskScheduler.destroy();
+	}
+
+	@Test
+	public void testScheduleAndCancel() throws Exception {
+		Map<Integer, Long> runTimes = new ConcurrentHashMap<>();
+		long start = System.currentTimeMillis();
+		List<ScheduledFuture<?>> futures = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			int id = i;
+			// delays beyond one wheel revolution (80ms) to exercise the remaining rounds
+			futures.add(this.timingWheel.schedule(() -> runTimes.put(id, System.currentTimeMillis()),
+					new Date(start + (i % 20) * 7)));
+		}
+		assertThat(this.timingWheel.getScheduledCount()).isEqualTo(100);
+		for (int i = 0; i < 100; i += 2) {
+			assertThat(futures.get(i).cancel(false)).isTrue();
+		}
+		assertThat(this.timingWheel.getScheduledCount()).isEqualTo(50);
+		for (int i = 1; i < 100; i += 2) {
+			futures.get(i).get(10, TimeUnit.SECONDS);
+			assertThat(futures.get(i).isDone()).isTrue();
+			assertThat(futures.get(i).cancel(false)).isFalse();
+		}
+		assertThat(this.timingWheel.getScheduledCount()).isEqualTo(0);
+		assertThat(runTimes).hasSize(50);
+		runTimes.forEach((id, time) -> {
+			assertThat(id % 2).isEqualTo(1);
+			assertThat(time).isGreaterThanOrEqualTo(start + (id % 20) * 7);
+		});
+		assertThat(futures.get(0).isCancelled()).isTrue();
+		assertThatThrownBy(() -> futures.get(0).get())
+				.isInstanceOf(CancellationException.class);
+	}
+
+	@Test
+	public void testFailedTask() {
+		ScheduledFuture<?> future = this.timingWheel.schedule(() -> {
+			throw new IllegalStateException("expected");
+		}, new Date());
+		assertThatThrownBy(() -> future.get(10, TimeUnit.SECONDS))
+				.isInstanceOf(ExecutionException.class)
+				.hasCauseInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	public void testSlowTaskDoesNotHoldBackOthers() throws Exception {
+		this.taskScheduler.setPoolSize(2);
+		CountDownLatch release = new CountDownLatch(1);
+		Date now = new Date();
+		this.timingWheel.schedule(() -> {
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}, now);
+		ScheduledFuture<?> other = this.timingWheel.schedule(() -> { }, now);
+		other.get(5, TimeUnit.SECONDS);
+		assertThat(other.isDone()).isTrue();
+		release.countDown();
+	}
+
+	@Test
+	public void testDestroyCancelsScheduledTasks() {
+		ScheduledFuture<?> future = this.timingWheel.schedule(() -> { },
+				new Date(System.currentTimeMillis() + 60_000));
+		this.timingWheel.destroy();
+		assertThat(future.isCancelled()).isTrue();
+		assertThat(this.timingWheel.getScheduledCount()).isEqualTo(0);
+		assertThatThrownBy(() -> future.get(10, TimeUnit.SECONDS))
+				.isInstanceOf(CancellationException.class);
+	}
+
+	@Test
+	public void testSharedTimingWheelForGroupTimeout() throws Exception {
+		TestUtils.TestApplicationContext context = TestUtils.createTestApplicationContext();
+		context.registerBean(IntegrationContextUtils.TIMING_WHEEL_TASK_SCHEDULER_BEAN_NAME, this.timingWheel);
+		context.refresh();
+
+		ResequencingMessageHandler resequencer = new ResequencingMessageHandler(new ResequencingMessageGroupProcessor());
+		resequencer.setGroupTimeoutExpression(new SpelExpressionParser().parseExpression("50"));
+		QueueChannel discardChannel = new QueueChannel();
+		resequencer.setDiscardChannel(discardChannel);
+		resequencer.setOutputChannel(new QueueChannel());
+		resequencer.setBeanFactory(context);
+		resequencer.afterPropertiesSet();
+		assertThat(TestUtils.getPropertyValue(resequencer, "taskScheduler")).isSameAs(this.timingWheel);
+
+		resequencer.handleMessage(createMessage(3));
+		resequencer.handleMessage(createMessage(2));
+		assertThat(this.timingWheel.getScheduledCount()).isEqualTo(1);
+		assertThat(discardChannel.receive(10000)).isNotNull();
+		assertThat(discardChannel.receive(10000)).isNotNull();
+		assertThat(this.timingWheel.getScheduledCount()).isEqualTo(0);
+		context.close();
+	}
+
+	private static Message<?> createMessage(int sequenceNumber) {
+		return MessageBuilder.withPayload("foo")
+				.setHeader(IntegrationMessageHeaderAccessor.CORRELATION_ID, "ABC")
+				.setSequenceNumber(sequenceNumber)
+				.setSequenceSize(3)
+				.build();
+	}
+
+}
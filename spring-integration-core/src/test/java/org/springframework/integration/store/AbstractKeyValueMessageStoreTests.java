@@ -0,0 +1,179 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+
+/**
+ * @since 5.1
+ */
+public class AbstractKeyValueMessageStoreTests {
+
+	private final MapMessageStore store = new MapMessageStore();
+
+	@Test
+	public void testNearCacheServesGroupReads() {
+		this.store.setNearCacheSize(100);
+		Message<?> message1 = MessageBuilder.withPayload("foo").setSequenceNumber(1).build();
+		Message<?> message2 = MessageBuilder.withPayload("bar").setSequenceNumber(2).build();
+		this.store.addMessageToGroup("group", message1);
+		this.store.addMessageToGroup("group", message2);
+		this.store.retrieveCount = 0;
+
+		assertThat(this.store.messageGroupSize("group")).isEqualTo(2);
+		assertThat(this.store.getMessagesForGroup("group")).containsExactly(message1, message2);
+		assertThat(this.store.getOneMessageFromGroup("group")).isEqualTo(message1);
+		assertThat(this.store.retrieveCount).isEqualTo(0);
+		assertThat(this.store.getNearCacheHitCount()).isGreaterThan(0);
+
+		this.store.removeMessagesFromGroup("group", message1);
+		assertThat(this.store.getMessagesForGroup("group")).containsExactly(message2);
+		assertThat(this.store.getMessage(message1.getHeaders().getId())).isNull();
+		assertThat(this.store.retrieveCount).isEqualTo(1);
+
+		this.store.completeGroup("group");
+		assertThat(this.store.getMessageGroup("group").isComplete()).isTrue();
+
+		this.store.removeMessageGroup("group");
+		assertThat(this.store.messageGroupSize("group")).isEqualTo(0);
+		assertThat(this.store.getMessage(message2.getHeaders().getId())).isNull();
+	}
+
+	@Test
+	public void testCachedMetadataIsNotShared() {
+		this.store.setNearCacheSize(100);
+		Message<?> message = MessageBuilder.withPayload("foo").build();
+		this.store.addMessageToGroup("group", message);
+		MessageGroupMetadata metadata = this.store.getGroupMetadata("group");
+		metadata.remove(message.getHeaders().getId());
+		assertThat(this.store.messageGroupSize("group")).isEqualTo(1);
+	}
+
+	@Test
+	public void testRemovalDuringCacheMissIsNotCached() {
+		Message<?> message = MessageBuilder.withPayload("foo").build();
+		this.store.addMessageToGroup("group", message);
+		this.store.setNearCacheSize(100);
+		// the group is removed after the cache miss has read it, but before it is cached
+		this.store.afterRetrieve = () -> this.store.removeMessageGroup("group");
+		assertThat(this.store.messageGroupSize("group")).isEqualTo(1);
+		assertThat(this.store.afterRetrieve).isNull();
+		assertThat(this.store.messageGroupSize("group")).isEqualTo(0);
+		assertThat(this.store.getGroupMetadata("group")).isNull();
+
+		this.store.addMessageToGroup("group", message);
+		this.store.setNearCacheSize(100);
+		this.store.afterRetrieve = () -> this.store.removeMessage(message.getHeaders().getId());
+		assertThat(this.store.getMessage(message.getHeaders().getId())).isNotNull();
+		assertThat(this.store.getMessage(message.getHeaders().getId())).isNull();
+
+		this.store.retrieveCount = 0;
+		assertThat(this.store.messageGroupSize("group")).isEqualTo(1);
+		assertThat(this.store.messageGroupSize("group")).isEqualTo(1);
+		assertThat(this.store.retrieveCount).isEqualTo(1);
+	}
+
+	@Test
+	public void testNearCacheEviction() throws Exception {
+		this.store.setNearCacheSize(2);
+		this.store.setNearCacheTimeToLive(50);
+		for (int i = 0; i < 3; i++) {
+			this.store.addMessageToGroup("group" + i, MessageBuilder.withPayload(i).build());
+		}
+		this.store.retrieveCount = 0;
+		this.store.messageGroupSize("group0");
+		assertThat(this.store.retrieveCount).isEqualTo(1);
+		this.store.messageGroupSize("group0");
+		assertThat(this.store.retrieveCount).isEqualTo(1);
+		Thread.sleep(100);
+		this.store.messageGroupSize("group0");
+		assertThat(this.store.retrieveCount).isEqualTo(2);
+	}
+
+	@Test
+	public void testNoNearCacheByDefault() {
+		this.store.addMessageToGroup("group", MessageBuilder.withPayload("foo").build());
+		this.store.retrieveCount = 0;
+		this.store.messageGroupSize("group");
+		this.store.messageGroupSize("group");
+		assertThat(this.store.retrieveCount).isEqualTo(2);
+		assertThat(this.store.getNearCacheHitCount()).isEqualTo(0);
+	}
+
+	private static class MapMessageStore extends AbstractKeyValueMessageStore {
+
+		private final Map<Object, Object> map = new HashMap<>();
+
+		private int retrieveCount;
+
+		private Runnable afterRetrieve;
+
+		@Override
+		protected Object doRetrieve(Object id) {
+			this.retrieveCount++;
+			Object object = this.map.get(id);
+			Runnable callback = this.afterRetrieve;
+			if (callback != null) {
+				this.afterRetrieve = null;
+				callback.run();
+			}
+			return object;
+		}
+
+		@Override
+		protected void doStore(Object id, Object objectToStore) {
+			this.map.put(id, objectToStore);
+		}
+
+		@Override
+		protected void doStoreIfAbsent(Object id, Object objectToStore) {
+			this.map.putIfAbsent(id, objectToStore);
+		}
+
+		@Override
+		protected Object doRemove(Object id) {
+			return this.map.remove(id);
+		}
+
+		@Override
+		protected void doRemoveAll(Collection<Object> ids) {
+			ids.forEach(this.map::remove);
+		}
+
+		@Override
+		protected Collection<?> doListKeys(String keyPattern) {
+			String prefix = keyPattern.replace("*", "");
+			return this.map.keySet()
+					.stream()
+					.map(Object::toString)
+					.filter(key -> key.startsWith(prefix))
+					.collect(Collectors.toList());
+		}
+
+	}
+
+}
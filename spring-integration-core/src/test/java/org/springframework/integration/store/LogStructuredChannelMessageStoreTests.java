@@ -0,0 +1,183 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.codec.kryo.MessageCodec;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.test.util.TestUtils;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.GenericMessage;
+
+/**
+ * @since 5.1
+ */
+public class LogStructuredChannelMessageStoreTests {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private LogStructuredChannelMessageStore store;
+
+	@After
+	public void tearDown() {
+		if (this.store != null) {
+			this.store.destroy();
+		}
+	}
+
+	@Test
+	public void testQueueChannelSurvivesRestart() {
+		this.store = createStore(LogStructuredChannelMessageStore.DEFAULT_SEGMENT_SIZE);
+		QueueChannel channel = new QueueChannel(new MessageGroupQueue(this.store, "channel"));
+		channel.send(new GenericMessage<>("foo"));
+		channel.send(new GenericMessage<>("bar"));
+		channel.send(new GenericMessage<>("baz"));
+		assertThat(channel.receive(0).getPayload()).isEqualTo("foo");
+		this.store.destroy();
+
+		this.store = createStore(LogStructuredChannelMessageStore.DEFAULT_SEGMENT_SIZE);
+		channel = new QueueChannel(new MessageGroupQueue(this.store, "channel"));
+		assertThat(channel.getQueueSize()).isEqualTo(2);
+		assertThat(channel.receive(0).getPayload()).isEqualTo("bar");
+		assertThat(channel.receive(0).getPayload()).isEqualTo("baz");
+		assertThat(channel.receive(0)).isNull();
+	}
+
+	@Test
+	public void testPriority() {
+		this.store = new LogStructuredChannelMessageStore(this.temporaryFolder.getRoot(), new MessageCodec());
+		this.store.setPriorityEnabled(true);
+		this.store.afterPropertiesSet();
+		this.store.addMessageToGroup("group", new GenericMessage<>("none"));
+		this.store.addMessageToGroup("group", priorityMessage("low", 1));
+		this.store.addMessageToGroup("group", priorityMessage("high", 9));
+		this.store.addMessageToGroup("group", priorityMessage("low2", 1));
+		assertThat(this.store.pollMessageFromGroup("group").getPayload()).isEqualTo("high");
+		assertThat(this.store.pollMessageFromGroup("group").getPayload()).isEqualTo("low");
+		assertThat(this.store.pollMessageFromGroup("group").getPayload()).isEqualTo("low2");
+		assertThat(this.store.pollMessageFromGroup("group").getPayload()).isEqualTo("none");
+	}
+
+	@Test
+	public void testSegmentsAreCompacted() {
+		this.store = createStore(1024);
+		this.store.addMessageToGroup("slow", new GenericMessage<>("first"));
+		for (int i = 0; i < 1000; i++) {
+			this.store.addMessageToGroup("fast", new GenericMessage<>("foo" + i));
+			this.store.pollMessageFromGroup("fast");
+		}
+		assertThat(this.store.getSegmentCount()).isLessThanOrEqualTo(2);
+		assertThat(this.temporaryFolder.getRoot().list()).hasSize(this.store.getSegmentCount());
+		this.store.destroy();
+
+		this.store = createStore(1024);
+		assertThat(this.store.getMessageCountForAllMessageGroups()).isEqualTo(1);
+		assertThat(this.store.pollMessageFromGroup("slow").getPayload()).isEqualTo("first");
+	}
+
+	@Test
+	public void testRelocatedRecordsAreForcedBeforeSegmentIsDeleted() {
+		this.store = createStore(1024);
+		this.store.setForceOnAdd(false);
+		this.store.addMessageToGroup("slow", new GenericMessage<>("first"));
+		File firstSegment = this.temporaryFolder.getRoot().listFiles()[0];
+		for (int i = 0; firstSegment.exists(); i++) {
+			assertThat(i).isLessThan(1000);
+			this.store.addMessageToGroup("fast", new GenericMessage<>("foo" + i));
+			this.store.pollMessageFromGroup("fast");
+		}
+		assertThat(TestUtils.getPropertyValue(this.store, "forcedPosition", Long.class))
+				.isEqualTo(TestUtils.getPropertyValue(this.store, "writePosition", Long.class));
+		LogStructuredChannelMessageStore compacted = this.store;
+
+		this.store = createStore(1024);
+		compacted.destroy();
+		assertThat(this.store.getMessageCountForAllMessageGroups()).isEqualTo(1);
+		assertThat(this.store.pollMessageFromGroup("slow").getPayload()).isEqualTo("first");
+	}
+
+	@Test
+	public void testTornRecordIsDiscarded() throws Exception {
+		this.store = createStore(LogStructuredChannelMessageStore.DEFAULT_SEGMENT_SIZE);
+		this.store.addMessageToGroup("group", new GenericMessage<>("foo"));
+		this.store.destroy();
+		File[] segments = this.temporaryFolder.getRoot().listFiles();
+		assertThat(segments).hasSize(1);
+		try (RandomAccessFile file = new RandomAccessFile(segments[0], "rw")) {
+			int length = 0;
+			for (long position = 0; ; position += 8 + length) {
+				file.seek(position);
+				length = file.readInt();
+				if (length == 0) {
+					file.seek(position);
+					file.writeInt(100);
+					file.writeInt(42);
+					break;
+				}
+			}
+		}
+
+		this.store = createStore(LogStructuredChannelMessageStore.DEFAULT_SEGMENT_SIZE);
+		assertThat(this.store.messageGroupSize("group")).isEqualTo(1);
+		this.store.addMessageToGroup("group", new GenericMessage<>("bar"));
+		this.store.destroy();
+
+		this.store = createStore(LogStructuredChannelMessageStore.DEFAULT_SEGMENT_SIZE);
+		assertThat(this.store.getMessageGroup("group").getMessages())
+				.extracting(Message::getPayload)
+				.containsExactly("foo", "bar");
+	}
+
+	@Test
+	public void testRecordsAfterEmptyRecordBodyAreRecovered() {
+		this.store = createStore(LogStructuredChannelMessageStore.DEFAULT_SEGMENT_SIZE);
+		this.store.addMessageToGroup("", new GenericMessage<>("foo"));
+		this.store.removeMessageGroup("");
+		this.store.addMessageToGroup("group", new GenericMessage<>("bar"));
+		this.store.destroy();
+
+		this.store = createStore(LogStructuredChannelMessageStore.DEFAULT_SEGMENT_SIZE);
+		assertThat(this.store.messageGroupSize("")).isEqualTo(0);
+		assertThat(this.store.pollMessageFromGroup("group").getPayload()).isEqualTo("bar");
+	}
+
+	private LogStructuredChannelMessageStore createStore(int segmentSize) {
+		LogStructuredChannelMessageStore store =
+				new LogStructuredChannelMessageStore(this.temporaryFolder.getRoot(), new MessageCodec(), segmentSize);
+		store.afterPropertiesSet();
+		return store;
+	}
+
+	private static Message<String> priorityMessage(String payload, int priority) {
+		return MessageBuilder.withPayload(payload)
+				.setHeader(IntegrationMessageHeaderAccessor.PRIORITY, priority)
+				.build();
+	}
+
+}
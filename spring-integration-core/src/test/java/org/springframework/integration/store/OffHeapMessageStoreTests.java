@@ -0,0 +1,158 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.UUID;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.integration.codec.kryo.MessageCodec;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessagingException;
+
+/**
+ * @since 5.1
+ */
+public class OffHeapMessageStoreTests {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private OffHeapMessageStore store;
+
+	@After
+	public void tearDown() {
+		if (this.store != null) {
+			this.store.destroy();
+		}
+	}
+
+	@Test
+	public void testGroupOperations() {
+		this.store = new OffHeapMessageStore(new MessageCodec());
+		Message<?> message1 = MessageBuilder.withPayload("foo").setHeader("bar", 1).build();
+		Message<?> message2 = MessageBuilder.withPayload("bar").build();
+		Message<?> message3 = MessageBuilder.withPayload("baz").build();
+		this.store.addMessagesToGroup("group", message1, message2, message3);
+		assertThat(this.store.messageGroupSize("group")).isEqualTo(3);
+		assertThat(this.store.getMessageCount()).isEqualTo(3);
+		assertThat(this.store.getUsedMemory()).isGreaterThan(0);
+
+		Message<?> polled = this.store.pollMessageFromGroup("group");
+		assertThat(polled).isEqualTo(message1);
+		assertThat(polled.getHeaders().get("bar")).isEqualTo(1);
+
+		this.store.removeMessagesFromGroup("group", Collections.singletonList(message3));
+		assertThat(this.store.getMessagesForGroup("group")).containsExactly(message2);
+		assertThat(this.store.getMessageCount()).isEqualTo(1);
+
+		this.store.removeMessageGroup("group");
+		assertThat(this.store.messageGroupSize("group")).isEqualTo(0);
+		assertThat(this.store.getMessageCount()).isEqualTo(0);
+		assertThat(this.store.getUsedMemory()).isEqualTo(0);
+	}
+
+	@Test
+	public void testGroupMetadataIsNotShared() {
+		this.store = new OffHeapMessageStore(new MessageCodec());
+		Message<?> message1 = MessageBuilder.withPayload("foo").build();
+		Message<?> message2 = MessageBuilder.withPayload("bar").build();
+		this.store.addMessagesToGroup("group", message1);
+		String key = this.store.getGroupPrefix() + "group";
+		MessageGroupMetadata metadata = (MessageGroupMetadata) this.store.doRetrieve(key);
+		Iterator<UUID> messageIds = metadata.messageIdIterator();
+		this.store.addMessagesToGroup("group", message2);
+		assertThat(messageIds.next()).isEqualTo(message1.getHeaders().getId());
+		assertThat(messageIds.hasNext()).isFalse();
+		assertThat(this.store.doRetrieve(key)).isNotSameAs(this.store.doRetrieve(key));
+		assertThat(((MessageGroupMetadata) this.store.doRetrieve(key)).getMessageIds())
+				.containsExactly(message1.getHeaders().getId(), message2.getHeaders().getId());
+	}
+
+	@Test
+	public void testGroupCapacity() {
+		this.store = new OffHeapMessageStore(new MessageCodec(), 2);
+		this.store.addMessagesToGroup("group", MessageBuilder.withPayload("foo").build());
+		this.store.addMessagesToGroup("group", MessageBuilder.withPayload("bar").build());
+		assertThatThrownBy(() -> this.store.addMessagesToGroup("group", MessageBuilder.withPayload("baz").build()))
+				.isInstanceOf(MessagingException.class)
+				.hasMessageContaining("out of capacity (2)");
+		this.store.pollMessageFromGroup("group");
+		this.store.addMessagesToGroup("group", MessageBuilder.withPayload("baz").build());
+		assertThat(this.store.messageGroupSize("group")).isEqualTo(2);
+	}
+
+	@Test
+	public void testMemoryIsReused() {
+		this.store = new OffHeapMessageStore(new MessageCodec(), 0, 4096, 4096);
+		char[] payload = new char[1000];
+		Arrays.fill(payload, 'x');
+		Message<?> message = MessageBuilder.withPayload(new String(payload)).build();
+		for (int i = 0; i < 100; i++) {
+			this.store.addMessagesToGroup("group", MessageBuilder.fromMessage(message).build());
+			this.store.addMessagesToGroup("group", MessageBuilder.fromMessage(message).build());
+			this.store.pollMessageFromGroup("group");
+			this.store.pollMessageFromGroup("group");
+		}
+		assertThat(this.store.getAllocatedMemory()).isEqualTo(4096);
+		for (int i = 0; i < 2; i++) {
+			this.store.addMessagesToGroup("group", MessageBuilder.fromMessage(message).build());
+		}
+		assertThatThrownBy(() -> this.store.addMessagesToGroup("group", MessageBuilder.fromMessage(message).build()))
+				.isInstanceOf(MessagingException.class)
+				.hasMessageContaining("out of off-heap memory");
+	}
+
+	@Test
+	public void testFreedBlocksAreMerged() {
+		this.store = new OffHeapMessageStore(new MessageCodec(), 0, 4096, 4096);
+		for (int i = 0; i < 16; i++) {
+			this.store.addMessagesToGroup("small", MessageBuilder.withPayload("foo").build());
+		}
+		this.store.removeMessageGroup("small");
+		assertThat(this.store.getUsedMemory()).isEqualTo(0);
+		char[] payload = new char[1000];
+		Arrays.fill(payload, 'x');
+		this.store.addMessagesToGroup("large", MessageBuilder.withPayload(new String(payload)).build());
+		this.store.addMessagesToGroup("large", MessageBuilder.withPayload(new String(payload)).build());
+		assertThat(this.store.messageGroupSize("large")).isEqualTo(2);
+		assertThat(this.store.getAllocatedMemory()).isEqualTo(4096);
+	}
+
+	@Test
+	public void testMemoryMapped() throws Exception {
+		this.store = new OffHeapMessageStore(new MessageCodec());
+		this.store.setDirectory(this.temporaryFolder.getRoot());
+		Message<?> message = MessageBuilder.withPayload("foo").build();
+		this.store.addMessage(message);
+		assertThat(this.store.getMessage(message.getHeaders().getId())).isEqualTo(message);
+		assertThat(this.temporaryFolder.getRoot().list()).hasSize(1);
+		this.store.destroy();
+		assertThat(this.temporaryFolder.getRoot().list()).isEmpty();
+	}
+
+}
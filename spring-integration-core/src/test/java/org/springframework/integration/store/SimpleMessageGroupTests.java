@@ -18,6 +18,7 @@ package org.springframework.integration.store;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.BDDMockito.willReturn;
@@ -25,6 +26,7 @@ import static org.mockito.Mockito.mock;
 
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -85,6 +87,61 @@ public class SimpleMessageGroupTests {
 		assertThat(this.sequenceAwareGroup.canAdd(message1), is(true));
 	}
 
+	@Test
+	public void testSequenceInfo() {
+		for (int i : new int[] { 5, 2, 9, 3 }) {
+			this.group.add(MessageBuilder.withPayload("test").setSequenceNumber(i).setSequenceSize(10).build());
+		}
+		this.group.add(MessageBuilder.withPayload("test").setSequenceNumber(2_000_000).build());
+		MessageGroupSequenceInfo sequenceInfo = this.group.getSequenceInfo();
+		assertEquals(5, sequenceInfo.getCount());
+		assertEquals(10, sequenceInfo.getSequenceSize());
+		assertEquals(2, sequenceInfo.getMinSequenceNumber());
+		assertEquals(2_000_000, sequenceInfo.getMaxSequenceNumber());
+		assertTrue(sequenceInfo.contains(9));
+		assertFalse(sequenceInfo.contains(4));
+
+		List<Message<?>> messages = new ArrayList<>(this.group.getMessages());
+		this.group.remove(messages.get(1));
+		this.group.remove(messages.get(4));
+		assertEquals(3, sequenceInfo.getCount());
+		assertEquals(3, sequenceInfo.getMinSequenceNumber());
+		assertEquals(9, sequenceInfo.getMaxSequenceNumber());
+		assertFalse(this.group.containsSequence(2));
+		assertTrue(this.group.containsSequence(5));
+
+		this.group.clear();
+		assertEquals(0, sequenceInfo.getCount());
+		assertEquals(-1, sequenceInfo.getMinSequenceNumber());
+	}
+
+	@Test
+	public void testSequenceIndexedGroup() {
+		MessageGroup group = new SimpleMessageGroupFactory(SimpleMessageGroupFactory.GroupType.SEQUENCE_INDEXED)
+				.create("foo");
+		for (int i : new int[] { 5, 2, 9, 3, 1000, 7 }) {
+			group.add(MessageBuilder.withPayload(i).setSequenceNumber(i).setSequenceSize(1000).build());
+		}
+		Message<?> duplicate = MessageBuilder.withPayload(-9).setSequenceNumber(9).build();
+		group.add(duplicate);
+		assertEquals(7, group.size());
+		assertFalse(((SimpleMessageGroup) group).isSequenceOrdered());
+		List<Object> payloads = new ArrayList<>();
+		for (Message<?> message : group.getMessages()) {
+			payloads.add(message.getPayload());
+		}
+		assertEquals(Arrays.asList(2, 3, 5, 7, 9, 1000, -9), payloads);
+
+		group.remove(duplicate);
+		assertTrue(((SimpleMessageGroup) group).isSequenceOrdered());
+		Message<?> first = group.getOne();
+		assertEquals(2, first.getPayload());
+		group.remove(first);
+		assertFalse(group.getMessages().contains(first));
+		assertEquals(5, group.size());
+		assertEquals(3, group.getOne().getPayload());
+	}
+
 	@SuppressWarnings("unchecked")
 	@Test // should not fail with NPE (see INT-2666)
 	public void shouldIgnoreNullValuesWhenInitializedWithCollectionContainingNulls() throws Exception {
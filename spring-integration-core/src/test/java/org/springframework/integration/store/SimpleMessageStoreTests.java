@@ -28,6 +28,7 @@ import static org.junit.Assert.fail;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -300,4 +301,37 @@ public class SimpleMessageStoreTests {
 		assertEquals(0, group.size());
 	}
 
+	@Test
+	public void testExpiryCandidatesFromTimeIndex() throws InterruptedException {
+		SimpleMessageStore store = new SimpleMessageStore();
+		List<Object> expired = new ArrayList<>();
+		store.registerMessageGroupExpiryCallback((messageGroupStore, group) -> {
+			expired.add(group.getGroupId());
+			messageGroupStore.removeMessageGroup(group.getGroupId());
+		});
+		store.addMessageToGroup("foo", new GenericMessage<>("foo"));
+		store.addMessageToGroup("bar", new GenericMessage<>("bar"));
+		long now = System.currentTimeMillis();
+		assertThat(groupIds(store.getExpiryCandidates(now - 10000)), is(Collections.emptyList()));
+		assertThat(groupIds(store.getExpiryCandidates(now + 10000)), is(Arrays.asList("foo", "bar")));
+
+		store.setTimeoutOnIdle(true);
+		Thread.sleep(10);
+		store.addMessageToGroup("foo", new GenericMessage<>("baz"));
+		long lastModified = store.getMessageGroup("foo").getLastModified();
+		assertThat(groupIds(store.getExpiryCandidates(now + 10000)), is(Arrays.asList("bar", "foo")));
+		assertThat(groupIds(store.getExpiryCandidates(lastModified - 1)), is(Collections.singletonList("bar")));
+
+		store.removeMessageGroup("bar");
+		assertEquals(1, store.expireMessageGroups(-10000));
+		assertThat(expired, is(Collections.singletonList("foo")));
+		assertThat(groupIds(store.getExpiryCandidates(now + 100000)), is(Collections.emptyList()));
+	}
+
+	private static List<Object> groupIds(Iterable<MessageGroup> groups) {
+		List<Object> groupIds = new ArrayList<>();
+		groups.forEach(group -> groupIds.add(group.getGroupId()));
+		return groupIds;
+	}
+
 }
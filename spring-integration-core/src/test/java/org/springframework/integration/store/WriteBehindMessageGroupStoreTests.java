@@ -0,0 +1,203 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.integration.aggregator.AggregatingMessageHandler;
+import org.springframework.integration.aggregator.DefaultAggregatingMessageGroupProcessor;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * @since 5.1
+ */
+public class WriteBehindMessageGroupStoreTests {
+
+	private final SimpleMessageStore targetStore = new SimpleMessageStore();
+
+	private final WriteBehindMessageGroupStore store = new WriteBehindMessageGroupStore(this.targetStore);
+
+	@Test
+	public void testAddsAreBufferedUntilFlush() {
+		Message<?> message1 = MessageBuilder.withPayload("foo").build();
+		Message<?> message2 = MessageBuilder.withPayload("bar").build();
+		MessageGroup group = this.store.addMessageToGroup("group", message1);
+		assertThat(group.getMessages()).containsExactly(message1);
+		this.store.addMessagesToGroup("group", message2);
+		assertThat(this.store.messageGroupSize("group")).isEqualTo(2);
+		assertThat(this.store.getMessageGroup("group").getMessages()).containsExactly(message1, message2);
+		assertThat(this.store.getOneMessageFromGroup("group")).isEqualTo(message1);
+		assertThat(this.store.getPendingMessageCount()).isEqualTo(2);
+		assertThat(this.targetStore.messageGroupSize("group")).isEqualTo(0);
+
+		this.store.flush();
+		assertThat(this.store.getPendingMessageCount()).isEqualTo(0);
+		assertThat(this.targetStore.getMessagesForGroup("group")).containsExactly(message1, message2);
+		assertThat(this.store.getMessagesForGroup("group")).containsExactly(message1, message2);
+	}
+
+	@Test
+	public void testViewDoesNotLoadTargetMessages() {
+		List<MessageGroup> targetGroups = new ArrayList<>();
+		SimpleMessageStore target = new SimpleMessageStore() {
+
+			@Override
+			public MessageGroup getMessageGroup(Object groupId) {
+				MessageGroup group = spy(super.getMessageGroup(groupId));
+				targetGroups.add(group);
+				return group;
+			}
+
+		};
+		Message<?> message1 = MessageBuilder.withPayload("foo").build();
+		Message<?> message2 = MessageBuilder.withPayload("bar").build();
+		Message<?> message3 = MessageBuilder.withPayload("baz").build();
+		target.addMessageToGroup("group", message1);
+		WriteBehindMessageGroupStore store = new WriteBehindMessageGroupStore(target);
+		store.addMessageToGroup("group", message2);
+		store.addMessageToGroup("group", message3);
+		assertThat(store.messageGroupSize("group")).isEqualTo(3);
+		assertThat(store.getMessageGroup("group").getOne()).isEqualTo(message1);
+		assertThat(targetGroups).isNotEmpty();
+		targetGroups.forEach(group -> verify(group, never()).getMessages());
+
+		assertThat(store.getMessagesForGroup("group")).containsExactly(message1, message2, message3);
+		store.flush();
+		assertThat(target.getMessagesForGroup("group")).containsExactly(message1, message2, message3);
+	}
+
+	@Test
+	public void testViewSequenceInfo() {
+		List<MessageGroup> targetGroups = new ArrayList<>();
+		SimpleMessageStore target = new SimpleMessageStore() {
+
+			@Override
+			public MessageGroup getMessageGroup(Object groupId) {
+				MessageGroup group = spy(super.getMessageGroup(groupId));
+				targetGroups.add(group);
+				return group;
+			}
+
+		};
+		target.addMessageToGroup("group", MessageBuilder.withPayload("foo").setSequenceNumber(1).setSequenceSize(3).build());
+		WriteBehindMessageGroupStore store = new WriteBehindMessageGroupStore(target);
+		store.addMessageToGroup("group", MessageBuilder.withPayload("bar").setSequenceNumber(2).setSequenceSize(3).build());
+		Message<?> message3 = MessageBuilder.withPayload("baz").setSequenceNumber(3).setSequenceSize(3).build();
+		store.addMessageToGroup("group", message3);
+		MessageGroupSequenceInfo sequenceInfo = store.getMessageGroup("group").getSequenceInfo();
+		assertThat(sequenceInfo.getSequenceSize()).isEqualTo(3);
+		assertThat(sequenceInfo.getDistinctSequenceCount()).isEqualTo(3);
+		assertThat(sequenceInfo.getMaxSequenceNumber()).isEqualTo(3);
+		store.removeMessagesFromGroup("group", message3);
+		assertThat(store.getMessageGroup("group").getSequenceInfo().contains(3)).isFalse();
+		assertThat(targetGroups).isNotEmpty();
+		targetGroups.forEach(group -> verify(group, never()).getMessages());
+	}
+
+	@Test
+	public void testMaxBatchSize() {
+		this.store.setMaxBatchSize(2);
+		for (int i = 0; i < 5; i++) {
+			this.store.addMessageToGroup("group", MessageBuilder.withPayload(i).build());
+		}
+		assertThat(this.targetStore.messageGroupSize("group")).isEqualTo(4);
+		assertThat(this.store.getPendingMessageCount()).isEqualTo(1);
+		assertThat(this.store.messageGroupSize("group")).isEqualTo(5);
+	}
+
+	@Test
+	public void testReleaseWritesThrough() {
+		Message<?> message1 = MessageBuilder.withPayload("foo").build();
+		Message<?> message2 = MessageBuilder.withPayload("bar").build();
+		Message<?> message3 = MessageBuilder.withPayload("baz").build();
+		this.store.addMessagesToGroup("group", message1, message2, message3);
+		this.store.removeMessagesFromGroup("group", message1, message2);
+		assertThat(this.store.getPendingMessageCount()).isEqualTo(0);
+		assertThat(this.targetStore.getMessagesForGroup("group")).containsExactly(message3);
+
+		this.store.addMessageToGroup("group", message1);
+		this.store.completeGroup("group");
+		assertThat(this.store.getPendingMessageCount()).isEqualTo(0);
+		assertThat(this.targetStore.getMessageGroup("group").isComplete()).isTrue();
+		assertThat(this.store.getMessageGroup("group").getMessages()).containsExactly(message3, message1);
+
+		this.store.addMessageToGroup("group", message2);
+		this.store.removeMessageGroup("group");
+		assertThat(this.store.getPendingMessageCount()).isEqualTo(0);
+		assertThat(this.store.getMessageGroupCount()).isEqualTo(0);
+		assertThat(this.targetStore.getMessageGroupCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void testScheduledFlush() throws Exception {
+		ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+		taskScheduler.initialize();
+		this.store.setTaskScheduler(taskScheduler);
+		this.store.setFlushInterval(10);
+		this.store.afterPropertiesSet();
+		try {
+			this.store.addMessageToGroup("group", MessageBuilder.withPayload("foo").build());
+			int n = 0;
+			while (n++ < 1000 && this.targetStore.messageGroupSize("group") == 0) {
+				Thread.sleep(10);
+			}
+			assertThat(this.targetStore.messageGroupSize("group")).isEqualTo(1);
+			assertThat(this.store.getPendingMessageCount()).isEqualTo(0);
+		}
+		finally {
+			this.store.destroy();
+			taskScheduler.destroy();
+		}
+	}
+
+	@Test
+	public void testAggregator() {
+		AggregatingMessageHandler handler =
+				new AggregatingMessageHandler(new DefaultAggregatingMessageGroupProcessor(), this.store);
+		QueueChannel outputChannel = new QueueChannel();
+		handler.setOutputChannel(outputChannel);
+		handler.setBeanFactory(mock(BeanFactory.class));
+		handler.afterPropertiesSet();
+		for (int i : new int[] { 3, 1, 2 }) {
+			handler.handleMessage(MessageBuilder.withPayload(i)
+					.setCorrelationId("group")
+					.setSequenceNumber(i)
+					.setSequenceSize(3)
+					.build());
+		}
+		Message<?> result = outputChannel.receive(0);
+		assertThat(result).isNotNull();
+		assertThat((List<?>) result.getPayload()).containsExactlyInAnyOrder(1, 2, 3);
+		assertThat(this.store.getPendingMessageCount()).isEqualTo(0);
+		assertThat(this.targetStore.getMessageGroup("group").isComplete()).isTrue();
+		assertThat(this.targetStore.messageGroupSize("group")).isEqualTo(0);
+	}
+
+}
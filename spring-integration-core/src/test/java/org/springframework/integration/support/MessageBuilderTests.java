@@ -17,12 +17,17 @@
 package org.springframework.integration.support;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 
+import java.util.UUID;
+
 import org.junit.Test;
 
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
 
 /**
  * @author Gary Russell
@@ -47,4 +52,20 @@ public class MessageBuilderTests {
 		assertNull(message.getHeaders().get("qux"));
 	}
 
+	@Test
+	public void testIdGeneratorAndSuppressIdAndTimestamp() {
+		DefaultMessageBuilderFactory factory = new DefaultMessageBuilderFactory();
+		factory.setIdGenerator(() -> new UUID(1, 2));
+		Message<?> message = factory.withPayload("bar").setHeader("foo", "baz").build();
+		assertThat(message.getHeaders().getId(), equalTo(new UUID(1, 2)));
+		assertThat(message.getHeaders().getTimestamp(), instanceOf(Long.class));
+		assertThat(message.getHeaders().get("foo"), equalTo("baz"));
+		factory.setSuppressIdAndTimestamp(true);
+		message = factory.fromMessage(message).setHeader("qux", "fiz").build();
+		assertFalse(message.getHeaders().containsKey(MessageHeaders.ID));
+		assertFalse(message.getHeaders().containsKey(MessageHeaders.TIMESTAMP));
+		assertThat(message.getHeaders().get("foo"), equalTo("baz"));
+		assertThat(message.getHeaders().get("qux"), equalTo("fiz"));
+	}
+
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.support.locks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+
+import org.junit.Test;
+
+/**
+ * @since 5.1
+ */
+public class StripedLockRegistryTests {
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBadStripes() {
+		new StripedLockRegistry(3, 16);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMaxLessThanInitial() {
+		new StripedLockRegistry(16, 8);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testNoConditions() {
+		new StripedLockRegistry().obtain("foo").newCondition();
+	}
+
+	@Test
+	public void testMutualExclusion() throws Exception {
+		StripedLockRegistry registry = new StripedLockRegistry(1, 4);
+		registry.setCollisionThreshold(1);
+		AtomicInteger inside = new AtomicInteger();
+		AtomicInteger overlaps = new AtomicInteger();
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 2000; i++) {
+					Lock lock = registry.obtain(i % 8);
+					lock.lock();
+					try {
+						if (i % 8 == 0 && inside.incrementAndGet() > 1) {
+							overlaps.incrementAndGet();
+						}
+						Thread.yield();
+						if (i % 8 == 0) {
+							inside.decrementAndGet();
+						}
+					}
+					finally {
+						lock.unlock();
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join(30000);
+		}
+		assertThat(overlaps.get()).isEqualTo(0);
+	}
+
+	@Test
+	public void testSplitThenPromoteOnCollisions() throws Exception {
+		StripedLockRegistry registry = new StripedLockRegistry(1, 2);
+		registry.setCollisionThreshold(1);
+		assertThat(registry.getStripeCount()).isEqualTo(1);
+
+		collide(registry, 0, 2);
+		assertThat(registry.getCollisionCount()).isEqualTo(1);
+		assertThat(registry.getStripeCount()).isEqualTo(2);
+		assertThat(registry.getKeyLockCount()).isEqualTo(0);
+
+		collide(registry, 0, 2);
+		assertThat(registry.getCollisionCount()).isEqualTo(2);
+		assertThat(registry.getStripeCount()).isEqualTo(2);
+		assertThat(registry.getKeyLockCount()).isEqualTo(1);
+		assertThat(registry.getContendedCount()).isEqualTo(2);
+		assertThat(registry.getWaitTime(TimeUnit.NANOSECONDS)).isGreaterThan(0);
+
+		Lock lock = registry.obtain(2);
+		lock.lock();
+		registry.expireUnusedOlderThan(-1);
+		assertThat(registry.getKeyLockCount()).isEqualTo(1);
+		lock.unlock();
+		registry.expireUnusedOlderThan(-1);
+		assertThat(registry.getKeyLockCount()).isEqualTo(0);
+	}
+
+	private void collide(StripedLockRegistry registry, int holderKey, int waiterKey) throws Exception {
+		Lock holder = registry.obtain(holderKey);
+		holder.lock();
+		CountDownLatch done = new CountDownLatch(1);
+		Thread waiter = new Thread(() -> {
+			Lock lock = registry.obtain(waiterKey);
+			lock.lock();
+			lock.unlock();
+			done.countDown();
+		});
+		waiter.start();
+		int n = 0;
+		while (waiter.getState() != Thread.State.WAITING && n++ < 1000) {
+			Thread.sleep(10);
+		}
+		holder.unlock();
+		assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+	}
+
+}
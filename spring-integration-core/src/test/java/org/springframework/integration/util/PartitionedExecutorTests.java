@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import org.springframework.core.task.TaskRejectedException;
+
+/**
+ * @since 5.1
+ */
+public class PartitionedExecutorTests {
+
+	@Test
+	public void testIdleWorkerStealsFromBlockedWorker() throws InterruptedException {
+		PartitionedExecutor executor = new PartitionedExecutor(2, 4);
+		CountDownLatch blocker = new CountDownLatch(1);
+		CountDownLatch blocked = new CountDownLatch(1);
+		executor.execute(() -> {
+			blocked.countDown();
+			try {
+				blocker.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertThat(blocked.await(10, TimeUnit.SECONDS)).isTrue();
+		// tasks without a key go round-robin to the other three partitions
+		CountDownLatch others = new CountDownLatch(3);
+		for (int i = 0; i < 3; i++) {
+			executor.execute(others::countDown);
+		}
+		assertThat(others.await(10, TimeUnit.SECONDS)).isTrue();
+		blocker.countDown();
+		executor.destroy();
+	}
+
+	@Test
+	public void testErrorHandlerAndShutdown() throws InterruptedException {
+		PartitionedExecutor executor = new PartitionedExecutor(1);
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		CountDownLatch latch = new CountDownLatch(1);
+		executor.setErrorHandler(t -> {
+			error.set(t);
+			latch.countDown();
+		});
+		executor.execute(() -> {
+			throw new IllegalStateException("test");
+		});
+		assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(error.get()).isInstanceOf(IllegalStateException.class);
+		executor.destroy();
+		try {
+			executor.execute(() -> { });
+			fail("expected TaskRejectedException");
+		}
+		catch (TaskRejectedException e) {
+			assertThat(e.getMessage()).contains("has been shut down");
+		}
+	}
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+
+/**
+ * @since 5.1
+ */
+public class PartitionedWorkersTests {
+
+	@Test
+	public void testPartitionIndex() {
+		PartitionedWorkers workers = new PartitionedWorkers(4);
+		Message<?> message = MessageBuilder.withPayload("foo").setCorrelationId("bar").build();
+		int index = workers.partitionIndex(message);
+		assertThat(workers.partitionIndex(MessageBuilder.fromMessage(message).build())).isEqualTo(index);
+		assertThat(workers.partitionIndex(null)).isEqualTo(0);
+		assertThat(workers.partitionIndex(MessageBuilder.withPayload("baz").build())).isEqualTo(1);
+
+		workers.setPartitionKeyFunction(m -> m.getPayload().hashCode());
+		assertThat(workers.partitionIndex(MessageBuilder.withPayload(-6).build())).isEqualTo(1);
+	}
+
+	@Test
+	public void testStartOnceAndStop() throws InterruptedException {
+		PartitionedWorkers workers = new PartitionedWorkers(2);
+		assertThat(workers.isStarted()).isFalse();
+		CountDownLatch ran = new CountDownLatch(2);
+		Runnable worker = () -> {
+			ran.countDown();
+			while (workers.isRunning()) {
+				try {
+					Thread.sleep(10_000);
+				}
+				catch (InterruptedException e) {
+					// check again
+				}
+			}
+		};
+		List<Thread> threads = new CopyOnWriteArrayList<>();
+		assertThat(workers.start(r -> {
+			Thread thread = new Thread(r);
+			threads.add(thread);
+			return thread;
+		}, worker, worker)).isTrue();
+		assertThat(workers.start(Thread::new, worker)).isTrue();
+		assertThat(ran.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(threads).hasSize(2);
+		assertThat(workers.isRunning()).isTrue();
+
+		workers.stop(Thread::interrupt);
+		for (Thread thread : threads) {
+			thread.join(10_000);
+			assertThat(thread.isAlive()).isFalse();
+		}
+		assertThat(workers.isRunning()).isFalse();
+		assertThat(workers.start(Thread::new, worker)).isFalse();
+	}
+
+}
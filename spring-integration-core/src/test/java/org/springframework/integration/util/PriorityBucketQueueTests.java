@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * @since 5.1
+ */
+public class PriorityBucketQueueTests {
+
+	@Test
+	public void testPriorityOrderFifoWithinPriority() {
+		PriorityBucketQueue<String> queue = new PriorityBucketQueue<>(0, 9, s -> Integer.parseInt(s.substring(0, 1)));
+		queue.add("1a");
+		queue.add("9a");
+		queue.add("1b");
+		queue.add("5a");
+		queue.add("9b");
+		assertThat(queue.size()).isEqualTo(5);
+		assertThat(queue.peek()).isEqualTo("9a");
+		assertThat(queue).containsExactly("9a", "9b", "5a", "1a", "1b");
+		assertThat(queue.remove("5a")).isTrue();
+		List<String> drained = new ArrayList<>();
+		assertThat(queue.drainTo(drained, 3)).isEqualTo(3);
+		assertThat(drained).containsExactly("9a", "9b", "1a");
+		assertThat(queue.poll()).isEqualTo("1b");
+		assertThat(queue.poll()).isNull();
+		assertThat(queue.isEmpty()).isTrue();
+	}
+
+	@Test
+	public void testOutOfRangePrioritiesAreClamped() {
+		PriorityBucketQueue<Integer> queue = new PriorityBucketQueue<>(0, 9, i -> i);
+		queue.add(-5);
+		queue.add(42);
+		queue.add(9);
+		queue.add(0);
+		assertThat(queue).containsExactly(42, 9, -5, 0);
+		Iterator<Integer> iterator = queue.iterator();
+		iterator.next();
+		iterator.remove();
+		assertThat(queue.size()).isEqualTo(3);
+		assertThat(queue.poll()).isEqualTo(9);
+	}
+
+	@Test
+	public void testWaitingConsumersAreSignalled() throws Exception {
+		PriorityBucketQueue<Integer> queue = new PriorityBucketQueue<>(0, 3, i -> i % 4);
+		int consumers = 4;
+		int perConsumer = 10000;
+		ExecutorService exec = Executors.newFixedThreadPool(consumers);
+		CountDownLatch done = new CountDownLatch(consumers);
+		AtomicInteger received = new AtomicInteger();
+		for (int i = 0; i < consumers; i++) {
+			exec.execute(() -> {
+				try {
+					for (int j = 0; j < perConsumer; j++) {
+						if (j % 2 == 0) {
+							queue.take();
+						}
+						else if (queue.poll(10, TimeUnit.SECONDS) == null) {
+							break;
+						}
+						received.incrementAndGet();
+					}
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				done.countDown();
+			});
+		}
+		for (int i = 0; i < consumers * perConsumer; i++) {
+			queue.put(i);
+		}
+		assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+		assertThat(received.get()).isEqualTo(consumers * perConsumer);
+		assertThat(queue.poll(10, TimeUnit.MILLISECONDS)).isNull();
+		exec.shutdownNow();
+	}
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+/**
+ * @since 5.1
+ */
+public class RingBufferBlockingQueueTests {
+
+	@Test
+	public void testFifoAndCapacity() {
+		RingBufferBlockingQueue<Integer> queue = new RingBufferBlockingQueue<>(3);
+		assertThat(queue.offer(1)).isTrue();
+		assertThat(queue.offer(2)).isTrue();
+		assertThat(queue.offer(3)).isTrue();
+		assertThat(queue.offer(4)).isFalse();
+		assertThat(queue.size()).isEqualTo(3);
+		assertThat(queue.remainingCapacity()).isEqualTo(0);
+		assertThat(queue.peek()).isEqualTo(1);
+		assertThat(queue.poll()).isEqualTo(1);
+		assertThat(queue.offer(4)).isTrue();
+		assertThat(queue).containsExactly(2, 3, 4);
+		List<Integer> drained = new ArrayList<>();
+		assertThat(queue.drainTo(drained)).isEqualTo(3);
+		assertThat(drained).containsExactly(2, 3, 4);
+		assertThat(queue.poll()).isNull();
+		assertThat(queue.isEmpty()).isTrue();
+	}
+
+	@Test
+	public void testRemove() {
+		RingBufferBlockingQueue<String> queue = new RingBufferBlockingQueue<>(4);
+		queue.add("foo");
+		queue.add("bar");
+		queue.add("baz");
+		assertThat(queue.remove("bar")).isTrue();
+		assertThat(queue.remove("bar")).isFalse();
+		assertThat(queue.size()).isEqualTo(2);
+		assertThat(queue).containsExactly("foo", "baz");
+		assertThat(queue.poll()).isEqualTo("foo");
+		assertThat(queue.poll()).isEqualTo("baz");
+		assertThat(queue.poll()).isNull();
+		assertThat(queue.size()).isEqualTo(0);
+	}
+
+	@Test
+	public void testRemovedHeadSlotIsReclaimedByProducer() {
+		RingBufferBlockingQueue<String> queue = new RingBufferBlockingQueue<>(2);
+		queue.add("foo");
+		queue.add("bar");
+		assertThat(queue.remove("foo")).isTrue();
+		assertThat(queue.remainingCapacity()).isEqualTo(0);
+		assertThat(queue.offer("baz")).isTrue();
+		assertThat(queue).containsExactly("bar", "baz");
+	}
+
+	@Test
+	public void testTimeouts() throws InterruptedException {
+		RingBufferBlockingQueue<String> queue = new RingBufferBlockingQueue<>(1, WaitStrategy.YIELDING);
+		assertThat(queue.poll(10, TimeUnit.MILLISECONDS)).isNull();
+		assertThat(queue.offer("foo", 10, TimeUnit.MILLISECONDS)).isTrue();
+		assertThat(queue.offer("bar", 10, TimeUnit.MILLISECONDS)).isFalse();
+		assertThat(queue.poll(10, TimeUnit.MILLISECONDS)).isEqualTo("foo");
+	}
+
+	@Test
+	public void testConcurrentProducersAndConsumers() throws Exception {
+		RingBufferBlockingQueue<Long> queue = new RingBufferBlockingQueue<>(100);
+		int producers = 4;
+		int consumers = 4;
+		long perProducer = 100_000;
+		ExecutorService exec = Executors.newFixedThreadPool(producers + consumers);
+		AtomicLong sum = new AtomicLong();
+		AtomicLong count = new AtomicLong();
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < producers; i++) {
+			futures.add(exec.submit(() -> {
+				for (long j = 1; j <= perProducer; j++) {
+					queue.put(j);
+				}
+				return null;
+			}));
+		}
+		for (int i = 0; i < consumers; i++) {
+			futures.add(exec.submit(() -> {
+				while (count.get() < producers * perProducer) {
+					Long item = queue.poll(10, TimeUnit.MILLISECONDS);
+					if (item != null) {
+						sum.addAndGet(item);
+						count.incrementAndGet();
+					}
+				}
+				return null;
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get(30, TimeUnit.SECONDS);
+		}
+		exec.shutdownNow();
+		assertThat(count.get()).isEqualTo(producers * perProducer);
+		assertThat(sum.get()).isEqualTo(producers * perProducer * (perProducer + 1) / 2);
+		assertThat(queue.isEmpty()).isTrue();
+	}
+
+	@Test
+	public void testTakeInterrupted() throws Exception {
+		RingBufferBlockingQueue<String> queue = new RingBufferBlockingQueue<>(1);
+		ExecutorService exec = Executors.newSingleThreadExecutor();
+		CountDownLatch started = new CountDownLatch(1);
+		Future<Boolean> interrupted = exec.submit(() -> {
+			started.countDown();
+			try {
+				queue.take();
+				return false;
+			}
+			catch (InterruptedException e) {
+				return true;
+			}
+		});
+		assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+		exec.shutdownNow();
+		assertThat(interrupted.get(10, TimeUnit.SECONDS)).isTrue();
+	}
+
+}
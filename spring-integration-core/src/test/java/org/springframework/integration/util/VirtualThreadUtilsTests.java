@@ -0,0 +1,58 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import org.springframework.core.task.TaskExecutor;
+
+/**
+ * @since 5.1
+ */
+public class VirtualThreadUtilsTests {
+
+	@Test
+	public void testThreadFactoryMatchesJvmSupport() {
+		ThreadFactory threadFactory = VirtualThreadUtils.virtualThreadFactory("virtual-");
+		assertThat(threadFactory != null).isEqualTo(VirtualThreadUtils.isVirtualThreadSupported());
+		if (threadFactory != null) {
+			assertThat(threadFactory.newThread(() -> { }).getName()).isEqualTo("virtual-1");
+		}
+	}
+
+	@Test
+	public void testThreadPerTaskExecutor() throws InterruptedException {
+		TaskExecutor executor = VirtualThreadUtils.threadPerTaskExecutor("perTask-");
+		CountDownLatch latch = new CountDownLatch(2);
+		AtomicReference<String> threadName = new AtomicReference<>();
+		executor.execute(() -> {
+			threadName.set(Thread.currentThread().getName());
+			latch.countDown();
+		});
+		executor.execute(latch::countDown);
+		assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(threadName.get()).startsWith("perTask-");
+	}
+
+}
@@ -23,6 +23,7 @@ import java.io.OutputStream;
 import java.net.Socket;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.net.ssl.SSLSession;
 import javax.net.ssl.SSLSocket;
@@ -46,6 +47,8 @@ public class TcpNetConnection extends TcpConnectionSupport implements Scheduling
 
 	private final Socket socket;
 
+	private final ReentrantLock sendLock = new ReentrantLock();
+
 	private volatile OutputStream socketOutputStream;
 
 	private volatile long lastRead = System.currentTimeMillis();
@@ -96,25 +99,32 @@ public class TcpNetConnection extends TcpConnectionSupport implements Scheduling
 
 	@Override
 	@SuppressWarnings("unchecked")
-	public synchronized void send(Message<?> message) throws Exception {
-		if (this.socketOutputStream == null) {
-			int writeBufferSize = this.socket.getSendBufferSize();
-			this.socketOutputStream = new BufferedOutputStream(this.socket.getOutputStream(),
-					writeBufferSize > 0 ? writeBufferSize : 8192);
-		}
-		Object object = this.getMapper().fromMessage(message);
-		this.lastSend = System.currentTimeMillis();
+	public void send(Message<?> message) throws Exception {
+		// a lock rather than a monitor, so a virtual thread blocked on the socket write does not pin its carrier
+		this.sendLock.lock();
 		try {
-			((Serializer<Object>) this.getSerializer()).serialize(object, this.socketOutputStream);
-			this.socketOutputStream.flush();
-		}
-		catch (Exception e) {
-			this.publishConnectionExceptionEvent(new MessagingException(message, "Failed TCP serialization", e));
-			this.closeConnection(true);
-			throw e;
+			if (this.socketOutputStream == null) {
+				int writeBufferSize = this.socket.getSendBufferSize();
+				this.socketOutputStream = new BufferedOutputStream(this.socket.getOutputStream(),
+						writeBufferSize > 0 ? writeBufferSize : 8192);
+			}
+			Object object = this.getMapper().fromMessage(message);
+			this.lastSend = System.currentTimeMillis();
+			try {
+				((Serializer<Object>) this.getSerializer()).serialize(object, this.socketOutputStream);
+				this.socketOutputStream.flush();
+			}
+			catch (Exception e) {
+				this.publishConnectionExceptionEvent(new MessagingException(message, "Failed TCP serialization", e));
+				this.closeConnection(true);
+				throw e;
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug(getConnectionId() + " Message sent " + message);
+			}
 		}
-		if (logger.isDebugEnabled()) {
-			logger.debug(getConnectionId() + " Message sent " + message);
+		finally {
+			this.sendLock.unlock();
 		}
 	}
 
@@ -26,8 +26,11 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import javax.sql.DataSource;
 
@@ -86,6 +89,11 @@ public class JdbcMessageStore extends AbstractMessageGroupStore implements Messa
 	 */
 	public static final String DEFAULT_TABLE_PREFIX = "INT_";
 
+	/**
+	 * Default value for the stream page size property.
+	 */
+	public static final int DEFAULT_STREAM_PAGE_SIZE = 100;
+
 	private enum Query {
 		GROUP_EXISTS("SELECT COUNT(GROUP_KEY) FROM %PREFIX%MESSAGE_GROUP where GROUP_KEY=? and REGION=?"),
 
@@ -108,6 +116,14 @@ public class JdbcMessageStore extends AbstractMessageGroupStore implements Messa
 				"(SELECT MESSAGE_ID from %PREFIX%GROUP_TO_MESSAGE where GROUP_KEY = ? and REGION = ?) and REGION = ? " +
 				"ORDER BY CREATED_DATE"),
 
+		LIST_MESSAGE_IDS_BY_GROUP_KEY("SELECT MESSAGE_ID " +
+				"from %PREFIX%MESSAGE where MESSAGE_ID in " +
+				"(SELECT MESSAGE_ID from %PREFIX%GROUP_TO_MESSAGE where GROUP_KEY = ? and REGION = ?) and REGION = ? " +
+				"ORDER BY CREATED_DATE"),
+
+		LIST_MESSAGES_BY_IDS("SELECT MESSAGE_ID, MESSAGE_BYTES " +
+				"from %PREFIX%MESSAGE where MESSAGE_ID in (%IDS%) and REGION = ?"),
+
 		POLL_FROM_GROUP("SELECT %PREFIX%MESSAGE.MESSAGE_ID, %PREFIX%MESSAGE.MESSAGE_BYTES from %PREFIX%MESSAGE " +
 				"where %PREFIX%MESSAGE.MESSAGE_ID = " +
 				"(SELECT min(m.MESSAGE_ID) from %PREFIX%MESSAGE m " +
@@ -151,7 +167,13 @@ public class JdbcMessageStore extends AbstractMessageGroupStore implements Messa
 
 		UPDATE_GROUP("UPDATE %PREFIX%MESSAGE_GROUP set UPDATED_DATE=? where GROUP_KEY=? and REGION=?"),
 
-		LIST_GROUP_KEYS("SELECT distinct GROUP_KEY as CREATED from %PREFIX%MESSAGE_GROUP where REGION=?");
+		LIST_GROUP_KEYS("SELECT distinct GROUP_KEY as CREATED from %PREFIX%MESSAGE_GROUP where REGION=?"),
+
+		LIST_GROUP_KEYS_CREATED_BEFORE("SELECT GROUP_KEY from %PREFIX%MESSAGE_GROUP"
+				+ " where REGION=? and CREATED_DATE<=?"),
+
+		LIST_GROUP_KEYS_UPDATED_BEFORE("SELECT GROUP_KEY from %PREFIX%MESSAGE_GROUP"
+				+ " where REGION=? and UPDATED_DATE<=?");
 
 		private String sql;
 
@@ -195,6 +217,8 @@ public class JdbcMessageStore extends AbstractMessageGroupStore implements Messa
 
 	private volatile Map<Query, String> queryCache = new HashMap<Query, String>();
 
+	private volatile int streamPageSize = DEFAULT_STREAM_PAGE_SIZE;
+
 	/**
 	 * Create a {@link MessageStore} with all mandatory properties.
 	 * @param dataSource a {@link DataSource}
@@ -236,6 +260,17 @@ public class JdbcMessageStore extends AbstractMessageGroupStore implements Messa
 		this.region = region;
 	}
 
+	/**
+	 * Set the number of messages read with one query by {@link #streamMessagesForGroup(Object)}.
+	 * Defaults to {@link #DEFAULT_STREAM_PAGE_SIZE}.
+	 * @param streamPageSize the page size.
+	 * @since 5.1
+	 */
+	public void setStreamPageSize(int streamPageSize) {
+		Assert.isTrue(streamPageSize > 0, "'streamPageSize' must be > 0");
+		this.streamPageSize = streamPageSize;
+	}
+
 	/**
 	 * Override the {@link LobHandler} that is used to create and unpack large objects in SQL queries. The default is
 	 * fine for almost all platforms, but some Oracle drivers require a native implementation.
@@ -557,6 +592,42 @@ public class JdbcMessageStore extends AbstractMessageGroupStore implements Messa
 				this.region, this.region);
 	}
 
+	/**
+	 * Stream the messages of the group: the ids of the messages are selected first, then the
+	 * messages are selected {@link #setStreamPageSize(int) streamPageSize} at a time, as the
+	 * stream is consumed.
+	 */
+	@Override
+	public Stream<Message<?>> streamMessagesForGroup(Object groupId) {
+		List<String> messageIds = this.jdbcTemplate.query(getQuery(Query.LIST_MESSAGE_IDS_BY_GROUP_KEY),
+				new SingleColumnRowMapper<>(String.class), getKey(groupId), this.region, this.region);
+		int pageSize = this.streamPageSize;
+		int pages = (messageIds.size() + pageSize - 1) / pageSize;
+		return IntStream.range(0, pages)
+				.mapToObj(page ->
+						messageIds.subList(page * pageSize, Math.min(messageIds.size(), (page + 1) * pageSize)))
+				.flatMap(this::getMessagesByIds);
+	}
+
+	private Stream<Message<?>> getMessagesByIds(List<String> messageIds) {
+		StringBuilder placeholders = new StringBuilder("?");
+		for (int i = 1; i < messageIds.size(); i++) {
+			placeholders.append(", ?");
+		}
+		Object[] args = messageIds.toArray(new Object[messageIds.size() + 1]);
+		args[messageIds.size()] = this.region;
+		Map<String, Message<?>> messages = new HashMap<>();
+		for (Message<?> message : this.jdbcTemplate.query(
+				StringUtils.replace(getQuery(Query.LIST_MESSAGES_BY_IDS), "%IDS%", placeholders.toString()),
+				this.mapper, args)) {
+			messages.put(getKey(message.getHeaders().getId()), message);
+		}
+		// keep the order of the ids; a message removed in the meantime is skipped
+		return messageIds.stream()
+				.map(messages::get)
+				.filter(Objects::nonNull);
+	}
+
 	@Override
 	public Iterator<MessageGroup> iterator() {
 
@@ -583,6 +654,22 @@ public class JdbcMessageStore extends AbstractMessageGroupStore implements Messa
 		};
 	}
 
+	/**
+	 * Select only the groups created (or, with {@code timeoutOnIdle}, updated) before
+	 * the threshold, rather than loading every group of the region; an index on the
+	 * {@code REGION} and {@code CREATED_DATE} or {@code UPDATED_DATE} columns of the
+	 * {@code MESSAGE_GROUP} table makes this a range scan.
+	 */
+	@Override
+	protected Iterable<MessageGroup> getExpiryCandidates(long threshold) {
+		Query query = isTimeoutOnIdle() ? Query.LIST_GROUP_KEYS_UPDATED_BEFORE : Query.LIST_GROUP_KEYS_CREATED_BEFORE;
+		List<String> groupKeys = this.jdbcTemplate.query(getQuery(query), new SingleColumnRowMapper<String>(),
+				this.region, new Timestamp(threshold));
+		return () -> groupKeys.stream()
+				.map(this::getMessageGroup)
+				.iterator();
+	}
+
 	/**
 	 * Replace patterns in the input to produce a valid SQL query. This implementation lazily initializes a
 	 * simple map-based cache, only replacing the table prefix on the first access to a named query. Further
@@ -28,11 +28,14 @@ import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.sql.DataSource;
 
@@ -306,6 +309,27 @@ public class JdbcMessageStoreTests {
 		assertEquals("bar", this.messageStore.pollMessageFromGroup(groupId).getPayload());
 	}
 
+	@Test
+	public void testStreamMessagesForGroup() throws Exception {
+		String groupId = "X";
+		this.messageStore.setStreamPageSize(2);
+		for (int i = 0; i < 5; i++) {
+			this.messageStore.addMessagesToGroup(groupId,
+					MessageBuilder.withPayload(i).setCorrelationId(groupId).build());
+			Thread.sleep(1);
+		}
+		try (Stream<Message<?>> messages = this.messageStore.streamMessagesForGroup(groupId)) {
+			assertEquals(Arrays.asList(0, 1, 2, 3, 4),
+					messages.map(Message::getPayload).collect(Collectors.toList()));
+		}
+		try (Stream<Message<?>> messages = this.messageStore.getMessageGroup(groupId).streamMessages()) {
+			assertEquals(5, messages.count());
+		}
+		try (Stream<Message<?>> messages = this.messageStore.streamMessagesForGroup("Y")) {
+			assertEquals(0, messages.count());
+		}
+	}
+
 	@Test
 	public void testExpireMessageGroupOnCreateOnly() throws Exception {
 		final String groupId = "X";
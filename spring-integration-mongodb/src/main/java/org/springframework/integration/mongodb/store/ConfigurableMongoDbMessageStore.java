@@ -23,6 +23,7 @@ import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.MongoDbFactory;
@@ -31,6 +32,8 @@ import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.data.util.StreamUtils;
 import org.springframework.integration.store.MessageGroup;
 import org.springframework.integration.store.MessageGroupMetadata;
 import org.springframework.integration.store.MessageGroupStore;
@@ -346,6 +349,19 @@ public class ConfigurableMongoDbMessageStore extends AbstractConfigurableMongoDb
 		return messages;
 	}
 
+	/**
+	 * Stream the messages of the group with a database cursor.
+	 */
+	@Override
+	public Stream<Message<?>> streamMessagesForGroup(Object groupId) {
+		Assert.notNull(groupId, "'groupId' must not be null");
+		Query query = groupOrderQuery(groupId);
+		CloseableIterator<MessageDocument> documents =
+				this.mongoTemplate.stream(query, MessageDocument.class, this.collectionName);
+		return StreamUtils.createStreamFromIterator(documents)
+				.map(MessageDocument::getMessage);
+	}
+
 	private void expire(MessageGroup group) {
 
 		RuntimeException exception = null;
@@ -26,6 +26,7 @@ import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.bson.Document;
 import org.bson.conversions.Bson;
@@ -60,6 +61,8 @@ import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.data.util.StreamUtils;
 import org.springframework.integration.history.MessageHistory;
 import org.springframework.integration.message.AdviceMessage;
 import org.springframework.integration.store.AbstractMessageGroupStore;
@@ -417,6 +420,19 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore
 				.collect(Collectors.toList());
 	}
 
+	/**
+	 * Stream the messages of the group with a database cursor.
+	 */
+	@Override
+	public Stream<Message<?>> streamMessagesForGroup(Object groupId) {
+		Assert.notNull(groupId, "'groupId' must not be null");
+		Query query = whereGroupIdOrder(groupId);
+		CloseableIterator<MessageWrapper> messageWrappers =
+				this.template.stream(query, MessageWrapper.class, this.collectionName);
+		return StreamUtils.createStreamFromIterator(messageWrappers)
+				.map(MessageWrapper::getMessage);
+	}
+
 	@Override
 	@ManagedAttribute
 	public int getMessageCountForAllMessageGroups() {
@@ -43,8 +43,12 @@ import org.springframework.util.Assert;
  */
 public class RedisMessageStore extends AbstractKeyValueMessageStore implements BeanClassLoaderAware {
 
+	private static final String GROUP_EXPIRY_INDEX_KEY = "GROUP_EXPIRY_INDEX";
+
 	private final RedisTemplate<Object, Object> redisTemplate;
 
+	private final String groupExpiryIndexKey;
+
 	private boolean valueSerializerSet;
 
 	/**
@@ -72,6 +76,7 @@ public class RedisMessageStore extends AbstractKeyValueMessageStore implements B
 		this.redisTemplate.setKeySerializer(new StringRedisSerializer());
 		this.redisTemplate.setValueSerializer(new JdkSerializationRedisSerializer());
 		this.redisTemplate.afterPropertiesSet();
+		this.groupExpiryIndexKey = prefix + GROUP_EXPIRY_INDEX_KEY;
 	}
 
 	@Override
@@ -157,6 +162,30 @@ public class RedisMessageStore extends AbstractKeyValueMessageStore implements B
 		return this.redisTemplate.keys(keyPattern);
 	}
 
+	/**
+	 * Groups are indexed by expiry timestamp in a sorted set, so the reaper only
+	 * retrieves the groups that are due.
+	 */
+	@Override
+	protected boolean isExpiryIndexSupported() {
+		return true;
+	}
+
+	@Override
+	protected void doIndexGroupForExpiry(Object groupId, long timestamp) {
+		this.redisTemplate.boundZSetOps(this.groupExpiryIndexKey).add(groupId.toString(), timestamp);
+	}
+
+	@Override
+	protected void doRemoveGroupFromExpiryIndex(Object groupId) {
+		this.redisTemplate.boundZSetOps(this.groupExpiryIndexKey).remove(groupId.toString());
+	}
+
+	@Override
+	protected Collection<?> doListGroupIdsFromExpiryIndex(long threshold) {
+		return this.redisTemplate.boundZSetOps(this.groupExpiryIndexKey).rangeByScore(Double.NEGATIVE_INFINITY, threshold);
+	}
+
 	private void rethrowAsIllegalArgumentException(SerializationException e) {
 		throw new IllegalArgumentException("If relying on the default RedisSerializer " +
 				"(JdkSerializationRedisSerializer) the Object must be Serializable. " +
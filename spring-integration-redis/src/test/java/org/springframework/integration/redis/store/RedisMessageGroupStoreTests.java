@@ -79,6 +79,7 @@ public class RedisMessageGroupStoreTests extends RedisAvailableTests {
 	public void setUpTearDown() {
 		StringRedisTemplate template = createStringRedisTemplate(getConnectionFactoryForTest());
 		template.delete(template.keys("MESSAGE_GROUP_*"));
+		template.delete("GROUP_EXPIRY_INDEX");
 	}
 
 	@Test
@@ -163,6 +164,43 @@ public class RedisMessageGroupStoreTests extends RedisAvailableTests {
 		assertEquals(0, messageGroup.size());
 	}
 
+	@Test
+	@RedisAvailable
+	public void testExpireMessageGroupsFromTimeIndex() {
+		RedisConnectionFactory jcf = getConnectionFactoryForTest();
+		RedisMessageStore store = new RedisMessageStore(jcf);
+		List<Object> expired = new ArrayList<>();
+		store.registerMessageGroupExpiryCallback((messageGroupStore, group) -> {
+			expired.add(group.getGroupId());
+			messageGroupStore.removeMessageGroup(group.getGroupId());
+		});
+
+		store.addMessageToGroup(this.groupId, new GenericMessage<>("Hello"));
+		assertEquals(0, store.expireMessageGroups(10000));
+		assertEquals(1, store.expireMessageGroups(-10000));
+		assertEquals(1, expired.size());
+		assertEquals(this.groupId.toString(), expired.get(0).toString());
+
+		StringRedisTemplate template = createStringRedisTemplate(jcf);
+		assertEquals(Long.valueOf(0), template.opsForZSet().zCard("GROUP_EXPIRY_INDEX"));
+		assertEquals(0, store.expireMessageGroups(-10000));
+	}
+
+	@Test
+	@RedisAvailable
+	public void testExpiryIndexPrunedOfDeletedGroups() {
+		RedisConnectionFactory jcf = getConnectionFactoryForTest();
+		RedisMessageStore store = new RedisMessageStore(jcf);
+		store.addMessageToGroup(this.groupId, new GenericMessage<>("Hello"));
+
+		StringRedisTemplate template = createStringRedisTemplate(jcf);
+		template.delete("MESSAGE_GROUP_" + this.groupId);
+		assertEquals(Long.valueOf(1), template.opsForZSet().zCard("GROUP_EXPIRY_INDEX"));
+
+		assertEquals(0, store.expireMessageGroups(-10000));
+		assertEquals(Long.valueOf(0), template.opsForZSet().zCard("GROUP_EXPIRY_INDEX"));
+	}
+
 	@Test
 	@RedisAvailable
 	public void testCompleteMessageGroup() {